@@ -0,0 +1,54 @@
+package uk.co.droidinactu.tpximpacttask.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.co.droidinactu.tpximpacttask.urlshortener.alias.AliasGenerator;
+import uk.co.droidinactu.tpximpacttask.urlshortener.alias.CounterAliasGenerator;
+import uk.co.droidinactu.tpximpacttask.urlshortener.alias.RandomAliasGenerator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures alias generation with several request threads generating at once.
+ * Blocks for the counter strategy come from memory, so only the generator itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class AliasGeneratorBenchmark {
+
+    @Param({"counter", "random"})
+    private String strategy;
+
+    private AliasGenerator aliasGenerator;
+
+    @Setup
+    public void setUp() {
+        if (strategy.equals("counter")) {
+            AtomicLong next = new AtomicLong();
+            aliasGenerator = new CounterAliasGenerator(size -> next.getAndAdd(size), 1000, 6);
+        } else {
+            aliasGenerator = new RandomAliasGenerator(6, 0.01, () -> 0L);
+        }
+    }
+
+    @Benchmark
+    public String nextAlias() {
+        return aliasGenerator.nextAlias();
+    }
+}
@@ -0,0 +1,43 @@
+package uk.co.droidinactu.tpximpacttask.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import uk.co.droidinactu.tpximpacttask.urlshortener.controller.UrlShortenerController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the base URL of short URLs from the incoming request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BaseUrlBenchmark {
+
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        request = new MockHttpServletRequest("POST", "/shorten");
+        request.setScheme("http");
+        request.setServerName("localhost");
+        request.setServerPort(8080);
+    }
+
+    @Benchmark
+    public String baseUrl() {
+        return UrlShortenerController.baseUrl(request);
+    }
+}
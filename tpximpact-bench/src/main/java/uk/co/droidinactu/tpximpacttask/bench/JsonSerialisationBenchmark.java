@@ -0,0 +1,67 @@
+package uk.co.droidinactu.tpximpacttask.bench;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.UrlMappingDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing lists of mappings as JSON, both as a whole list and one element at a time
+ * through a generator as the streamed GET /urls response does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerialisationBenchmark {
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<UrlMappingDto> mappings;
+
+    @Setup
+    public void setUp() {
+        mappings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String alias = "alias" + i;
+            mappings.add(new UrlMappingDto(alias, "https://example.com/some/long/path/" + i,
+                    ShortenerContext.BASE_URL + "/" + alias));
+        }
+    }
+
+    @Benchmark
+    public byte[] writeList() throws IOException {
+        return objectMapper.writeValueAsBytes(mappings);
+    }
+
+    @Benchmark
+    public void writeStreamed() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartArray();
+            for (UrlMappingDto mapping : mappings) {
+                generator.writeObject(mapping);
+            }
+            generator.writeEndArray();
+        }
+    }
+}
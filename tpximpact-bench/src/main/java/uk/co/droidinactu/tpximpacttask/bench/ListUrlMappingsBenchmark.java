@@ -0,0 +1,63 @@
+package uk.co.droidinactu.tpximpacttask.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlRequest;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.UrlMappingDto;
+import uk.co.droidinactu.tpximpacttask.urlshortener.service.UrlShortenerService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading every mapping, both collected into a list and streamed one at a time as
+ * GET /urls does, at several table sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ListUrlMappingsBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private UrlShortenerService urlShortenerService;
+
+    @Setup
+    public void setUp() {
+        context = ShortenerContext.start("urlshortener.membership.expected-aliases=" + rows);
+        ShortenerContext.load(context, rows, i -> new ShortenUrlRequest("https://example.com/" + i, null));
+        urlShortenerService = context.getBean(UrlShortenerService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<UrlMappingDto> getAllUrlMappings() {
+        return urlShortenerService.getAllUrlMappings();
+    }
+
+    @Benchmark
+    public void streamAllUrlMappings(Blackhole blackhole) {
+        urlShortenerService.streamAllUrlMappings(blackhole::consume);
+    }
+}
@@ -0,0 +1,58 @@
+package uk.co.droidinactu.tpximpacttask.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit.EndpointClass;
+import uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit.RateLimitProperties;
+import uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit.RateLimiter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what the rate limiter adds to each request, with several request threads taking tokens at once.
+ * With one client every thread updates the same bucket; with many they mostly update different ones.
+ * The budget is large enough that every request is admitted, as most are in practice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "10000"})
+    private int clients;
+
+    private RateLimiter rateLimiter;
+    private String[] clientIds;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRedirect(new RateLimitProperties.Budget(Integer.MAX_VALUE, 1_000_000_000));
+        rateLimiter = new RateLimiter(properties);
+        clientIds = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            clientIds[i] = "10.0." + (i >> 8) + "." + (i & 0xff);
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        String client = clientIds[ThreadLocalRandom.current().nextInt(clients)];
+        return rateLimiter.tryAcquire(EndpointClass.REDIRECT, client);
+    }
+}
@@ -0,0 +1,72 @@
+package uk.co.droidinactu.tpximpacttask.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import uk.co.droidinactu.tpximpacttask.exception.AliasNotFoundException;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlRequest;
+import uk.co.droidinactu.tpximpacttask.urlshortener.service.UrlShortenerService;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the alias lookup behind GET /{alias}, for aliases that exist and aliases that do not.
+ * Every alias is looked up once before measuring, so with the cache enabled hits are answered
+ * from the redirect cache and with it disabled they all go to the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedirectLookupBenchmark {
+
+    private static final int MAPPINGS = 10_000;
+
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+
+    private ConfigurableApplicationContext context;
+    private UrlShortenerService urlShortenerService;
+
+    @Setup
+    public void setUp() {
+        context = ShortenerContext.start("urlshortener.cache.enabled=" + cacheEnabled);
+        ShortenerContext.load(context, MAPPINGS, i -> new ShortenUrlRequest("https://example.com/" + i, "hit" + i));
+        urlShortenerService = context.getBean(UrlShortenerService.class);
+        for (int i = 0; i < MAPPINGS; i++) {
+            urlShortenerService.getFullUrl("hit" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String getFullUrlHit() {
+        return urlShortenerService.getFullUrl("hit" + ThreadLocalRandom.current().nextInt(MAPPINGS));
+    }
+
+    @Benchmark
+    public String getFullUrlMiss() {
+        try {
+            return urlShortenerService.getFullUrl("miss" + ThreadLocalRandom.current().nextInt(MAPPINGS));
+        } catch (AliasNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package uk.co.droidinactu.tpximpacttask.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlRequest;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlResponse;
+import uk.co.droidinactu.tpximpacttask.urlshortener.service.UrlShortenerService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creating a mapping with a generated alias, as done by POST /shorten.
+ * The table grows by one row per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortenUrlBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private UrlShortenerService urlShortenerService;
+    private ShortenUrlRequest request;
+
+    @Setup
+    public void setUp() {
+        context = ShortenerContext.start();
+        urlShortenerService = context.getBean(UrlShortenerService.class);
+        request = new ShortenUrlRequest("https://example.com/some/long/path?with=query", null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ShortenUrlResponse shortenUrl() {
+        return urlShortenerService.shortenUrl(request, ShortenerContext.BASE_URL);
+    }
+}
@@ -0,0 +1,68 @@
+package uk.co.droidinactu.tpximpacttask.bench;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import uk.co.droidinactu.tpximpacttask.TpximpactTaskApplication;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlRequest;
+import uk.co.droidinactu.tpximpacttask.urlshortener.service.BulkShortenService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Starts the URL shortener application without a web server, so that benchmarks can call its
+ * services directly against the same beans and in-memory database as a running instance.
+ */
+final class ShortenerContext {
+
+    /**
+     * The base URL short URLs are created with.
+     */
+    static final String BASE_URL = "http://localhost:8080";
+
+    private static final int LOAD_BATCH_SIZE = 10_000;
+
+    private ShortenerContext() {
+    }
+
+    /**
+     * Starts the application.
+     * SQL logging is turned off so that it does not dominate the measurements.
+     * The properties are passed as command line arguments, so they override application.properties.
+     *
+     * @param properties extra properties, as {@code name=value} pairs
+     * @return the running application context, to be closed by the caller
+     */
+    static ConfigurableApplicationContext start(String... properties) {
+        List<String> args = new ArrayList<>(List.of("--spring.jpa.show-sql=false",
+                "--logging.level.root=warn",
+                "--spring.main.banner-mode=off"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(TpximpactTaskApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Stores the given number of mappings through the bulk shorten path.
+     *
+     * @param context the running application
+     * @param count   the number of mappings to store
+     * @param request creates the request for the mapping with the given index
+     */
+    static void load(ConfigurableApplicationContext context, int count, IntFunction<ShortenUrlRequest> request) {
+        BulkShortenService bulkShortenService = context.getBean(BulkShortenService.class);
+        for (int start = 0; start < count; start += LOAD_BATCH_SIZE) {
+            int end = Math.min(count, start + LOAD_BATCH_SIZE);
+            List<ShortenUrlRequest> batch = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                batch.add(request.apply(i));
+            }
+            bulkShortenService.shortenUrls(batch, BASE_URL);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package uk.co.droidinactu.tpximpacttask.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time from launching the application to its first successful redirect, in the
+ * default mode and in the fast-start mode described in RUNNING.md.
+ * <p>
+ * Every invocation starts the jar built with the fast-start Maven profile in a new JVM, creates a
+ * mapping through POST /shorten as soon as the server accepts connections and stops the clock when
+ * GET /{alias} answers with a redirect. The {@code aot-cds} mode first extracts the jar and makes a
+ * training run to write the class data sharing archive, as the Dockerfile does.
+ * <p>
+ * The path of the jar is relative to the directory the benchmarks are run from.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final String ALIAS = "startup";
+    private static final List<String> FAST_START = List.of("-Dspring.aot.enabled=true",
+            "-Dspring.profiles.active=fast-start");
+
+    @Param({"default", "aot", "aot-cds"})
+    private String mode;
+
+    @Param("tpximpact-task/target/tpximpact-task-0.0.1-SNAPSHOT-exec.jar")
+    private String jar;
+
+    private final String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+    private Path workDirectory;
+    private List<String> command;
+    private Process process;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        workDirectory = Files.createTempDirectory("startup-benchmark");
+        String jarPath = Path.of(jar).toAbsolutePath().toString();
+        command = new ArrayList<>(List.of(java));
+        switch (mode) {
+            case "default" -> command.addAll(List.of("-jar", jarPath));
+            case "aot" -> {
+                command.addAll(FAST_START);
+                command.addAll(List.of("-jar", jarPath));
+            }
+            case "aot-cds" -> {
+                Path application = workDirectory.resolve("application");
+                Path archive = application.resolve("application.jsa");
+                Path extracted = application.resolve(Path.of(jarPath).getFileName());
+                run(List.of(java, "-Djarmode=tools", "-jar", jarPath, "extract", "--destination", application.toString()));
+                List<String> training = new ArrayList<>(List.of(java, "-XX:ArchiveClassesAtExit=" + archive));
+                training.addAll(FAST_START);
+                training.addAll(List.of("-Dspring.context.exit=onRefresh", "-jar", extracted.toString()));
+                run(training);
+                command.add("-XX:SharedArchiveFile=" + archive);
+                command.addAll(FAST_START);
+                command.addAll(List.of("-jar", extracted.toString()));
+            }
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void choosePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            baseUrl = "http://localhost:" + socket.getLocalPort();
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        process.destroy();
+        process.waitFor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(workDirectory);
+    }
+
+    @Benchmark
+    public int firstRedirect() throws IOException, InterruptedException {
+        List<String> args = new ArrayList<>(command);
+        args.addAll(List.of("--server.port=" + URI.create(baseUrl).getPort(), "--logging.level.root=warn"));
+        process = new ProcessBuilder(args)
+                .directory(workDirectory.toFile())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        HttpRequest shorten = HttpRequest.newBuilder(URI.create(baseUrl + "/shorten"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"fullUrl\":\"https://example.com/startup\",\"customAlias\":\"" + ALIAS + "\"}"))
+                .build();
+        while (true) {
+            try {
+                int status = client.send(shorten, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status != 201) {
+                    throw new IllegalStateException("POST /shorten answered " + status);
+                }
+                break;
+            } catch (ConnectException e) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("The application exited with " + process.exitValue());
+                }
+                Thread.sleep(10);
+            }
+        }
+
+        HttpRequest redirect = HttpRequest.newBuilder(URI.create(baseUrl + "/" + ALIAS)).build();
+        int status = client.send(redirect, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 302) {
+            throw new IllegalStateException("GET /" + ALIAS + " answered " + status);
+        }
+        return status;
+    }
+
+    private void run(List<String> args) throws IOException, InterruptedException {
+        Process step = new ProcessBuilder(args)
+                .directory(workDirectory.toFile())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        if (step.waitFor() != 0) {
+            throw new IllegalStateException(String.join(" ", args) + " exited with " + step.exitValue());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package uk.co.droidinactu.tpximpacttask.bench;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlRequest;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures how much database space and heap the JPA engine uses for the same mappings, with and
+ * without compact storage.
+ * <p>
+ * Not a JMH benchmark, as it measures space rather than time. For each mode it loads the mappings
+ * through the bulk shorten path twice: into an in-memory H2 database, as the application is
+ * configured by default, to measure the growth of the heap after a full collection, which then
+ * includes the database itself, and the bytes of URL data in the rows; and into an H2 database
+ * file, to measure the space H2 reports for the mapping and prefix tables. The full URLs are
+ * spread over a few dozen hosts, as they are in practice.
+ * <pre>
+ * java -Xmx4g -cp tpximpact-bench/target/benchmarks.jar uk.co.droidinactu.tpximpacttask.bench.StorageFootprint 1000000
+ * </pre>
+ */
+public final class StorageFootprint {
+
+    private static final int HOSTS = 40;
+
+    private StorageFootprint() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("%-8s %12s %12s %12s %12s %12s%n", "mode", "table bytes", "per mapping", "url bytes/row",
+                "heap bytes", "per mapping");
+        measure("plain", rows, "urlshortener.storage.compact.enabled=false");
+        measure("compact", rows, "urlshortener.storage.compact.enabled=true",
+                "urlshortener.storage.compact.base-url=" + ShortenerContext.BASE_URL);
+    }
+
+    private static void measure(String mode, int rows, String... properties) throws IOException {
+        long heapBytes;
+        long urlBytes;
+        try (ConfigurableApplicationContext context = start("jdbc:h2:mem:footprint-" + mode, rows, properties)) {
+            long heapBefore = usedHeap();
+            ShortenerContext.load(context, rows, i -> new ShortenUrlRequest(fullUrl(i), null));
+            heapBytes = usedHeap() - heapBefore;
+            Long bytes = context.getBean(JdbcTemplate.class).queryForObject(
+                    "SELECT SUM(COALESCE(OCTET_LENGTH(full_url), 0) + COALESCE(OCTET_LENGTH(short_url), 0)"
+                            + " + COALESCE(OCTET_LENGTH(full_url_suffix), 0)) FROM url_mappings", Long.class);
+            urlBytes = bytes == null ? 0 : bytes;
+        }
+        // H2 only reports the space a table takes in a database file
+        Path directory = Files.createTempDirectory("storage-footprint");
+        long tableBytes;
+        try (ConfigurableApplicationContext context = start("jdbc:h2:file:" + directory.resolve(mode), rows, properties)) {
+            ShortenerContext.load(context, rows, i -> new ShortenUrlRequest(fullUrl(i), null));
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            tableBytes = diskSpaceUsed(jdbcTemplate, "URL_MAPPINGS") + diskSpaceUsed(jdbcTemplate, "URL_PREFIXES");
+        } finally {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+        System.out.printf("%-8s %12d %12d %12d %12d %12d%n", mode, tableBytes, tableBytes / rows, urlBytes / rows,
+                heapBytes, heapBytes / rows);
+    }
+
+    private static ConfigurableApplicationContext start(String url, int rows, String... properties) {
+        String[] args = new String[properties.length + 2];
+        args[0] = "spring.datasource.url=" + url;
+        args[1] = "urlshortener.membership.expected-aliases=" + rows;
+        System.arraycopy(properties, 0, args, 2, properties.length);
+        return ShortenerContext.start(args);
+    }
+
+    /**
+     * Returns a full URL on one of a few hosts, with a path as long as typical campaign links.
+     *
+     * @param i the index of the mapping
+     * @return the full URL
+     */
+    static String fullUrl(int i) {
+        return "https://www.retailer-" + (i % HOSTS) + ".example.co.uk/products/category-" + (i % 97)
+                + "/item-" + i + "?utm_source=newsletter&utm_medium=email";
+    }
+
+    private static long diskSpaceUsed(JdbcTemplate jdbcTemplate, String table) {
+        Long bytes = jdbcTemplate.queryForObject("CALL DISK_SPACE_USED(?)", Long.class, table);
+        return bytes == null ? 0 : bytes;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
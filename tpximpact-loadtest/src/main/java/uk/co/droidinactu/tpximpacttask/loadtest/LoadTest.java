@@ -0,0 +1,213 @@
+package uk.co.droidinactu.tpximpacttask.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import uk.co.droidinactu.tpximpacttask.TpximpactTaskApplication;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * End to end load test of the URL shortener over HTTP.
+ * <p>
+ * Starts the application in this JVM on a free port unless {@code --target} names a running
+ * instance, creates {@code --mappings} mappings through POST /shorten/batch, then sends a mix of
+ * redirects, creates, deletes and listings at a constant rate. Throughput and latency
+ * percentiles are printed for every report interval and for the whole measured run.
+ */
+public class LoadTest {
+
+    private static final int POPULATE_BATCH_SIZE = 1000;
+    private static final PrintStream OUT = System.out;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.getTarget();
+        if (baseUrl == null) {
+            context = startApplication(options.getApplicationArgs());
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            populate(client, baseUrl, options.getMappings());
+            run(client, baseUrl, options);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the alias the pre-populated mapping of the given popularity rank is created with.
+     *
+     * @param rank the popularity rank, 0 being the most popular
+     * @return the alias
+     */
+    static String aliasOf(int rank) {
+        return "lt" + rank;
+    }
+
+    private static ConfigurableApplicationContext startApplication(List<String> applicationArgs) {
+        List<String> args = new ArrayList<>(List.of("--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=warn",
+                "--spring.main.banner-mode=off"));
+        args.addAll(applicationArgs);
+        return SpringApplication.run(TpximpactTaskApplication.class, args.toArray(String[]::new));
+    }
+
+    /**
+     * Creates the mappings that redirects are sent for, in batches.
+     * Aliases that already exist on the target are reported by the batch endpoint and left as they are.
+     */
+    private static void populate(HttpClient client, String baseUrl, int mappings) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        for (int first = 0; first < mappings; first += POPULATE_BATCH_SIZE) {
+            StringBuilder body = new StringBuilder("[");
+            for (int rank = first; rank < Math.min(mappings, first + POPULATE_BATCH_SIZE); rank++) {
+                if (rank > first) {
+                    body.append(',');
+                }
+                body.append("{\"fullUrl\":\"https://example.com/popular/").append(rank)
+                        .append("\",\"customAlias\":\"").append(aliasOf(rank)).append("\"}");
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/shorten/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.append(']').toString()))
+                    .build();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Populating mappings failed with status " + response.statusCode());
+            }
+        }
+        OUT.printf("Created %,d mappings on %s in %,d ms%n", mappings, baseUrl,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static void run(HttpClient client, String baseUrl, LoadTestOptions options) throws Exception {
+        OpenModelDriver driver = new OpenModelDriver(client, baseUrl, options);
+        Map<Operation, Histogram> totals = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            totals.put(operation, new Histogram(3));
+        }
+        HistogramLogWriter logWriter = null;
+        if (options.getHistogramLog() != null) {
+            logWriter = new HistogramLogWriter(options.getHistogramLog());
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(System.currentTimeMillis());
+            logWriter.outputLegend();
+        }
+
+        OUT.printf("Sending %,.0f requests/s for %s after a %s warm-up, mix %s, zipf exponent %s%n",
+                options.getRate(), options.getDuration(), options.getWarmup(), options.getMix(),
+                options.getZipfExponent());
+        HistogramLogWriter intervalLog = logWriter;
+        AtomicBoolean measuring = new AtomicBoolean();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        long intervalMillis = options.getReportInterval().toMillis();
+        reporter.scheduleAtFixedRate(() -> report(driver, totals, measuring, intervalLog, true),
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        Map<Operation, Long> warmupErrors = new EnumMap<>(Operation.class);
+        try {
+            driver.run(options.getWarmup());
+            // discard what was recorded during the warm-up, then start measuring
+            synchronized (LoadTest.class) {
+                report(driver, totals, measuring, null, true);
+                for (Operation operation : Operation.values()) {
+                    warmupErrors.put(operation, driver.errors(operation));
+                }
+                measuring.set(true);
+            }
+            driver.run(options.getDuration());
+            if (!driver.awaitInFlight(Duration.ofSeconds(30))) {
+                OUT.println("Some requests were still in flight after 30 seconds and are not counted");
+            }
+        } finally {
+            reporter.shutdown();
+            reporter.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        // add the last, partial, interval to the totals
+        report(driver, totals, measuring, intervalLog, false);
+        if (logWriter != null) {
+            logWriter.close();
+        }
+        summarise(driver, totals, warmupErrors, options.getDuration());
+    }
+
+    /**
+     * Prints the latencies of the interval that just ended and, once the warm-up is over, adds
+     * them to the totals.
+     */
+    private static synchronized void report(OpenModelDriver driver, Map<Operation, Histogram> totals,
+                                            AtomicBoolean measuring, HistogramLogWriter logWriter,
+                                            boolean print) {
+        StringBuilder line = new StringBuilder(measuring.get() ? "interval" : "warm-up ");
+        for (Operation operation : Operation.values()) {
+            Histogram interval = driver.intervalHistogram(operation);
+            if (interval.getTotalCount() == 0) {
+                continue;
+            }
+            double seconds = (interval.getEndTimeStamp() - interval.getStartTimeStamp()) / 1000.0;
+            line.append(String.format("  %s %,.0f/s p99 %.1fms", operation.label(),
+                    interval.getTotalCount() / seconds, interval.getValueAtPercentile(99) / 1000.0));
+            if (measuring.get()) {
+                totals.get(operation).add(interval);
+                if (logWriter != null) {
+                    interval.setTag(operation.label());
+                    logWriter.outputIntervalHistogram(interval);
+                }
+            }
+        }
+        if (print) {
+            OUT.println(line);
+        }
+    }
+
+    private static void summarise(OpenModelDriver driver, Map<Operation, Histogram> totals,
+                                  Map<Operation, Long> warmupErrors, Duration duration) {
+        double seconds = duration.toMillis() / 1000.0;
+        OUT.println();
+        OUT.printf("%-9s %10s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = totals.get(operation);
+            long errors = driver.errors(operation) - warmupErrors.get(operation);
+            if (histogram.getTotalCount() == 0 && errors == 0) {
+                continue;
+            }
+            OUT.printf("%-9s %,10d %,10.0f %,9d %9.1f %9.1f %9.1f %9.1f%n",
+                    operation.label(), histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                    errors,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+        }
+        if (driver.dropped() > 0) {
+            OUT.printf("%,d requests were not sent because too many were in flight; the server cannot sustain this rate%n",
+                    driver.dropped());
+        }
+    }
+}
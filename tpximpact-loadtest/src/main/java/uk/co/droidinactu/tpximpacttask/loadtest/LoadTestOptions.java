@@ -0,0 +1,111 @@
+package uk.co.droidinactu.tpximpacttask.loadtest;
+
+import lombok.Data;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for a load test run, read from {@code --name=value} command line arguments.
+ * Arguments that are not load test settings are passed on to the application when it is
+ * started locally, so e.g. {@code --urlshortener.storage.engine=log} can be tested too.
+ */
+@Data
+public class LoadTestOptions {
+
+    /**
+     * Base URL of an instance that is already running, or null to start one in this JVM.
+     */
+    private String target;
+
+    /**
+     * The number of mappings to create before the run; redirects are spread over these.
+     */
+    private int mappings = 10_000;
+
+    /**
+     * The number of requests to start per second, whether or not earlier ones have finished.
+     */
+    private double rate = 500;
+
+    /**
+     * How long to measure for, after the warm-up.
+     */
+    private Duration duration = Duration.ofSeconds(60);
+
+    /**
+     * How long to send traffic for before measuring starts.
+     */
+    private Duration warmup = Duration.ofSeconds(10);
+
+    /**
+     * The relative weight of each operation.
+     */
+    private String mix = "redirect=90,shorten=8,delete=1,list=1";
+
+    /**
+     * The skew of alias popularity for redirects, 0 for uniform and around 1 for realistic traffic.
+     */
+    private double zipfExponent = 0;
+
+    /**
+     * The page size of GET /urls requests, or 0 to fetch the whole list.
+     */
+    private int listLimit = 100;
+
+    /**
+     * The most requests that may be waiting for a response; requests due beyond this are dropped and counted.
+     */
+    private int maxInFlight = 10_000;
+
+    /**
+     * How often interval results are printed.
+     */
+    private Duration reportInterval = Duration.ofSeconds(5);
+
+    /**
+     * File to write every interval histogram to, in the HdrHistogram log format, or null for none.
+     */
+    private String histogramLog;
+
+    /**
+     * Arguments for the locally started application.
+     */
+    private List<String> applicationArgs = new ArrayList<>();
+
+    /**
+     * Reads the settings from command line arguments.
+     *
+     * @param args the command line arguments
+     * @return the settings
+     * @throws IllegalArgumentException if a setting has an invalid value
+     */
+    public static LoadTestOptions parse(String... args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String name = arg.startsWith("--") && equals > 2 ? arg.substring(2, equals) : "";
+            String value = equals > 0 ? arg.substring(equals + 1) : "";
+            switch (name) {
+                case "target" -> options.setTarget(value);
+                case "mappings" -> options.setMappings(Integer.parseInt(value));
+                case "rate" -> options.setRate(Double.parseDouble(value));
+                case "duration" -> options.setDuration(DurationStyle.detectAndParse(value));
+                case "warmup" -> options.setWarmup(DurationStyle.detectAndParse(value));
+                case "mix" -> options.setMix(value);
+                case "zipf-exponent" -> options.setZipfExponent(Double.parseDouble(value));
+                case "list-limit" -> options.setListLimit(Integer.parseInt(value));
+                case "max-in-flight" -> options.setMaxInFlight(Integer.parseInt(value));
+                case "report-interval" -> options.setReportInterval(DurationStyle.detectAndParse(value));
+                case "histogram-log" -> options.setHistogramLog(value);
+                default -> options.getApplicationArgs().add(arg);
+            }
+        }
+        if (options.getRate() <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        return options;
+    }
+}
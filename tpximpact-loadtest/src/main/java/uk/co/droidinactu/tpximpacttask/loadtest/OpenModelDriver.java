@@ -0,0 +1,199 @@
+package uk.co.droidinactu.tpximpacttask.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a constant arrival rate, whether or not earlier requests have finished.
+ * <p>
+ * Latency is measured from when each request was due to be sent, not from when it was sent,
+ * so time spent queued behind a slow server is counted instead of hidden by sending less.
+ * Latencies are recorded in microseconds into one HdrHistogram recorder per operation.
+ */
+final class OpenModelDriver {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final LoadTestOptions options;
+    private final OperationMix mix;
+    private final ZipfDistribution popularity;
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final LongAdder dropped = new LongAdder();
+    private final Semaphore inFlight;
+    private final ConcurrentLinkedQueue<String> created = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Creates a driver.
+     *
+     * @param client  the client to send requests with
+     * @param baseUrl the base URL of the instance under test
+     * @param options the load test settings
+     */
+    OpenModelDriver(HttpClient client, String baseUrl, LoadTestOptions options) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.options = options;
+        this.mix = new OperationMix(options.getMix());
+        this.popularity = new ZipfDistribution(Math.max(1, options.getMappings()), options.getZipfExponent());
+        this.inFlight = new Semaphore(options.getMaxInFlight());
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * Sends requests on the calling thread until the given time has passed.
+     *
+     * @param duration how long to send requests for
+     */
+    void run(Duration duration) {
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!inFlight.tryAcquire()) {
+                dropped.increment();
+                continue;
+            }
+            send(mix.pick(random.nextDouble()), intended);
+        }
+    }
+
+    /**
+     * Waits for requests that are still in flight to finish.
+     *
+     * @param timeout the longest time to wait
+     * @return true if every request finished
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean awaitInFlight(Duration timeout) throws InterruptedException {
+        if (inFlight.tryAcquire(options.getMaxInFlight(), timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            inFlight.release(options.getMaxInFlight());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the latencies recorded for the operation since the last call, and starts a new interval.
+     *
+     * @param operation the operation
+     * @return the latencies in microseconds
+     */
+    Histogram intervalHistogram(Operation operation) {
+        return recorders.get(operation).getIntervalHistogram();
+    }
+
+    /**
+     * Returns the number of requests for the operation that failed or got an unexpected status.
+     *
+     * @param operation the operation
+     * @return the number of errors so far
+     */
+    long errors(Operation operation) {
+        return errors.get(operation).sum();
+    }
+
+    /**
+     * Returns the number of requests that were not sent because too many were in flight.
+     *
+     * @return the number of dropped requests so far
+     */
+    long dropped() {
+        return dropped.sum();
+    }
+
+    private void send(Operation operation, long intended) {
+        String alias = null;
+        HttpRequest request;
+        switch (operation) {
+            case SHORTEN -> request = post("/shorten",
+                    "{\"fullUrl\":\"https://example.com/loadtest/" + sequence.incrementAndGet() + "\"}");
+            case DELETE -> {
+                alias = created.poll();
+                if (alias == null) {
+                    // nothing created yet, so send a redirect instead
+                    operation = Operation.REDIRECT;
+                    request = get("/" + LoadTest.aliasOf(popularity.sample(ThreadLocalRandom.current())));
+                } else {
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + alias))
+                            .timeout(REQUEST_TIMEOUT).DELETE().build();
+                }
+            }
+            case LIST -> request = get(options.getListLimit() > 0 ? "/urls?limit=" + options.getListLimit() : "/urls");
+            default -> request = get("/" + LoadTest.aliasOf(popularity.sample(ThreadLocalRandom.current())));
+        }
+
+        Operation sent = operation;
+        HttpResponse.BodyHandler<byte[]> bodyHandler = sent == Operation.SHORTEN
+                ? HttpResponse.BodyHandlers.ofByteArray()
+                : HttpResponse.BodyHandlers.replacing(null);
+        client.sendAsync(request, bodyHandler)
+                .whenComplete((response, failure) -> {
+                    long latencyNanos = System.nanoTime() - intended;
+                    inFlight.release();
+                    if (failure != null || response.statusCode() != sent.expectedStatus()) {
+                        errors.get(sent).increment();
+                        return;
+                    }
+                    recorders.get(sent).recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+                    if (sent == Operation.SHORTEN) {
+                        remember(response.body());
+                    }
+                });
+    }
+
+    private void remember(byte[] body) {
+        try {
+            String shortUrl = objectMapper.readTree(body).path("shortUrl").asText();
+            created.add(shortUrl.substring(shortUrl.lastIndexOf('/') + 1));
+        } catch (IOException e) {
+            // the mapping can still be found with GET /urls, it just won't be deleted by this run
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package uk.co.droidinactu.tpximpacttask.loadtest;
+
+/**
+ * The requests the load generator can send.
+ */
+enum Operation {
+
+    /**
+     * GET /{alias} for a pre-populated alias, chosen by popularity.
+     */
+    REDIRECT("redirect", 302),
+
+    /**
+     * POST /shorten with a generated alias.
+     */
+    SHORTEN("shorten", 201),
+
+    /**
+     * DELETE /{alias} for an alias created earlier in the run.
+     */
+    DELETE("delete", 204),
+
+    /**
+     * GET /urls, either one page or the whole list.
+     */
+    LIST("list", 200);
+
+    private final String label;
+    private final int expectedStatus;
+
+    Operation(String label, int expectedStatus) {
+        this.label = label;
+        this.expectedStatus = expectedStatus;
+    }
+
+    /**
+     * Returns the name used for the operation in the mix and in reports.
+     *
+     * @return the lower case name
+     */
+    String label() {
+        return label;
+    }
+
+    /**
+     * Returns the status code a successful response has.
+     *
+     * @return the expected HTTP status code
+     */
+    int expectedStatus() {
+        return expectedStatus;
+    }
+
+    /**
+     * Finds the operation with the given label.
+     *
+     * @param label the label, as used in the mix
+     * @return the operation
+     * @throws IllegalArgumentException if no operation has the label
+     */
+    static Operation fromLabel(String label) {
+        for (Operation operation : values()) {
+            if (operation.label.equals(label)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + label);
+    }
+}
@@ -0,0 +1,63 @@
+package uk.co.droidinactu.tpximpacttask.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Weighted choice of which operation each request performs.
+ */
+final class OperationMix {
+
+    private final Operation[] operations;
+    private final double[] cumulativeWeights;
+
+    /**
+     * Parses a mix such as {@code redirect=90,shorten=8,delete=1,list=1}.
+     * Weights are relative, so they do not have to add up to 100.
+     *
+     * @param spec comma separated operation=weight pairs
+     * @throws IllegalArgumentException if the mix is malformed or has no positive weight
+     */
+    OperationMix(String spec) {
+        Map<Operation, Double> weights = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight but got: " + part);
+            }
+            double weight = Double.parseDouble(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weights must not be negative: " + part);
+            }
+            weights.merge(Operation.fromLabel(pair[0].trim()), weight, Double::sum);
+        }
+        weights.values().removeIf(weight -> weight == 0);
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix must give at least one operation a positive weight");
+        }
+
+        operations = weights.keySet().toArray(Operation[]::new);
+        cumulativeWeights = new double[operations.length];
+        double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        double sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += weights.get(operations[i]);
+            cumulativeWeights[i] = sum / total;
+        }
+    }
+
+    /**
+     * Picks an operation.
+     *
+     * @param uniform a uniformly distributed value in [0, 1)
+     * @return the operation whose share of the weights the value falls in
+     */
+    Operation pick(double uniform) {
+        for (int i = 0; i < operations.length - 1; i++) {
+            if (uniform < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+}
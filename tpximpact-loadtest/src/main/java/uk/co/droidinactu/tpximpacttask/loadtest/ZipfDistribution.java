@@ -0,0 +1,57 @@
+package uk.co.droidinactu.tpximpacttask.loadtest;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Picks alias ranks so that the alias of rank k is requested in proportion to 1 / (k + 1)^s.
+ * <p>
+ * An exponent of 0 makes every alias equally popular. Around 1 a few aliases take most of the
+ * traffic, as with links shared on social media, which is what decides how much a node gains
+ * from its redirect cache.
+ */
+final class ZipfDistribution {
+
+    private final int size;
+    private final double[] cumulative;
+
+    /**
+     * Creates the distribution.
+     *
+     * @param size     the number of aliases
+     * @param exponent the skew, 0 for uniform
+     */
+    ZipfDistribution(int size, double exponent) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be at least 1");
+        }
+        this.size = size;
+        if (exponent == 0) {
+            this.cumulative = null;
+            return;
+        }
+        cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    /**
+     * Picks a rank.
+     *
+     * @param random the source of randomness
+     * @return a rank from 0, the most popular, to size - 1
+     */
+    int sample(RandomGenerator random) {
+        if (cumulative == null) {
+            return random.nextInt(size);
+        }
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, size - 1);
+    }
+}
@@ -0,0 +1,26 @@
+package uk.co.droidinactu.tpximpacttask.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationMixTest {
+
+    @Test
+    void pick_ShouldSplitByRelativeWeight() {
+        // Arrange
+        OperationMix mix = new OperationMix("redirect=3, shorten=1, list=0");
+
+        // Act & Assert
+        assertEquals(Operation.REDIRECT, mix.pick(0.0));
+        assertEquals(Operation.REDIRECT, mix.pick(0.74));
+        assertEquals(Operation.SHORTEN, mix.pick(0.75));
+        assertEquals(Operation.SHORTEN, mix.pick(0.999));
+    }
+
+    @Test
+    void constructor_ShouldRejectUnknownOperation() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new OperationMix("redirect=1,update=1"));
+    }
+}
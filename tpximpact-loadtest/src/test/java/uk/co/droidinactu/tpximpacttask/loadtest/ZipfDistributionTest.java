@@ -0,0 +1,46 @@
+package uk.co.droidinactu.tpximpacttask.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipfDistributionTest {
+
+    @Test
+    void sample_ShouldFavourLowRanks_WhenSkewed() {
+        // Arrange
+        ZipfDistribution distribution = new ZipfDistribution(1000, 1.0);
+        Random random = new Random(42);
+        int[] counts = new int[1000];
+
+        // Act
+        for (int i = 0; i < 100_000; i++) {
+            counts[distribution.sample(random)]++;
+        }
+
+        // Assert
+        // rank 0 should get about 1 / H(1000), or 13%, of the samples and rank 9 a tenth of that
+        assertTrue(counts[0] > 12_000 && counts[0] < 14_000, "rank 0 got " + counts[0]);
+        assertTrue(counts[9] > 1_100 && counts[9] < 1_500, "rank 9 got " + counts[9]);
+    }
+
+    @Test
+    void sample_ShouldStayInRange_WhenUniform() {
+        // Arrange
+        ZipfDistribution distribution = new ZipfDistribution(10, 0);
+        Random random = new Random(42);
+        int[] counts = new int[10];
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            counts[distribution.sample(random)]++;
+        }
+
+        // Assert
+        for (int count : counts) {
+            assertTrue(count > 800 && count < 1_200, "got " + count);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package uk.co.droidinactu.tpximpacttask.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+/**
+ * Non-blocking deployment of the URL shortener API, served by WebFlux on a handful of
+ * event loop threads with R2DBC for data access.
+ */
+@SpringBootApplication
+@ConfigurationPropertiesScan
+public class TpximpactTaskReactiveApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(TpximpactTaskReactiveApplication.class, args);
+    }
+
+}
@@ -0,0 +1,16 @@
+package uk.co.droidinactu.tpximpacttask.reactive.exception;
+
+/**
+ * Exception thrown when a custom alias is already taken.
+ */
+public class AliasTakenException extends RuntimeException {
+
+    /**
+     * Constructs a new AliasTakenException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public AliasTakenException(String message) {
+        super(message);
+    }
+}
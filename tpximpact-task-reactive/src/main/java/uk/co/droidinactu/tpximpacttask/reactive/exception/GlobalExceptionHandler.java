@@ -0,0 +1,94 @@
+package uk.co.droidinactu.tpximpacttask.reactive.exception;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Global exception handler for the application.
+ * Provides the same error responses as the servlet deployment.
+ */
+@ControllerAdvice
+public class GlobalExceptionHandler {
+
+    /**
+     * Handles IllegalArgumentException.
+     * Used for business logic validation errors like an invalid cursor or limit.
+     *
+     * @param ex The exception
+     * @return A response entity with a 400 Bad Request status and error message
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException ex) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("error", ex.getMessage());
+        return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles AliasTakenException.
+     * Used when a custom alias is already taken.
+     *
+     * @param ex The exception
+     * @return A response entity with a 400 Bad Request status and error message
+     */
+    @ExceptionHandler(AliasTakenException.class)
+    public ResponseEntity<Map<String, String>> handleAliasTakenException(AliasTakenException ex) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("error", ex.getMessage());
+        return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles AliasNotFoundException.
+     * Used when an alias is not found.
+     *
+     * @param ex The exception
+     * @return A response entity with a 404 Not Found status and error message
+     */
+    @ExceptionHandler(AliasNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleAliasNotFoundException(AliasNotFoundException ex) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("error", ex.getMessage());
+        return new ResponseEntity<>(errors, HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handles validation errors from @Valid annotations.
+     * Used for request body validation errors.
+     *
+     * @param ex The exception
+     * @return A response entity with a 400 Bad Request status and field-specific error messages
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Map<String, String>> handleValidationExceptions(WebExchangeBindException ex) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getBindingResult().getAllErrors().forEach(error -> {
+            String fieldName = ((FieldError) error).getField();
+            String errorMessage = error.getDefaultMessage();
+            errors.put(fieldName, errorMessage);
+        });
+        return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles failures to obtain a database connection.
+     * Used when every pooled connection is in use and the request timed out waiting for one.
+     *
+     * @param ex The exception
+     * @return A response entity with a 503 Service Unavailable status and error message
+     */
+    @ExceptionHandler(DataAccessResourceFailureException.class)
+    public ResponseEntity<Map<String, String>> handleConnectionUnavailableException(Exception ex) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("error", "The service is busy, please retry");
+        return new ResponseEntity<>(errors, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
@@ -0,0 +1,25 @@
+package uk.co.droidinactu.tpximpacttask.reactive.urlshortener.alias;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for how aliases are generated when no custom alias is supplied.
+ * <p>
+ * Aliases are always random here: the insert itself detects a collision, so a fresh alias
+ * costs no extra round trip and there is no counter block to lease.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.alias")
+public class AliasProperties {
+
+    /**
+     * The length of generated aliases.
+     */
+    private int minLength = 6;
+
+    /**
+     * The number of generated aliases to try before giving up because they are all taken.
+     */
+    private int maxAttempts = 10;
+}
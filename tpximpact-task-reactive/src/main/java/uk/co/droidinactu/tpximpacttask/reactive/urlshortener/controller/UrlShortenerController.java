@@ -0,0 +1,213 @@
+package uk.co.droidinactu.tpximpacttask.reactive.urlshortener.controller;
+
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import uk.co.droidinactu.tpximpacttask.reactive.exception.AliasNotFoundException;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.dto.ShortenUrlRequest;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.dto.ShortenUrlResponse;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.dto.UrlMappingDto;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.model.UrlMapping;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.service.UrlShortenerService;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Controller for URL shortening operations, serving the same API as the servlet deployment
+ * without blocking the event loop.
+ */
+@RestController
+@Slf4j
+public class UrlShortenerController {
+
+    /**
+     * The largest page that may be requested from GET /urls.
+     */
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private static final URI ERROR_LOCATION = URI.create("/error");
+
+    /**
+     * The characters other than letters and digits that may appear in a URI: unreserved, reserved and the escape character.
+     */
+    private static final String URI_CHARACTERS = "-._~:/?#[]@!$&'()*+,;=%";
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final UrlShortenerService urlShortenerService;
+
+    @Autowired
+    public UrlShortenerController(UrlShortenerService urlShortenerService) {
+        this.urlShortenerService = urlShortenerService;
+    }
+
+    /**
+     * Endpoint to shorten a URL.
+     * POST /shorten
+     *
+     * @param request       The request containing the URL to shorten and optional custom alias
+     * @param serverRequest The HTTP request
+     * @return A response containing the shortened URL
+     */
+    @PostMapping("/shorten")
+    public Mono<ResponseEntity<ShortenUrlResponse>> shortenUrl(
+            @Valid @RequestBody ShortenUrlRequest request,
+            ServerHttpRequest serverRequest) {
+        return urlShortenerService.shortenUrl(request, baseUrl(serverRequest))
+                .doOnNext(response -> log.info("URL Shortened from {} to {}", request.getFullUrl(), response.getShortUrl()))
+                .map(response -> new ResponseEntity<>(response, HttpStatus.CREATED));
+    }
+
+    /**
+     * Endpoint to redirect to the full URL.
+     * GET /{alias}
+     * <p>
+     * The location is set from the stored string rather than parsed as a {@link URI}, so full URLs
+     * that are not strictly valid URIs, such as ones containing spaces, still redirect as they do in
+     * the servlet deployment.
+     *
+     * @param alias The alias to look up
+     * @return A redirect to the full URL
+     */
+    @GetMapping("/{alias}")
+    public Mono<ResponseEntity<Void>> redirectToFullUrl(@PathVariable String alias) {
+        return urlShortenerService.getFullUrl(alias)
+                .map(fullUrl -> ResponseEntity.status(HttpStatus.FOUND)
+                        .header(HttpHeaders.LOCATION, location(fullUrl))
+                        .build());
+    }
+
+    /**
+     * Percent-encodes the characters of a full URL that may not appear in a URI, as UTF-8, leaving
+     * every other character, including existing escapes, as it is.
+     *
+     * @param fullUrl The full URL
+     * @return A value for the Location header
+     */
+    static String location(String fullUrl) {
+        StringBuilder location = new StringBuilder(fullUrl.length());
+        for (byte b : fullUrl.getBytes(StandardCharsets.UTF_8)) {
+            int c = b & 0xFF;
+            if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                    || URI_CHARACTERS.indexOf(c) >= 0) {
+                location.append((char) c);
+            } else {
+                location.append('%').append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            }
+        }
+        return location.toString();
+    }
+
+    /**
+     * Custom exception handler for the redirect endpoint.
+     * Unknown aliases get a 404 pointing at the error page, as in the servlet deployment.
+     *
+     * @param ex The exception
+     * @return A 404 response with the error page as its location
+     */
+    @ExceptionHandler(AliasNotFoundException.class)
+    public ResponseEntity<Void> handleAliasNotFoundException(AliasNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).location(ERROR_LOCATION).build();
+    }
+
+    /**
+     * Endpoint to delete a shortened URL.
+     * DELETE /{alias}
+     *
+     * @param alias The alias to delete
+     * @return No content if successful, not found if alias doesn't exist
+     */
+    @DeleteMapping("/{alias}")
+    public Mono<ResponseEntity<Void>> deleteUrlMapping(@PathVariable String alias) {
+        return urlShortenerService.deleteUrlMapping(alias)
+                .then(Mono.just(new ResponseEntity<Void>(HttpStatus.NO_CONTENT)));
+    }
+
+    /**
+     * Endpoint to list all shortened URLs.
+     * GET /urls
+     * <p>
+     * The mappings are written as they are read from the database, and rows are only fetched as
+     * fast as the client consumes the response. The response is a JSON array, or newline delimited
+     * JSON if the client accepts {@code application/x-ndjson}.
+     *
+     * @return A streamed list of all shortened URLs
+     */
+    @GetMapping(value = "/urls", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<UrlMappingDto> getAllUrlMappings() {
+        return urlShortenerService.streamAllUrlMappings();
+    }
+
+    /**
+     * Endpoint to list one page of shortened URLs.
+     * GET /urls?limit={limit}&amp;cursor={cursor}
+     * <p>
+     * Pages are returned in creation order. When there are more mappings, the cursor for the next
+     * page is returned in the {@code X-Next-Cursor} header and as a {@code Link} header with
+     * {@code rel="next"}.
+     *
+     * @param limit         The maximum number of mappings to return, capped at 1000
+     * @param cursor        The cursor from the previous page, omitted for the first page
+     * @param serverRequest The HTTP request
+     * @return A page of shortened URLs
+     */
+    @GetMapping(value = "/urls", params = "limit")
+    public Mono<ResponseEntity<List<UrlMappingDto>>> getUrlMappingsPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            ServerHttpRequest serverRequest) {
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("limit must be at least 1"));
+        }
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        return urlShortenerService.getUrlMappingsPage(cursor, pageSize)
+                .collectList()
+                .map(mappings -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    if (mappings.size() == pageSize) {
+                        String nextCursor = UrlShortenerService.encodeCursor(mappings.get(mappings.size() - 1));
+                        String next = UriComponentsBuilder.fromUri(serverRequest.getURI())
+                                .replaceQueryParam("cursor", nextCursor)
+                                .toUriString();
+                        headers.add("X-Next-Cursor", nextCursor);
+                        headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+                    }
+                    List<UrlMappingDto> items = mappings.stream().map(urlShortenerService::convertToDto).toList();
+                    return new ResponseEntity<>(items, headers, HttpStatus.OK);
+                });
+    }
+
+    /**
+     * Gets the base URL that short URLs are built on from the HTTP request.
+     * The scheme, host and port are taken from the request URI, which honours forwarded headers
+     * when {@code server.forward-headers-strategy} is set.
+     *
+     * @param request The HTTP request
+     * @return The base URL
+     */
+    static String baseUrl(ServerHttpRequest request) {
+        return UriComponentsBuilder.fromUri(request.getURI())
+                .replacePath(request.getPath().contextPath().value())
+                .replaceQuery(null)
+                .fragment(null)
+                .toUriString();
+    }
+}
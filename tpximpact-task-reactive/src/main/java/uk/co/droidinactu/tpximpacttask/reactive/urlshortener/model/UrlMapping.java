@@ -0,0 +1,47 @@
+package uk.co.droidinactu.tpximpacttask.reactive.urlshortener.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of the url_mappings table, mapped with Spring Data R2DBC.
+ * The table is created by schema.sql with the same columns as the JPA entity in the servlet deployment.
+ */
+@Table("url_mappings")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UrlMapping {
+
+    /**
+     * The alias/short identifier for the URL.
+     * This is the primary key.
+     */
+    @Id
+    private String alias;
+
+    /**
+     * The original/full URL.
+     */
+    private String fullUrl;
+
+    /**
+     * The complete shortened URL.
+     */
+    private String shortUrl;
+
+    /**
+     * true indicates that this shortened url was created using a user supplied custom string.
+     */
+    private Boolean isCustomised = false;
+
+    /**
+     * The date and time when the URL mapping was created.
+     */
+    private LocalDateTime createdAt;
+}
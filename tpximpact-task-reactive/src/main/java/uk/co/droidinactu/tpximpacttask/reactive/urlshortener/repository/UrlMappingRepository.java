@@ -0,0 +1,69 @@
+package uk.co.droidinactu.tpximpacttask.reactive.urlshortener.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.model.UrlMapping;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reactive repository for the UrlMapping table.
+ * Rows are emitted as the driver reads them, so downstream demand controls how fast they are fetched.
+ */
+@Repository
+public interface UrlMappingRepository extends R2dbcRepository<UrlMapping, String> {
+
+    /**
+     * Finds the full URL for an alias without mapping the rest of the row.
+     *
+     * @param alias the alias to look up
+     * @return the full URL, or empty if there is no mapping for the alias
+     */
+    @Query("SELECT full_url FROM url_mappings WHERE alias = :alias")
+    Mono<String> findFullUrlByAlias(String alias);
+
+    /**
+     * Deletes the mapping for an alias.
+     *
+     * @param alias the alias to delete
+     * @return the number of rows deleted
+     */
+    @Modifying
+    @Query("DELETE FROM url_mappings WHERE alias = :alias")
+    Mono<Integer> deleteByAlias(String alias);
+
+    /**
+     * Finds every mapping in creation order.
+     *
+     * @return all mappings, oldest first
+     */
+    @Query("SELECT * FROM url_mappings ORDER BY created_at, alias")
+    Flux<UrlMapping> findAllInCreationOrder();
+
+    /**
+     * Finds the first page of mappings in creation order.
+     *
+     * @param limit the maximum number of mappings to return
+     * @return the oldest mappings
+     */
+    @Query("SELECT * FROM url_mappings ORDER BY created_at, alias LIMIT :limit")
+    Flux<UrlMapping> findFirstPage(int limit);
+
+    /**
+     * Finds the page of mappings that follows the given keyset position in creation order.
+     * Uses the (created_at, alias) index, so the cost does not grow with how far into the table the page is.
+     *
+     * @param createdAt the creation time of the last mapping on the previous page
+     * @param alias     the alias of the last mapping on the previous page
+     * @param limit     the maximum number of mappings to return
+     * @return the next mappings
+     */
+    @Query("SELECT * FROM url_mappings"
+            + " WHERE created_at > :createdAt OR (created_at = :createdAt AND alias > :alias)"
+            + " ORDER BY created_at, alias LIMIT :limit")
+    Flux<UrlMapping> findPageAfter(LocalDateTime createdAt, String alias, int limit);
+}
@@ -0,0 +1,213 @@
+package uk.co.droidinactu.tpximpacttask.reactive.urlshortener.service;
+
+import io.r2dbc.spi.R2dbcException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.UncategorizedR2dbcException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import uk.co.droidinactu.tpximpacttask.reactive.exception.AliasNotFoundException;
+import uk.co.droidinactu.tpximpacttask.reactive.exception.AliasTakenException;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.alias.AliasProperties;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.dto.ShortenUrlRequest;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.dto.ShortenUrlResponse;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.dto.UrlMappingDto;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.model.UrlMapping;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.repository.UrlMappingRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Non-blocking service class for URL shortening operations.
+ * Every method returns a publisher that does no work until it is subscribed to.
+ */
+@Service
+public class UrlShortenerService {
+
+    private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+    private final UrlMappingRepository urlMappingRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final int aliasLength;
+    private final int maxAliasAttempts;
+
+    @Autowired
+    public UrlShortenerService(UrlMappingRepository urlMappingRepository,
+                               R2dbcEntityTemplate entityTemplate,
+                               AliasProperties aliasProperties) {
+        this.urlMappingRepository = urlMappingRepository;
+        this.entityTemplate = entityTemplate;
+        this.aliasLength = aliasProperties.getMinLength();
+        this.maxAliasAttempts = aliasProperties.getMaxAttempts();
+    }
+
+    /**
+     * Shortens a URL based on the provided request.
+     * The mapping is inserted directly and a primary key violation tells us the alias was taken,
+     * so there is no separate existence check. Any other constraint violation, such as a value too
+     * long for its column, is reported as a bad request rather than a taken alias.
+     *
+     * @param request The request containing the URL to shorten and optional custom alias
+     * @param baseUrl The base URL the short URL is built on, e.g. {@code http://localhost:8081}
+     * @return A response containing the shortened URL, or an {@link AliasTakenException} error
+     * if the custom alias is already taken, or an {@link IllegalArgumentException} error if the
+     * mapping could not be stored
+     */
+    public Mono<ShortenUrlResponse> shortenUrl(ShortenUrlRequest request, String baseUrl) {
+        String customAlias = request.getCustomAlias();
+        if (customAlias == null || customAlias.trim().isEmpty()) {
+            return Mono.defer(() -> insert(request.getFullUrl(), generateAlias(), false, baseUrl))
+                    .retryWhen(Retry.max(maxAliasAttempts - 1)
+                            .filter(DuplicateKeyException.class::isInstance)
+                            .onRetryExhaustedThrow((spec, signal) -> new IllegalStateException(
+                                    "Unable to generate a free alias after " + maxAliasAttempts + " attempts",
+                                    signal.failure())))
+                    .onErrorMap(UrlShortenerService::isOtherViolation, UrlShortenerService::notStored);
+        }
+        return insert(request.getFullUrl(), customAlias, true, baseUrl)
+                .onErrorMap(DuplicateKeyException.class,
+                        e -> new AliasTakenException("Custom alias is already taken: " + customAlias))
+                .onErrorMap(UrlShortenerService::isOtherViolation, UrlShortenerService::notStored);
+    }
+
+    /**
+     * Returns whether the insert was rejected for anything other than a taken alias. Data exceptions,
+     * such as a value too long for its column, are not categorised by Spring, so are recognised by
+     * their SQL state.
+     */
+    private static boolean isOtherViolation(Throwable e) {
+        if (e instanceof DuplicateKeyException) {
+            return false;
+        }
+        if (e instanceof DataIntegrityViolationException) {
+            return true;
+        }
+        return e instanceof UncategorizedR2dbcException && e.getCause() instanceof R2dbcException cause
+                && cause.getSqlState() != null && cause.getSqlState().startsWith("22");
+    }
+
+    private static IllegalArgumentException notStored(Throwable e) {
+        return new IllegalArgumentException("The URL could not be stored", e);
+    }
+
+    private Mono<ShortenUrlResponse> insert(String fullUrl, String alias, boolean customised, String baseUrl) {
+        UrlMapping urlMapping = new UrlMapping(alias, fullUrl, baseUrl + "/" + alias, customised, LocalDateTime.now());
+        return entityTemplate.insert(urlMapping)
+                .map(saved -> new ShortenUrlResponse(saved.getShortUrl()));
+    }
+
+    /**
+     * Retrieves the full URL for the given alias.
+     *
+     * @param alias The alias to look up
+     * @return The full URL, or an {@link AliasNotFoundException} error if the alias is not found
+     */
+    public Mono<String> getFullUrl(String alias) {
+        return urlMappingRepository.findFullUrlByAlias(alias)
+                .switchIfEmpty(Mono.error(() -> new AliasNotFoundException("Alias not found: " + alias)));
+    }
+
+    /**
+     * Deletes a URL mapping by alias.
+     *
+     * @param alias The alias to delete
+     * @return Completes once deleted, or an {@link AliasNotFoundException} error if the alias is not found
+     */
+    public Mono<Void> deleteUrlMapping(String alias) {
+        return urlMappingRepository.deleteByAlias(alias)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.error(new AliasNotFoundException("Alias not found: " + alias))
+                        : Mono.empty());
+    }
+
+    /**
+     * Streams every URL mapping in creation order.
+     * Rows are only fetched as fast as the subscriber requests them.
+     *
+     * @return All URL mappings
+     */
+    public Flux<UrlMappingDto> streamAllUrlMappings() {
+        return urlMappingRepository.findAllInCreationOrder().map(this::convertToDto);
+    }
+
+    /**
+     * Lists one page of URL mappings in creation order, using keyset pagination.
+     *
+     * @param cursor The cursor returned with the previous page, or null for the first page
+     * @param limit  The maximum number of mappings to return
+     * @return The mappings on the page
+     */
+    public Flux<UrlMapping> getUrlMappingsPage(String cursor, int limit) {
+        if (cursor == null || cursor.isEmpty()) {
+            return urlMappingRepository.findFirstPage(limit);
+        }
+        return Mono.fromCallable(() -> decodeCursor(cursor))
+                .flatMapMany(position -> urlMappingRepository.findPageAfter(
+                        LocalDateTime.parse(position[0]), position[1], limit));
+    }
+
+    /**
+     * Converts a UrlMapping entity to a UrlMappingDto.
+     *
+     * @param urlMapping The entity to convert
+     * @return The DTO
+     */
+    public UrlMappingDto convertToDto(UrlMapping urlMapping) {
+        return new UrlMappingDto(urlMapping.getAlias(), urlMapping.getFullUrl(), urlMapping.getShortUrl());
+    }
+
+    /**
+     * Encodes the keyset position of a mapping as an opaque cursor.
+     * Cursors are interchangeable with those issued by the servlet deployment.
+     *
+     * @param urlMapping The last mapping on a page
+     * @return The cursor for the page after it
+     */
+    public static String encodeCursor(UrlMapping urlMapping) {
+        String position = urlMapping.getCreatedAt() + "|" + urlMapping.getAlias();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor into its creation time and alias.
+     *
+     * @param cursor The cursor to decode
+     * @return The creation time and alias
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|", 2);
+            if (parts.length == 2) {
+                LocalDateTime.parse(parts[0]);
+                return parts;
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // fall through to the error below
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+
+    /**
+     * Generates a random alias.
+     *
+     * @return A random alias of the configured length
+     */
+    private String generateAlias() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] chars = new char[aliasLength];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = CHARACTERS.charAt(random.nextInt(CHARACTERS.length()));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS url_mappings (
+    alias         VARCHAR(255)  NOT NULL PRIMARY KEY,
+    full_url      VARCHAR(2048) NOT NULL,
+    short_url     VARCHAR(2048) NOT NULL,
+    is_customised BOOLEAN       NOT NULL,
+    created_at    TIMESTAMP(6)  NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_url_mappings_created_at_alias ON url_mappings (created_at, alias);
@@ -0,0 +1,127 @@
+package uk.co.droidinactu.tpximpacttask.reactive.urlshortener.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.dto.ShortenUrlRequest;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.dto.ShortenUrlResponse;
+import uk.co.droidinactu.tpximpacttask.reactive.urlshortener.dto.UrlMappingDto;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UrlShortenerControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void shortenUrl_ShouldCreateRedirectThatCanBeDeleted() {
+        // Arrange
+        ShortenUrlRequest request = new ShortenUrlRequest("https://example.com/reactive", "reactive");
+
+        // Act
+        ShortenUrlResponse response = webTestClient.post().uri("/shorten")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(ShortenUrlResponse.class)
+                .returnResult().getResponseBody();
+
+        // Assert
+        assertNotNull(response);
+        assertTrue(response.getShortUrl().startsWith("http://localhost:"));
+        assertTrue(response.getShortUrl().endsWith("/reactive"));
+        webTestClient.get().uri("/reactive")
+                .exchange()
+                .expectStatus().isFound()
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, "https://example.com/reactive");
+        webTestClient.post().uri("/shorten")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("Custom alias is already taken: reactive");
+        webTestClient.delete().uri("/reactive").exchange().expectStatus().isNoContent();
+        webTestClient.delete().uri("/reactive").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void shortenUrl_ShouldRejectAUrlTooLongToStore_WithoutReportingTheAliasTaken() {
+        // Arrange
+        String tooLong = "https://example.com/" + "a".repeat(2100);
+
+        // Act & Assert
+        webTestClient.post().uri("/shorten")
+                .bodyValue(new ShortenUrlRequest(tooLong, "too-long"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("The URL could not be stored");
+        webTestClient.post().uri("/shorten")
+                .bodyValue(new ShortenUrlRequest(tooLong, null))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("The URL could not be stored");
+        webTestClient.post().uri("/shorten")
+                .bodyValue(new ShortenUrlRequest("https://example.com/short-enough", "too-long"))
+                .exchange()
+                .expectStatus().isCreated();
+    }
+
+    @Test
+    void redirectToFullUrl_ShouldRedirect_ToFullUrlsThatAreNotStrictlyValidUris() {
+        // Arrange
+        webTestClient.post().uri("/shorten")
+                .bodyValue(new ShortenUrlRequest("https://example.com/a b|c/\u00e9?q=1%202", "lenient"))
+                .exchange()
+                .expectStatus().isCreated();
+
+        // Act & Assert
+        webTestClient.get().uri("/lenient")
+                .exchange()
+                .expectStatus().isFound()
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, "https://example.com/a%20b%7Cc/%C3%A9?q=1%202");
+    }
+
+    @Test
+    void redirectToFullUrl_ShouldReturnNotFound_WhenAliasIsUnknown() {
+        // Act & Assert
+        webTestClient.get().uri("/unknown")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, "/error");
+    }
+
+    @Test
+    void getAllUrlMappings_ShouldStreamGeneratedAliasesAsNdjson() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            webTestClient.post().uri("/shorten")
+                    .bodyValue(new ShortenUrlRequest("https://example.com/" + i, null))
+                    .exchange()
+                    .expectStatus().isCreated();
+        }
+
+        // Act
+        List<UrlMappingDto> mappings = webTestClient.get().uri("/urls")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(UrlMappingDto.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        // Assert
+        assertNotNull(mappings);
+        List<UrlMappingDto> generated = mappings.stream()
+                .filter(m -> m.getFullUrl().matches("https://example.com/\\d"))
+                .toList();
+        assertEquals(3, generated.size());
+        generated.forEach(m -> assertEquals(6, m.getAlias().length()));
+    }
+}
@@ -1,7 +1,10 @@
 package uk.co.droidinactu.tpximpacttask.exception;
 
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -77,6 +80,35 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handles request bodies that cannot be read.
+     * Used for malformed JSON, and for values such as an unsupported redirect status that cannot be converted.
+     *
+     * @param ex The exception
+     * @return A response entity with a 400 Bad Request status and error message
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Map<String, String>> handleHttpMessageNotReadableException(HttpMessageNotReadableException ex) {
+        Map<String, String> errors = new HashMap<>();
+        Throwable cause = ex.getMostSpecificCause();
+        errors.put("error", cause instanceof IllegalArgumentException ? cause.getMessage() : "Malformed request body");
+        return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles failures to obtain a database connection.
+     * Used when every connection is in use and the request timed out waiting for one.
+     *
+     * @param ex The exception
+     * @return A response entity with a 503 Service Unavailable status and error message
+     */
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<Map<String, String>> handleConnectionUnavailableException(Exception ex) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("error", "The service is busy, please retry");
+        return new ResponseEntity<>(errors, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * Handles all other exceptions.
      *
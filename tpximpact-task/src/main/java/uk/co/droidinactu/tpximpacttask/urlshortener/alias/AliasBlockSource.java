@@ -0,0 +1,17 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.alias;
+
+/**
+ * Hands out disjoint blocks of counter values to {@link CounterAliasGenerator}.
+ */
+@FunctionalInterface
+public interface AliasBlockSource {
+
+    /**
+     * Reserves the next block of counter values.
+     * No value in the returned block will ever be handed out again.
+     *
+     * @param size the number of values to reserve
+     * @return the first value of the reserved block
+     */
+    long leaseBlock(int size);
+}
@@ -0,0 +1,15 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.alias;
+
+/**
+ * Strategy for generating aliases when the caller did not supply a custom one.
+ */
+public interface AliasGenerator {
+
+    /**
+     * Returns a new candidate alias.
+     * Implementations must be safe to call from many request threads at once.
+     *
+     * @return the generated alias
+     */
+    String nextAlias();
+}
@@ -0,0 +1,34 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.alias;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.co.droidinactu.tpximpacttask.urlshortener.index.AliasMembershipFilter;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.UrlMappingStore;
+
+/**
+ * Creates the {@link AliasGenerator} selected by {@link AliasProperties#getStrategy()}.
+ */
+@Configuration
+public class AliasGeneratorConfiguration {
+
+    /**
+     * The name of the counter row used by the counter strategy.
+     */
+    public static final String SEQUENCE_NAME = "url_mappings";
+
+    @Bean
+    public AliasGenerator aliasGenerator(AliasProperties properties,
+                                         UrlMappingStore urlMappingStore,
+                                         AliasMembershipFilter aliasMembershipFilter) {
+        return switch (properties.getStrategy()) {
+            case COUNTER -> new CounterAliasGenerator(
+                    size -> urlMappingStore.leaseBlock(SEQUENCE_NAME, size),
+                    properties.getBlockSize(),
+                    properties.getMinLength());
+            case RANDOM -> new RandomAliasGenerator(
+                    properties.getMinLength(),
+                    properties.getMaxDensity(),
+                    aliasMembershipFilter::approximateSize);
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.alias;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for how aliases are generated when no custom alias is supplied.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.alias")
+public class AliasProperties {
+
+    /**
+     * The available alias generation strategies.
+     */
+    public enum Strategy {
+        /**
+         * Unique aliases from a counter leased in blocks from the database; no existence check needed.
+         */
+        COUNTER,
+        /**
+         * Unguessable aliases from a thread local random number generator.
+         */
+        RANDOM
+    }
+
+    /**
+     * Which alias generation strategy to use.
+     */
+    private Strategy strategy = Strategy.COUNTER;
+
+    /**
+     * The shortest alias to generate.
+     */
+    private int minLength = 6;
+
+    /**
+     * The number of counter values each instance leases from the database at a time.
+     */
+    private int blockSize = 1000;
+
+    /**
+     * For the random strategy, the fraction of the keyspace that may be in use before aliases grow by a character.
+     */
+    private double maxDensity = 0.01;
+
+    /**
+     * The number of generated aliases to try before giving up because they are all taken.
+     */
+    private int maxAttempts = 10;
+}
@@ -0,0 +1,74 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.alias;
+
+/**
+ * Encodes numbers using the same 62 character alphabet that generated aliases have always used.
+ */
+public final class Base62 {
+
+    /**
+     * The alias alphabet, in digit order.
+     */
+    public static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+    /**
+     * The number of digits in the alphabet.
+     */
+    public static final int RADIX = CHARACTERS.length();
+
+    /**
+     * The largest alias length whose keyspace still fits in a long.
+     */
+    public static final int MAX_LENGTH = 10;
+
+    private static final long[] POWERS = new long[MAX_LENGTH + 1];
+
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i <= MAX_LENGTH; i++) {
+            POWERS[i] = POWERS[i - 1] * RADIX;
+        }
+    }
+
+    private Base62() {
+    }
+
+    /**
+     * Returns the number of distinct aliases of the given length.
+     *
+     * @param length the alias length, at most {@link #MAX_LENGTH}
+     * @return 62 to the power of length
+     */
+    public static long keyspace(int length) {
+        return POWERS[length];
+    }
+
+    /**
+     * Returns the number of digits needed to encode the value.
+     *
+     * @param value a non-negative value
+     * @return the encoded length, at least 1
+     */
+    public static int length(long value) {
+        int length = 1;
+        while (length < MAX_LENGTH && value >= POWERS[length]) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Encodes the value as exactly {@code length} characters, padding with the zero digit.
+     *
+     * @param value  a non-negative value less than {@code keyspace(length)}
+     * @param length the number of characters to produce
+     * @return the encoded value
+     */
+    public static String encode(long value, int length) {
+        char[] chars = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = CHARACTERS.charAt((int) (value % RADIX));
+            value /= RADIX;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,105 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.alias;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Generates aliases from a counter whose values are leased in blocks from an {@link AliasBlockSource}.
+ * <p>
+ * Every counter value is handed out once, so generated aliases never collide with each other and
+ * need no existence check. Values are handed out from the current block with a single CAS; only
+ * the thread that exhausts a block goes back to the block source, under a {@link ReentrantLock}
+ * so that a virtual thread leasing a block from the database does not pin its carrier thread.
+ * <p>
+ * Each value is scrambled with a multiplicative permutation of the keyspace for its length, so
+ * that consecutive aliases do not look consecutive. Values below 62^minLength produce aliases of
+ * the minimum length, and the alias length grows by one character each time the counter passes
+ * the next power of 62.
+ */
+public class CounterAliasGenerator implements AliasGenerator {
+
+    /**
+     * Odd and not a multiple of 31, so it is coprime with every power of 62.
+     */
+    private static final long SCRAMBLE = 0x5DEECE66DL;
+
+    private final AliasBlockSource blockSource;
+    private final int blockSize;
+    private final int minLength;
+    private final AtomicLong next = new AtomicLong();
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private volatile long blockEnd;
+
+    /**
+     * Creates a counter alias generator.
+     *
+     * @param blockSource where counter blocks are leased from
+     * @param blockSize   the number of values to lease at a time
+     * @param minLength   the shortest alias to generate
+     */
+    public CounterAliasGenerator(AliasBlockSource blockSource, int blockSize, int minLength) {
+        this.blockSource = blockSource;
+        this.blockSize = blockSize;
+        this.minLength = minLength;
+    }
+
+    @Override
+    public String nextAlias() {
+        return encode(nextValue());
+    }
+
+    private long nextValue() {
+        while (true) {
+            long value = next.get();
+            if (value < blockEnd && next.compareAndSet(value, value + 1)) {
+                return value;
+            }
+            if (value >= blockEnd) {
+                refill(value);
+            }
+        }
+    }
+
+    private void refill(long exhausted) {
+        refillLock.lock();
+        try {
+            if (next.get() != exhausted || exhausted < blockEnd) {
+                return;
+            }
+            long start = blockSource.leaseBlock(blockSize);
+            blockEnd = 0;
+            next.set(start);
+            blockEnd = start + blockSize;
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    /**
+     * Encodes a counter value as an alias.
+     *
+     * @param value the counter value
+     * @return the alias
+     */
+    String encode(long value) {
+        int length = Math.max(minLength, Base62.length(value));
+        long keyspace = Base62.keyspace(length);
+        return Base62.encode(multiplyMod(value, SCRAMBLE % keyspace, keyspace), length);
+    }
+
+    /**
+     * Computes (a * b) mod m without overflowing, for non-negative a and b less than m.
+     */
+    private static long multiplyMod(long a, long b, long m) {
+        long result = 0;
+        a %= m;
+        while (b > 0) {
+            if ((b & 1) == 1) {
+                result = (result + a) % m;
+            }
+            a = (a << 1) % m;
+            b >>= 1;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,53 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.alias;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.AliasSequence;
+import uk.co.droidinactu.tpximpacttask.urlshortener.repository.AliasSequenceRepository;
+
+/**
+ * Leases counter blocks from the {@code alias_sequences} table.
+ * <p>
+ * Each lease locks the counter row, advances it by the block size and commits in its own
+ * transaction, so any number of threads, or service instances sharing the database, always
+ * receive disjoint blocks.
+ */
+public class JpaAliasBlockSource implements AliasBlockSource {
+
+    private final String sequenceName;
+    private final AliasSequenceRepository aliasSequenceRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public JpaAliasBlockSource(String sequenceName,
+                               AliasSequenceRepository aliasSequenceRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.sequenceName = sequenceName;
+        this.aliasSequenceRepository = aliasSequenceRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public long leaseBlock(int size) {
+        try {
+            return lease(size);
+        } catch (DataIntegrityViolationException e) {
+            // another thread or instance created the counter row first, so lock that one instead
+            return lease(size);
+        }
+    }
+
+    private long lease(int size) {
+        Long start = transactionTemplate.execute(status -> {
+            AliasSequence sequence = aliasSequenceRepository.findForUpdate(sequenceName)
+                    .orElseGet(() -> new AliasSequence(sequenceName, 1L));
+            long first = sequence.getNextValue();
+            sequence.setNextValue(first + size);
+            aliasSequenceRepository.saveAndFlush(sequence);
+            return first;
+        });
+        return start == null ? 0 : start;
+    }
+}
@@ -0,0 +1,51 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.alias;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates unguessable aliases from a thread local random number generator.
+ * <p>
+ * Random aliases can collide, so they still need checking against existing mappings. To keep
+ * the collision rate low the alias length grows once the number of stored mappings exceeds
+ * the configured fraction of the keyspace for the current length.
+ */
+public class RandomAliasGenerator implements AliasGenerator {
+
+    private final int minLength;
+    private final double maxDensity;
+    private final LongSupplier mappingCount;
+
+    /**
+     * Creates a random alias generator.
+     *
+     * @param minLength    the shortest alias to generate
+     * @param maxDensity   the largest fraction of a keyspace that may be in use before growing
+     * @param mappingCount supplies the current number of stored mappings
+     */
+    public RandomAliasGenerator(int minLength, double maxDensity, LongSupplier mappingCount) {
+        this.minLength = minLength;
+        this.maxDensity = maxDensity;
+        this.mappingCount = mappingCount;
+    }
+
+    @Override
+    public String nextAlias() {
+        int length = currentLength();
+        return Base62.encode(ThreadLocalRandom.current().nextLong(Base62.keyspace(length)), length);
+    }
+
+    /**
+     * Returns the shortest length whose keyspace is no denser than the configured maximum.
+     *
+     * @return the alias length to generate
+     */
+    int currentLength() {
+        long count = mappingCount.getAsLong();
+        int length = minLength;
+        while (length < Base62.MAX_LENGTH && count > Base62.keyspace(length) * maxDensity) {
+            length++;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,24 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.analytics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for per-alias click analytics.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.analytics")
+public class ClickAnalyticsProperties {
+
+    /**
+     * Whether redirects are counted.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How often the in-memory counters are written to the url_click_stats table.
+     */
+    private Duration flushInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,139 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.analytics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory click counters, recorded on the redirect path and drained by {@link ClickStatsFlusher}.
+ * <p>
+ * Recording a click is a lock free map lookup and an increment of a striped {@link LongAdder},
+ * so concurrent redirects of the same popular alias do not contend on a single counter.
+ * Draining swaps each counter back to zero atomically per stripe, so no click is lost or
+ * counted twice. A counter that has had no clicks since the previous drain is removed, so aliases
+ * that stop being used do not keep an entry, and the next click of the alias creates a new one.
+ */
+@Component
+public class ClickCounter {
+
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final boolean enabled;
+
+    @Autowired
+    public ClickCounter(ClickAnalyticsProperties properties) {
+        this.enabled = properties.isEnabled();
+    }
+
+    /**
+     * Records one redirect of the alias.
+     *
+     * @param alias The alias that was redirected
+     */
+    public void record(String alias) {
+        if (!enabled) {
+            return;
+        }
+        Counter counter = counters.get(alias);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(alias, key -> new Counter());
+        }
+        counter.clicks.increment();
+        counter.lastAccessedAt.lazySet(System.currentTimeMillis());
+        if (counter.retired) {
+            // removed by a drain while this click was being recorded; move whatever the drain did not take
+            add(alias, counter.clicks.sumThenReset(), System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Returns the clicks recorded for the alias that have not been flushed yet.
+     *
+     * @param alias The alias to look up
+     * @return The pending clicks, or null if there are none
+     */
+    public ClickDelta pending(String alias) {
+        Counter counter = counters.get(alias);
+        if (counter == null) {
+            return null;
+        }
+        long clicks = counter.clicks.sum();
+        return clicks == 0 ? null : new ClickDelta(alias, clicks, counter.lastAccessedAt.get());
+    }
+
+    /**
+     * Takes every click recorded since the previous drain, resetting the counters.
+     *
+     * @return The clicks per alias
+     */
+    public List<ClickDelta> drain() {
+        List<ClickDelta> deltas = new ArrayList<>();
+        counters.forEach((alias, counter) -> {
+            long clicks = counter.clicks.sumThenReset();
+            if (clicks == 0) {
+                counter.retired = true;
+                counters.remove(alias, counter);
+                // a click recorded before it saw the counter retired
+                clicks = counter.clicks.sumThenReset();
+            }
+            if (clicks > 0) {
+                deltas.add(new ClickDelta(alias, clicks, counter.lastAccessedAt.get()));
+            }
+        });
+        return deltas;
+    }
+
+    /**
+     * Puts back clicks that were drained but could not be stored, so they are retried on the next flush.
+     *
+     * @param deltas The clicks to put back
+     */
+    public void restore(List<ClickDelta> deltas) {
+        for (ClickDelta delta : deltas) {
+            add(delta.alias(), delta.clicks(), delta.lastAccessedAt());
+        }
+    }
+
+    /**
+     * Adds clicks to the counter of the alias, following it to a new counter if a drain removes it meanwhile.
+     */
+    private void add(String alias, long clicks, long lastAccessedAt) {
+        while (clicks > 0) {
+            Counter counter = counters.computeIfAbsent(alias, key -> new Counter());
+            counter.clicks.add(clicks);
+            counter.lastAccessedAt.accumulateAndGet(lastAccessedAt, Math::max);
+            if (!counter.retired) {
+                return;
+            }
+            clicks = counter.clicks.sumThenReset();
+        }
+    }
+
+    /**
+     * Returns the number of aliases that currently have a counter.
+     *
+     * @return the number of counters
+     */
+    int size() {
+        return counters.size();
+    }
+
+    /**
+     * Discards the counter of an alias that has been deleted.
+     *
+     * @param alias The deleted alias
+     */
+    public void forget(String alias) {
+        counters.remove(alias);
+    }
+
+    private static final class Counter {
+        private final LongAdder clicks = new LongAdder();
+        private final AtomicLong lastAccessedAt = new AtomicLong();
+        private volatile boolean retired;
+    }
+}
@@ -0,0 +1,11 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.analytics;
+
+/**
+ * Clicks recorded for an alias since the last flush.
+ *
+ * @param alias          the alias that was redirected
+ * @param clicks         the number of redirects
+ * @param lastAccessedAt the time of the latest of those redirects, in epoch milliseconds
+ */
+public record ClickDelta(String alias, long clicks, long lastAccessedAt) {
+}
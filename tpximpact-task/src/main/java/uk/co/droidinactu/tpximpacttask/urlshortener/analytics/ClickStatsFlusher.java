@@ -0,0 +1,82 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.co.droidinactu.tpximpacttask.urlshortener.repository.ClickStatsRepository;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Periodically writes the clicks recorded by {@link ClickCounter} to the url_click_stats table.
+ * <p>
+ * Lifecycle beans stop in descending phase order, so running in the phase just below the web
+ * server's graceful shutdown means this bean is only stopped once every in-flight request has
+ * completed, and the final flush on stop stores the clicks recorded while requests were drained.
+ */
+@Component
+@Slf4j
+public class ClickStatsFlusher implements SmartLifecycle {
+
+    private final ClickCounter clickCounter;
+    private final ClickStatsRepository clickStatsRepository;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile boolean running;
+
+    @Autowired
+    public ClickStatsFlusher(ClickCounter clickCounter, ClickStatsRepository clickStatsRepository) {
+        this.clickCounter = clickCounter;
+        this.clickStatsRepository = clickStatsRepository;
+    }
+
+    /**
+     * Writes the clicks recorded since the previous flush in one batch.
+     * If the write fails the clicks are put back and retried on the next flush.
+     * Flushes are serialised with a {@link ReentrantLock} rather than {@code synchronized}, so a
+     * virtual thread waiting on the database does not pin its carrier thread.
+     */
+    @Scheduled(fixedDelayString = "${urlshortener.analytics.flush-interval:5s}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<ClickDelta> deltas = clickCounter.drain();
+            if (deltas.isEmpty()) {
+                return;
+            }
+            try {
+                clickStatsRepository.upsertAll(deltas);
+                log.debug("Flushed click counts for {} aliases", deltas.size());
+            } catch (RuntimeException e) {
+                clickCounter.restore(deltas);
+                log.warn("Unable to flush click counts for {} aliases, will retry", deltas.size(), e);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        flush();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1;
+    }
+}
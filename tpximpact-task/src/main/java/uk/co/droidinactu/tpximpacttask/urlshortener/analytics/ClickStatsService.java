@@ -0,0 +1,87 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.analytics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import uk.co.droidinactu.tpximpacttask.exception.AliasNotFoundException;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ClickStatsDto;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.ClickStats;
+import uk.co.droidinactu.tpximpacttask.urlshortener.repository.ClickStatsRepository;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.UrlMappingStore;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+
+/**
+ * Service class for reading and resetting per-alias click statistics.
+ */
+@Service
+public class ClickStatsService {
+
+    private final ClickCounter clickCounter;
+    private final ClickStatsRepository clickStatsRepository;
+    private final UrlMappingStore urlMappingStore;
+
+    @Autowired
+    public ClickStatsService(ClickCounter clickCounter,
+                             ClickStatsRepository clickStatsRepository,
+                             UrlMappingStore urlMappingStore) {
+        this.clickCounter = clickCounter;
+        this.clickStatsRepository = clickStatsRepository;
+        this.urlMappingStore = urlMappingStore;
+    }
+
+    /**
+     * Returns the statistics of an alias, including clicks that have not been flushed yet.
+     *
+     * @param alias The alias to look up
+     * @return The click statistics
+     * @throws AliasNotFoundException if the alias is not found
+     */
+    public ClickStatsDto getClickStats(String alias) {
+        if (!urlMappingStore.exists(alias)) {
+            throw new AliasNotFoundException("Alias not found: " + alias);
+        }
+        long clickCount = 0;
+        LocalDateTime lastAccessedAt = null;
+
+        ClickStats stored = clickStatsRepository.findById(alias).orElse(null);
+        if (stored != null) {
+            clickCount = stored.getClickCount();
+            lastAccessedAt = stored.getLastAccessedAt();
+        }
+        ClickDelta pending = clickCounter.pending(alias);
+        if (pending != null) {
+            clickCount += pending.clicks();
+            LocalDateTime pendingAccess = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(pending.lastAccessedAt()), ZoneId.systemDefault());
+            if (lastAccessedAt == null || pendingAccess.isAfter(lastAccessedAt)) {
+                lastAccessedAt = pendingAccess;
+            }
+        }
+        return new ClickStatsDto(alias, clickCount, lastAccessedAt);
+    }
+
+    /**
+     * Discards the statistics of an alias, so that a new mapping that reuses it starts from zero.
+     *
+     * @param alias The deleted alias
+     */
+    public void deleteClickStats(String alias) {
+        clickCounter.forget(alias);
+        if (clickStatsRepository.existsById(alias)) {
+            clickStatsRepository.deleteById(alias);
+        }
+    }
+
+    /**
+     * Discards the statistics of many aliases with a single delete statement.
+     *
+     * @param aliases The deleted aliases
+     */
+    public void deleteClickStats(Collection<String> aliases) {
+        aliases.forEach(clickCounter::forget);
+        clickStatsRepository.deleteAllByIdInBatch(aliases);
+    }
+}
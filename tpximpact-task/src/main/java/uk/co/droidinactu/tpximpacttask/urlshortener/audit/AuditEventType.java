@@ -0,0 +1,42 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.audit;
+
+/**
+ * The kinds of request written to the audit log, each sampled at its own rate.
+ */
+public enum AuditEventType {
+
+    /**
+     * A short URL created by {@code POST /shorten}.
+     */
+    SHORTEN('S'),
+
+    /**
+     * A redirect from {@code GET /{alias}}.
+     */
+    REDIRECT('R'),
+
+    /**
+     * A {@code GET /{alias}} for an alias that has no mapping.
+     */
+    NOT_FOUND('N'),
+
+    /**
+     * A short URL deleted by {@code DELETE /{alias}}.
+     */
+    DELETE('D');
+
+    private final char code;
+
+    AuditEventType(char code) {
+        this.code = code;
+    }
+
+    /**
+     * Returns the single character that stands for the event type in an audit log line.
+     *
+     * @return the code
+     */
+    public char code() {
+        return code;
+    }
+}
@@ -0,0 +1,105 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.audit;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends audit log lines to {@code audit.log} in a directory, rotating it by size.
+ * <p>
+ * Once the file reaches the maximum size it is renamed {@code audit.log.1}, the previous
+ * {@code audit.log.1} becomes {@code audit.log.2} and so on, the oldest beyond the number of files
+ * kept is deleted and a new {@code audit.log} is started. Only used by the writer thread.
+ */
+final class AuditFileWriter implements Closeable {
+
+    static final String FILE_NAME = "audit.log";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final Path file;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private Writer out;
+    private long size;
+
+    AuditFileWriter(Path directory, long maxFileSize, int maxFiles) {
+        this.directory = directory;
+        this.file = directory.resolve(FILE_NAME);
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * Appends lines to the current file, rotating it afterwards if it has reached the maximum size.
+     * The size is counted in characters, which for the ASCII of most URLs is the size in bytes.
+     *
+     * @param lines one or more complete lines
+     * @throws IOException if the file cannot be written or rotated
+     */
+    void write(CharSequence lines) throws IOException {
+        if (out == null) {
+            open();
+        }
+        out.append(lines);
+        size += lines.length();
+        if (size >= maxFileSize) {
+            rotate();
+        }
+    }
+
+    /**
+     * Writes out the lines held in memory.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            Writer closing = out;
+            out = null;
+            closing.close();
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        size = Files.exists(file) ? Files.size(file) : 0;
+        out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private void rotate() throws IOException {
+        close();
+        if (maxFiles < 1) {
+            Files.delete(file);
+            return;
+        }
+        Files.deleteIfExists(rotated(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path older = rotated(i);
+            if (Files.exists(older)) {
+                Files.move(older, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rotated(int index) {
+        return directory.resolve(FILE_NAME + "." + index);
+    }
+}
@@ -0,0 +1,251 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.audit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes an audit trail of shortens, redirects and deletes without slowing the requests down.
+ * <p>
+ * A request thread only decides whether its event is sampled and copies the event into a
+ * preallocated slot of an {@link AuditRingBuffer}, which takes no lock, allocates nothing and
+ * never waits. A single writer thread takes the events in batches, formats them as lines and
+ * appends them to rotating files through an {@link AuditFileWriter}. If the writer falls so far
+ * behind that the buffer is full, new events are dropped and counted in
+ * {@code urlshortener.audit.dropped}, and the writer logs how many it lost.
+ * <p>
+ * Each line is the time in epoch milliseconds, the event type code, the status, the client address,
+ * the alias and the full URL, separated by spaces, with {@code -} for a missing value:
+ * <pre>
+ * 1760796000123 R 302 10.0.0.7 b7Xk2q https://example.com/offer
+ * </pre>
+ * Spaces and control characters in a value are percent encoded, so every line splits the same way.
+ * <p>
+ * It runs in the phase below the web server's graceful shutdown, so the events of requests that
+ * were still in flight when shutdown began are recorded before it stops. Once it is stopping, new
+ * events are refused and counted as dropped, and whatever is already buffered is written out.
+ */
+@Component
+@Slf4j
+public class AuditLog implements SmartLifecycle, MeterBinder {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final boolean enabled;
+    private final double[] sampleRates = new double[AuditEventType.values().length];
+    private final LongAdder[] dropped = new LongAdder[AuditEventType.values().length];
+    private final AtomicLong written = new AtomicLong();
+    private final AuditRingBuffer buffer;
+    private final AuditFileWriter fileWriter;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final StringBuilder lines = new StringBuilder();
+    private long droppedReported;
+    private volatile boolean running;
+    private volatile boolean stopping;
+    private Thread writer;
+
+    @Autowired
+    public AuditLog(AuditProperties properties) {
+        this.enabled = properties.isEnabled();
+        for (AuditEventType type : AuditEventType.values()) {
+            sampleRates[type.ordinal()] = properties.getSampleRate().of(type);
+            dropped[type.ordinal()] = new LongAdder();
+        }
+        this.buffer = new AuditRingBuffer(properties.getBufferSize());
+        this.fileWriter = new AuditFileWriter(properties.getDirectory(), properties.getMaxFileSize().toBytes(),
+                properties.getMaxFiles());
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.flushIntervalNanos = properties.getFlushInterval().toNanos();
+    }
+
+    /**
+     * Records an event, if it is sampled. Never blocks: if the buffer is full, or the audit log is
+     * stopping, the event is dropped and counted.
+     *
+     * @param type   the event type
+     * @param status the HTTP status of the response
+     * @param client the address of the client, or null
+     * @param alias  the alias, or null
+     * @param url    the full URL, or null
+     */
+    public void record(AuditEventType type, int status, String client, String alias, String url) {
+        if (!enabled) {
+            return;
+        }
+        double sampleRate = sampleRates[type.ordinal()];
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        if (stopping || !buffer.offer(type, System.currentTimeMillis(), status, client, alias, url)) {
+            dropped[type.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Returns the number of events dropped because the buffer was full or the audit log was stopping.
+     *
+     * @return the number of dropped events
+     */
+    public long dropped() {
+        long total = 0;
+        for (LongAdder count : dropped) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (AuditEventType type : AuditEventType.values()) {
+            FunctionCounter.builder("urlshortener.audit.dropped", dropped[type.ordinal()], LongAdder::sum)
+                    .description("Audit events dropped because the writer had fallen a whole buffer behind or had stopped")
+                    .tag("event", type.name().toLowerCase())
+                    .register(registry);
+        }
+        FunctionCounter.builder("urlshortener.audit.written", written, AtomicLong::get)
+                .description("Audit events written to the audit log")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        stopping = false;
+        running = true;
+        writer = new Thread(this::run, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        stopping = true;
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+        try {
+            while (writeBatch() > 0) {
+                // keep going until the buffer is empty
+            }
+            fileWriter.close();
+        } catch (IOException e) {
+            log.warn("Unable to write the rest of the audit log", e);
+        }
+        // events offered just as stopping began, after the last batch was taken
+        buffer.drain(record -> dropped[record.type.ordinal()].increment(), Integer.MAX_VALUE);
+        reportDrops();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1;
+    }
+
+    private void run() {
+        long lastFlush = System.nanoTime();
+        boolean unflushed = false;
+        boolean failing = false;
+        while (running) {
+            try {
+                int taken = writeBatch();
+                unflushed |= taken > 0;
+                long now = System.nanoTime();
+                if (unflushed && (taken == 0 || now - lastFlush >= flushIntervalNanos)) {
+                    fileWriter.flush();
+                    unflushed = false;
+                    lastFlush = now;
+                    reportDrops();
+                }
+                failing = false;
+                if (taken == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            } catch (IOException e) {
+                if (!failing) {
+                    log.warn("Unable to write the audit log, events are lost until it can be written again", e);
+                    failing = true;
+                }
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+    }
+
+    /**
+     * Takes up to a batch of events from the buffer and writes them to the file.
+     *
+     * @return the number of events taken
+     * @throws IOException if they cannot be written, in which case they are lost
+     */
+    int writeBatch() throws IOException {
+        lines.setLength(0);
+        int taken = buffer.drain(this::format, batchSize);
+        if (taken > 0) {
+            fileWriter.write(lines);
+            written.addAndGet(taken);
+        }
+        return taken;
+    }
+
+    private void format(AuditRecord record) {
+        lines.append(record.time).append(' ')
+                .append(record.type.code()).append(' ')
+                .append(record.status).append(' ');
+        appendValue(record.client);
+        lines.append(' ');
+        appendValue(record.alias);
+        lines.append(' ');
+        appendValue(record.url);
+        lines.append('\n');
+    }
+
+    private void appendValue(String value) {
+        if (value == null || value.isEmpty()) {
+            lines.append('-');
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c <= ' ' || c == 0x7f) {
+                lines.append('%').append(HEX[c >> 4]).append(HEX[c & 0xf]);
+            } else {
+                lines.append(c);
+            }
+        }
+    }
+
+    private void reportDrops() {
+        long total = dropped();
+        if (total > droppedReported) {
+            log.warn("Dropped {} audit events because the audit log could not keep up", total - droppedReported);
+            droppedReported = total;
+        }
+    }
+}
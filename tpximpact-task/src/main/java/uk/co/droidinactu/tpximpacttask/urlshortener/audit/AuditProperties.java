@@ -0,0 +1,99 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.audit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration for the audit log of shortens, redirects and deletes.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.audit")
+public class AuditProperties {
+
+    /**
+     * Whether requests are written to the audit log.
+     */
+    private boolean enabled = true;
+
+    /**
+     * The directory holding the audit log files.
+     */
+    private Path directory = Path.of("logs", "audit");
+
+    /**
+     * The number of records the buffer between request threads and the writer holds. Rounded up
+     * to a power of two. Records that arrive while it is full are dropped and counted.
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * The most records the writer takes from the buffer before writing them out.
+     */
+    private int batchSize = 512;
+
+    /**
+     * How long records may wait in memory before they are written to the file, when few arrive.
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * The size the current file can reach before it is rotated.
+     */
+    private DataSize maxFileSize = DataSize.ofMegabytes(64);
+
+    /**
+     * The number of rotated files kept. Older ones are deleted.
+     */
+    private int maxFiles = 10;
+
+    /**
+     * The fraction of each kind of request that is written, between 0 and 1.
+     */
+    private SampleRate sampleRate = new SampleRate();
+
+    /**
+     * The fraction of requests written, per event type.
+     */
+    @Data
+    public static class SampleRate {
+
+        /**
+         * The fraction of {@code POST /shorten} requests written.
+         */
+        private double shorten = 1.0;
+
+        /**
+         * The fraction of redirects written.
+         */
+        private double redirect = 1.0;
+
+        /**
+         * The fraction of requests for unknown aliases written.
+         */
+        private double notFound = 1.0;
+
+        /**
+         * The fraction of {@code DELETE /{alias}} requests written.
+         */
+        private double delete = 1.0;
+
+        /**
+         * Returns the sample rate of an event type.
+         *
+         * @param type the event type
+         * @return the fraction of its events written
+         */
+        public double of(AuditEventType type) {
+            return switch (type) {
+                case SHORTEN -> shorten;
+                case REDIRECT -> redirect;
+                case NOT_FOUND -> notFound;
+                case DELETE -> delete;
+            };
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.audit;
+
+/**
+ * One slot of the {@link AuditRingBuffer}, filled by a request thread and read by the writer.
+ * Slots are allocated once with the buffer and reused, so recording an event allocates nothing.
+ */
+final class AuditRecord {
+
+    long time;
+    AuditEventType type;
+    int status;
+    String client;
+    String alias;
+    String url;
+
+    void set(AuditEventType type, long time, int status, String client, String alias, String url) {
+        this.type = type;
+        this.time = time;
+        this.status = status;
+        this.client = client;
+        this.alias = alias;
+        this.url = url;
+    }
+
+    /**
+     * Drops the references to the request's strings once the record has been written.
+     */
+    void clear() {
+        client = null;
+        alias = null;
+        url = null;
+    }
+}
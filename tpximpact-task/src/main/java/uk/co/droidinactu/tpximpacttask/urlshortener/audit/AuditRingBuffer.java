@@ -0,0 +1,100 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock free queue of audit records from any number of request threads to a single writer.
+ * <p>
+ * Every slot is allocated up front and has a sequence number that says whose turn it is. A request
+ * thread claims the next position with a compare-and-set, fills the slot and publishes it by
+ * advancing the slot's sequence; the writer takes slots in order as they are published and hands
+ * them back by advancing the sequence a lap. When the writer has fallen a whole buffer behind,
+ * {@link #offer} fails at once instead of waiting, so a slow disk never holds up a request.
+ */
+final class AuditRingBuffer {
+
+    private final AuditRecord[] records;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private long tail;
+
+    /**
+     * Creates a buffer.
+     *
+     * @param capacity the number of records it holds, rounded up to a power of two
+     */
+    AuditRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        records = new AuditRecord[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            records[i] = new AuditRecord();
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Adds a record, unless the buffer is full. Safe to call from any thread.
+     *
+     * @return true if the record was added, false if it was dropped
+     */
+    boolean offer(AuditEventType type, long time, int status, String client, String alias, String url) {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.getAcquire(index) - position;
+            if (difference == 0) {
+                if (head.weakCompareAndSetVolatile(position, position + 1)) {
+                    records[index].set(type, time, status, client, alias, url);
+                    sequences.setRelease(index, position + 1);
+                    return true;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                // the slot still holds the record from a lap ago, so the buffer is full
+                return false;
+            } else {
+                // another thread claimed this position first
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * Hands the published records to the consumer in order, and frees their slots.
+     * Must only be called by the writer. The consumer must not keep the record it is given.
+     *
+     * @param consumer receives each record
+     * @param max      the most records to take
+     * @return the number of records taken
+     */
+    int drain(Consumer<AuditRecord> consumer, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) tail & mask;
+            if (sequences.getAcquire(index) != tail + 1) {
+                break;
+            }
+            AuditRecord record = records[index];
+            consumer.accept(record);
+            record.clear();
+            sequences.setRelease(index, tail + records.length);
+            tail++;
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Returns the number of records the buffer holds.
+     *
+     * @return the capacity
+     */
+    int capacity() {
+        return records.length;
+    }
+}
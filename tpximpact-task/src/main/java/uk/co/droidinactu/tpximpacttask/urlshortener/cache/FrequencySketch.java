@@ -0,0 +1,116 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A count-min sketch of 4-bit counters used to estimate how often a key has been requested.
+ * <p>
+ * Counters are packed sixteen to a long and updated with CAS, so the sketch can be shared by
+ * every request thread without locking. Once the number of recorded increments reaches the
+ * sample size all counters are halved, which lets the popularity of aliases age over time.
+ */
+class FrequencySketch {
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private final AtomicLongArray table;
+    private final int tableMask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /**
+     * Creates a sketch sized for the given number of cached entries.
+     *
+     * @param maximumEntries the maximum number of entries the owning cache will hold
+     */
+    FrequencySketch(long maximumEntries) {
+        int capacity = (int) Math.min(Math.max(maximumEntries, 16), 1 << 30);
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.table = new AtomicLongArray(size);
+        this.tableMask = size - 1;
+        this.sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the estimated number of times the key has been seen, at most 15.
+     *
+     * @param key the key to look up
+     * @return the estimated frequency
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(hash, i);
+            int offset = offsetOf(hash, i);
+            int count = (int) ((table.get(index) >>> offset) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records one occurrence of the key.
+     *
+     * @param key the key that was requested
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            added |= incrementAt(indexOf(hash, i), offsetOf(hash, i));
+        }
+        if (added && additions.incrementAndGet() >= sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int offset) {
+        long mask = 0xfL << offset;
+        while (true) {
+            long current = table.get(index);
+            if ((current & mask) == mask) {
+                return false;
+            }
+            if (table.compareAndSet(index, current, current + (1L << offset))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Halves every counter so that old popularity decays.
+     */
+    private void reset() {
+        additions.set(0);
+        for (int i = 0; i < table.length(); i++) {
+            while (true) {
+                long current = table.get(i);
+                if (table.compareAndSet(i, current, (current >>> 1) & RESET_MASK)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private int indexOf(int hash, int depth) {
+        long h = (hash + SEEDS[depth]) * SEEDS[depth];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    private static int offsetOf(int hash, int depth) {
+        return (((hash >>> (depth << 3)) & 3) << 2) + (depth << 4) & 63;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
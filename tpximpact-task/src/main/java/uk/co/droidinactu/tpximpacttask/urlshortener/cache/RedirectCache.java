@@ -0,0 +1,342 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.cache;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.stereotype.Component;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.RedirectStatus;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded, concurrent read-through cache of alias to redirect target.
+ * <p>
+ * Lookups are lock free. The cache is bounded both by entry count and by an estimate of the
+ * heap used by the cached strings. Every lookup is recorded in a {@link FrequencySketch}; when
+ * the cache is full a new alias is only admitted if it has been requested more often than the
+ * least popular of a sample of resident entries, which then gets evicted. This keeps the hot
+ * aliases resident while one-off lookups pass through without disturbing them.
+ * <p>
+ * A miss registers a load token for its alias before calling the loader, and
+ * {@link #invalidate} removes the token along with any entry, so a value loaded before an
+ * invalidation of the same alias is never admitted. Invalidating one alias does not affect
+ * loads of any other.
+ */
+@Component
+public class RedirectCache {
+
+    /**
+     * Approximate fixed cost of a cached mapping: map node, entry and target objects and two string headers.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 144;
+
+    private final boolean enabled;
+    private final long maxEntries;
+    private final long maxBytes;
+    private final int evictionSampleSize;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+    private final AtomicLong weightedSize = new AtomicLong();
+    private final ConcurrentHashMap<String, Object> loading = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private Iterator<Map.Entry<String, Entry>> sweep;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public RedirectCache(RedirectCacheProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.maxEntries = Math.max(1, properties.getMaxEntries());
+        this.maxBytes = Math.max(1, properties.getMaxSize().toBytes());
+        this.evictionSampleSize = Math.max(1, properties.getEvictionSampleSize());
+        this.sketch = new FrequencySketch(maxEntries);
+    }
+
+    /**
+     * Returns the cached target for the alias, loading and caching it on a miss.
+     * An entry that has reached its expiry time is removed and reported as missing, without
+     * calling the loader, so an expiring alias stops redirecting on time even while it is cached.
+     *
+     * @param alias  The alias to look up
+     * @param loader Loads the target from the backing store, returning null if there is none or it has expired
+     * @return The target, or null if there is no unexpired target
+     */
+    public Target lookup(String alias, Function<String, Target> loader) {
+        if (!enabled) {
+            return loader.apply(alias);
+        }
+        sketch.increment(alias);
+        Entry entry = entries.get(alias);
+        if (entry != null) {
+            hits.increment();
+            Target cached = entry.target;
+            if (cached.expiresAt() != Target.NEVER && cached.expiresAt() <= System.currentTimeMillis()) {
+                if (entries.remove(alias, entry)) {
+                    weightedSize.addAndGet(-entry.weight);
+                }
+                return null;
+            }
+            return cached;
+        }
+        misses.increment();
+        // a miss that finds another load in flight shares its token, as it started later
+        Object token = loading.computeIfAbsent(alias, key -> new Object());
+        try {
+            Target target = loader.apply(alias);
+            if (target != null) {
+                put(alias, target, token);
+            }
+            return target;
+        } finally {
+            loading.remove(alias, token);
+        }
+    }
+
+    /**
+     * Returns whether the alias is currently cached. This does not count as a lookup.
+     *
+     * @param alias The alias to check
+     * @return true if the alias is cached
+     */
+    public boolean contains(String alias) {
+        return enabled && entries.containsKey(alias);
+    }
+
+    /**
+     * Caches a full URL before it has been looked up, for example one that was popular before a restart.
+     * Entries are only added while there is room, so warming never evicts anything.
+     *
+     * @param alias  The alias
+     * @param target Where it redirects to, how, and when it expires
+     * @return true if the entry was cached
+     */
+    public boolean warm(String alias, Target target) {
+        if (!enabled) {
+            return false;
+        }
+        Entry entry = new Entry(target, weigh(alias, target.fullUrl()));
+        evictionLock.lock();
+        try {
+            if (!hasRoomFor(entry.weight)) {
+                return false;
+            }
+            // count it once so that it is not the first choice of victim for a one-off lookup
+            sketch.increment(alias);
+            insert(alias, entry, null);
+            return true;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the alias from the cache.
+     *
+     * @param alias The alias to invalidate
+     */
+    public void invalidate(String alias) {
+        loading.remove(alias);
+        Entry removed = entries.remove(alias);
+        if (removed != null) {
+            weightedSize.addAndGet(-removed.weight);
+        }
+    }
+
+    /**
+     * Removes every entry from the cache.
+     */
+    public void invalidateAll() {
+        for (String alias : entries.keySet()) {
+            invalidate(alias);
+        }
+    }
+
+    /**
+     * Returns a point in time snapshot of the cache statistics.
+     *
+     * @return the cache statistics
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), rejections.sum(),
+                entries.size(), weightedSize.get());
+    }
+
+    /**
+     * Caches a freshly loaded URL. If the alias was invalidated while it was being loaded the
+     * value may already be stale, so it is removed again rather than left in the cache.
+     * <p>
+     * The room check and the insert are made under the eviction lock, so that concurrent misses
+     * cannot each see room for one more entry and together go past the limits. Only removals
+     * happen outside the lock, and those can only make more room.
+     */
+    private void put(String alias, Target target, Object token) {
+        Entry entry = new Entry(target, weigh(alias, target.fullUrl()));
+        if (entry.weight > maxBytes) {
+            rejections.increment();
+            return;
+        }
+        evictionLock.lock();
+        try {
+            int candidateFrequency = sketch.frequency(alias);
+            while (!hasRoomFor(entry.weight)) {
+                Map.Entry<String, Entry> victim = sampleVictim();
+                if (victim == null) {
+                    break;
+                }
+                if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                    rejections.increment();
+                    return;
+                }
+                if (entries.remove(victim.getKey(), victim.getValue())) {
+                    weightedSize.addAndGet(-victim.getValue().weight);
+                    evictions.increment();
+                }
+            }
+            insert(alias, entry, token);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Caches an entry, and removes it again if the load token it was read under has been
+     * invalidated since. A null token is not checked. Must be called while holding the eviction lock.
+     */
+    private void insert(String alias, Entry entry, Object token) {
+        Entry previous = entries.put(alias, entry);
+        weightedSize.addAndGet(entry.weight - (previous == null ? 0 : previous.weight));
+        // invalidate removes the token before the entry, so either this sees it gone or invalidate removes the entry
+        if (token != null && loading.get(alias) != token && entries.remove(alias, entry)) {
+            weightedSize.addAndGet(-entry.weight);
+        }
+    }
+
+    private boolean hasRoomFor(int weight) {
+        return entries.size() < maxEntries && weightedSize.get() + weight <= maxBytes;
+    }
+
+    /**
+     * Picks the least frequently used entry among the next few entries of a clock-style sweep
+     * over the map. Must be called while holding the eviction lock.
+     */
+    private Map.Entry<String, Entry> sampleVictim() {
+        Map.Entry<String, Entry> victim = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        for (int i = 0; i < evictionSampleSize; i++) {
+            if (sweep == null || !sweep.hasNext()) {
+                sweep = entries.entrySet().iterator();
+                if (!sweep.hasNext()) {
+                    break;
+                }
+            }
+            Map.Entry<String, Entry> candidate = sweep.next();
+            int frequency = sketch.frequency(candidate.getKey());
+            if (frequency < victimFrequency) {
+                victim = Map.entry(candidate.getKey(), candidate.getValue());
+                victimFrequency = frequency;
+            }
+        }
+        return victim;
+    }
+
+    private static int weigh(String alias, String fullUrl) {
+        return ENTRY_OVERHEAD_BYTES + 2 * (alias.length() + fullUrl.length());
+    }
+
+    /**
+     * Compared by identity, so that removing an entry never removes an equal one cached since.
+     */
+    private static final class Entry {
+
+        private final Target target;
+        private final int weight;
+
+        private Entry(Target target, int weight) {
+            this.target = target;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Where an alias redirects to, until when, and how.
+     *
+     * @param fullUrl        the full URL
+     * @param expiresAt      when the alias expires, in epoch milliseconds, or {@link #NEVER}
+     * @param redirectStatus the status to redirect with, or null for the default
+     * @param cacheMaxAge    how many seconds the redirect may be cached for, or null for the default
+     */
+    public record Target(String fullUrl, long expiresAt, RedirectStatus redirectStatus, Long cacheMaxAge) {
+
+        /**
+         * The expiry time of an alias that never expires.
+         */
+        public static final long NEVER = Long.MAX_VALUE;
+
+        /**
+         * Creates a target that redirects in the default way.
+         *
+         * @param fullUrl   the full URL
+         * @param expiresAt when the alias expires, in epoch milliseconds, or {@link #NEVER}
+         */
+        public Target(String fullUrl, long expiresAt) {
+            this(fullUrl, expiresAt, null, null);
+        }
+
+        /**
+         * Returns the HTTP status to redirect with.
+         *
+         * @return the status code of the redirect status, or 302 if there is none
+         */
+        public int statusCode() {
+            return redirectStatus == null ? RedirectStatus.FOUND.code() : redirectStatus.code();
+        }
+
+        /**
+         * Creates the target of a mapping, converting its expiry time from the local time zone it is held in.
+         *
+         * @param urlMapping the mapping
+         * @return the target
+         */
+        public static Target of(UrlMapping urlMapping) {
+            LocalDateTime expiresAt = urlMapping.getExpiresAt();
+            return new Target(urlMapping.getFullUrl(), expiresAt == null
+                    ? NEVER
+                    : expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                    urlMapping.getRedirectStatus(), urlMapping.getCacheMaxAge());
+        }
+    }
+
+    /**
+     * Point in time cache statistics.
+     *
+     * @param hits        lookups answered from the cache
+     * @param misses      lookups that went to the backing store
+     * @param evictions   entries removed to make room for more popular ones
+     * @param rejections  loaded entries that were not popular enough to be admitted
+     * @param size        the number of cached entries
+     * @param weightBytes the estimated heap footprint of the cached entries
+     */
+    public record Stats(long hits, long misses, long evictions, long rejections, long size, long weightBytes) {
+
+        /**
+         * Returns the fraction of lookups answered from the cache.
+         *
+         * @return the hit ratio, or 1.0 if there have been no lookups
+         */
+        @JsonProperty
+        public double hitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+    }
+}
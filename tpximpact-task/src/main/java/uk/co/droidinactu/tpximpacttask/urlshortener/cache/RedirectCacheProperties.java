@@ -0,0 +1,33 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration for the in-process alias to full URL redirect cache.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.cache")
+public class RedirectCacheProperties {
+
+    /**
+     * Whether redirect lookups are served from the in-process cache.
+     */
+    private boolean enabled = true;
+
+    /**
+     * The maximum number of aliases held in the cache.
+     */
+    private long maxEntries = 100_000;
+
+    /**
+     * The maximum estimated heap footprint of the cached aliases and URLs.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * How many resident entries are sampled when choosing an eviction victim.
+     */
+    private int evictionSampleSize = 8;
+}
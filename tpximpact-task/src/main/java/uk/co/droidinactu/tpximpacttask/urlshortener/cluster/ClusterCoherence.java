@@ -0,0 +1,58 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.cluster;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.co.droidinactu.tpximpacttask.urlshortener.analytics.ClickStatsService;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
+import uk.co.droidinactu.tpximpacttask.urlshortener.index.AliasMembershipFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies the changes other instances broadcast to the in-memory state of this one.
+ * <p>
+ * A mapping created elsewhere is added to the alias membership filter, so its alias is no longer
+ * reported absent here, and any stale cache entry for the alias is dropped. A mapping deleted
+ * elsewhere is dropped from the redirect cache along with any clicks counted here but not yet
+ * written. It is not removed from the membership filter: this instance may never have added it,
+ * and removing an alias that was not added would make the filter report other aliases absent.
+ * The filter only loses the alias when this instance restarts.
+ */
+@Component
+public class ClusterCoherence {
+
+    private final AliasMembershipFilter aliasMembershipFilter;
+    private final RedirectCache redirectCache;
+    private final ClickStatsService clickStatsService;
+
+    @Autowired
+    public ClusterCoherence(ClusterEventBus clusterEventBus,
+                            AliasMembershipFilter aliasMembershipFilter,
+                            RedirectCache redirectCache,
+                            ClickStatsService clickStatsService) {
+        this.aliasMembershipFilter = aliasMembershipFilter;
+        this.redirectCache = redirectCache;
+        this.clickStatsService = clickStatsService;
+        clusterEventBus.subscribe(this::apply);
+    }
+
+    /**
+     * Applies events published by another instance.
+     *
+     * @param events the events, in the order they were published
+     */
+    void apply(List<ClusterEvent> events) {
+        List<String> deleted = new ArrayList<>();
+        for (ClusterEvent event : events) {
+            switch (event.type()) {
+                case CREATED -> aliasMembershipFilter.add(event.alias());
+                case DELETED -> deleted.add(event.alias());
+            }
+            redirectCache.invalidate(event.alias());
+        }
+        if (!deleted.isEmpty()) {
+            clickStatsService.deleteClickStats(deleted);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.cluster;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import uk.co.droidinactu.tpximpacttask.urlshortener.repository.ClusterEventRepository;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.StorageProperties;
+
+/**
+ * Creates the {@link ClusterEventBus} selected by {@link ClusterProperties#getTransport()}.
+ * Instances only form a cluster if they share their mappings, so the JDBC transport needs the JPA
+ * storage engine; the files of the log engine belong to a single instance.
+ */
+@Configuration
+public class ClusterConfiguration {
+
+    @Bean
+    public ClusterEventBus clusterEventBus(ClusterProperties properties,
+                                           ObjectProvider<ClusterEventRepository> clusterEventRepository,
+                                           PlatformTransactionManager transactionManager,
+                                           StorageProperties storageProperties) {
+        if (properties.getTransport() == ClusterProperties.Transport.JDBC
+                && storageProperties.getEngine() != StorageProperties.Engine.JPA) {
+            throw new IllegalStateException("The JDBC cluster transport needs urlshortener.storage.engine=jpa");
+        }
+        return switch (properties.getTransport()) {
+            case NONE -> new NoOpClusterEventBus();
+            case IN_PROCESS -> new InProcessClusterEventBus(properties.getChannel());
+            case JDBC -> new JdbcClusterEventBus(clusterEventRepository.getObject(), transactionManager, properties);
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.cluster;
+
+/**
+ * A change to a mapping made by one instance that the other instances sharing its database need to know about.
+ *
+ * @param type  what happened to the mapping
+ * @param alias the alias of the mapping
+ */
+public record ClusterEvent(Type type, String alias) {
+
+    /**
+     * The kinds of change that are broadcast.
+     */
+    public enum Type {
+        /**
+         * A mapping was stored, so peers must stop reporting its alias as absent.
+         */
+        CREATED,
+        /**
+         * A mapping was deleted or expired, so peers must stop redirecting it from their caches.
+         */
+        DELETED
+    }
+}
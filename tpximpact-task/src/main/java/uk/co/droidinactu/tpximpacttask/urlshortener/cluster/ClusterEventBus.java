@@ -0,0 +1,39 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.cluster;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts {@link ClusterEvent}s between the instances that share a database.
+ * <p>
+ * An event is delivered to the listeners of every other instance on the bus, at most once each,
+ * but not to the instance that published it. Delivery may be delayed and is not guaranteed to
+ * survive an instance crashing, so listeners only use events to keep caches fresh.
+ */
+public interface ClusterEventBus {
+
+    /**
+     * Publishes events to the other instances.
+     *
+     * @param events the events, in the order they happened
+     */
+    void publish(List<ClusterEvent> events);
+
+    /**
+     * Publishes a single event to the other instances.
+     *
+     * @param type  what happened to the mapping
+     * @param alias the alias of the mapping
+     */
+    default void publish(ClusterEvent.Type type, String alias) {
+        publish(List.of(new ClusterEvent(type, alias)));
+    }
+
+    /**
+     * Registers a listener for the events published by other instances.
+     * Listeners are called on the thread that delivers the events and should return quickly.
+     *
+     * @param listener receives the events delivered together, in the order they were published
+     */
+    void subscribe(Consumer<List<ClusterEvent>> listener);
+}
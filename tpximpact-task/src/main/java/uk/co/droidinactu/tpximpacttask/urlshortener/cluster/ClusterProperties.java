@@ -0,0 +1,69 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.cluster;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for running several instances against one database.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.cluster")
+public class ClusterProperties {
+
+    /**
+     * The ways instances can broadcast changes to each other.
+     */
+    public enum Transport {
+        /**
+         * A single instance; nothing is broadcast.
+         */
+        NONE,
+        /**
+         * Instances in the same JVM on the same channel, for tests and local experiments.
+         */
+        IN_PROCESS,
+        /**
+         * An events table in the shared database, polled by every instance.
+         */
+        JDBC
+    }
+
+    /**
+     * How changes are broadcast to the other instances.
+     */
+    private Transport transport = Transport.NONE;
+
+    /**
+     * For the in-process transport, the name shared by the instances that see each other's events.
+     */
+    private String channel = "urlshortener";
+
+    /**
+     * For the JDBC transport, how often events are written and read. Peers see a change within about two intervals.
+     */
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    /**
+     * For the JDBC transport, the most events written or read in one poll.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * For the JDBC transport, how long an event is read again in case an earlier one commits late.
+     * It should also cover any clock difference between the instances.
+     */
+    private Duration settleDelay = Duration.ofSeconds(2);
+
+    /**
+     * For the JDBC transport, how long events are kept before they are deleted.
+     */
+    private Duration retention = Duration.ofMinutes(10);
+
+    /**
+     * The most aliases remembered as missing from the shared database, so that repeated requests for
+     * an unknown alias are answered without looking it up again until the next poll interval.
+     */
+    private int absentAliasCacheSize = 10000;
+}
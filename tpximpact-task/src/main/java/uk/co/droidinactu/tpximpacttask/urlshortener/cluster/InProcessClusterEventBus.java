@@ -0,0 +1,54 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.cluster;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers events directly to the other buses on the same channel in this JVM, on the publishing thread.
+ * <p>
+ * It stands in for a real transport when several application contexts are started in one JVM, as
+ * the cluster tests do. Closing the bus, which happens when its context is closed, leaves the channel.
+ */
+public class InProcessClusterEventBus implements ClusterEventBus, AutoCloseable {
+
+    private static final Map<String, Set<InProcessClusterEventBus>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final String channel;
+    private final List<Consumer<List<ClusterEvent>>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a bus and joins the channel.
+     *
+     * @param channel the name shared by the buses that see each other's events
+     */
+    public InProcessClusterEventBus(String channel) {
+        this.channel = channel;
+        CHANNELS.computeIfAbsent(channel, name -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+
+    @Override
+    public void publish(List<ClusterEvent> events) {
+        for (InProcessClusterEventBus peer : CHANNELS.getOrDefault(channel, Set.of())) {
+            if (peer != this) {
+                peer.listeners.forEach(listener -> listener.accept(events));
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<List<ClusterEvent>> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        CHANNELS.computeIfPresent(channel, (name, buses) -> {
+            buses.remove(this);
+            return buses.isEmpty() ? null : buses;
+        });
+    }
+}
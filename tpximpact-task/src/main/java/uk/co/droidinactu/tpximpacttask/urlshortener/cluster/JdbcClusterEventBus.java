@@ -0,0 +1,143 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.ClusterEventEntry;
+import uk.co.droidinactu.tpximpacttask.urlshortener.repository.ClusterEventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts events through the {@code cluster_events} table of the shared database.
+ * <p>
+ * Publishing only queues an event, so it adds nothing to the request that made the change. Every
+ * poll interval the queued events are inserted in one transaction and the events inserted by other
+ * instances since the previous poll are read in id order and delivered.
+ * <p>
+ * Ids are allocated when an event is inserted but become visible when its transaction commits, so
+ * an event can appear after one with a higher id has already been read. Events are therefore read
+ * again until they are older than the settle delay, and the ids read since the last settled event
+ * are remembered so nothing is delivered twice. A new instance starts from the newest event, as it
+ * loads everything else from the database, and events older than the retention period are deleted.
+ */
+@Slf4j
+public class JdbcClusterEventBus implements ClusterEventBus, AutoCloseable {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ClusterEventRepository clusterEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration settleDelay;
+    private final Duration retention;
+    private final Queue<ClusterEvent> outgoing = new ConcurrentLinkedQueue<>();
+    private final List<Consumer<List<ClusterEvent>>> listeners = new CopyOnWriteArrayList<>();
+    private final Set<Long> unsettled = new HashSet<>();
+    private long settled;
+
+    public JdbcClusterEventBus(ClusterEventRepository clusterEventRepository,
+                               PlatformTransactionManager transactionManager,
+                               ClusterProperties properties) {
+        this.clusterEventRepository = clusterEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.settleDelay = properties.getSettleDelay();
+        this.retention = properties.getRetention();
+        this.settled = clusterEventRepository.findMaxId();
+    }
+
+    @Override
+    public void publish(List<ClusterEvent> events) {
+        outgoing.addAll(events);
+    }
+
+    @Override
+    public void subscribe(Consumer<List<ClusterEvent>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Writes the queued events and delivers the ones other instances have written.
+     */
+    @Scheduled(fixedDelayString = "${urlshortener.cluster.poll-interval:500ms}")
+    public synchronized void poll() {
+        try {
+            send();
+            receive();
+        } catch (RuntimeException e) {
+            log.warn("Unable to exchange cluster events, will retry", e);
+        }
+    }
+
+    /**
+     * Deletes the events that every instance has had time to read.
+     */
+    @Scheduled(fixedDelayString = "${urlshortener.cluster.retention:10m}")
+    public void purge() {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        Integer deleted = transactionTemplate.execute(status -> clusterEventRepository.deleteCreatedBefore(before));
+        log.debug("Deleted {} cluster events", deleted);
+    }
+
+    /**
+     * Writes any events still queued.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            send();
+        } catch (RuntimeException e) {
+            log.warn("Unable to send {} cluster events on shutdown", outgoing.size(), e);
+        }
+    }
+
+    private void send() {
+        while (!outgoing.isEmpty()) {
+            // only this method removes from the queue, so the events written are the ones at its head
+            LocalDateTime now = LocalDateTime.now();
+            List<ClusterEventEntry> entries = new ArrayList<>(Math.min(batchSize, outgoing.size()));
+            for (ClusterEvent event : outgoing) {
+                entries.add(new ClusterEventEntry(null, nodeId, event.type(), event.alias(), now));
+                if (entries.size() == batchSize) {
+                    break;
+                }
+            }
+            clusterEventRepository.saveAll(entries);
+            entries.forEach(entry -> outgoing.poll());
+        }
+    }
+
+    private void receive() {
+        List<ClusterEventEntry> entries = clusterEventRepository.findByIdGreaterThanOrderByIdAsc(
+                settled, Limit.of(batchSize + unsettled.size()));
+        LocalDateTime settledBefore = LocalDateTime.now().minus(settleDelay);
+        List<ClusterEvent> events = new ArrayList<>();
+        boolean settling = true;
+        for (ClusterEventEntry entry : entries) {
+            if (unsettled.add(entry.getId()) && !nodeId.equals(entry.getNodeId())) {
+                events.add(new ClusterEvent(entry.getType(), entry.getAlias()));
+            }
+            if (settling && entry.getCreatedAt().isBefore(settledBefore)) {
+                settled = entry.getId();
+                unsettled.remove(entry.getId());
+            } else {
+                settling = false;
+            }
+        }
+        if (!events.isEmpty()) {
+            listeners.forEach(listener -> listener.accept(events));
+        }
+    }
+}
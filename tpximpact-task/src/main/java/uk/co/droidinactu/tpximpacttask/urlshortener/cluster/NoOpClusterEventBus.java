@@ -0,0 +1,20 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.cluster;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The bus of a single instance, which has nobody to tell about its changes.
+ */
+public class NoOpClusterEventBus implements ClusterEventBus {
+
+    @Override
+    public void publish(List<ClusterEvent> events) {
+        // no peers
+    }
+
+    @Override
+    public void subscribe(Consumer<List<ClusterEvent>> listener) {
+        // no peers
+    }
+}
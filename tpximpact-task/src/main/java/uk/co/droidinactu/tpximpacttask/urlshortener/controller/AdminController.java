@@ -0,0 +1,57 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
+import uk.co.droidinactu.tpximpacttask.urlshortener.snapshot.SnapshotService;
+
+/**
+ * Controller for operational endpoints that report on the internals of the URL shortener.
+ */
+@RestController
+public class AdminController {
+
+    private final RedirectCache redirectCache;
+    private final SnapshotService snapshotService;
+
+    @Autowired
+    public AdminController(RedirectCache redirectCache,
+                           SnapshotService snapshotService) {
+        this.redirectCache = redirectCache;
+        this.snapshotService = snapshotService;
+    }
+
+    /**
+     * Endpoint to report the redirect cache statistics, including its hit ratio.
+     * GET /admin/cache
+     *
+     * @return The current cache statistics
+     */
+    @GetMapping("/admin/cache")
+    public ResponseEntity<RedirectCache.Stats> getCacheStats() {
+        return new ResponseEntity<>(redirectCache.stats(), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint to download every mapping as a binary snapshot, which can be loaded on startup with
+     * {@code urlshortener.snapshot.import-path}.
+     * GET /admin/snapshot
+     *
+     * @return The snapshot, streamed as it is read from the store
+     */
+    @GetMapping("/admin/snapshot")
+    public ResponseEntity<StreamingResponseBody> exportSnapshot() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("url-mappings.snapshot").build().toString())
+                .body(snapshotService::export);
+    }
+}
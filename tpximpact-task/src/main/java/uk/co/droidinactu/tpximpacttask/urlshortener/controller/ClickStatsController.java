@@ -0,0 +1,36 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import uk.co.droidinactu.tpximpacttask.urlshortener.analytics.ClickStatsService;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ClickStatsDto;
+
+/**
+ * Controller for per-alias click statistics.
+ */
+@RestController
+public class ClickStatsController {
+
+    private final ClickStatsService clickStatsService;
+
+    @Autowired
+    public ClickStatsController(ClickStatsService clickStatsService) {
+        this.clickStatsService = clickStatsService;
+    }
+
+    /**
+     * Endpoint to get the redirect statistics of an alias.
+     * GET /urls/{alias}/stats
+     *
+     * @param alias The alias to look up
+     * @return The number of redirects and the time of the most recent one
+     */
+    @GetMapping("/urls/{alias}/stats")
+    public ResponseEntity<ClickStatsDto> getClickStats(@PathVariable String alias) {
+        return new ResponseEntity<>(clickStatsService.getClickStats(alias), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,50 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit.RateLimitProperties;
+
+/**
+ * Works out which client made a request, for rate limiting and the audit log.
+ * <p>
+ * Behind a proxy the remote address is the proxy's, so the client is taken from the configured
+ * client header instead, counting the trusted proxies back from its end.
+ */
+@Component
+public class ClientResolver {
+
+    private final String clientHeader;
+    private final int trustedHops;
+
+    @Autowired
+    public ClientResolver(RateLimitProperties properties) {
+        this.clientHeader = properties.getClientHeader();
+        this.trustedHops = Math.max(1, properties.getTrustedHops());
+    }
+
+    /**
+     * Returns the client that made a request: the value of the client header appended by the
+     * furthest trusted proxy, if a header is configured and has that many values, otherwise the
+     * remote address. Values further left were supplied by the client itself, so a client cannot
+     * pass as another by sending a different header with each request.
+     *
+     * @param request The request
+     * @return The client
+     */
+    public String clientOf(HttpServletRequest request) {
+        if (clientHeader != null) {
+            String value = request.getHeader(clientHeader);
+            if (value != null) {
+                String[] hops = value.split(",", -1);
+                if (hops.length >= trustedHops) {
+                    String client = hops[hops.length - trustedHops].trim();
+                    if (!client.isEmpty()) {
+                        return client;
+                    }
+                }
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,114 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import uk.co.droidinactu.tpximpacttask.urlshortener.metrics.ShortenerMetrics;
+import uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit.EndpointClass;
+import uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit.RateLimitProperties;
+import uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit.RateLimiter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects requests to the {@link UrlShortenerController} endpoints once their client has used up its budget.
+ * <p>
+ * Redirects, writes and listings each have a budget of their own, so a client flooding
+ * {@code POST /shorten} or {@code GET /urls} is turned away with 429 Too Many Requests and a
+ * {@code Retry-After} header while its redirects, and every other client, are still served. It
+ * runs ahead of the {@link RedirectFastPathFilter} so that redirects answered there are limited too.
+ * Every other endpoint is left alone.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final ShortenerMetrics shortenerMetrics;
+    private final ClientResolver clientResolver;
+    private final boolean enabled;
+
+    @Autowired
+    public RateLimitFilter(RateLimitProperties properties,
+                           ClientResolver clientResolver,
+                           ShortenerMetrics shortenerMetrics) {
+        this.rateLimiter = new RateLimiter(properties);
+        this.clientResolver = clientResolver;
+        this.shortenerMetrics = shortenerMetrics;
+        this.enabled = properties.isEnabled();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = endpointClassOf(request);
+        long wait = endpointClass == null ? 0 : rateLimiter.tryAcquire(endpointClass, clientResolver.clientOf(request));
+        if (wait == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        shortenerMetrics.rateLimited(endpointClass);
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"error\":\"Too many requests, retry after " + retryAfter + "s\"}");
+    }
+
+    /**
+     * Forgets the clients that have not made a request for the idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${urlshortener.rate-limit.idle-timeout:5m}")
+    public void evictIdleClients() {
+        if (enabled) {
+            int evicted = rateLimiter.evictIdle();
+            log.debug("Forgot the rate limits of {} idle clients, {} remain", evicted, rateLimiter.size());
+        }
+    }
+
+    /**
+     * Returns which budget a request is taken from, or null if it is not limited.
+     *
+     * @param request The request
+     * @return The endpoint class, or null
+     */
+    static EndpointClass endpointClassOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return switch (request.getMethod()) {
+            case "GET", "HEAD" -> {
+                if (path.equals("/urls") || path.startsWith("/urls/")) {
+                    yield EndpointClass.LIST;
+                }
+                yield isAlias(path) ? EndpointClass.REDIRECT : null;
+            }
+            case "POST" -> path.equals("/shorten") || path.equals("/shorten/batch") ? EndpointClass.WRITE : null;
+            case "DELETE" -> isAlias(path) ? EndpointClass.WRITE : null;
+            default -> null;
+        };
+    }
+
+    private static boolean isAlias(String path) {
+        return path.length() > 1 && path.charAt(0) == '/' && path.indexOf('/', 1) < 0
+                && !RedirectFastPathFilter.RESERVED_SEGMENTS.contains(path.substring(1));
+    }
+}
@@ -0,0 +1,66 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
+
+/**
+ * Works out how long a redirect may be cached by browsers and CDNs, and sets its {@code Cache-Control}
+ * and {@code Expires} headers.
+ * <p>
+ * A mapping's own cache max age, or the configured default, is capped by the configured limit and by
+ * the time left until the mapping expires, so a cached redirect is never reused after its alias has
+ * expired, and one for a deleted alias is reused for at most the limit. A redirect that may not be
+ * cached is marked {@code no-store}, which matters most for 301 and 308 redirects, as browsers
+ * otherwise keep them indefinitely.
+ */
+@Component
+public class RedirectCacheHeaders {
+
+    private static final String NO_STORE = "no-store";
+
+    private final long defaultMaxAge;
+    private final long maxAgeLimit;
+    private final String directivePrefix;
+
+    @Autowired
+    public RedirectCacheHeaders(RedirectProperties properties) {
+        this.defaultMaxAge = properties.getCacheMaxAge().toSeconds();
+        this.maxAgeLimit = properties.getCacheMaxAgeLimit().toSeconds();
+        this.directivePrefix = properties.isSharedCache() ? "public, max-age=" : "private, max-age=";
+    }
+
+    /**
+     * Sets the caching headers of a redirect.
+     *
+     * @param response the response the redirect is sent on
+     * @param target   the target of the redirect
+     */
+    public void apply(HttpServletResponse response, RedirectCache.Target target) {
+        long now = System.currentTimeMillis();
+        long maxAge = maxAge(target, now);
+        if (maxAge <= 0) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, NO_STORE);
+            return;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, directivePrefix + maxAge);
+        response.setDateHeader(HttpHeaders.EXPIRES, now + maxAge * 1000);
+    }
+
+    /**
+     * Returns how many seconds a redirect may be cached for.
+     *
+     * @param target the target of the redirect
+     * @param now    the current time in epoch milliseconds
+     * @return the cache max age in seconds, zero or less if it may not be cached
+     */
+    long maxAge(RedirectCache.Target target, long now) {
+        long maxAge = Math.min(target.cacheMaxAge() == null ? defaultMaxAge : target.cacheMaxAge(), maxAgeLimit);
+        if (target.expiresAt() != RedirectCache.Target.NEVER) {
+            maxAge = Math.min(maxAge, (target.expiresAt() - now) / 1000);
+        }
+        return maxAge;
+    }
+}
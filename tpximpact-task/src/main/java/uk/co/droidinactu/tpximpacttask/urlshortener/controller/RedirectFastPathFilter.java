@@ -0,0 +1,114 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import uk.co.droidinactu.tpximpacttask.urlshortener.analytics.ClickCounter;
+import uk.co.droidinactu.tpximpacttask.urlshortener.audit.AuditEventType;
+import uk.co.droidinactu.tpximpacttask.urlshortener.audit.AuditLog;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
+import uk.co.droidinactu.tpximpacttask.urlshortener.metrics.ShortenerMetrics;
+import uk.co.droidinactu.tpximpacttask.urlshortener.service.UrlShortenerService;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Serves {@code GET /{alias}} for known aliases without going through the DispatcherServlet.
+ * <p>
+ * A redirect is just a status, a Location header and caching headers, so resolving the handler and building
+ * and rendering a {@code RedirectView} per request is mostly overhead. This filter answers the
+ * request directly when the alias resolves, and otherwise passes it on unchanged, so that
+ * {@link UrlShortenerController#redirectToFullUrl} still produces the 404 for unknown aliases and
+ * every other endpoint behaves exactly as before.
+ */
+@Component
+public class RedirectFastPathFilter extends OncePerRequestFilter {
+
+    /**
+     * First path segments that belong to other endpoints and are never treated as aliases.
+     */
+    static final Set<String> RESERVED_SEGMENTS = Set.of(
+            "shorten", "urls", "error", "h2-console", "admin", "actuator", "favicon.ico");
+
+    private final UrlShortenerService urlShortenerService;
+    private final ClickCounter clickCounter;
+    private final ShortenerMetrics shortenerMetrics;
+    private final RedirectCacheHeaders redirectCacheHeaders;
+    private final AuditLog auditLog;
+    private final ClientResolver clientResolver;
+    private final boolean enabled;
+
+    @Autowired
+    public RedirectFastPathFilter(UrlShortenerService urlShortenerService,
+                                  ClickCounter clickCounter,
+                                  ShortenerMetrics shortenerMetrics,
+                                  RedirectProperties properties,
+                                  RedirectCacheHeaders redirectCacheHeaders,
+                                  AuditLog auditLog,
+                                  ClientResolver clientResolver) {
+        this.urlShortenerService = urlShortenerService;
+        this.clickCounter = clickCounter;
+        this.shortenerMetrics = shortenerMetrics;
+        this.redirectCacheHeaders = redirectCacheHeaders;
+        this.auditLog = auditLog;
+        this.clientResolver = clientResolver;
+        this.enabled = properties.isFastPathEnabled();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        String method = request.getMethod();
+        return !"GET".equals(method) && !"HEAD".equals(method);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        String alias = aliasOf(request);
+        RedirectCache.Target target = alias == null ? null : urlShortenerService.findRedirect(alias);
+        if (target == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        clickCounter.record(alias);
+        response.setStatus(target.statusCode());
+        response.setHeader(HttpHeaders.LOCATION, target.fullUrl());
+        redirectCacheHeaders.apply(response, target);
+        shortenerMetrics.recordRedirect(System.nanoTime() - start, true);
+        auditLog.record(AuditEventType.REDIRECT, target.statusCode(), clientResolver.clientOf(request), alias,
+                target.fullUrl());
+    }
+
+    /**
+     * Returns the alias addressed by a single segment path, or null if the request is for anything else.
+     * Paths that need decoding or carry path parameters are left to Spring MVC, which decodes them.
+     *
+     * @param request The request
+     * @return The alias, or null
+     */
+    static String aliasOf(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        int start = request.getContextPath().length();
+        if (uri.length() <= start + 1 || uri.charAt(start) != '/') {
+            return null;
+        }
+        for (int i = start + 1; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c == '/' || c == '%' || c == ';') {
+                return null;
+            }
+        }
+        String alias = uri.substring(start + 1);
+        return RESERVED_SEGMENTS.contains(alias) ? null : alias;
+    }
+}
@@ -0,0 +1,37 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.controller;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for serving redirects.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.redirect")
+public class RedirectProperties {
+
+    /**
+     * Whether known aliases are redirected by {@link RedirectFastPathFilter} ahead of Spring MVC.
+     * When disabled every redirect goes through {@link UrlShortenerController#redirectToFullUrl}.
+     */
+    private boolean fastPathEnabled = true;
+
+    /**
+     * How long browsers and shared caches may reuse a redirect, for mappings that do not set their own
+     * cache max age. Zero marks redirects as not to be stored.
+     */
+    private Duration cacheMaxAge = Duration.ZERO;
+
+    /**
+     * The longest any redirect may be cached for, whatever its mapping asks for. A deleted mapping can
+     * still be served from caches for up to this long.
+     */
+    private Duration cacheMaxAgeLimit = Duration.ofDays(1);
+
+    /**
+     * Whether shared caches such as CDNs may store redirects, or only the client's own cache.
+     */
+    private boolean sharedCache = true;
+}
@@ -0,0 +1,35 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.view.RedirectView;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
+
+import java.io.IOException;
+
+/**
+ * A redirect to the full URL of an alias, with the status its mapping chose and the caching
+ * headers from {@link RedirectCacheHeaders}.
+ */
+class ShortUrlRedirectView extends RedirectView {
+
+    private final RedirectCache.Target target;
+    private final RedirectCacheHeaders cacheHeaders;
+
+    ShortUrlRedirectView(RedirectCache.Target target, RedirectCacheHeaders cacheHeaders) {
+        super(target.fullUrl());
+        this.target = target;
+        this.cacheHeaders = cacheHeaders;
+        if (target.redirectStatus() != null) {
+            setStatusCode(HttpStatus.valueOf(target.statusCode()));
+        }
+    }
+
+    @Override
+    protected void sendRedirect(HttpServletRequest request, HttpServletResponse response,
+                                String targetUrl, boolean http10Compatible) throws IOException {
+        cacheHeaders.apply(response, target);
+        super.sendRedirect(request, response, targetUrl, http10Compatible);
+    }
+}
@@ -1,19 +1,42 @@
 package uk.co.droidinactu.tpximpacttask.urlshortener.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.servlet.view.RedirectView;
 import uk.co.droidinactu.tpximpacttask.exception.AliasNotFoundException;
+import uk.co.droidinactu.tpximpacttask.urlshortener.analytics.ClickCounter;
+import uk.co.droidinactu.tpximpacttask.urlshortener.audit.AuditEventType;
+import uk.co.droidinactu.tpximpacttask.urlshortener.audit.AuditLog;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
 import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlRequest;
 import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlResponse;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlResult;
 import uk.co.droidinactu.tpximpacttask.urlshortener.dto.UrlMappingDto;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.UrlMappingPage;
+import uk.co.droidinactu.tpximpacttask.urlshortener.metrics.ShortenerMetrics;
+import uk.co.droidinactu.tpximpacttask.urlshortener.service.BulkShortenService;
 import uk.co.droidinactu.tpximpacttask.urlshortener.service.UrlShortenerService;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -21,14 +44,50 @@ import java.util.List;
  * Implements the OpenAPI spec.
  */
 @RestController
-@Slf4j
 public class UrlShortenerController {
 
+    /**
+     * Response for aliases that are known not to exist.
+     * Shared between requests as it is immutable, and matches {@link #handleAliasNotFoundException}.
+     */
+    private static final RedirectView NOT_FOUND_VIEW = notFoundView();
+
+    /**
+     * Media type for newline delimited JSON, one mapping per line.
+     */
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * The largest page that can be requested from GET /urls.
+     */
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final UrlShortenerService urlShortenerService;
+    private final BulkShortenService bulkShortenService;
+    private final ObjectMapper objectMapper;
+    private final ClickCounter clickCounter;
+    private final ShortenerMetrics shortenerMetrics;
+    private final RedirectCacheHeaders redirectCacheHeaders;
+    private final AuditLog auditLog;
+    private final ClientResolver clientResolver;
 
     @Autowired
-    public UrlShortenerController(UrlShortenerService urlShortenerService) {
+    public UrlShortenerController(UrlShortenerService urlShortenerService,
+                                  BulkShortenService bulkShortenService,
+                                  ObjectMapper objectMapper,
+                                  ClickCounter clickCounter,
+                                  ShortenerMetrics shortenerMetrics,
+                                  RedirectCacheHeaders redirectCacheHeaders,
+                                  AuditLog auditLog,
+                                  ClientResolver clientResolver) {
         this.urlShortenerService = urlShortenerService;
+        this.bulkShortenService = bulkShortenService;
+        this.objectMapper = objectMapper;
+        this.clickCounter = clickCounter;
+        this.shortenerMetrics = shortenerMetrics;
+        this.redirectCacheHeaders = redirectCacheHeaders;
+        this.auditLog = auditLog;
+        this.clientResolver = clientResolver;
     }
 
     /**
@@ -43,22 +102,111 @@ public class UrlShortenerController {
     public ResponseEntity<ShortenUrlResponse> shortenUrl(
             @Valid @RequestBody ShortenUrlRequest request,
             HttpServletRequest servletRequest) {
-        ShortenUrlResponse response = urlShortenerService.shortenUrl(request, servletRequest);
-        log.info("URL Shortened from {} to {}", request.getFullUrl(), response.getShortUrl());
+        ShortenUrlResponse response = urlShortenerService.shortenUrl(request, baseUrl(servletRequest));
+        auditLog.record(AuditEventType.SHORTEN, HttpStatus.CREATED.value(),
+                clientResolver.clientOf(servletRequest), response.getAlias(), request.getFullUrl());
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    /**
+     * Endpoint to shorten many URLs at once.
+     * POST /shorten/batch
+     * <p>
+     * The array is read one element at a time and the request is rejected as soon as it holds more
+     * URLs than a batch may, so an oversized body is never read into memory in full.
+     *
+     * @param servletRequest The HTTP request, whose body holds a JSON array of shorten requests
+     * @return One result per URL, in request order, each holding either the shortened URL or an error
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(value = "/shorten/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<ShortenUrlResult>> shortenUrls(HttpServletRequest servletRequest) throws IOException {
+        List<ShortenUrlRequest> requests = new ArrayList<>();
+        try (JsonParser parser = objectMapper.createParser(servletRequest.getInputStream())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new HttpMessageNotReadableException("Expected a JSON array",
+                        new ServletServerHttpRequest(servletRequest));
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                requests.add(objectMapper.readValue(parser, ShortenUrlRequest.class));
+                bulkShortenService.checkBatchSize(requests.size());
+            }
+        } catch (JsonProcessingException e) {
+            throw notReadable(e, servletRequest);
+        }
+        return new ResponseEntity<>(bulkShortenService.shortenUrls(requests, baseUrl(servletRequest)), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint to shorten many URLs at once, sent as newline delimited JSON.
+     * POST /shorten/batch
+     * <p>
+     * Lines are read one at a time and the request is rejected as soon as it holds more URLs than
+     * a batch may, so an oversized body is never read into memory in full.
+     *
+     * @param servletRequest The HTTP request, whose body holds one shorten request per line
+     * @return One result per URL, in request order, each holding either the shortened URL or an error
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(value = "/shorten/batch", consumes = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<ShortenUrlResult>> shortenUrlsNdjson(HttpServletRequest servletRequest) throws IOException {
+        List<ShortenUrlRequest> requests = new ArrayList<>();
+        try (MappingIterator<ShortenUrlRequest> lines = objectMapper.readerFor(ShortenUrlRequest.class)
+                .readValues(servletRequest.getInputStream())) {
+            while (lines.hasNextValue()) {
+                requests.add(lines.nextValue());
+                bulkShortenService.checkBatchSize(requests.size());
+            }
+        } catch (JsonProcessingException e) {
+            throw notReadable(e, servletRequest);
+        }
+        return new ResponseEntity<>(bulkShortenService.shortenUrls(requests, baseUrl(servletRequest)), HttpStatus.OK);
+    }
+
+    /**
+     * Reports a batch body that is not valid JSON the way a malformed {@code @RequestBody} is reported.
+     */
+    private static HttpMessageNotReadableException notReadable(JsonProcessingException e,
+                                                               HttpServletRequest servletRequest) {
+        return new HttpMessageNotReadableException("Malformed request body: " + e.getOriginalMessage(), e,
+                new ServletServerHttpRequest(servletRequest));
+    }
+
     /**
      * Endpoint to redirect to the full URL.
      * GET /{alias}
      *
-     * @param alias The alias to look up
+     * Aliases that the membership filter knows do not exist are answered with a 404 straight
+     * away, without a database lookup or an exception. Known aliases redirect with the status
+     * and caching headers their mapping chose.
+     *
+     * @param alias          The alias to look up
+     * @param servletRequest The HTTP request
      * @return A redirect to the full URL
      */
     @GetMapping("/{alias}")
-    public RedirectView redirectToFullUrl(@PathVariable String alias) {
-        String fullUrl = urlShortenerService.getFullUrl(alias);
-        return new RedirectView(fullUrl);
+    public RedirectView redirectToFullUrl(@PathVariable String alias, HttpServletRequest servletRequest) {
+        long start = System.nanoTime();
+        if (urlShortenerService.isUnknownAlias(alias)) {
+            shortenerMetrics.recordRedirect(System.nanoTime() - start, false);
+            auditLog.record(AuditEventType.NOT_FOUND, HttpStatus.NOT_FOUND.value(),
+                    clientResolver.clientOf(servletRequest), alias, null);
+            return NOT_FOUND_VIEW;
+        }
+        RedirectCache.Target target;
+        try {
+            target = urlShortenerService.getRedirect(alias);
+        } catch (AliasNotFoundException e) {
+            shortenerMetrics.recordRedirect(System.nanoTime() - start, false);
+            auditLog.record(AuditEventType.NOT_FOUND, HttpStatus.NOT_FOUND.value(),
+                    clientResolver.clientOf(servletRequest), alias, null);
+            throw e;
+        }
+        clickCounter.record(alias);
+        shortenerMetrics.recordRedirect(System.nanoTime() - start, true);
+        auditLog.record(AuditEventType.REDIRECT, target.statusCode(), clientResolver.clientOf(servletRequest), alias,
+                target.fullUrl());
+        return new ShortUrlRedirectView(target, redirectCacheHeaders);
     }
 
     /**
@@ -70,6 +218,10 @@ public class UrlShortenerController {
      */
     @ExceptionHandler(AliasNotFoundException.class)
     public RedirectView handleAliasNotFoundException(AliasNotFoundException ex) {
+        return notFoundView();
+    }
+
+    private static RedirectView notFoundView() {
         RedirectView redirectView = new RedirectView("/error");
         redirectView.setStatusCode(HttpStatus.NOT_FOUND);
         return redirectView;
@@ -79,24 +231,121 @@ public class UrlShortenerController {
      * Endpoint to delete a shortened URL.
      * DELETE /{alias}
      *
-     * @param alias The alias to delete
+     * @param alias          The alias to delete
+     * @param servletRequest The HTTP request
      * @return No content if successful, not found if alias doesn't exist
      */
     @DeleteMapping("/{alias}")
-    public ResponseEntity<Void> deleteUrlMapping(@PathVariable String alias) {
+    public ResponseEntity<Void> deleteUrlMapping(@PathVariable String alias, HttpServletRequest servletRequest) {
         urlShortenerService.deleteUrlMapping(alias);
+        auditLog.record(AuditEventType.DELETE, HttpStatus.NO_CONTENT.value(),
+                clientResolver.clientOf(servletRequest), alias, null);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
     /**
      * Endpoint to list all shortened URLs.
      * GET /urls
+     * <p>
+     * The mappings are streamed from a database cursor as they are written, so memory use stays
+     * flat however large the table is. The response is a JSON array, or newline delimited JSON
+     * if the client accepts {@value #APPLICATION_NDJSON_VALUE}.
      *
-     * @return A list of all shortened URLs
+     * @param accept The Accept header of the request
+     * @return A streamed list of all shortened URLs
      */
     @GetMapping("/urls")
-    public ResponseEntity<List<UrlMappingDto>> getAllUrlMappings() {
-        List<UrlMappingDto> urlMappings = urlShortenerService.getAllUrlMappings();
-        return new ResponseEntity<>(urlMappings, HttpStatus.OK);
+    public ResponseEntity<StreamingResponseBody> getAllUrlMappings(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean ndjson = accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(mediaType -> mediaType.toString().startsWith(APPLICATION_NDJSON_VALUE));
+        StreamingResponseBody body = ndjson ? this::writeNdjson : this::writeJsonArray;
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.parseMediaType(APPLICATION_NDJSON_VALUE) : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Endpoint to list one page of shortened URLs.
+     * GET /urls?limit={limit}&amp;cursor={cursor}
+     * <p>
+     * Pages are returned in creation order. When there are more mappings, the cursor for the next
+     * page is returned in the {@code X-Next-Cursor} header and as a {@code Link} header with
+     * {@code rel="next"}.
+     *
+     * @param limit  The maximum number of mappings to return, capped at 1000
+     * @param cursor The cursor from the previous page, omitted for the first page
+     * @return A page of shortened URLs
+     */
+    @GetMapping(value = "/urls", params = "limit")
+    public ResponseEntity<List<UrlMappingDto>> getUrlMappingsPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        UrlMappingPage page = urlShortenerService.getUrlMappingsPage(cursor, Math.min(limit, MAX_PAGE_SIZE));
+
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .toUriString();
+            headers.add("X-Next-Cursor", page.getNextCursor());
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(page.getItems(), headers, HttpStatus.OK);
+    }
+
+    private void writeJsonArray(OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartArray();
+            urlShortenerService.streamAllUrlMappings(mapping -> {
+                try {
+                    generator.writeObject(mapping);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
+
+    private void writeNdjson(OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setRootValueSeparator(null);
+            urlShortenerService.streamAllUrlMappings(mapping -> {
+                try {
+                    generator.writeObject(mapping);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets the base URL that short URLs are built on from the HTTP request.
+     *
+     * @param request The HTTP request
+     * @return The base URL
+     */
+    public static String baseUrl(HttpServletRequest request) {
+        String scheme = request.getScheme();
+        String serverName = request.getServerName();
+        int serverPort = request.getServerPort();
+        String contextPath = request.getContextPath();
+
+        StringBuilder url = new StringBuilder();
+        url.append(scheme).append("://").append(serverName);
+
+        if ((serverPort != 80 && scheme.equals("http")) ||
+                (serverPort != 443 && scheme.equals("https"))) {
+            url.append(":").append(serverPort);
+        }
+
+        url.append(contextPath);
+        return url.toString();
     }
 }
@@ -0,0 +1,155 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.datasource;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link DataSource} that lets at most a fixed number of callers hold a connection at once.
+ * <p>
+ * Callers beyond the limit wait in a fair FIFO queue and fail with a
+ * {@link SQLTransientConnectionException} once the timeout passes, rather than all competing
+ * inside the connection pool. The permit is returned when the connection is closed.
+ */
+public class AdmissionControlledDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long acquireTimeoutNanos;
+
+    /**
+     * Creates an admission controlled wrapper around a data source.
+     *
+     * @param targetDataSource the data source to wrap
+     * @param maxConcurrent    the number of connections that may be held at once
+     * @param acquireTimeout   how long to wait for a connection before failing
+     */
+    public AdmissionControlledDataSource(DataSource targetDataSource, int maxConcurrent, Duration acquireTimeout) {
+        super(targetDataSource);
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be at least 1");
+        }
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return admitted(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return admitted(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of callers waiting for a connection.
+     *
+     * @return an estimate of the queue length
+     */
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Returns the number of connections currently held through this data source.
+     *
+     * @return the number of permits in use
+     */
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("Timed out after "
+                        + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + "ms waiting for one of "
+                        + maxConcurrent + " database connections");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a database connection", e);
+        }
+    }
+
+    private Connection admitted(Connection target) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class},
+                new PermitReleasingHandler(target));
+    }
+
+    /**
+     * Forwards every call to the pooled connection and returns the permit on the first close.
+     */
+    private final class PermitReleasingHandler implements InvocationHandler {
+
+        private final Connection target;
+        private boolean closed;
+
+        private PermitReleasingHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getTargetConnection":
+                    return target;
+                case "isClosed":
+                    if (closed) {
+                        return true;
+                    }
+                    break;
+                case "close":
+                    if (closed) {
+                        return null;
+                    }
+                    closed = true;
+                    try {
+                        target.close();
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
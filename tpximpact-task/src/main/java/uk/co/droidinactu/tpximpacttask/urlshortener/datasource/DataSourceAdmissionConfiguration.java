@@ -0,0 +1,46 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application {@link DataSource} in an {@link AdmissionControlledDataSource} when
+ * {@code urlshortener.datasource.admission.enabled} is set.
+ */
+@Configuration
+@Slf4j
+public class DataSourceAdmissionConfiguration {
+
+    /**
+     * Declared static so that it is registered before the data source is created.
+     * The properties are bound directly as configuration properties beans are not yet available.
+     */
+    @Bean
+    public static BeanPostProcessor dataSourceAdmissionPostProcessor(Environment environment) {
+        DataSourceAdmissionProperties properties = Binder.get(environment)
+                .bind("urlshortener.datasource.admission", DataSourceAdmissionProperties.class)
+                .orElseGet(DataSourceAdmissionProperties::new);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!properties.isEnabled() || !(bean instanceof DataSource dataSource)
+                        || bean instanceof AdmissionControlledDataSource) {
+                    return bean;
+                }
+                int maxConcurrent = properties.getMaxConcurrent();
+                if (maxConcurrent < 1) {
+                    maxConcurrent = bean instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+                }
+                log.info("Limiting data source '{}' to {} concurrent connections", beanName, maxConcurrent);
+                return new AdmissionControlledDataSource(dataSource, maxConcurrent, properties.getAcquireTimeout());
+            }
+        };
+    }
+}
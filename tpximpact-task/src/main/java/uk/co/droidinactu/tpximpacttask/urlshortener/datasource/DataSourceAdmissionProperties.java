@@ -0,0 +1,32 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for limiting how many threads may hold a database connection at once.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.datasource.admission")
+public class DataSourceAdmissionProperties {
+
+    /**
+     * Whether connection requests are queued in front of the pool.
+     * Intended for virtual threads, where the number of concurrent requests is no longer
+     * bounded by the size of the web server's thread pool.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The number of connections that may be held at once.
+     * Zero uses the maximum size of the connection pool.
+     */
+    private int maxConcurrent = 0;
+
+    /**
+     * How long a request waits for a connection before failing.
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(2);
+}
@@ -0,0 +1,18 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.dedup;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for reusing the short URL of an identical full URL.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.dedup")
+public class DedupProperties {
+
+    /**
+     * Whether a request without a custom alias returns the existing short URL of a mapping with the
+     * same normalised full URL, instead of creating a new one. Mappings with custom aliases are never reused.
+     */
+    private boolean enabled = false;
+}
@@ -0,0 +1,96 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.dedup;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * Normalises full URLs and hashes them into the fixed width {@code fullUrlHash} column, so that
+ * mappings for the same URL can be found through an index instead of comparing unbounded strings.
+ * <p>
+ * Normalisation only makes changes that cannot alter the resource a URL refers to: the scheme and
+ * host are lower cased, a default port is removed, an empty path becomes {@code /} and surrounding
+ * whitespace is trimmed. Anything that is not an absolute hierarchical URL is only trimmed.
+ * <p>
+ * The hash is the first 64 bits of the SHA-256 of the normalised URL. Different URLs can in theory
+ * share a hash, so a match must be confirmed with {@link #sameUrl}.
+ */
+public final class FullUrlHash {
+
+    private FullUrlHash() {
+    }
+
+    /**
+     * Hashes the normalised form of a full URL.
+     *
+     * @param fullUrl the full URL
+     * @return the hash
+     */
+    public static long of(String fullUrl) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(normalise(fullUrl).getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Checks whether two full URLs are the same once normalised.
+     *
+     * @param fullUrl the first full URL
+     * @param other   the second full URL
+     * @return true if both normalise to the same URL
+     */
+    public static boolean sameUrl(String fullUrl, String other) {
+        return normalise(fullUrl).equals(normalise(other));
+    }
+
+    /**
+     * Normalises a full URL.
+     *
+     * @param fullUrl the full URL
+     * @return the normalised URL
+     */
+    static String normalise(String fullUrl) {
+        String trimmed = fullUrl.trim();
+        URI uri;
+        try {
+            uri = new URI(trimmed);
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+        if (!uri.isAbsolute() || uri.isOpaque() || uri.getHost() == null) {
+            return trimmed;
+        }
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+        if ((port == 80 && scheme.equals("http")) || (port == 443 && scheme.equals("https"))) {
+            port = -1;
+        }
+
+        StringBuilder url = new StringBuilder(trimmed.length());
+        url.append(scheme).append("://");
+        if (uri.getRawUserInfo() != null) {
+            url.append(uri.getRawUserInfo()).append('@');
+        }
+        url.append(uri.getHost().toLowerCase(Locale.ROOT));
+        if (port != -1) {
+            url.append(':').append(port);
+        }
+        String path = uri.getRawPath();
+        url.append(path == null || path.isEmpty() ? "/" : path);
+        if (uri.getRawQuery() != null) {
+            url.append('?').append(uri.getRawQuery());
+        }
+        if (uri.getRawFragment() != null) {
+            url.append('#').append(uri.getRawFragment());
+        }
+        return url.toString();
+    }
+}
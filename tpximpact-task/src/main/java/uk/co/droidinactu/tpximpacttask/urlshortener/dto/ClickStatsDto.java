@@ -0,0 +1,32 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for the redirect statistics of an alias.
+ * Based on the OpenAPI spec for the GET /urls/{alias}/stats endpoint response.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClickStatsDto {
+
+    /**
+     * The alias the statistics belong to.
+     */
+    private String alias;
+
+    /**
+     * The number of redirects served for the alias.
+     */
+    private long clickCount;
+
+    /**
+     * The date and time of the most recent redirect, or null if it has never been used.
+     */
+    private LocalDateTime lastAccessedAt;
+}
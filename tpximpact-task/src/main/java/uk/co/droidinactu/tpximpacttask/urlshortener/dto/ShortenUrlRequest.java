@@ -1,9 +1,15 @@
 package uk.co.droidinactu.tpximpacttask.urlshortener.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.RedirectStatus;
+
+import java.time.LocalDateTime;
 
 /**
  * DTO for the request to shorten a URL.
@@ -26,4 +32,43 @@ public class ShortenUrlRequest {
      * If not provided, a random alias will be generated.
      */
     private String customAlias;
+
+    /**
+     * Optional date and time after which the short URL stops redirecting.
+     * If not provided, the short URL never expires.
+     */
+    @Future(message = "Expiry must be in the future")
+    private LocalDateTime expiresAt;
+
+    /**
+     * Optional status to redirect with: 301 or 308 for a permanent redirect, 302 or 307 for a temporary one.
+     * If not provided, the short URL redirects with a 302.
+     */
+    private RedirectStatus redirectStatus;
+
+    /**
+     * Optional number of seconds browsers and shared caches may reuse the redirect.
+     * If not provided, the configured default applies.
+     */
+    @PositiveOrZero(message = "Cache max age must not be negative")
+    private Long cacheMaxAge;
+
+    public ShortenUrlRequest(String fullUrl, String customAlias) {
+        this(fullUrl, customAlias, null);
+    }
+
+    public ShortenUrlRequest(String fullUrl, String customAlias, LocalDateTime expiresAt) {
+        this(fullUrl, customAlias, expiresAt, null, null);
+    }
+
+    /**
+     * Returns whether any short URL for the same full URL would do: the request neither expires
+     * nor chooses how the redirect is served.
+     *
+     * @return true if an existing generated alias can be given out instead
+     */
+    @JsonIgnore
+    public boolean hasDefaultOptions() {
+        return expiresAt == null && redirectStatus == null && cacheMaxAge == null;
+    }
 }
\ No newline at end of file
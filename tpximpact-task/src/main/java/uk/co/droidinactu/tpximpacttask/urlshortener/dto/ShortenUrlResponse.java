@@ -1,5 +1,6 @@
 package uk.co.droidinactu.tpximpacttask.urlshortener.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,4 +18,10 @@ public class ShortenUrlResponse {
      * The shortened URL (base URL + alias).
      */
     private String shortUrl;
-}
\ No newline at end of file
+
+    /**
+     * The alias the short URL ends with. Not part of the response body.
+     */
+    @JsonIgnore
+    private String alias;
+}
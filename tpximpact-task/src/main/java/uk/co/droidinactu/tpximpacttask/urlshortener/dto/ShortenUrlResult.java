@@ -0,0 +1,40 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the outcome of one item of a POST /shorten/batch request.
+ * Exactly one of shortUrl and error is set.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ShortenUrlResult {
+
+    /**
+     * The position of the item in the request, starting from zero.
+     */
+    private int index;
+
+    /**
+     * The shortened URL (base URL + alias), if the item succeeded.
+     */
+    private String shortUrl;
+
+    /**
+     * Why the item was rejected, if it failed.
+     */
+    private String error;
+
+    public static ShortenUrlResult success(int index, String shortUrl) {
+        return new ShortenUrlResult(index, shortUrl, null);
+    }
+
+    public static ShortenUrlResult failure(int index, String error) {
+        return new ShortenUrlResult(index, null, error);
+    }
+}
@@ -0,0 +1,26 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of URL mappings from a keyset paginated GET /urls request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UrlMappingPage {
+
+    /**
+     * The mappings on this page, in creation order.
+     */
+    private List<UrlMappingDto> items;
+
+    /**
+     * The cursor to request the next page with, or null if this is the last page.
+     */
+    private String nextCursor;
+}
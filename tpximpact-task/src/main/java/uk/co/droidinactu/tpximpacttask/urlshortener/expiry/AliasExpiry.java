@@ -0,0 +1,12 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.expiry;
+
+import java.time.LocalDateTime;
+
+/**
+ * The expiry time of an alias.
+ *
+ * @param alias     the alias
+ * @param expiresAt when it stops redirecting
+ */
+public record AliasExpiry(String alias, LocalDateTime expiresAt) {
+}
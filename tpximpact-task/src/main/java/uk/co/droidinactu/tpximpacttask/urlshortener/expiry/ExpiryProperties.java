@@ -0,0 +1,25 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.expiry;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for deleting mappings once they expire.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.expiry")
+public class ExpiryProperties {
+
+    /**
+     * The resolution of the timing wheel, and how often it is advanced. An expired mapping is
+     * deleted within about one tick, although it stops redirecting at its exact expiry time.
+     */
+    private Duration tick = Duration.ofSeconds(1);
+
+    /**
+     * The number of expired mappings deleted per transaction.
+     */
+    private int batchSize = 1000;
+}
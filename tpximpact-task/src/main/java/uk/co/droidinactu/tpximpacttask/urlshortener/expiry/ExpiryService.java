@@ -0,0 +1,136 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.expiry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uk.co.droidinactu.tpximpacttask.urlshortener.analytics.ClickStatsService;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cluster.ClusterEvent;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cluster.ClusterEventBus;
+import uk.co.droidinactu.tpximpacttask.urlshortener.index.AliasMembershipFilter;
+import uk.co.droidinactu.tpximpacttask.urlshortener.metrics.ShortenerMetrics;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.UrlMappingStore;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes mappings once they reach their expiry time.
+ * <p>
+ * Every expiring alias is scheduled in a {@link TimingWheel} when it is created, and on startup
+ * for those already in the store, after any snapshot has been imported. Every tick the aliases
+ * that have become due are deleted in batches, then removed from the redirect cache and the alias
+ * membership filter, their click statistics are discarded and other instances are told. Nothing
+ * scans the store for expired mappings, and redirects never wait for this: a mapping stops
+ * redirecting at its expiry time because the redirect path compares it with the expiry time it
+ * has already loaded or cached. With several instances, each deletes the mappings it created and
+ * those that were in the store when it started, so an expired mapping may be deleted twice, which
+ * is harmless.
+ */
+@Service
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class ExpiryService implements ApplicationRunner {
+
+    private final UrlMappingStore urlMappingStore;
+    private final RedirectCache redirectCache;
+    private final AliasMembershipFilter aliasMembershipFilter;
+    private final ClickStatsService clickStatsService;
+    private final ClusterEventBus clusterEventBus;
+    private final ShortenerMetrics shortenerMetrics;
+    private final int batchSize;
+    private final TimingWheel<String> wheel;
+
+    @Autowired
+    public ExpiryService(UrlMappingStore urlMappingStore,
+                         RedirectCache redirectCache,
+                         AliasMembershipFilter aliasMembershipFilter,
+                         ClickStatsService clickStatsService,
+                         ExpiryProperties properties,
+                         ClusterEventBus clusterEventBus,
+                         ShortenerMetrics shortenerMetrics) {
+        this.urlMappingStore = urlMappingStore;
+        this.redirectCache = redirectCache;
+        this.aliasMembershipFilter = aliasMembershipFilter;
+        this.clickStatsService = clickStatsService;
+        this.clusterEventBus = clusterEventBus;
+        this.shortenerMetrics = shortenerMetrics;
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.wheel = new TimingWheel<>(properties.getTick().toMillis(), System.currentTimeMillis());
+    }
+
+    /**
+     * Schedules every expiring mapping already in the store.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        AtomicLong loaded = new AtomicLong();
+        urlMappingStore.forEachExpiry(expiry -> {
+            schedule(expiry.alias(), expiry.expiresAt());
+            loaded.incrementAndGet();
+        });
+        log.info("Scheduled {} expiring mappings in {}ms", loaded.get(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Schedules the deletion of a mapping. A mapping that has been deleted or replaced by the time
+     * it is due is left alone, so a schedule never needs cancelling.
+     *
+     * @param alias     the alias of the mapping
+     * @param expiresAt when it expires
+     */
+    public void schedule(String alias, LocalDateTime expiresAt) {
+        wheel.schedule(alias, epochMillis(expiresAt));
+    }
+
+    /**
+     * Deletes the mappings that have become due since the previous tick.
+     * A batch that cannot be deleted is scheduled again for the next tick.
+     */
+    @Scheduled(fixedDelayString = "${urlshortener.expiry.tick:1s}")
+    public void expire() {
+        List<String> due = wheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<String> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                List<String> deleted = urlMappingStore.deleteExpired(batch, LocalDateTime.now());
+                for (String alias : deleted) {
+                    redirectCache.invalidate(alias);
+                    aliasMembershipFilter.remove(alias);
+                }
+                if (!deleted.isEmpty()) {
+                    clickStatsService.deleteClickStats(deleted);
+                    clusterEventBus.publish(deleted.stream()
+                            .map(alias -> new ClusterEvent(ClusterEvent.Type.DELETED, alias))
+                            .toList());
+                    shortenerMetrics.expired(deleted.size());
+                    log.debug("Deleted {} expired mappings", deleted.size());
+                }
+            } catch (RuntimeException e) {
+                long now = System.currentTimeMillis();
+                batch.forEach(alias -> wheel.schedule(alias, now));
+                log.warn("Unable to delete {} expired mappings, will retry", batch.size(), e);
+            }
+        }
+    }
+
+    /**
+     * Converts an expiry time, which like the creation time is in the local time zone, to epoch milliseconds.
+     *
+     * @param expiresAt the expiry time
+     * @return the same instant in epoch milliseconds
+     */
+    private static long epochMillis(LocalDateTime expiresAt) {
+        return expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
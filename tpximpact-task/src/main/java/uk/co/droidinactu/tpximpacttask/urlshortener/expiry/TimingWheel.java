@@ -0,0 +1,175 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: schedules items against a deadline and hands them back once the
+ * deadline has passed, in time proportional to the number of items rather than to how far ahead
+ * they are scheduled.
+ * <p>
+ * Time is counted in ticks of a fixed length. Each of the {@value #LEVELS} levels has
+ * {@value #SLOTS} slots, and a slot at level {@code n} covers {@code 64^n} ticks, so with one
+ * second ticks the levels cover a minute, an hour, three days, six months and 34 years. An item
+ * goes into the lowest level whose slot can tell its deadline apart from the current tick; when
+ * the wheel reaches that slot the items in it are moved down to finer levels, until they reach
+ * level 0 and are due. Deadlines beyond the top level wait in an overflow list that is looked at
+ * once per turn of the top level. The wheel keeps a count of the items in each level, so it can
+ * skip over the ticks in which no slot it would visit can hold anything.
+ * <p>
+ * Items are handed back no earlier than their deadline and at most one tick after it, if the
+ * wheel is advanced every tick. There is no cancellation: an item that no longer applies is
+ * handed back anyway and the caller ignores it. Instances are thread safe.
+ *
+ * @param <T> the type of the scheduled items
+ */
+public class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int LEVELS = 5;
+
+    private final long tickMillis;
+    private final List<List<Timer<T>>> slots = new ArrayList<>(LEVELS * SLOTS);
+    private List<Timer<T>> overflow = new ArrayList<>();
+    private final int[] counts = new int[LEVELS + 1];
+    private List<T> due = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    private record Timer<T>(T item, long tick) {
+    }
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param tickMillis the length of a tick in milliseconds
+     * @param nowMillis  the current time in epoch milliseconds
+     */
+    public TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(null);
+        }
+    }
+
+    /**
+     * Schedules an item.
+     *
+     * @param item           the item
+     * @param deadlineMillis when the item is due, in epoch milliseconds
+     */
+    public synchronized void schedule(T item, long deadlineMillis) {
+        // round up, so an item is never handed back before its deadline
+        long tick = deadlineMillis / tickMillis + (deadlineMillis % tickMillis == 0 ? 0 : 1);
+        place(new Timer<>(item, tick));
+        size++;
+    }
+
+    /**
+     * Moves the wheel on to the given time and returns every item that has become due.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     * @return the items whose deadline is not after {@code nowMillis}, in no particular order
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            int lowest = 0;
+            while (lowest <= LEVELS && counts[lowest] == 0) {
+                lowest++;
+            }
+            if (lowest > LEVELS) {
+                currentTick = targetTick;
+                break;
+            }
+            if (lowest > 0) {
+                // the levels below are empty, so nothing happens before the next slot of this level
+                long next = (currentTick | ((1L << (BITS * lowest)) - 1)) + 1;
+                if (next > targetTick) {
+                    currentTick = targetTick;
+                    break;
+                }
+                currentTick = next - 1;
+            }
+            currentTick++;
+            for (int level = LEVELS; level > 0; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+            List<Timer<T>> slot = take(0, (int) (currentTick & (SLOTS - 1)));
+            if (slot != null) {
+                slot.forEach(timer -> due.add(timer.item()));
+            }
+        }
+        List<T> result = due;
+        size -= result.size();
+        due = new ArrayList<>();
+        return result;
+    }
+
+    /**
+     * Returns the number of scheduled items that have not been handed back yet.
+     *
+     * @return the number of items in the wheel
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Redistributes the slot of the given level that the current tick has just entered.
+     * Level {@link #LEVELS} stands for the overflow list.
+     */
+    private void cascade(int level) {
+        List<Timer<T>> timers;
+        if (level == LEVELS) {
+            timers = overflow;
+            overflow = new ArrayList<>();
+            counts[LEVELS] = 0;
+        } else {
+            timers = take(level, (int) ((currentTick >>> (BITS * level)) & (SLOTS - 1)));
+        }
+        if (timers != null) {
+            timers.forEach(this::place);
+        }
+    }
+
+    /**
+     * Puts a timer in the lowest level whose slot distinguishes its tick from the current tick:
+     * the level of the highest digit, in base {@value #SLOTS}, in which the two differ.
+     */
+    private void place(Timer<T> timer) {
+        if (timer.tick() <= currentTick) {
+            due.add(timer.item());
+            return;
+        }
+        int level = (63 - Long.numberOfLeadingZeros(timer.tick() ^ currentTick)) / BITS;
+        if (level >= LEVELS) {
+            overflow.add(timer);
+            counts[LEVELS]++;
+            return;
+        }
+        int index = level * SLOTS + (int) ((timer.tick() >>> (BITS * level)) & (SLOTS - 1));
+        List<Timer<T>> slot = slots.get(index);
+        if (slot == null) {
+            slot = new ArrayList<>(4);
+            slots.set(index, slot);
+        }
+        slot.add(timer);
+        counts[level]++;
+    }
+
+    private List<Timer<T>> take(int level, int slot) {
+        List<Timer<T>> timers = slots.set(level * SLOTS + slot, null);
+        if (timers != null) {
+            counts[level] -= timers.size();
+        }
+        return timers;
+    }
+}
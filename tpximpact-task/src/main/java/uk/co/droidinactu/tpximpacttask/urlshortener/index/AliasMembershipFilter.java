@@ -0,0 +1,175 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cluster.ClusterProperties;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.UrlMappingStore;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory membership filter of every alias in the {@link UrlMappingStore}.
+ * <p>
+ * The filter is populated from the store once the application has started and is then kept
+ * up to date as mappings are created and deleted. Until it has been populated every alias is
+ * reported as possibly present, so lookups fall through to the store as before.
+ * <p>
+ * When instances share the store, a mapping created on another instance is only added here once
+ * its event arrives, so {@link #isAbsent} confirms a negative answer against the store first and
+ * remembers the aliases it found missing for one poll interval.
+ */
+@Component
+@Slf4j
+public class AliasMembershipFilter implements ApplicationRunner {
+
+    private final boolean enabled;
+    private final long expectedAliases;
+    private final CountingBloomFilter filter;
+    private final UrlMappingStore urlMappingStore;
+    private final AtomicLong approximateSize = new AtomicLong();
+    private final boolean clustered;
+    private final long absentTtlNanos;
+    private final int absentCacheSize;
+    private final Map<String, Long> confirmedAbsent = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    @Autowired
+    public AliasMembershipFilter(AliasMembershipProperties properties,
+                                 ClusterProperties clusterProperties,
+                                 UrlMappingStore urlMappingStore) {
+        this.enabled = properties.isEnabled();
+        this.expectedAliases = properties.getExpectedAliases();
+        this.filter = new CountingBloomFilter(properties.getExpectedAliases(), properties.getFalsePositiveProbability());
+        this.clustered = clusterProperties.getTransport() != ClusterProperties.Transport.NONE;
+        this.absentTtlNanos = clusterProperties.getPollInterval().toNanos();
+        this.absentCacheSize = clusterProperties.getAbsentAliasCacheSize();
+        this.urlMappingStore = urlMappingStore;
+    }
+
+    /**
+     * Loads every existing alias into the filter.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        AtomicLong loaded = new AtomicLong();
+        urlMappingStore.forEachAlias(alias -> {
+            add(alias);
+            loaded.incrementAndGet();
+        });
+        ready = true;
+        log.info("Alias membership filter loaded {} aliases using {} bytes", loaded.get(), filter.sizeInBytes());
+    }
+
+    /**
+     * Returns whether the alias is certainly not in the database.
+     *
+     * @param alias The alias to test
+     * @return true if the alias definitely does not exist, false if it might
+     */
+    public boolean isDefinitelyAbsent(String alias) {
+        return enabled && ready && !filter.mightContain(alias);
+    }
+
+    /**
+     * Returns whether the alias is not in the database, for answering a request with 404.
+     * On a single instance this is {@link #isDefinitelyAbsent}. In a cluster the alias may have
+     * just been created on another instance, so it is also looked up in the store unless it was
+     * found missing there within the last poll interval.
+     *
+     * @param alias The alias to test
+     * @return true if the alias does not exist, false if it might
+     */
+    public boolean isAbsent(String alias) {
+        if (!isDefinitelyAbsent(alias)) {
+            return false;
+        }
+        if (!clustered) {
+            return true;
+        }
+        long now = System.nanoTime();
+        Long until = confirmedAbsent.get(alias);
+        if (until != null && until - now > 0) {
+            return true;
+        }
+        if (urlMappingStore.exists(alias)) {
+            return false;
+        }
+        if (confirmedAbsent.size() >= absentCacheSize) {
+            confirmedAbsent.clear();
+        }
+        Long expiry = now + absentTtlNanos;
+        confirmedAbsent.put(alias, expiry);
+        // added while it was being looked up, so the entry may already be stale
+        if (filter.mightContain(alias)) {
+            confirmedAbsent.remove(alias, expiry);
+        }
+        return true;
+    }
+
+    /**
+     * Records that a mapping for the alias is about to be stored.
+     * This must happen before the mapping becomes visible so that it is never reported absent.
+     *
+     * @param alias The alias being stored
+     */
+    public void add(String alias) {
+        if (!enabled) {
+            return;
+        }
+        filter.add(alias);
+        confirmedAbsent.remove(alias);
+        if (approximateSize.incrementAndGet() == expectedAliases + 1) {
+            log.warn("Alias membership filter now holds more than the {} aliases it was sized for; "
+                    + "raise urlshortener.membership.expected-aliases", expectedAliases);
+        }
+    }
+
+    /**
+     * Records that the mapping for the alias has been deleted.
+     * Removals are ignored while the filter is still being populated, as the alias may not have
+     * been loaded yet and removing it would corrupt the counters of other aliases.
+     *
+     * @param alias The alias that was deleted
+     */
+    public void remove(String alias) {
+        if (!enabled || !ready) {
+            return;
+        }
+        filter.remove(alias);
+        approximateSize.decrementAndGet();
+    }
+
+    /**
+     * Reverses an {@link #add} whose mapping was not stored, because its alias was taken or the
+     * store rejected it. Unlike {@link #remove} this is safe while the filter is being populated,
+     * as it only takes back what the same caller added.
+     *
+     * @param alias The alias that was not stored
+     */
+    public void cancel(String alias) {
+        if (!enabled) {
+            return;
+        }
+        filter.remove(alias);
+        approximateSize.decrementAndGet();
+    }
+
+    /**
+     * Returns the approximate number of aliases in the filter.
+     *
+     * @return the number of aliases added less the number removed
+     */
+    public long approximateSize() {
+        return approximateSize.get();
+    }
+}
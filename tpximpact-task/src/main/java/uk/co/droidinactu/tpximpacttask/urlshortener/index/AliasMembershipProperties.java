@@ -0,0 +1,28 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.index;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the in-memory filter of existing aliases.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.membership")
+public class AliasMembershipProperties {
+
+    /**
+     * Whether unknown aliases are rejected by the filter without a database lookup.
+     */
+    private boolean enabled = true;
+
+    /**
+     * The number of aliases the filter is sized for.
+     * The false positive rate rises once the table grows beyond this.
+     */
+    private long expectedAliases = 1_000_000;
+
+    /**
+     * The acceptable rate of unknown aliases that still need a database lookup.
+     */
+    private double falsePositiveProbability = 0.01;
+}
@@ -0,0 +1,146 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counting Bloom filter of 4-bit counters packed sixteen to a long.
+ * <p>
+ * Unlike a plain Bloom filter it supports removal, so it can track a set of aliases that shrinks
+ * as well as grows. A counter that reaches its maximum value is never decremented again; this can
+ * only ever cause false positives, never false negatives. All operations are lock free.
+ */
+public class CountingBloomFilter {
+
+    private static final int MAX_COUNT = 15;
+
+    private final AtomicLongArray counters;
+    private final long counterCount;
+    private final int hashFunctions;
+
+    /**
+     * Creates a filter sized for the expected number of elements and false positive rate.
+     *
+     * @param expectedElements          the number of elements the filter is expected to hold
+     * @param falsePositiveProbability  the acceptable false positive rate at that size
+     */
+    public CountingBloomFilter(long expectedElements, double falsePositiveProbability) {
+        long n = Math.max(1, expectedElements);
+        double p = Math.min(Math.max(falsePositiveProbability, 1e-9), 0.5);
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int longs = (int) Math.min((m + 15) / 16, Integer.MAX_VALUE - 8);
+        this.counters = new AtomicLongArray(Math.max(1, longs));
+        this.counterCount = (long) counters.length() * 16;
+        this.hashFunctions = (int) Math.max(1, Math.round((double) counterCount / n * Math.log(2)));
+    }
+
+    /**
+     * Adds an element to the filter.
+     *
+     * @param element the element to add
+     */
+    public void add(String element) {
+        long hash = hash(element);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            increment(index(h1, h2, i));
+        }
+    }
+
+    /**
+     * Removes an element that was previously added to the filter.
+     * Removing an element that was never added may cause false negatives.
+     *
+     * @param element the element to remove
+     */
+    public void remove(String element) {
+        long hash = hash(element);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            decrement(index(h1, h2, i));
+        }
+    }
+
+    /**
+     * Returns whether the element might be in the filter.
+     *
+     * @param element the element to test
+     * @return false if the element is definitely absent, true if it may be present
+     */
+    public boolean mightContain(String element) {
+        long hash = hash(element);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long counter = index(h1, h2, i);
+            if (read(counter) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the approximate heap used by the counters.
+     *
+     * @return the size of the counter table in bytes
+     */
+    public long sizeInBytes() {
+        return (long) counters.length() * Long.BYTES;
+    }
+
+    private long index(int h1, int h2, int i) {
+        long combined = (h1 & 0xffffffffL) + i * (h2 & 0xffffffffL);
+        return combined % counterCount;
+    }
+
+    private int read(long counter) {
+        int shift = (int) (counter & 15) << 2;
+        return (int) ((counters.get((int) (counter >>> 4)) >>> shift) & 0xfL);
+    }
+
+    private void increment(long counter) {
+        int slot = (int) (counter >>> 4);
+        int shift = (int) (counter & 15) << 2;
+        while (true) {
+            long current = counters.get(slot);
+            long value = (current >>> shift) & 0xfL;
+            if (value == MAX_COUNT || counters.compareAndSet(slot, current, current + (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private void decrement(long counter) {
+        int slot = (int) (counter >>> 4);
+        int shift = (int) (counter & 15) << 2;
+        while (true) {
+            long current = counters.get(slot);
+            long value = (current >>> shift) & 0xfL;
+            if (value == 0 || value == MAX_COUNT
+                    || counters.compareAndSet(slot, current, current - (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters, finished with a murmur style mix so that both halves
+     * are usable as independent hashes for double hashing. Works on the chars directly so that
+     * a lookup does not allocate.
+     */
+    private static long hash(String element) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < element.length(); i++) {
+            hash ^= element.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
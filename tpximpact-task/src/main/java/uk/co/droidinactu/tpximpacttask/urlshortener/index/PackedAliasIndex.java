@@ -0,0 +1,304 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.index;
+
+import uk.co.droidinactu.tpximpacttask.urlshortener.alias.Base62;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * A map from alias to a non-negative {@code long}, such as the location of its record in a log.
+ * <p>
+ * Any alias of up to {@link Base62#MAX_LENGTH} characters from the {@link Base62} alphabet, which
+ * includes every generated alias, is packed six bits per character into a single {@code long} and
+ * held in an open addressing table of primitive longs: sixteen bytes per slot, with no key or
+ * value objects for the garbage collector to trace. Other custom aliases fall back to a
+ * {@link ConcurrentHashMap}.
+ * <p>
+ * Reads of the packed table are optimistic and lock free unless they overlap a write; writes
+ * take an exclusive lock.
+ */
+public class PackedAliasIndex {
+
+    /**
+     * Returned by lookups for an alias that is not in the index.
+     */
+    public static final long ABSENT = -1L;
+
+    private static final long EMPTY = 0L;
+    private static final double MAX_LOAD = 0.7;
+    private static final byte[] CODES = new byte[128];
+
+    static {
+        for (int i = 0; i < Base62.RADIX; i++) {
+            CODES[Base62.CHARACTERS.charAt(i)] = (byte) (i + 1);
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+    private final ConcurrentHashMap<String, Long> unpacked = new ConcurrentHashMap<>();
+
+    /**
+     * Interleaved keys and values: the key of slot i is at 2i and its value at 2i + 1.
+     * Keeping both in one array means a lookup touches one cache line, and an optimistic reader
+     * can never see a key array and a value array from different generations of the table.
+     */
+    private volatile long[] table;
+    private int packedSize;
+
+    /**
+     * Creates an index sized to hold the expected number of aliases without growing.
+     *
+     * @param expectedSize the expected number of aliases
+     */
+    public PackedAliasIndex(int expectedSize) {
+        int slots = Integer.highestOneBit((int) Math.max(16, Math.min(1 << 29, expectedSize / MAX_LOAD)) * 2 - 1);
+        this.table = new long[slots * 2];
+    }
+
+    /**
+     * Packs an alias into a long.
+     *
+     * @param alias the alias to pack
+     * @return the packed alias, or 0 if it is too long or uses characters outside the Base62 alphabet
+     */
+    static long pack(String alias) {
+        int length = alias.length();
+        if (length == 0 || length > Base62.MAX_LENGTH) {
+            return EMPTY;
+        }
+        long packed = 0;
+        for (int i = 0; i < length; i++) {
+            char c = alias.charAt(i);
+            int code = c < 128 ? CODES[c] : 0;
+            if (code == 0) {
+                return EMPTY;
+            }
+            packed = (packed << 6) | code;
+        }
+        return packed;
+    }
+
+    /**
+     * Reverses {@link #pack(String)}.
+     *
+     * @param packed a packed alias
+     * @return the alias
+     */
+    static String unpack(long packed) {
+        char[] chars = new char[Base62.MAX_LENGTH];
+        int start = chars.length;
+        while (packed != 0) {
+            chars[--start] = Base62.CHARACTERS.charAt((int) (packed & 63) - 1);
+            packed >>>= 6;
+        }
+        return new String(chars, start, chars.length - start);
+    }
+
+    /**
+     * Returns the value for an alias.
+     *
+     * @param alias the alias to look up
+     * @return the value, or {@link #ABSENT}
+     */
+    public long get(String alias) {
+        long key = pack(alias);
+        if (key == EMPTY) {
+            Long value = unpacked.get(alias);
+            return value == null ? ABSENT : value;
+        }
+        long stamp = lock.tryOptimisticRead();
+        long value = find(table, key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = find(table, key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns whether the alias is in the index.
+     *
+     * @param alias the alias to look up
+     * @return true if the alias has a value
+     */
+    public boolean containsKey(String alias) {
+        return get(alias) != ABSENT;
+    }
+
+    /**
+     * Sets the value for an alias.
+     *
+     * @param alias the alias
+     * @param value the value, which must not be negative
+     * @return the previous value, or {@link #ABSENT}
+     */
+    public long put(String alias, long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Values must not be negative");
+        }
+        long key = pack(alias);
+        if (key == EMPTY) {
+            Long previous = unpacked.put(alias, value);
+            return previous == null ? ABSENT : previous;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (packedSize + 1 > MAX_LOAD * (table.length / 2)) {
+                resize();
+            }
+            long[] slots = table;
+            int mask = slots.length / 2 - 1;
+            for (int slot = home(key, mask); ; slot = (slot + 1) & mask) {
+                long existing = slots[slot * 2];
+                if (existing == EMPTY) {
+                    slots[slot * 2 + 1] = value;
+                    slots[slot * 2] = key;
+                    packedSize++;
+                    return ABSENT;
+                }
+                if (existing == key) {
+                    long previous = slots[slot * 2 + 1];
+                    slots[slot * 2 + 1] = value;
+                    return previous;
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes an alias.
+     *
+     * @param alias the alias to remove
+     * @return the value it had, or {@link #ABSENT}
+     */
+    public long remove(String alias) {
+        long key = pack(alias);
+        if (key == EMPTY) {
+            Long previous = unpacked.remove(alias);
+            return previous == null ? ABSENT : previous;
+        }
+        long stamp = lock.writeLock();
+        try {
+            long[] slots = table;
+            int mask = slots.length / 2 - 1;
+            int slot = home(key, mask);
+            while (slots[slot * 2] != key) {
+                if (slots[slot * 2] == EMPTY) {
+                    return ABSENT;
+                }
+                slot = (slot + 1) & mask;
+            }
+            long previous = slots[slot * 2 + 1];
+            // shift later entries of the probe sequence back, so no tombstone is needed
+            int hole = slot;
+            for (int next = (hole + 1) & mask; slots[next * 2] != EMPTY; next = (next + 1) & mask) {
+                int nextHome = home(slots[next * 2], mask);
+                if (((next - nextHome) & mask) >= ((next - hole) & mask)) {
+                    slots[hole * 2] = slots[next * 2];
+                    slots[hole * 2 + 1] = slots[next * 2 + 1];
+                    hole = next;
+                }
+            }
+            slots[hole * 2] = EMPTY;
+            slots[hole * 2 + 1] = EMPTY;
+            packedSize--;
+            return previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of aliases in the index.
+     *
+     * @return the number of aliases
+     */
+    public long size() {
+        long stamp = lock.readLock();
+        try {
+            return packedSize + (long) unpacked.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Passes every alias to the consumer, in no particular order.
+     * The packed table is copied first, so writers are not held up while the consumer runs.
+     *
+     * @param consumer receives each alias
+     */
+    public void forEachKey(Consumer<String> consumer) {
+        long[] copy;
+        long stamp = lock.readLock();
+        try {
+            copy = table.clone();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        for (int i = 0; i < copy.length; i += 2) {
+            if (copy[i] != EMPTY) {
+                consumer.accept(unpack(copy[i]));
+            }
+        }
+        unpacked.keySet().forEach(consumer);
+    }
+
+    /**
+     * Returns the approximate heap used by the packed table, excluding the fallback map.
+     *
+     * @return the size of the table in bytes
+     */
+    public long packedSizeInBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    /**
+     * Finds a key without locking. May return a wrong answer if the table is being written,
+     * which the caller detects by validating its optimistic read stamp.
+     */
+    private static long find(long[] slots, long key) {
+        int mask = slots.length / 2 - 1;
+        int slot = home(key, mask);
+        for (int probes = 0; probes <= mask; probes++) {
+            long existing = slots[slot * 2];
+            if (existing == key) {
+                return slots[slot * 2 + 1];
+            }
+            if (existing == EMPTY) {
+                return ABSENT;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ABSENT;
+    }
+
+    private void resize() {
+        long[] old = table;
+        long[] slots = new long[old.length * 2];
+        int mask = slots.length / 2 - 1;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != EMPTY) {
+                int slot = home(old[i], mask);
+                while (slots[slot * 2] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot * 2] = old[i];
+                slots[slot * 2 + 1] = old[i + 1];
+            }
+        }
+        table = slots;
+    }
+
+    private static int home(long key, int mask) {
+        long hash = key * 0x9e3779b97f4a7c15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
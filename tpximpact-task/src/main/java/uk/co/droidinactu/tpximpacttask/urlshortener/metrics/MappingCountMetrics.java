@@ -0,0 +1,28 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.UrlMappingStore;
+
+/**
+ * Publishes the number of stored mappings as a gauge.
+ * The store is only asked when the gauge is read, e.g. once per Prometheus scrape.
+ */
+@Component
+public class MappingCountMetrics implements MeterBinder {
+
+    private final UrlMappingStore urlMappingStore;
+
+    public MappingCountMetrics(UrlMappingStore urlMappingStore) {
+        this.urlMappingStore = urlMappingStore;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("urlshortener.mappings", urlMappingStore, UrlMappingStore::count)
+                .description("The number of stored short URLs")
+                .register(registry);
+    }
+}
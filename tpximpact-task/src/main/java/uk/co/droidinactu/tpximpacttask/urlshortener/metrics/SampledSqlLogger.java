@@ -0,0 +1,35 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs a random sample of the SQL statements Hibernate prepares, leaving the statements unchanged.
+ * <p>
+ * Statements are logged through SLF4J at INFO, so they go wherever the application log goes and
+ * can be silenced by logger name. Only the sampled statements pay for formatting and writing.
+ */
+@Slf4j
+public class SampledSqlLogger implements StatementInspector {
+
+    private final double sampleRate;
+
+    /**
+     * Creates the logger.
+     *
+     * @param sampleRate the fraction of statements to log, from 0 to 1
+     */
+    public SampledSqlLogger(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info(sql);
+        }
+        return sql;
+    }
+}
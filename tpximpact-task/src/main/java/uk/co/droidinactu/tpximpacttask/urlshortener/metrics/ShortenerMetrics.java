@@ -0,0 +1,205 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit.EndpointClass;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters for the URL shortener operations.
+ * <p>
+ * Every meter is registered up front, so recording is a field access and an atomic update
+ * rather than a registry lookup on the request path.
+ */
+@Component
+public class ShortenerMetrics {
+
+    private final Timer redirectFound;
+    private final Timer redirectNotFound;
+    private final Timer shortenSingle;
+    private final Timer shortenBatch;
+    private final Timer delete;
+    private final Timer listPage;
+    private final Timer listStream;
+    private final Timer listAll;
+    private final Counter aliasGenerationRetries;
+    private final Counter aliasTaken;
+    private final Counter deduplicated;
+    private final Counter expired;
+    private final DistributionSummary groupCommitSize;
+    private final Counter redirectAliasNotFound;
+    private final Counter deleteAliasNotFound;
+    private final Counter[] rateLimited = new Counter[EndpointClass.values().length];
+
+    public ShortenerMetrics(MeterRegistry registry) {
+        redirectFound = timer(registry, "urlshortener.redirect", "Time to resolve an alias and answer with a redirect",
+                "result", "found");
+        redirectNotFound = timer(registry, "urlshortener.redirect", "Time to resolve an alias and answer with a redirect",
+                "result", "not_found");
+        shortenSingle = timer(registry, "urlshortener.shorten", "Time to create short URLs", "type", "single");
+        shortenBatch = timer(registry, "urlshortener.shorten", "Time to create short URLs", "type", "batch");
+        delete = timer(registry, "urlshortener.delete", "Time to delete a short URL");
+        listPage = timer(registry, "urlshortener.list", "Time to list short URLs", "type", "page");
+        listStream = timer(registry, "urlshortener.list", "Time to list short URLs", "type", "stream");
+        listAll = timer(registry, "urlshortener.list", "Time to list short URLs", "type", "all");
+        aliasGenerationRetries = Counter.builder("urlshortener.alias.generation.retries")
+                .description("Generated aliases that were already in use and had to be generated again")
+                .register(registry);
+        aliasTaken = Counter.builder("urlshortener.alias.taken")
+                .description("Requests rejected because the custom alias was already in use")
+                .register(registry);
+        deduplicated = Counter.builder("urlshortener.shorten.deduplicated")
+                .description("Requests answered with the existing short URL of the same full URL")
+                .register(registry);
+        expired = Counter.builder("urlshortener.expired")
+                .description("Mappings deleted because they reached their expiry time")
+                .register(registry);
+        groupCommitSize = DistributionSummary.builder("urlshortener.group.commit.size")
+                .description("Mappings inserted together by each group commit")
+                .register(registry);
+        redirectAliasNotFound = notFound(registry, "redirect");
+        deleteAliasNotFound = notFound(registry, "delete");
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            rateLimited[endpointClass.ordinal()] = Counter.builder("urlshortener.rate.limited")
+                    .description("Requests rejected because their client had used up its budget")
+                    .tag("endpoint", endpointClass.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String description, String... tags) {
+        return Timer.builder(name).description(description).tags(tags).register(registry);
+    }
+
+    private static Counter notFound(MeterRegistry registry, String operation) {
+        return Counter.builder("urlshortener.alias.not.found")
+                .description("Requests for an alias that has no mapping")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    /**
+     * Records a redirect request. Requests for unknown aliases are also counted as not found.
+     *
+     * @param nanos how long the request took
+     * @param found whether the alias had a mapping
+     */
+    public void recordRedirect(long nanos, boolean found) {
+        if (found) {
+            redirectFound.record(nanos, TimeUnit.NANOSECONDS);
+        } else {
+            redirectNotFound.record(nanos, TimeUnit.NANOSECONDS);
+            redirectAliasNotFound.increment();
+        }
+    }
+
+    /**
+     * Records the creation of a single short URL.
+     *
+     * @param nanos how long it took
+     */
+    public void recordShorten(long nanos) {
+        shortenSingle.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the creation of a batch of short URLs.
+     *
+     * @param nanos how long the whole batch took
+     */
+    public void recordShortenBatch(long nanos) {
+        shortenBatch.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a delete request.
+     *
+     * @param nanos how long it took
+     * @param found whether the alias had a mapping to delete
+     */
+    public void recordDelete(long nanos, boolean found) {
+        delete.record(nanos, TimeUnit.NANOSECONDS);
+        if (!found) {
+            deleteAliasNotFound.increment();
+        }
+    }
+
+    /**
+     * Records reading one page of mappings.
+     *
+     * @param nanos how long it took
+     */
+    public void recordListPage(long nanos) {
+        listPage.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records streaming every mapping.
+     *
+     * @param nanos how long it took, including writing the mappings to the consumer
+     */
+    public void recordListStream(long nanos) {
+        listStream.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records reading every mapping into a list.
+     *
+     * @param nanos how long it took
+     */
+    public void recordListAll(long nanos) {
+        listAll.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a generated alias that was already in use.
+     */
+    public void aliasGenerationRetry() {
+        aliasGenerationRetries.increment();
+    }
+
+    /**
+     * Counts a request rejected because its custom alias was already in use.
+     */
+    public void aliasTaken() {
+        aliasTaken.increment();
+    }
+
+    /**
+     * Counts a full URL that was answered with an existing short URL instead of a new mapping.
+     */
+    public void deduplicated() {
+        deduplicated.increment();
+    }
+
+    /**
+     * Counts mappings deleted because they expired.
+     *
+     * @param count how many were deleted
+     */
+    public void expired(int count) {
+        expired.increment(count);
+    }
+
+    /**
+     * Records one transaction of the group commit writer.
+     *
+     * @param size how many mappings it inserted together
+     */
+    public void recordGroupCommit(int size) {
+        groupCommitSize.record(size);
+    }
+
+    /**
+     * Counts a request rejected by the rate limiter.
+     *
+     * @param endpointClass the budget the client had used up
+     */
+    public void rateLimited(EndpointClass endpointClass) {
+        rateLimited[endpointClass.ordinal()].increment();
+    }
+}
@@ -0,0 +1,23 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Installs the {@link SampledSqlLogger} when {@code urlshortener.sql-log.enabled} is set.
+ */
+@Configuration
+public class SqlLogConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer sampledSqlLogCustomizer(SqlLogProperties properties) {
+        return hibernateProperties -> {
+            if (properties.isEnabled()) {
+                hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                        new SampledSqlLogger(properties.getSampleRate()));
+            }
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for logging a sample of the SQL statements Hibernate runs.
+ * This replaces {@code spring.jpa.show-sql}, which writes every statement to stdout synchronously.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.sql-log")
+public class SqlLogProperties {
+
+    /**
+     * Whether statements are logged at all.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The fraction of statements to log, from 0 to 1.
+     */
+    private double sampleRate = 0.01;
+}
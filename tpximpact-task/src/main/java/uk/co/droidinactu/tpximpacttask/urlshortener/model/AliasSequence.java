@@ -0,0 +1,35 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entity class holding the high-water mark of a counter that aliases are generated from.
+ */
+@Entity
+@Table(name = "alias_sequences")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AliasSequence {
+
+    /**
+     * The name of the counter.
+     */
+    @Id
+    @Column(nullable = false)
+    private String name;
+
+    /**
+     * The first counter value that has not yet been leased.
+     */
+    @Column(nullable = false)
+    private Long nextValue;
+}
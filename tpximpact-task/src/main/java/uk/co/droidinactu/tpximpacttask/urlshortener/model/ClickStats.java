@@ -0,0 +1,43 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity class holding the accumulated redirect statistics of an alias.
+ */
+@Entity
+@Table(name = "url_click_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClickStats {
+
+    /**
+     * The alias the statistics belong to.
+     */
+    @Id
+    @Column(nullable = false)
+    private String alias;
+
+    /**
+     * The number of redirects served for the alias.
+     */
+    @Column(nullable = false)
+    private Long clickCount;
+
+    /**
+     * The date and time of the most recent redirect.
+     */
+    @Column(nullable = false)
+    private LocalDateTime lastAccessedAt;
+}
@@ -0,0 +1,62 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cluster.ClusterEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity class holding a change broadcast between instances by the JDBC cluster transport.
+ */
+@Entity
+@Table(name = "cluster_events", indexes = @Index(name = "idx_cluster_events_created_at", columnList = "createdAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterEventEntry {
+
+    /**
+     * Increases with every event, giving the order instances read them in.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The instance that published the event.
+     */
+    @Column(nullable = false)
+    private String nodeId;
+
+    /**
+     * What happened to the mapping.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ClusterEvent.Type type;
+
+    /**
+     * The alias of the mapping.
+     */
+    @Column(nullable = false)
+    private String alias;
+
+    /**
+     * When the event was published, by the clock of the publishing instance.
+     */
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,72 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * The HTTP status a short URL redirects with. In JSON it is the status code itself.
+ */
+public enum RedirectStatus {
+
+    /**
+     * 301, permanent. Clients may change a POST into a GET when following it.
+     */
+    MOVED_PERMANENTLY(301),
+
+    /**
+     * 302, temporary. The status used when a mapping does not choose one.
+     */
+    FOUND(302),
+
+    /**
+     * 307, temporary, and the method is kept when following it.
+     */
+    TEMPORARY_REDIRECT(307),
+
+    /**
+     * 308, permanent, and the method is kept when following it.
+     */
+    PERMANENT_REDIRECT(308);
+
+    private final int code;
+
+    RedirectStatus(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Returns the HTTP status code.
+     *
+     * @return the status code
+     */
+    @JsonValue
+    public int code() {
+        return code;
+    }
+
+    /**
+     * Returns whether clients may remember the redirect in place of the short URL.
+     *
+     * @return true for 301 and 308
+     */
+    public boolean isPermanent() {
+        return this == MOVED_PERMANENTLY || this == PERMANENT_REDIRECT;
+    }
+
+    /**
+     * Returns the redirect status with the given HTTP status code.
+     *
+     * @param code the status code
+     * @return the redirect status
+     * @throws IllegalArgumentException if the code is not 301, 302, 307 or 308
+     */
+    @JsonCreator
+    public static RedirectStatus of(int code) {
+        for (RedirectStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported redirect status " + code + ", expected 301, 302, 307 or 308");
+    }
+}
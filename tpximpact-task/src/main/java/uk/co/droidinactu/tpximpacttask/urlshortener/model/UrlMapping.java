@@ -2,8 +2,13 @@ package uk.co.droidinactu.tpximpacttask.urlshortener.model;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.*;
 import org.hibernate.proxy.HibernateProxy;
 
@@ -12,12 +17,19 @@ import java.util.Objects;
 
 /**
  * Entity class representing a URL mapping.
+ * <p>
+ * The full and short URLs are held as they are stored in the {@code stored} fields, and as they
+ * are used everywhere else in {@code fullUrl} and {@code shortUrl}. The two are the same unless
+ * compact storage is enabled, in which case {@code CompactUrlCodec} converts between them.
  */
 @Entity
-@Table(name = "url_mappings")
+@Table(name = "url_mappings", indexes = {
+        @Index(name = "idx_url_mappings_created_at_alias", columnList = "createdAt, alias"),
+        @Index(name = "idx_url_mappings_full_url_hash", columnList = "fullUrlHash"),
+        @Index(name = "idx_url_mappings_expires_at", columnList = "expiresAt")
+})
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class UrlMapping {
 
     /**
@@ -31,15 +43,39 @@ public class UrlMapping {
     /**
      * The original/full URL.
      */
-    @Column(nullable = false)
+    @Transient
     private String fullUrl;
 
     /**
      * The complete shortened URL.
      */
-    @Column(nullable = false)
+    @Transient
     private String shortUrl;
 
+    /**
+     * The full URL as stored, or null if it is stored as {@link #urlPrefixId} and {@link #fullUrlSuffix}.
+     */
+    @Column(name = "full_url", length = 2048)
+    private String storedFullUrl;
+
+    /**
+     * The short URL as stored, or null if it is built from the configured base URL when read.
+     */
+    @Column(name = "short_url")
+    private String storedShortUrl;
+
+    /**
+     * The id of the {@link UrlPrefix} the full URL starts with, or null if the full URL is stored whole.
+     */
+    @Column
+    private Integer urlPrefixId;
+
+    /**
+     * The rest of the full URL after its prefix, or null if the full URL is stored whole.
+     */
+    @Column(length = 2048)
+    private String fullUrlSuffix;
+
     /**
      * true indicates that this shortened url was created using a user supplied custom string.
      */
@@ -52,6 +88,83 @@ public class UrlMapping {
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
+    /**
+     * A fixed width hash of the normalised full URL, see {@code FullUrlHash}.
+     * Only set when the alias was generated, so mappings with custom aliases are never found by it.
+     */
+    @Column
+    private Long fullUrlHash;
+
+    /**
+     * The date and time after which the alias no longer redirects, or null if it never expires.
+     * Expired mappings are deleted shortly afterwards by {@code ExpiryService}.
+     */
+    @Column
+    private LocalDateTime expiresAt;
+
+    /**
+     * The status the alias redirects with, or null for the default, a 302.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private RedirectStatus redirectStatus;
+
+    /**
+     * How many seconds browsers and shared caches may reuse the redirect, or null for the configured default.
+     * Capped when the redirect is served, see {@code RedirectCacheHeaders}.
+     */
+    @Column
+    private Long cacheMaxAge;
+
+    public UrlMapping(String alias, String fullUrl, String shortUrl, Boolean isCustomised,
+                      LocalDateTime createdAt, Long fullUrlHash, LocalDateTime expiresAt) {
+        this(alias, fullUrl, shortUrl, isCustomised, createdAt, fullUrlHash, expiresAt, null, null);
+    }
+
+    public UrlMapping(String alias, String fullUrl, String shortUrl, Boolean isCustomised,
+                      LocalDateTime createdAt, Long fullUrlHash, LocalDateTime expiresAt,
+                      RedirectStatus redirectStatus, Long cacheMaxAge) {
+        this.alias = alias;
+        this.fullUrl = fullUrl;
+        this.shortUrl = shortUrl;
+        this.isCustomised = isCustomised;
+        this.createdAt = createdAt;
+        this.fullUrlHash = fullUrlHash;
+        this.expiresAt = expiresAt;
+        this.redirectStatus = redirectStatus;
+        this.cacheMaxAge = cacheMaxAge;
+    }
+
+    /**
+     * Copies the URLs as stored to the URLs as used. Those stored in compact form are left null
+     * here and filled in by the store, which holds the prefix dictionary and base URL.
+     */
+    @PostLoad
+    void loadUrls() {
+        fullUrl = storedFullUrl;
+        shortUrl = storedShortUrl;
+    }
+
+    /**
+     * Returns whether the mapping has expired.
+     *
+     * @param now the current date and time
+     * @return true if the mapping has an expiry time that is not after {@code now}
+     */
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+
+    /**
+     * Returns whether the mapping could be given out for any request to shorten the same full URL:
+     * its alias was generated, it never expires and it redirects with the default status and caching.
+     *
+     * @return true if the mapping can be shared by deduplication
+     */
+    public boolean isInterchangeable() {
+        return !Boolean.TRUE.equals(isCustomised) && expiresAt == null && redirectStatus == null && cacheMaxAge == null;
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
@@ -63,8 +176,13 @@ public class UrlMapping {
         return getAlias() != null && Objects.equals(getAlias(), that.getAlias());
     }
 
+    /**
+     * The alias is assigned before the entity is persisted and never changes, so unlike a generated
+     * identifier it is safe to hash on. A constant hash code would turn every hash based collection
+     * of mappings, including large persistence contexts, into a linear scan.
+     */
     @Override
     public final int hashCode() {
-        return this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass().hashCode() : getClass().hashCode();
+        return Objects.hashCode(getAlias());
     }
 }
\ No newline at end of file
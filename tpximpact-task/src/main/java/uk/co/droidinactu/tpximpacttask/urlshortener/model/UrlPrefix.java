@@ -0,0 +1,38 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entity class holding one entry of the dictionary of scheme and host prefixes that full URLs
+ * are stored against in compact storage mode.
+ */
+@Entity
+@Table(name = "url_prefixes")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UrlPrefix {
+
+    /**
+     * The id that mappings refer to the prefix by. Never reused, as mappings may still refer to it.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    /**
+     * The prefix, a scheme and host such as {@code https://www.example.com}.
+     */
+    @Column(nullable = false, unique = true)
+    private String prefix;
+}
@@ -0,0 +1,23 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit;
+
+/**
+ * The groups of endpoints that each have a budget of their own, so that a client using up one
+ * budget is still served by the others.
+ */
+public enum EndpointClass {
+
+    /**
+     * {@code GET /{alias}}.
+     */
+    REDIRECT,
+
+    /**
+     * {@code POST /shorten}, {@code POST /shorten/batch} and {@code DELETE /{alias}}.
+     */
+    WRITE,
+
+    /**
+     * {@code GET /urls}.
+     */
+    LIST
+}
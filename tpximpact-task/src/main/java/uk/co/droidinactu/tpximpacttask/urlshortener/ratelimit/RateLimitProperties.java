@@ -0,0 +1,83 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for limiting how many requests each client can make.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Whether requests beyond a client's budget are rejected with 429 Too Many Requests.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The request header that identifies the client, such as an API key or X-Forwarded-For, both for
+     * rate limiting and in the audit log. Clients are identified by their remote address when unset.
+     */
+    private String clientHeader;
+
+    /**
+     * How many proxies in front of the application append to the client header. The client is the
+     * comma separated value this many from the end, as the values before it were sent by the client
+     * and can be forged; with the default of 1 it is the last value, appended by the nearest proxy.
+     */
+    private int trustedHops = 1;
+
+    /**
+     * How many maps the per-client buckets are spread over. Rounded up to a power of two.
+     */
+    private int stripes = 16;
+
+    /**
+     * How long a client can go without requests before its buckets are forgotten.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(5);
+
+    /**
+     * The budget of each client for {@code GET /{alias}}.
+     */
+    private Budget redirect = new Budget(200, 100);
+
+    /**
+     * The budget of each client for {@code POST /shorten}, {@code POST /shorten/batch} and {@code DELETE /{alias}}.
+     */
+    private Budget write = new Budget(20, 10);
+
+    /**
+     * The budget of each client for {@code GET /urls}.
+     */
+    private Budget list = new Budget(5, 1);
+
+    /**
+     * A token bucket: a client can make {@code capacity} requests at once, and then
+     * {@code refillPerSecond} a second on average.
+     */
+    @Data
+    public static class Budget {
+
+        /**
+         * The most requests a client can make in a burst.
+         */
+        private int capacity;
+
+        /**
+         * How many requests a second a client can make once its burst is used up.
+         */
+        private double refillPerSecond;
+
+        public Budget() {
+        }
+
+        public Budget(int capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client token buckets, one for each {@link EndpointClass}, that never block.
+ * <p>
+ * Each bucket is a single number, the time at which it would be full again if it were never
+ * drained: the generic cell rate algorithm. Taking a token moves that time on by one refill
+ * interval with a compare and set, and is refused if it would end up more than
+ * {@code capacity} intervals ahead of now, so there is no lock and no refill task. The
+ * buckets of a client share one {@link AtomicLongArray}, found with a single lookup in one of
+ * several concurrent maps chosen by the hash of the client.
+ * <p>
+ * A client whose buckets have all been full for the idle timeout is indistinguishable from one
+ * never seen before, so {@link #evictIdle()} forgets it. A request racing with the eviction may
+ * take its token from the forgotten buckets, which lets that client make at most one extra request.
+ */
+public class RateLimiter {
+
+    private static final int CLASSES = EndpointClass.values().length;
+
+    private final ConcurrentHashMap<String, AtomicLongArray>[] stripes;
+    private final int stripeMask;
+    private final long[] intervalNanos = new long[CLASSES];
+    private final long[] toleranceNanos = new long[CLASSES];
+    private final long idleNanos;
+    private final LongSupplier nanoClock;
+
+    public RateLimiter(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    RateLimiter(RateLimitProperties properties, LongSupplier nanoClock) {
+        int stripeCount = properties.getStripes() <= 1 ? 1 : Integer.highestOneBit(properties.getStripes() - 1) << 1;
+        stripes = new ConcurrentHashMap[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        stripeMask = stripeCount - 1;
+        budget(EndpointClass.REDIRECT, properties.getRedirect());
+        budget(EndpointClass.WRITE, properties.getWrite());
+        budget(EndpointClass.LIST, properties.getList());
+        idleNanos = properties.getIdleTimeout().toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    private void budget(EndpointClass endpointClass, RateLimitProperties.Budget budget) {
+        if (budget.getRefillPerSecond() <= 0 || budget.getCapacity() < 1) {
+            throw new IllegalArgumentException("The " + endpointClass.name().toLowerCase()
+                    + " rate limit needs a capacity of at least 1 and a positive refill rate");
+        }
+        long interval = Math.max(1, Math.round(1_000_000_000 / budget.getRefillPerSecond()));
+        intervalNanos[endpointClass.ordinal()] = interval;
+        toleranceNanos[endpointClass.ordinal()] = interval * budget.getCapacity();
+    }
+
+    /**
+     * Takes a token from the client's bucket for the endpoint class, if it has one.
+     *
+     * @param endpointClass the endpoint class of the request
+     * @param client        the client making the request
+     * @return 0 if the request is admitted, otherwise how many nanoseconds until the bucket has a token again
+     */
+    public long tryAcquire(EndpointClass endpointClass, String client) {
+        long now = nanoClock.getAsLong();
+        AtomicLongArray buckets = bucketsOf(client, now);
+        int index = endpointClass.ordinal();
+        long interval = intervalNanos[index];
+        long tolerance = toleranceNanos[index];
+        while (true) {
+            long full = buckets.get(index);
+            long next = (full - now > 0 ? full : now) + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (buckets.compareAndSet(index, full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLongArray bucketsOf(String client, long now) {
+        ConcurrentHashMap<String, AtomicLongArray> stripe = stripes[stripe(client)];
+        AtomicLongArray buckets = stripe.get(client);
+        if (buckets != null) {
+            return buckets;
+        }
+        return stripe.computeIfAbsent(client, key -> {
+            AtomicLongArray created = new AtomicLongArray(CLASSES);
+            for (int i = 0; i < CLASSES; i++) {
+                created.set(i, now);
+            }
+            return created;
+        });
+    }
+
+    private int stripe(String client) {
+        int hash = client.hashCode();
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    /**
+     * Forgets the clients whose buckets have all been full for at least the idle timeout.
+     *
+     * @return how many clients were forgotten
+     */
+    public int evictIdle() {
+        long now = nanoClock.getAsLong();
+        int evicted = 0;
+        for (ConcurrentHashMap<String, AtomicLongArray> stripe : stripes) {
+            for (Map.Entry<String, AtomicLongArray> entry : stripe.entrySet()) {
+                if (isIdle(entry.getValue(), now) && stripe.remove(entry.getKey(), entry.getValue())) {
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    private boolean isIdle(AtomicLongArray buckets, long now) {
+        for (int i = 0; i < CLASSES; i++) {
+            if (now - buckets.get(i) < idleNanos) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns how many clients currently have buckets.
+     *
+     * @return the number of clients
+     */
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, AtomicLongArray> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,27 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.AliasSequence;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for AliasSequence entity.
+ */
+@Repository
+public interface AliasSequenceRepository extends JpaRepository<AliasSequence, String> {
+
+    /**
+     * Finds a counter and locks its row until the end of the current transaction.
+     *
+     * @param name the name of the counter
+     * @return the locked counter, if it exists
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from AliasSequence s where s.name = :name")
+    Optional<AliasSequence> findForUpdate(String name);
+}
@@ -0,0 +1,13 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.ClickStats;
+
+/**
+ * Repository interface for ClickStats entity.
+ */
+@Repository
+public interface ClickStatsRepository extends JpaRepository<ClickStats, String>, ClickStatsUpsertRepository {
+
+}
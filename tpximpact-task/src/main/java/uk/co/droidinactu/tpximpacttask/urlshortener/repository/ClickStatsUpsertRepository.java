@@ -0,0 +1,19 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.repository;
+
+import uk.co.droidinactu.tpximpacttask.urlshortener.analytics.ClickDelta;
+
+import java.util.List;
+
+/**
+ * Batch upsert of click counts, which plain Spring Data repositories do not offer.
+ */
+public interface ClickStatsUpsertRepository {
+
+    /**
+     * Adds each delta to the stored statistics of its alias, creating the row if there is none.
+     * All deltas are sent to the database as a single JDBC batch.
+     *
+     * @param deltas the click counts accumulated since the last flush
+     */
+    void upsertAll(List<ClickDelta> deltas);
+}
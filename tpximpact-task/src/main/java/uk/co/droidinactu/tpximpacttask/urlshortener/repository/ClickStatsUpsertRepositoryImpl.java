@@ -0,0 +1,42 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.co.droidinactu.tpximpacttask.urlshortener.analytics.ClickDelta;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Implementation of {@link ClickStatsUpsertRepository}, picked up by Spring Data as a fragment of
+ * {@link ClickStatsRepository}.
+ */
+class ClickStatsUpsertRepositoryImpl implements ClickStatsUpsertRepository {
+
+    private static final String UPSERT_SQL = """
+            MERGE INTO url_click_stats t
+            USING (VALUES (CAST(? AS VARCHAR), CAST(? AS BIGINT), CAST(? AS TIMESTAMP))) s(alias, clicks, accessed)
+            ON t.alias = s.alias
+            WHEN MATCHED THEN UPDATE SET
+                click_count = t.click_count + s.clicks,
+                last_accessed_at = GREATEST(t.last_accessed_at, s.accessed)
+            WHEN NOT MATCHED THEN INSERT (alias, click_count, last_accessed_at)
+                VALUES (s.alias, s.clicks, s.accessed)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ClickStatsUpsertRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void upsertAll(List<ClickDelta> deltas) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, deltas, deltas.size(), (statement, delta) -> {
+            statement.setString(1, delta.alias());
+            statement.setLong(2, delta.clicks());
+            statement.setTimestamp(3, new Timestamp(delta.lastAccessedAt()));
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.ClusterEventEntry;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for ClusterEventEntry entity.
+ */
+@Repository
+public interface ClusterEventRepository extends JpaRepository<ClusterEventEntry, Long> {
+
+    /**
+     * Finds the events after the given one, oldest first.
+     *
+     * @param id    the id of the last event already read
+     * @param limit the most events to return
+     * @return the events
+     */
+    List<ClusterEventEntry> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Finds the id of the newest event.
+     *
+     * @return the id, or 0 if there are no events
+     */
+    @Query("select coalesce(max(e.id), 0) from ClusterEventEntry e")
+    long findMaxId();
+
+    /**
+     * Deletes the events published before the given time.
+     *
+     * @param before the time to delete up to
+     * @return the number of events deleted
+     */
+    @Modifying
+    @Query("delete from ClusterEventEntry e where e.createdAt < :before")
+    int deleteCreatedBefore(LocalDateTime before);
+}
@@ -0,0 +1,14 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.repository;
+
+/**
+ * The alias and URLs of a mapping as they are stored, read without loading the mapping entity.
+ *
+ * @param alias         the alias
+ * @param fullUrl       the full URL, or null if it is stored as a prefix and suffix
+ * @param shortUrl      the short URL, or null if it is built from the configured base URL
+ * @param urlPrefixId   the id of the prefix of the full URL, or null
+ * @param fullUrlSuffix the rest of the full URL after its prefix, or null
+ */
+public record StoredUrlMapping(String alias, String fullUrl, String shortUrl, Integer urlPrefixId,
+                               String fullUrlSuffix) {
+}
@@ -0,0 +1,43 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.repository;
+
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Batch write operations for UrlMapping entities that plain Spring Data repositories do not offer.
+ * The URLs are written as stored, so the mappings must have been through {@code CompactUrlCodec#encode}.
+ */
+public interface UrlMappingBatchRepository {
+
+    /**
+     * Inserts new mappings as a single JDBC batch of plain INSERT statements.
+     * Unlike {@code saveAll}, no SELECT is issued per row, and the entities never enter the
+     * persistence context, so the cost per row is little more than the insert itself.
+     * Must be called inside a transaction.
+     *
+     * @param urlMappings the new mappings to insert
+     */
+    void insertAll(List<UrlMapping> urlMappings);
+
+    /**
+     * Inserts a new mapping with a single INSERT statement, which needs no transaction of its own.
+     * An alias that is already in use is reported by the primary key rather than looked up first.
+     *
+     * @param urlMapping the new mapping to insert
+     * @throws org.springframework.dao.DuplicateKeyException if the alias is already in use
+     */
+    void insert(UrlMapping urlMapping);
+
+    /**
+     * Deletes each of the given mappings that has expired by the given time, as a single JDBC batch
+     * with one DELETE statement per alias, so the caller learns which rows this call removed rather
+     * than which were expired when it looked. Must be called inside a transaction.
+     *
+     * @param aliases the aliases to delete
+     * @param now     the current date and time
+     * @return the number of mappings deleted for each alias, in the same order
+     */
+    int[] deleteEachExpired(List<String> aliases, LocalDateTime now);
+}
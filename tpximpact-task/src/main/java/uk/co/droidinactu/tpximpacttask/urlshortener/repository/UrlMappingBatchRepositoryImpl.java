@@ -0,0 +1,86 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Implementation of {@link UrlMappingBatchRepository}, picked up by Spring Data as a fragment of
+ * {@link UrlMappingRepository}.
+ */
+class UrlMappingBatchRepositoryImpl implements UrlMappingBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO url_mappings (alias, full_url, short_url, is_customised, created_at, full_url_hash, expires_at,
+                                      redirect_status, cache_max_age, url_prefix_id, full_url_suffix)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM url_mappings WHERE alias = ? AND expires_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    UrlMappingBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<UrlMapping> urlMappings) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, urlMappings, urlMappings.size(), UrlMappingBatchRepositoryImpl::bind);
+    }
+
+    @Override
+    public void insert(UrlMapping urlMapping) {
+        jdbcTemplate.update(INSERT_SQL, statement -> bind(statement, urlMapping));
+    }
+
+    @Override
+    public int[] deleteEachExpired(List<String> aliases, LocalDateTime now) {
+        return jdbcTemplate.batchUpdate(DELETE_EXPIRED_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                statement.setString(1, aliases.get(i));
+                statement.setObject(2, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return aliases.size();
+            }
+        });
+    }
+
+    private static void bind(PreparedStatement statement, UrlMapping urlMapping) throws SQLException {
+        statement.setString(1, urlMapping.getAlias());
+        statement.setString(2, urlMapping.getStoredFullUrl());
+        statement.setString(3, urlMapping.getStoredShortUrl());
+        statement.setBoolean(4, Boolean.TRUE.equals(urlMapping.getIsCustomised()));
+        statement.setObject(5, urlMapping.getCreatedAt());
+        if (urlMapping.getFullUrlHash() == null) {
+            statement.setNull(6, Types.BIGINT);
+        } else {
+            statement.setLong(6, urlMapping.getFullUrlHash());
+        }
+        statement.setObject(7, urlMapping.getExpiresAt());
+        statement.setString(8, urlMapping.getRedirectStatus() == null ? null : urlMapping.getRedirectStatus().name());
+        if (urlMapping.getCacheMaxAge() == null) {
+            statement.setNull(9, Types.BIGINT);
+        } else {
+            statement.setLong(9, urlMapping.getCacheMaxAge());
+        }
+        if (urlMapping.getUrlPrefixId() == null) {
+            statement.setNull(10, Types.INTEGER);
+        } else {
+            statement.setInt(10, urlMapping.getUrlPrefixId());
+        }
+        statement.setString(11, urlMapping.getFullUrlSuffix());
+    }
+}
@@ -1,14 +1,109 @@
 package uk.co.droidinactu.tpximpacttask.urlshortener.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import uk.co.droidinactu.tpximpacttask.urlshortener.expiry.AliasExpiry;
 import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Repository interface for UrlMapping entity.
  * Provides CRUD operations for the UrlMapping entity.
  */
 @Repository
-public interface UrlMappingRepository extends JpaRepository<UrlMapping, String> {
+public interface UrlMappingRepository extends JpaRepository<UrlMapping, String>, UrlMappingBatchRepository {
+
+    /**
+     * Finds which of the given aliases are already in use, in a single query.
+     *
+     * @param aliases the aliases to check
+     * @return the subset of aliases that already have a mapping
+     */
+    @Query("select m.alias from UrlMapping m where m.alias in :aliases")
+    List<String> findExistingAliases(Collection<String> aliases);
+
+    /**
+     * Finds the mappings whose normalised full URL has one of the given hashes, using the hash index.
+     *
+     * @param fullUrlHashes the hashes to look up
+     * @return the matching mappings
+     */
+    List<UrlMapping> findByFullUrlHashIn(Collection<Long> fullUrlHashes);
+
+    /**
+     * Deletes the mapping for an alias in a single statement, so that of two concurrent deletes
+     * of the same alias only one is told that it removed the mapping.
+     *
+     * @param alias the alias to delete
+     * @return the number of mappings deleted, 0 or 1
+     */
+    @Modifying
+    @Query("delete from UrlMapping m where m.alias = :alias")
+    int deleteMapping(String alias);
+
+    /**
+     * Streams the alias and expiry time of every expiring mapping, using the expiry index.
+     * Must be called inside a transaction and the stream must be closed by the caller.
+     *
+     * @return a stream of expiring aliases
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new uk.co.droidinactu.tpximpacttask.urlshortener.expiry.AliasExpiry(m.alias, m.expiresAt)"
+            + " from UrlMapping m where m.expiresAt is not null")
+    Stream<AliasExpiry> streamAllExpiries();
+
+    /**
+     * Streams every alias without loading the mapping entities.
+     * Must be called inside a transaction and the stream must be closed by the caller.
+     *
+     * @return a stream of all aliases
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select m.alias from UrlMapping m")
+    Stream<String> streamAllAliases();
+
+    /**
+     * Finds the first page of mappings in creation order.
+     *
+     * @param limit the maximum number of mappings to return
+     * @return the oldest mappings
+     */
+    @Query("select m from UrlMapping m order by m.createdAt, m.alias")
+    List<UrlMapping> findFirstPage(Limit limit);
+
+    /**
+     * Finds the page of mappings that follows the given keyset position in creation order.
+     * Uses the (createdAt, alias) index, so the cost does not grow with how far into the table the page is.
+     *
+     * @param createdAt the creation time of the last mapping on the previous page
+     * @param alias     the alias of the last mapping on the previous page
+     * @param limit     the maximum number of mappings to return
+     * @return the next mappings
+     */
+    @Query("select m from UrlMapping m"
+            + " where m.createdAt > :createdAt or (m.createdAt = :createdAt and m.alias > :alias)"
+            + " order by m.createdAt, m.alias")
+    List<UrlMapping> findPageAfter(LocalDateTime createdAt, String alias, Limit limit);
 
-}
\ No newline at end of file
+    /**
+     * Streams the stored URLs of every mapping, so no entities accumulate in the persistence context.
+     * Must be called inside a transaction and the stream must be closed by the caller.
+     *
+     * @return a stream of all mappings
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new uk.co.droidinactu.tpximpacttask.urlshortener.repository.StoredUrlMapping("
+            + "m.alias, m.storedFullUrl, m.storedShortUrl, m.urlPrefixId, m.fullUrlSuffix)"
+            + " from UrlMapping m order by m.createdAt, m.alias")
+    Stream<StoredUrlMapping> streamAll();
+}
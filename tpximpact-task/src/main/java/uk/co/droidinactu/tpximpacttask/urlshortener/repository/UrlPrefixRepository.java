@@ -0,0 +1,22 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlPrefix;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for UrlPrefix entity.
+ */
+@Repository
+public interface UrlPrefixRepository extends JpaRepository<UrlPrefix, Integer> {
+
+    /**
+     * Finds the dictionary entry of a prefix.
+     *
+     * @param prefix the prefix
+     * @return the entry, if the prefix is in the dictionary
+     */
+    Optional<UrlPrefix> findByPrefix(String prefix);
+}
@@ -0,0 +1,28 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for POST /shorten/batch.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.bulk")
+public class BulkShortenProperties {
+
+    /**
+     * The largest number of URLs accepted in one request.
+     */
+    private int maxItems = 100_000;
+
+    /**
+     * The number of mappings inserted per transaction.
+     * The rows of a transaction are sent to the database as a single JDBC batch.
+     */
+    private int transactionSize = 1000;
+
+    /**
+     * The number of custom aliases checked per existence query.
+     */
+    private int lookupSize = 1000;
+}
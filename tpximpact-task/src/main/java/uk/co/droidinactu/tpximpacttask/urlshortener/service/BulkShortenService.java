@@ -0,0 +1,336 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import uk.co.droidinactu.tpximpacttask.urlshortener.alias.AliasProperties;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cluster.ClusterEvent;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cluster.ClusterEventBus;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dedup.DedupProperties;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dedup.FullUrlHash;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlRequest;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlResult;
+import uk.co.droidinactu.tpximpacttask.urlshortener.expiry.ExpiryService;
+import uk.co.droidinactu.tpximpacttask.urlshortener.index.AliasMembershipFilter;
+import uk.co.droidinactu.tpximpacttask.urlshortener.metrics.ShortenerMetrics;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.UrlMappingStore;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service class for shortening many URLs in one request.
+ * <p>
+ * Custom aliases are checked with one query per {@code lookupSize} aliases instead of one per
+ * URL, generated aliases come from the same {@code AliasGenerator} as single requests, and the
+ * mappings are inserted in units of {@code transactionSize}, with JDBC batching on the JPA engine.
+ * With deduplication enabled, existing mappings for the full URLs are found with one query per
+ * {@code lookupSize} URLs, and a URL repeated within the batch only gets one mapping. As for single
+ * requests, URLs with an expiry time are not deduplicated.
+ */
+@Service
+public class BulkShortenService {
+
+    private final UrlMappingStore urlMappingStore;
+    private final UrlShortenerService urlShortenerService;
+    private final AliasMembershipFilter aliasMembershipFilter;
+    private final RedirectCache redirectCache;
+    private final Validator validator;
+    private final BulkShortenProperties properties;
+    private final ExpiryService expiryService;
+    private final ClusterEventBus clusterEventBus;
+    private final ShortenerMetrics shortenerMetrics;
+    private final int maxAliasAttempts;
+    private final boolean dedupEnabled;
+
+    @Autowired
+    public BulkShortenService(UrlMappingStore urlMappingStore,
+                              UrlShortenerService urlShortenerService,
+                              AliasMembershipFilter aliasMembershipFilter,
+                              RedirectCache redirectCache,
+                              Validator validator,
+                              BulkShortenProperties properties,
+                              AliasProperties aliasProperties,
+                              DedupProperties dedupProperties,
+                              ExpiryService expiryService,
+                              ClusterEventBus clusterEventBus,
+                              ShortenerMetrics shortenerMetrics) {
+        this.urlMappingStore = urlMappingStore;
+        this.urlShortenerService = urlShortenerService;
+        this.aliasMembershipFilter = aliasMembershipFilter;
+        this.redirectCache = redirectCache;
+        this.validator = validator;
+        this.properties = properties;
+        this.expiryService = expiryService;
+        this.clusterEventBus = clusterEventBus;
+        this.shortenerMetrics = shortenerMetrics;
+        this.maxAliasAttempts = aliasProperties.getMaxAttempts();
+        this.dedupEnabled = dedupProperties.isEnabled();
+    }
+
+    /**
+     * Shortens every URL in the list.
+     * Items are processed independently: an invalid item or a taken alias fails that item only.
+     *
+     * @param requests The URLs to shorten, each with an optional custom alias
+     * @param baseUrl  The base URL the short URLs are built on, e.g. {@code http://localhost:8080}
+     * @return One result per request, in the same order
+     * @throws IllegalArgumentException if there are more requests than the configured maximum
+     */
+    public List<ShortenUrlResult> shortenUrls(List<ShortenUrlRequest> requests, String baseUrl) {
+        checkBatchSize(requests.size());
+        long start = System.nanoTime();
+        try {
+            return createMappings(requests, baseUrl);
+        } finally {
+            shortenerMetrics.recordShortenBatch(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Checks that a batch of the given size may be shortened, so that a batch being read can be
+     * rejected as soon as it grows too large rather than once it has all been read.
+     *
+     * @param items The number of URLs in the batch so far
+     * @throws IllegalArgumentException if there are more URLs than the configured maximum
+     */
+    public void checkBatchSize(int items) {
+        if (items > properties.getMaxItems()) {
+            throw new IllegalArgumentException(
+                    "A batch may contain at most " + properties.getMaxItems() + " URLs");
+        }
+    }
+
+    private List<ShortenUrlResult> createMappings(List<ShortenUrlRequest> requests, String baseUrl) {
+        ShortenUrlResult[] results = new ShortenUrlResult[requests.size()];
+        Long[] fullUrlHashes = new Long[requests.size()];
+
+        Map<String, Integer> customAliases = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ShortenUrlRequest request = requests.get(i);
+            String error = validate(request);
+            if (error != null) {
+                results[i] = ShortenUrlResult.failure(i, error);
+            } else if (!isCustom(request)) {
+                if (request.hasDefaultOptions()) {
+                    fullUrlHashes[i] = FullUrlHash.of(request.getFullUrl());
+                }
+            } else if (customAliases.putIfAbsent(request.getCustomAlias(), i) != null) {
+                shortenerMetrics.aliasTaken();
+                results[i] = ShortenUrlResult.failure(i, "Custom alias is already taken: " + request.getCustomAlias());
+            }
+        }
+        Set<String> takenAliases = findTakenAliases(customAliases.keySet());
+        Map<Long, List<UrlMapping>> existingMappings = dedupEnabled ? findByFullUrlHashes(fullUrlHashes) : Map.of();
+
+        LocalDateTime now = LocalDateTime.now();
+        List<UrlMapping> pending = new ArrayList<>(requests.size());
+        List<Integer> pendingIndexes = new ArrayList<>(requests.size());
+        Map<Long, List<Integer>> pendingByHash = new HashMap<>();
+        Map<Integer, Integer> repeats = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            ShortenUrlRequest request = requests.get(i);
+            String alias;
+            if (isCustom(request)) {
+                alias = request.getCustomAlias();
+                if (takenAliases.contains(alias)) {
+                    shortenerMetrics.aliasTaken();
+                    results[i] = ShortenUrlResult.failure(i, "Custom alias is already taken: " + alias);
+                    continue;
+                }
+            } else {
+                if (dedupEnabled && fullUrlHashes[i] != null) {
+                    UrlMapping existing = findSameUrl(existingMappings.get(fullUrlHashes[i]), request.getFullUrl());
+                    if (existing != null) {
+                        shortenerMetrics.deduplicated();
+                        results[i] = ShortenUrlResult.success(i, baseUrl + "/" + existing.getAlias());
+                        continue;
+                    }
+                    Integer first = findSameUrl(pendingByHash.get(fullUrlHashes[i]), request.getFullUrl(), requests);
+                    if (first != null) {
+                        repeats.put(i, first);
+                        continue;
+                    }
+                    pendingByHash.computeIfAbsent(fullUrlHashes[i], hash -> new ArrayList<>(1)).add(i);
+                }
+                do {
+                    alias = urlShortenerService.generateAlias();
+                } while (customAliases.containsKey(alias));
+            }
+            UrlMapping urlMapping = new UrlMapping();
+            urlMapping.setAlias(alias);
+            urlMapping.setFullUrl(request.getFullUrl());
+            urlMapping.setShortUrl(baseUrl + "/" + alias);
+            urlMapping.setIsCustomised(isCustom(request));
+            urlMapping.setCreatedAt(now);
+            urlMapping.setFullUrlHash(fullUrlHashes[i]);
+            urlMapping.setExpiresAt(request.getExpiresAt());
+            urlMapping.setRedirectStatus(request.getRedirectStatus());
+            urlMapping.setCacheMaxAge(request.getCacheMaxAge());
+            pending.add(urlMapping);
+            pendingIndexes.add(i);
+        }
+
+        for (int from = 0; from < pending.size(); from += properties.getTransactionSize()) {
+            int to = Math.min(from + properties.getTransactionSize(), pending.size());
+            insert(pending.subList(from, to), pendingIndexes.subList(from, to), results, baseUrl);
+        }
+        // a URL repeated within the batch gets the outcome of its first occurrence
+        repeats.forEach((index, first) -> {
+            ShortenUrlResult result = results[first];
+            if (result.getShortUrl() != null) {
+                shortenerMetrics.deduplicated();
+                results[index] = ShortenUrlResult.success(index, result.getShortUrl());
+            } else {
+                results[index] = ShortenUrlResult.failure(index, result.getError());
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Inserts one transaction's worth of mappings. If another request took one of the aliases in
+     * the meantime the whole transaction fails, so the mappings are retried one at a time to find
+     * out which.
+     */
+    private void insert(List<UrlMapping> urlMappings, List<Integer> indexes, ShortenUrlResult[] results,
+                        String baseUrl) {
+        urlMappings.forEach(urlMapping -> aliasMembershipFilter.add(urlMapping.getAlias()));
+        try {
+            urlMappingStore.insertAll(urlMappings);
+            for (int i = 0; i < urlMappings.size(); i++) {
+                results[indexes.get(i)] = inserted(indexes.get(i), urlMappings.get(i));
+            }
+        } catch (DataIntegrityViolationException e) {
+            for (int i = 0; i < urlMappings.size(); i++) {
+                results[indexes.get(i)] = insertAlone(indexes.get(i), urlMappings.get(i), baseUrl);
+            }
+        }
+    }
+
+    /**
+     * Inserts a single mapping of a batch that failed. Only a custom alias is reported as taken;
+     * a generated alias that was taken in the meantime is replaced with a new one, as for single
+     * requests, and any other constraint the mapping breaks fails the item without blaming its alias.
+     */
+    private ShortenUrlResult insertAlone(int index, UrlMapping urlMapping, String baseUrl) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                urlMappingStore.insertAll(List.of(urlMapping));
+                return inserted(index, urlMapping);
+            } catch (DuplicateKeyException e) {
+                aliasMembershipFilter.cancel(urlMapping.getAlias());
+                if (Boolean.TRUE.equals(urlMapping.getIsCustomised())) {
+                    shortenerMetrics.aliasTaken();
+                    return ShortenUrlResult.failure(index, "Custom alias is already taken: " + urlMapping.getAlias());
+                }
+                shortenerMetrics.aliasGenerationRetry();
+                if (attempt >= maxAliasAttempts) {
+                    return ShortenUrlResult.failure(index,
+                            "Unable to generate a free alias after " + maxAliasAttempts + " attempts");
+                }
+                String alias;
+                try {
+                    alias = urlShortenerService.generateAlias();
+                } catch (IllegalStateException noFreeAlias) {
+                    return ShortenUrlResult.failure(index, noFreeAlias.getMessage());
+                }
+                urlMapping.setAlias(alias);
+                urlMapping.setShortUrl(baseUrl + "/" + alias);
+                aliasMembershipFilter.add(alias);
+            } catch (DataIntegrityViolationException e) {
+                aliasMembershipFilter.cancel(urlMapping.getAlias());
+                return ShortenUrlResult.failure(index, "The URL could not be stored");
+            }
+        }
+    }
+
+    private ShortenUrlResult inserted(int index, UrlMapping urlMapping) {
+        redirectCache.invalidate(urlMapping.getAlias());
+        if (urlMapping.getExpiresAt() != null) {
+            expiryService.schedule(urlMapping.getAlias(), urlMapping.getExpiresAt());
+        }
+        clusterEventBus.publish(ClusterEvent.Type.CREATED, urlMapping.getAlias());
+        return ShortenUrlResult.success(index, urlMapping.getShortUrl());
+    }
+
+    /**
+     * Finds which of the aliases already exist, skipping any the membership filter rules out.
+     */
+    private Set<String> findTakenAliases(Set<String> aliases) {
+        List<String> candidates = aliases.stream()
+                .filter(alias -> !aliasMembershipFilter.isDefinitelyAbsent(alias))
+                .toList();
+        Set<String> taken = new HashSet<>();
+        for (int from = 0; from < candidates.size(); from += properties.getLookupSize()) {
+            int to = Math.min(from + properties.getLookupSize(), candidates.size());
+            taken.addAll(urlMappingStore.findExistingAliases(candidates.subList(from, to)));
+        }
+        return taken;
+    }
+
+    /**
+     * Finds the existing mappings with generated aliases for the given full URL hashes, grouped by hash.
+     */
+    private Map<Long, List<UrlMapping>> findByFullUrlHashes(Long[] fullUrlHashes) {
+        List<Long> hashes = Arrays.stream(fullUrlHashes).filter(hash -> hash != null).distinct().toList();
+        Map<Long, List<UrlMapping>> mappings = new HashMap<>();
+        for (int from = 0; from < hashes.size(); from += properties.getLookupSize()) {
+            int to = Math.min(from + properties.getLookupSize(), hashes.size());
+            for (UrlMapping urlMapping : urlMappingStore.findByFullUrlHashes(hashes.subList(from, to))) {
+                if (!Boolean.TRUE.equals(urlMapping.getIsCustomised())) {
+                    mappings.computeIfAbsent(urlMapping.getFullUrlHash(), hash -> new ArrayList<>(1)).add(urlMapping);
+                }
+            }
+        }
+        return mappings;
+    }
+
+    private static UrlMapping findSameUrl(List<UrlMapping> candidates, String fullUrl) {
+        if (candidates != null) {
+            for (UrlMapping candidate : candidates) {
+                if (FullUrlHash.sameUrl(candidate.getFullUrl(), fullUrl)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Integer findSameUrl(List<Integer> candidates, String fullUrl, List<ShortenUrlRequest> requests) {
+        if (candidates != null) {
+            for (Integer candidate : candidates) {
+                if (FullUrlHash.sameUrl(requests.get(candidate).getFullUrl(), fullUrl)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String validate(ShortenUrlRequest request) {
+        if (request == null) {
+            return "Full URL is required";
+        }
+        Set<ConstraintViolation<ShortenUrlRequest>> violations = validator.validate(request);
+        return violations.isEmpty() ? null : violations.iterator().next().getMessage();
+    }
+
+    private static boolean isCustom(ShortenUrlRequest request) {
+        return request.getCustomAlias() != null && !request.getCustomAlias().trim().isEmpty();
+    }
+}
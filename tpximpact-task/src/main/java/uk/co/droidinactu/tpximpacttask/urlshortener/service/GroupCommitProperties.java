@@ -0,0 +1,30 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for inserting the mappings of concurrent POST /shorten requests together.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.group-commit")
+public class GroupCommitProperties {
+
+    /**
+     * Whether POST /shorten inserts through the {@link GroupCommitWriter} instead of one transaction per request.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The longest a mapping waits for others to join its transaction. Zero only groups the
+     * mappings that queued up while the previous transaction was committing.
+     */
+    private Duration maxDelay = Duration.ofMillis(2);
+
+    /**
+     * The most mappings inserted in one transaction.
+     */
+    private int maxBatchSize = 100;
+}
@@ -0,0 +1,207 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import uk.co.droidinactu.tpximpacttask.exception.AliasTakenException;
+import uk.co.droidinactu.tpximpacttask.urlshortener.metrics.ShortenerMetrics;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.UrlMappingStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts the mappings of concurrent create requests together, one transaction per group.
+ * <p>
+ * Callers queue their mapping and wait. A single writer thread takes the oldest queued mapping,
+ * waits until it has been queued for {@code maxDelay} or {@code maxBatchSize} mappings are
+ * queued, whichever comes first, and inserts them all with {@link UrlMappingStore#insertAll}, so
+ * a burst of requests pays for one commit instead of one each. If the group is rejected because
+ * an alias is taken, its mappings are inserted one at a time so that only the callers whose alias
+ * was taken get an {@link AliasTakenException}, and any other constraint a mapping breaks fails
+ * only its own caller.
+ * <p>
+ * Create requests block until their group commits, so the writer runs in the phase below the web
+ * server's graceful shutdown: it is not stopped until the last in-flight request has returned, and
+ * inserts whatever is still queued before it stops. A mapping queued while the writer is not
+ * running is inserted by its caller.
+ */
+@Component
+@Slf4j
+public class GroupCommitWriter implements SmartLifecycle {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final UrlMappingStore urlMappingStore;
+    private final ShortenerMetrics shortenerMetrics;
+    private final boolean enabled;
+    private final long maxDelayNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingInsert> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread writer;
+
+    private record PendingInsert(UrlMapping urlMapping, long queuedAt, CompletableFuture<Void> result) {
+    }
+
+    @Autowired
+    public GroupCommitWriter(UrlMappingStore urlMappingStore,
+                             GroupCommitProperties properties,
+                             ShortenerMetrics shortenerMetrics) {
+        this.urlMappingStore = urlMappingStore;
+        this.shortenerMetrics = shortenerMetrics;
+        this.enabled = properties.isEnabled();
+        this.maxDelayNanos = properties.getMaxDelay().toNanos();
+        this.maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+    }
+
+    /**
+     * Returns whether create requests should insert through this writer.
+     *
+     * @return true if group commit is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Inserts a new mapping as part of the next group, and waits until that group has committed.
+     *
+     * @param urlMapping the mapping to insert
+     * @throws AliasTakenException if a mapping for the alias already exists
+     * @throws IllegalArgumentException if the mapping breaks any other constraint of the store
+     */
+    public void insert(UrlMapping urlMapping) {
+        PendingInsert pending = new PendingInsert(urlMapping, System.nanoTime(), new CompletableFuture<>());
+        queue.add(pending);
+        if (!running && queue.remove(pending)) {
+            // queued after the writer stopped, or before it started, so nothing else will take it
+            write(List.of(pending));
+        }
+        try {
+            pending.result().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the group commit", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::run, "group-commit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+        List<PendingInsert> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1;
+    }
+
+    private void run() {
+        List<PendingInsert> group = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingInsert first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = first.queuedAt() + maxDelayNanos;
+                while (group.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingInsert next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                write(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                write(group);
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Inserts a group in one transaction and completes each of its callers.
+     */
+    private void write(List<PendingInsert> group) {
+        if (group.isEmpty()) {
+            return;
+        }
+        try {
+            urlMappingStore.insertAll(group.stream().map(PendingInsert::urlMapping).toList());
+            group.forEach(pending -> pending.result().complete(null));
+            shortenerMetrics.recordGroupCommit(group.size());
+        } catch (DataIntegrityViolationException e) {
+            for (PendingInsert pending : group) {
+                writeAlone(pending);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to insert a group of {} mappings", group.size(), e);
+            group.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    private void writeAlone(PendingInsert pending) {
+        try {
+            urlMappingStore.insertAll(List.of(pending.urlMapping()));
+            pending.result().complete(null);
+            shortenerMetrics.recordGroupCommit(1);
+        } catch (DuplicateKeyException e) {
+            pending.result().completeExceptionally(
+                    new AliasTakenException("Custom alias is already taken: " + pending.urlMapping().getAlias()));
+        } catch (DataIntegrityViolationException e) {
+            pending.result().completeExceptionally(new IllegalArgumentException("The URL could not be stored", e));
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+}
@@ -1,20 +1,37 @@
 package uk.co.droidinactu.tpximpacttask.urlshortener.service;
 
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import uk.co.droidinactu.tpximpacttask.exception.AliasNotFoundException;
 import uk.co.droidinactu.tpximpacttask.exception.AliasTakenException;
+import uk.co.droidinactu.tpximpacttask.urlshortener.alias.AliasGenerator;
+import uk.co.droidinactu.tpximpacttask.urlshortener.alias.AliasProperties;
+import uk.co.droidinactu.tpximpacttask.urlshortener.analytics.ClickStatsService;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cluster.ClusterEvent;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cluster.ClusterEventBus;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dedup.DedupProperties;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dedup.FullUrlHash;
 import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlRequest;
 import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlResponse;
 import uk.co.droidinactu.tpximpacttask.urlshortener.dto.UrlMappingDto;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.UrlMappingPage;
+import uk.co.droidinactu.tpximpacttask.urlshortener.expiry.ExpiryService;
+import uk.co.droidinactu.tpximpacttask.urlshortener.index.AliasMembershipFilter;
+import uk.co.droidinactu.tpximpacttask.urlshortener.metrics.ShortenerMetrics;
 import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
-import uk.co.droidinactu.tpximpacttask.urlshortener.repository.UrlMappingRepository;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.UrlMappingStore;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
-import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service class for URL shortening operations.
@@ -22,72 +39,267 @@ import java.util.stream.Collectors;
 @Service
 public class UrlShortenerService {
 
-    private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-    private static final int ALIAS_LENGTH = 6;
-    private static final Random RANDOM = new Random();
-
-    private final UrlMappingRepository urlMappingRepository;
+    private final UrlMappingStore urlMappingStore;
+    private final RedirectCache redirectCache;
+    private final AliasMembershipFilter aliasMembershipFilter;
+    private final AliasGenerator aliasGenerator;
+    private final ClickStatsService clickStatsService;
+    private final ExpiryService expiryService;
+    private final ClusterEventBus clusterEventBus;
+    private final GroupCommitWriter groupCommitWriter;
+    private final ShortenerMetrics shortenerMetrics;
+    private final int maxAliasAttempts;
+    private final boolean dedupEnabled;
 
     @Autowired
-    public UrlShortenerService(UrlMappingRepository urlMappingRepository) {
-        this.urlMappingRepository = urlMappingRepository;
+    public UrlShortenerService(UrlMappingStore urlMappingStore,
+                               RedirectCache redirectCache,
+                               AliasMembershipFilter aliasMembershipFilter,
+                               AliasGenerator aliasGenerator,
+                               AliasProperties aliasProperties,
+                               ClickStatsService clickStatsService,
+                               DedupProperties dedupProperties,
+                               ExpiryService expiryService,
+                               ClusterEventBus clusterEventBus,
+                               GroupCommitWriter groupCommitWriter,
+                               ShortenerMetrics shortenerMetrics) {
+        this.urlMappingStore = urlMappingStore;
+        this.redirectCache = redirectCache;
+        this.aliasMembershipFilter = aliasMembershipFilter;
+        this.aliasGenerator = aliasGenerator;
+        this.clickStatsService = clickStatsService;
+        this.expiryService = expiryService;
+        this.clusterEventBus = clusterEventBus;
+        this.groupCommitWriter = groupCommitWriter;
+        this.shortenerMetrics = shortenerMetrics;
+        this.maxAliasAttempts = aliasProperties.getMaxAttempts();
+        this.dedupEnabled = dedupProperties.isEnabled();
     }
 
     /**
      * Shortens a URL based on the provided request.
+     * With deduplication enabled, a request without a custom alias or expiry time for a full URL that
+     * already has a generated alias is answered with that alias instead of creating another mapping.
+     * Mappings with an expiry time are never given out again, as they would expire under the caller,
+     * and nor are those that choose their redirect status or caching.
+     * The mapping is created with a single insert, and a taken alias is detected by the uniqueness of
+     * the alias in the store rather than looked up first, so two requests for the same alias can never
+     * both succeed; a taken generated alias is replaced with a new one. With group commit enabled the
+     * insert is shared with concurrent requests.
      *
-     * @param request        The request containing the URL to shorten and optional custom alias
-     * @param servletRequest The HTTP request to get the base URL
+     * @param request The request containing the URL to shorten and optional custom alias
+     * @param baseUrl The base URL the short URL is built on, e.g. {@code http://localhost:8080}
      * @return A response containing the shortened URL
      * @throws AliasTakenException if the custom alias is already taken
      */
-    public ShortenUrlResponse shortenUrl(ShortenUrlRequest request, HttpServletRequest servletRequest) {
-        String alias = request.getCustomAlias();
-        if (alias == null || alias.trim().isEmpty()) {
-            // Generate a random alias if none provided
-            alias = generateRandomAlias();
-        } else if (urlMappingRepository.existsById(alias)) {
-            throw new AliasTakenException("Custom alias is already taken: " + alias);
+    public ShortenUrlResponse shortenUrl(ShortenUrlRequest request, String baseUrl) {
+        long start = System.nanoTime();
+        try {
+            return createMapping(request, baseUrl);
+        } finally {
+            shortenerMetrics.recordShorten(System.nanoTime() - start);
         }
+    }
 
-        String baseUrl = getBaseUrl(servletRequest);
-        String shortUrl = baseUrl + "/" + alias;
+    private ShortenUrlResponse createMapping(ShortenUrlRequest request, String baseUrl) {
+        String alias = request.getCustomAlias();
+        boolean customised = alias != null && !alias.trim().isEmpty();
+        LocalDateTime expiresAt = request.getExpiresAt();
+        Long fullUrlHash = null;
+        if (!customised) {
+            if (request.hasDefaultOptions()) {
+                fullUrlHash = FullUrlHash.of(request.getFullUrl());
+            }
+            if (dedupEnabled && fullUrlHash != null) {
+                Optional<UrlMapping> existing = findDuplicate(fullUrlHash, request.getFullUrl());
+                if (existing.isPresent()) {
+                    shortenerMetrics.deduplicated();
+                    String existingAlias = existing.get().getAlias();
+                    return new ShortenUrlResponse(baseUrl + "/" + existingAlias, existingAlias);
+                }
+            }
+        }
 
         UrlMapping urlMapping = new UrlMapping();
-        urlMapping.setAlias(alias);
         urlMapping.setFullUrl(request.getFullUrl());
-        urlMapping.setShortUrl(shortUrl);
+        urlMapping.setIsCustomised(customised);
         urlMapping.setCreatedAt(LocalDateTime.now());
+        urlMapping.setFullUrlHash(fullUrlHash);
+        urlMapping.setExpiresAt(expiresAt);
+        urlMapping.setRedirectStatus(request.getRedirectStatus());
+        urlMapping.setCacheMaxAge(request.getCacheMaxAge());
+        for (int attempt = 1; ; attempt++) {
+            if (!customised) {
+                // Generate an alias if none provided
+                alias = aliasGenerator.nextAlias();
+            }
+            urlMapping.setAlias(alias);
+            urlMapping.setShortUrl(baseUrl + "/" + alias);
+            try {
+                insert(urlMapping);
+                break;
+            } catch (AliasTakenException e) {
+                if (customised) {
+                    shortenerMetrics.aliasTaken();
+                    throw e;
+                }
+                shortenerMetrics.aliasGenerationRetry();
+                if (attempt >= maxAliasAttempts) {
+                    throw new IllegalStateException(
+                            "Unable to generate a free alias after " + maxAliasAttempts + " attempts");
+                }
+            }
+        }
+        redirectCache.invalidate(alias);
+        if (expiresAt != null) {
+            expiryService.schedule(alias, expiresAt);
+        }
+        clusterEventBus.publish(ClusterEvent.Type.CREATED, alias);
+
+        return new ShortenUrlResponse(urlMapping.getShortUrl(), alias);
+    }
 
-        urlMappingRepository.save(urlMapping);
+    /**
+     * Inserts a new mapping without checking for its alias first, through the group commit writer
+     * if it is enabled. The alias is added to the membership filter beforehand, so that it is never
+     * reported absent once the mapping is visible, and taken back out if the mapping is rejected.
+     *
+     * @param urlMapping The mapping to insert
+     * @throws AliasTakenException if a mapping for the alias already exists
+     * @throws IllegalArgumentException if the mapping breaks any other constraint of the store
+     */
+    private void insert(UrlMapping urlMapping) {
+        aliasMembershipFilter.add(urlMapping.getAlias());
+        try {
+            if (groupCommitWriter.isEnabled()) {
+                groupCommitWriter.insert(urlMapping);
+                return;
+            }
+            try {
+                urlMappingStore.insert(urlMapping);
+            } catch (DuplicateKeyException e) {
+                throw new AliasTakenException("Custom alias is already taken: " + urlMapping.getAlias());
+            } catch (DataIntegrityViolationException e) {
+                throw new IllegalArgumentException("The URL could not be stored", e);
+            }
+        } catch (AliasTakenException | IllegalArgumentException e) {
+            aliasMembershipFilter.cancel(urlMapping.getAlias());
+            throw e;
+        }
+    }
 
-        return new ShortenUrlResponse(shortUrl);
+    /**
+     * Finds a mapping with a generated alias for the same normalised full URL.
+     *
+     * @param fullUrlHash The hash of the full URL
+     * @param fullUrl     The full URL
+     * @return The existing mapping, or empty if there is none
+     */
+    private Optional<UrlMapping> findDuplicate(long fullUrlHash, String fullUrl) {
+        return urlMappingStore.findByFullUrlHashes(List.of(fullUrlHash)).stream()
+                .filter(urlMapping -> !Boolean.TRUE.equals(urlMapping.getIsCustomised()))
+                .filter(urlMapping -> FullUrlHash.sameUrl(urlMapping.getFullUrl(), fullUrl))
+                .findFirst();
     }
 
     /**
      * Retrieves the full URL for the given alias.
+     * Popular aliases are answered from the {@link RedirectCache} without touching the database.
+     * An alias that has expired is not found, even before its mapping has been deleted.
      *
      * @param alias The alias to look up
      * @return The full URL if found
      * @throws AliasNotFoundException if the alias is not found
      */
     public String getFullUrl(String alias) {
-        return urlMappingRepository.findById(alias)
-                .orElseThrow(() -> new AliasNotFoundException("Alias not found: " + alias))
-                .getFullUrl();
+        return getRedirect(alias).fullUrl();
+    }
+
+    /**
+     * Retrieves the full URL for the given alias without throwing when it is missing.
+     *
+     * @param alias The alias to look up
+     * @return The full URL, or null if the alias is not found
+     */
+    public String findFullUrl(String alias) {
+        RedirectCache.Target target = findRedirect(alias);
+        return target == null ? null : target.fullUrl();
+    }
+
+    /**
+     * Retrieves where and how the given alias redirects: its full URL, status and caching.
+     * Popular aliases are answered from the {@link RedirectCache} without touching the database.
+     * An alias that has expired is not found, even before its mapping has been deleted.
+     *
+     * @param alias The alias to look up
+     * @return The redirect target
+     * @throws AliasNotFoundException if the alias is not found
+     */
+    public RedirectCache.Target getRedirect(String alias) {
+        RedirectCache.Target target = findRedirect(alias);
+        if (target == null) {
+            throw new AliasNotFoundException("Alias not found: " + alias);
+        }
+        return target;
+    }
+
+    /**
+     * Retrieves where and how the given alias redirects without throwing when it is missing.
+     * Used on the redirect fast path, where unknown aliases are handed on to the normal handler.
+     *
+     * @param alias The alias to look up
+     * @return The redirect target, or null if the alias is not found
+     */
+    public RedirectCache.Target findRedirect(String alias) {
+        if (aliasMembershipFilter.isAbsent(alias)) {
+            return null;
+        }
+        return redirectCache.lookup(alias, this::loadTarget);
+    }
+
+    /**
+     * Checks whether the alias is certainly unknown, without touching the database on a single instance.
+     * Aliases that are reported as unknown here would always make {@link #getFullUrl} throw.
+     *
+     * @param alias The alias to check
+     * @return true if there is definitely no mapping for the alias
+     */
+    public boolean isUnknownAlias(String alias) {
+        return aliasMembershipFilter.isAbsent(alias);
+    }
+
+    /**
+     * Loads the full URL, expiry time and redirect options for the given alias from the database.
+     *
+     * @param alias The alias to look up
+     * @return The redirect target, or null if the alias is not found or has expired
+     */
+    private RedirectCache.Target loadTarget(String alias) {
+        return urlMappingStore.findByAlias(alias)
+                .filter(urlMapping -> !urlMapping.isExpired(LocalDateTime.now()))
+                .map(RedirectCache.Target::of)
+                .orElse(null);
     }
 
     /**
      * Deletes a URL mapping by alias.
+     * The alias is only removed from the membership filter by the request whose delete actually
+     * removed the mapping, as removing it twice would take counts shared with live aliases with it.
      *
      * @param alias The alias to delete
      * @throws AliasNotFoundException if the alias is not found
      */
     public void deleteUrlMapping(String alias) {
-        if (!urlMappingRepository.existsById(alias)) {
+        long start = System.nanoTime();
+        if (aliasMembershipFilter.isAbsent(alias) || !urlMappingStore.delete(alias)) {
+            shortenerMetrics.recordDelete(System.nanoTime() - start, false);
             throw new AliasNotFoundException("Alias not found: " + alias);
         }
-        urlMappingRepository.deleteById(alias);
+        redirectCache.invalidate(alias);
+        aliasMembershipFilter.remove(alias);
+        clickStatsService.deleteClickStats(alias);
+        clusterEventBus.publish(ClusterEvent.Type.DELETED, alias);
+        shortenerMetrics.recordDelete(System.nanoTime() - start, true);
     }
 
     /**
@@ -96,67 +308,118 @@ public class UrlShortenerService {
      * @return A list of all URL mappings
      */
     public List<UrlMappingDto> getAllUrlMappings() {
-        return urlMappingRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        List<UrlMappingDto> urlMappings = new ArrayList<>();
+        urlMappingStore.forEachMapping(urlMappings::add);
+        shortenerMetrics.recordListAll(System.nanoTime() - start);
+        return urlMappings;
     }
 
     /**
-     * Converts a UrlMapping entity to a UrlMappingDto.
+     * Lists one page of URL mappings in creation order, using keyset pagination.
      *
-     * @param urlMapping The entity to convert
-     * @return The converted DTO
+     * @param cursor The cursor returned with the previous page, or null for the first page
+     * @param limit  The maximum number of mappings to return
+     * @return The page of mappings and the cursor for the next page
+     * @throws IllegalArgumentException if the cursor is not one this service issued
      */
-    private UrlMappingDto convertToDto(UrlMapping urlMapping) {
-        return new UrlMappingDto(
-                urlMapping.getAlias(),
-                urlMapping.getFullUrl(),
-                urlMapping.getShortUrl()
-        );
+    public UrlMappingPage getUrlMappingsPage(String cursor, int limit) {
+        long start = System.nanoTime();
+        List<UrlMapping> mappings;
+        if (cursor == null || cursor.isEmpty()) {
+            mappings = urlMappingStore.findPage(null, null, limit);
+        } else {
+            String[] position = decodeCursor(cursor);
+            mappings = urlMappingStore.findPage(LocalDateTime.parse(position[0]), position[1], limit);
+        }
+
+        String nextCursor = null;
+        if (mappings.size() == limit) {
+            nextCursor = encodeCursor(mappings.get(mappings.size() - 1));
+        }
+        UrlMappingPage page = new UrlMappingPage(mappings.stream().map(this::convertToDto).toList(), nextCursor);
+        shortenerMetrics.recordListPage(System.nanoTime() - start);
+        return page;
     }
 
     /**
-     * Generates a random alias of the specified length.
+     * Passes every URL mapping to the consumer, one at a time, in creation order.
+     * Mappings are read one at a time from the store, so memory use does not depend on how many there are.
      *
-     * @return A random alias
+     * @param consumer Receives each mapping
      */
-    private String generateRandomAlias() {
-        StringBuilder sb = new StringBuilder(ALIAS_LENGTH);
-        for (int i = 0; i < ALIAS_LENGTH; i++) {
-            sb.append(CHARACTERS.charAt(RANDOM.nextInt(CHARACTERS.length())));
+    public void streamAllUrlMappings(Consumer<UrlMappingDto> consumer) {
+        long start = System.nanoTime();
+        try {
+            urlMappingStore.forEachMapping(consumer);
+        } finally {
+            shortenerMetrics.recordListStream(System.nanoTime() - start);
         }
+    }
 
-        String alias = sb.toString();
+    /**
+     * Encodes the keyset position of a mapping as an opaque cursor.
+     *
+     * @param urlMapping The last mapping on a page
+     * @return The cursor for the page after it
+     */
+    private static String encodeCursor(UrlMapping urlMapping) {
+        String position = urlMapping.getCreatedAt() + "|" + urlMapping.getAlias();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
 
-        // Check if the alias already exists, if so, generate a new one
-        if (urlMappingRepository.existsById(alias)) {
-            return generateRandomAlias(); // Recursive call to try again
+    /**
+     * Decodes a cursor into its creation time and alias.
+     *
+     * @param cursor The cursor to decode
+     * @return The creation time and alias
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|", 2);
+            if (parts.length == 2) {
+                LocalDateTime.parse(parts[0]);
+                return parts;
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // fall through to the error below
         }
-
-        return alias;
+        throw new IllegalArgumentException("Invalid cursor: " + cursor);
     }
 
     /**
-     * Gets the base URL from the HTTP request.
+     * Converts a UrlMapping entity to a UrlMappingDto.
      *
-     * @param request The HTTP request
-     * @return The base URL
+     * @param urlMapping The entity to convert
+     * @return The converted DTO
      */
-    private String getBaseUrl(HttpServletRequest request) {
-        String scheme = request.getScheme();
-        String serverName = request.getServerName();
-        int serverPort = request.getServerPort();
-        String contextPath = request.getContextPath();
-
-        StringBuilder url = new StringBuilder();
-        url.append(scheme).append("://").append(serverName);
+    private UrlMappingDto convertToDto(UrlMapping urlMapping) {
+        return new UrlMappingDto(
+                urlMapping.getAlias(),
+                urlMapping.getFullUrl(),
+                urlMapping.getShortUrl()
+        );
+    }
 
-        if ((serverPort != 80 && scheme.equals("http")) ||
-                (serverPort != 443 && scheme.equals("https"))) {
-            url.append(":").append(serverPort);
+    /**
+     * Generates an alias using the configured {@link AliasGenerator}, for bulk creates, where one
+     * taken alias would fail a whole batch insert.
+     * A candidate only needs checking against the database if the membership filter cannot rule
+     * it out, which for counter generated aliases only happens if it matches a custom alias.
+     *
+     * @return A generated alias that is not in use
+     * @throws IllegalStateException if no free alias was found within the configured number of attempts
+     */
+    String generateAlias() {
+        for (int attempt = 0; attempt < maxAliasAttempts; attempt++) {
+            String alias = aliasGenerator.nextAlias();
+            if (aliasMembershipFilter.isDefinitelyAbsent(alias) || !urlMappingStore.exists(alias)) {
+                return alias;
+            }
+            shortenerMetrics.aliasGenerationRetry();
         }
-
-        url.append(contextPath);
-        return url.toString();
+        throw new IllegalStateException("Unable to generate a free alias after " + maxAliasAttempts + " attempts");
     }
 }
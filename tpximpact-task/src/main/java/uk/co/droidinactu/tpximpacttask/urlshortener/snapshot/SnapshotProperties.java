@@ -0,0 +1,29 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.snapshot;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration for exporting and importing snapshots of the URL mappings.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.snapshot")
+public class SnapshotProperties {
+
+    /**
+     * A snapshot to load on startup, before the application accepts traffic. Not set by default.
+     */
+    private Path importPath;
+
+    /**
+     * The number of mappings inserted per transaction when importing.
+     */
+    private int batchSize = 5000;
+
+    /**
+     * The number of mappings read from the store per query when exporting.
+     */
+    private int exportPageSize = 1000;
+}
@@ -0,0 +1,154 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.snapshot;
+
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.RedirectStatus;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads URL mappings written by {@link SnapshotWriter}, one at a time.
+ * The record count and checksum are verified when the end of the snapshot is reached.
+ */
+final class SnapshotReader implements Closeable {
+
+    /**
+     * Records larger than this are treated as corruption rather than allocated.
+     */
+    private static final int MAX_RECORD_SIZE = 16 << 20;
+
+    private final DataInputStream in;
+    private final CRC32C crc = new CRC32C();
+    private final long aliasSequence;
+    private byte[] buffer = new byte[512];
+    private long count;
+    private boolean ended;
+
+    /**
+     * A mapping read from a snapshot.
+     *
+     * @param urlMapping the mapping
+     * @param hot        whether it was in the redirect cache when the snapshot was written
+     */
+    record Entry(UrlMapping urlMapping, boolean hot) {
+    }
+
+    /**
+     * Reads and checks the snapshot header.
+     *
+     * @param source the snapshot
+     * @throws IOException if the source is not a snapshot, or is a version this reader does not understand
+     */
+    SnapshotReader(InputStream source) throws IOException {
+        DataInputStream header = new DataInputStream(source);
+        byte[] bytes = new byte[24];
+        header.readFully(bytes);
+        crc.update(bytes);
+        ByteBuffer fields = ByteBuffer.wrap(bytes);
+        if (fields.getInt() != SnapshotWriter.MAGIC) {
+            throw new IOException("Not a URL mapping snapshot");
+        }
+        int version = fields.getInt();
+        if (version < 1 || version > SnapshotWriter.VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        fields.getLong();
+        this.aliasSequence = fields.getLong();
+        this.in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(source), 1 << 16));
+    }
+
+    /**
+     * Returns the next value of the alias counter when the snapshot was written.
+     *
+     * @return the next counter value
+     */
+    long aliasSequence() {
+        return aliasSequence;
+    }
+
+    /**
+     * Reads the next mapping.
+     *
+     * @return the mapping, or null at the end of the snapshot
+     * @throws IOException if the snapshot is truncated or its checksum does not match
+     */
+    Entry read() throws IOException {
+        if (ended) {
+            return null;
+        }
+        int length = in.readInt();
+        if (length == 0) {
+            ended = true;
+            verifyTrailer();
+            return null;
+        }
+        if (length < 0 || length > MAX_RECORD_SIZE) {
+            throw new IOException("Corrupt snapshot record length " + length);
+        }
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+        }
+        in.readFully(buffer, 0, length);
+        crc.update(buffer, 0, length);
+        count++;
+
+        try {
+            ByteBuffer body = ByteBuffer.wrap(buffer, 0, length);
+            int flags = body.get();
+            LocalDateTime createdAt = getTime(body);
+            LocalDateTime expiresAt = (flags & SnapshotWriter.EXPIRES) != 0 ? getTime(body) : null;
+            RedirectStatus redirectStatus = (flags & SnapshotWriter.REDIRECT_STATUS) != 0
+                    ? RedirectStatus.of(body.getShort())
+                    : null;
+            Long cacheMaxAge = (flags & SnapshotWriter.CACHE_MAX_AGE) != 0 ? body.getLong() : null;
+            UrlMapping urlMapping = new UrlMapping();
+            urlMapping.setAlias(getString(body));
+            urlMapping.setFullUrl(getString(body));
+            urlMapping.setShortUrl(getString(body));
+            urlMapping.setIsCustomised((flags & SnapshotWriter.CUSTOMISED) != 0);
+            urlMapping.setCreatedAt(createdAt);
+            urlMapping.setExpiresAt(expiresAt);
+            urlMapping.setRedirectStatus(redirectStatus);
+            urlMapping.setCacheMaxAge(cacheMaxAge);
+            return new Entry(urlMapping, (flags & SnapshotWriter.HOT) != 0);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt snapshot record " + count, e);
+        }
+    }
+
+    private void verifyTrailer() throws IOException {
+        long expectedCount = in.readLong();
+        int expectedChecksum = in.readInt();
+        if (expectedCount != count) {
+            throw new IOException("Snapshot holds " + count + " mappings but its trailer says " + expectedCount);
+        }
+        if (expectedChecksum != (int) crc.getValue()) {
+            throw new IOException("Snapshot checksum does not match");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static LocalDateTime getTime(ByteBuffer buffer) {
+        return LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,210 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import uk.co.droidinactu.tpximpacttask.urlshortener.alias.AliasGeneratorConfiguration;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dedup.FullUrlHash;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.UrlMappingStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exports the URL mappings as a snapshot and loads them back, for a warm start or to move them to
+ * another instance or storage engine. See {@link SnapshotWriter} for the format.
+ * <p>
+ * A snapshot also records which aliases were in the redirect cache and how far the alias counter
+ * had got, so an import can warm the cache and never generate an alias that is in the snapshot.
+ * <p>
+ * A snapshot given by {@code urlshortener.snapshot.import-path} is loaded on startup, once the
+ * {@link uk.co.droidinactu.tpximpacttask.urlshortener.store.CompactStorageMigration} has prepared
+ * the table for the configured storage form, and before the alias membership filter is populated
+ * and the application reports itself ready.
+ */
+@Service
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class SnapshotService implements ApplicationRunner {
+
+    private final UrlMappingStore urlMappingStore;
+    private final RedirectCache redirectCache;
+    private final SnapshotProperties properties;
+
+    @Autowired
+    public SnapshotService(UrlMappingStore urlMappingStore,
+                           RedirectCache redirectCache,
+                           SnapshotProperties properties) {
+        this.urlMappingStore = urlMappingStore;
+        this.redirectCache = redirectCache;
+        this.properties = properties;
+    }
+
+    /**
+     * Imports the configured snapshot, if there is one.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        Path path = properties.getImportPath();
+        if (path == null) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            importSnapshot(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to import snapshot " + path, e);
+        }
+    }
+
+    /**
+     * Writes every mapping to the output stream as a snapshot, in creation order.
+     * Mappings are read a page at a time, so the snapshot is not a point in time copy: mappings
+     * created or deleted while it is written may or may not be included.
+     *
+     * @param out where to write the snapshot
+     * @return the number of mappings written
+     * @throws IOException if the snapshot cannot be written
+     */
+    public long export(OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        long count = 0;
+        // leasing an empty block reads the counter without advancing it
+        long aliasSequence = urlMappingStore.leaseBlock(AliasGeneratorConfiguration.SEQUENCE_NAME, 0);
+        try (SnapshotWriter writer = new SnapshotWriter(out, aliasSequence)) {
+            LocalDateTime createdAt = null;
+            String alias = null;
+            List<UrlMapping> page;
+            do {
+                page = urlMappingStore.findPage(createdAt, alias, properties.getExportPageSize());
+                for (UrlMapping urlMapping : page) {
+                    writer.write(urlMapping, redirectCache.contains(urlMapping.getAlias()));
+                }
+                if (!page.isEmpty()) {
+                    createdAt = page.get(page.size() - 1).getCreatedAt();
+                    alias = page.get(page.size() - 1).getAlias();
+                }
+                count += page.size();
+            } while (page.size() == properties.getExportPageSize());
+        }
+        log.info("Exported {} mappings in {}ms", count, (System.nanoTime() - start) / 1_000_000);
+        return count;
+    }
+
+    /**
+     * Loads every mapping in a snapshot into the store, keeping any mapping that already exists for an alias.
+     * <p>
+     * The snapshot is decoded on the calling thread while the previous batch is inserted on another,
+     * and mappings that were cached when the snapshot was written are put in the redirect cache as
+     * soon as they are stored.
+     *
+     * @param in the snapshot
+     * @return the number of mappings imported
+     * @throws IOException if the snapshot is malformed, in which case the batches before the fault are kept
+     */
+    public long importSnapshot(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        AtomicLong imported = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        AtomicLong warmed = new AtomicLong();
+        ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "snapshot-loader"));
+        try (SnapshotReader reader = new SnapshotReader(in)) {
+            advanceAliasSequence(reader.aliasSequence());
+            CompletableFuture<Void> previous = CompletableFuture.completedFuture(null);
+            List<SnapshotReader.Entry> batch;
+            while (!(batch = readBatch(reader)).isEmpty()) {
+                List<SnapshotReader.Entry> entries = batch;
+                await(previous);
+                previous = CompletableFuture.runAsync(() -> load(entries, imported, skipped, warmed), loader);
+            }
+            await(previous);
+        } finally {
+            loader.shutdown();
+        }
+        log.info("Imported {} mappings, kept {} existing ones and warmed {} cache entries in {}ms",
+                imported.get(), skipped.get(), warmed.get(), (System.nanoTime() - start) / 1_000_000);
+        return imported.get();
+    }
+
+    private List<SnapshotReader.Entry> readBatch(SnapshotReader reader) throws IOException {
+        List<SnapshotReader.Entry> batch = new ArrayList<>(properties.getBatchSize());
+        LocalDateTime now = LocalDateTime.now();
+        SnapshotReader.Entry entry;
+        while (batch.size() < properties.getBatchSize() && (entry = reader.read()) != null) {
+            UrlMapping urlMapping = entry.urlMapping();
+            if (urlMapping.isExpired(now)) {
+                continue;
+            }
+            if (urlMapping.isInterchangeable()) {
+                urlMapping.setFullUrlHash(FullUrlHash.of(urlMapping.getFullUrl()));
+            }
+            batch.add(entry);
+        }
+        return batch;
+    }
+
+    private void load(List<SnapshotReader.Entry> entries, AtomicLong imported, AtomicLong skipped, AtomicLong warmed) {
+        List<UrlMapping> urlMappings = entries.stream().map(SnapshotReader.Entry::urlMapping).toList();
+        try {
+            urlMappingStore.insertAll(urlMappings);
+        } catch (DataIntegrityViolationException e) {
+            Set<String> existing = new HashSet<>(urlMappingStore.findExistingAliases(
+                    urlMappings.stream().map(UrlMapping::getAlias).toList()));
+            entries = entries.stream().filter(entry -> !existing.contains(entry.urlMapping().getAlias())).toList();
+            urlMappingStore.insertAll(entries.stream().map(SnapshotReader.Entry::urlMapping).toList());
+            skipped.addAndGet(existing.size());
+        }
+        imported.addAndGet(entries.size());
+        for (SnapshotReader.Entry entry : entries) {
+            if (entry.hot() && redirectCache.warm(entry.urlMapping().getAlias(),
+                    RedirectCache.Target.of(entry.urlMapping()))) {
+                warmed.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Moves the alias counter past the value it had reached when the snapshot was written, so
+     * that generated aliases never collide with imported ones.
+     */
+    private void advanceAliasSequence(long aliasSequence) {
+        long current = urlMappingStore.leaseBlock(AliasGeneratorConfiguration.SEQUENCE_NAME, 0);
+        while (current < aliasSequence) {
+            int size = (int) Math.min(Integer.MAX_VALUE, aliasSequence - current);
+            current = urlMappingStore.leaseBlock(AliasGeneratorConfiguration.SEQUENCE_NAME, size) + size;
+        }
+    }
+
+    private static void await(CompletableFuture<Void> load) {
+        try {
+            load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.snapshot;
+
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.RedirectStatus;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes URL mappings in the snapshot format, one at a time, so a snapshot of any size can be
+ * streamed without holding it in memory.
+ * <p>
+ * A snapshot starts with an uncompressed header: a magic number, the format version, the time it
+ * was written and the next value of the alias counter. Everything after it is deflate compressed:
+ * each mapping is a record prefixed with its length, then a zero length marks the end, followed by
+ * the number of records and a CRC32C of the header and every record body.
+ * <p>
+ * A record body is a flags byte ({@link #CUSTOMISED}, {@link #HOT}, {@link #EXPIRES},
+ * {@link #REDIRECT_STATUS}, {@link #CACHE_MAX_AGE}), the creation time as epoch seconds and
+ * nanoseconds in UTC, the expiry time in the same form, the redirect status code as a short and the
+ * cache max age in seconds as a long, each only if the flags say there is one, then the alias, full
+ * URL and short URL, each as a length prefixed UTF-8 string. Version 1 snapshots, from before expiry
+ * times, are read as mappings that never expire, and version 1 and 2 snapshots as mappings that
+ * redirect in the default way.
+ */
+final class SnapshotWriter implements Closeable {
+
+    static final int MAGIC = 0x55534e50;
+    static final int VERSION = 3;
+
+    /**
+     * The mapping has a custom alias.
+     */
+    static final int CUSTOMISED = 1;
+
+    /**
+     * The mapping was in the redirect cache when the snapshot was written.
+     */
+    static final int HOT = 2;
+
+    /**
+     * The mapping has an expiry time.
+     */
+    static final int EXPIRES = 4;
+
+    /**
+     * The mapping chose its redirect status.
+     */
+    static final int REDIRECT_STATUS = 8;
+
+    /**
+     * The mapping chose its cache max age.
+     */
+    static final int CACHE_MAX_AGE = 16;
+
+    private final DeflaterOutputStream compressed;
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+    private final DataOutputStream bodyOut = new DataOutputStream(body);
+    private final CRC32C crc = new CRC32C();
+    private long count;
+    private boolean finished;
+
+    /**
+     * Writes the snapshot header.
+     *
+     * @param target        where to write the snapshot
+     * @param aliasSequence the next value of the alias counter
+     * @throws IOException if the header cannot be written
+     */
+    SnapshotWriter(OutputStream target, long aliasSequence) throws IOException {
+        DataOutputStream header = new DataOutputStream(body);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeLong(System.currentTimeMillis());
+        header.writeLong(aliasSequence);
+        crc.update(body.toByteArray());
+        body.writeTo(target);
+        body.reset();
+        this.compressed = new DeflaterOutputStream(target, new Deflater(Deflater.BEST_SPEED), 1 << 16);
+        this.out = new DataOutputStream(new BufferedOutputStream(compressed, 1 << 16));
+    }
+
+    /**
+     * Appends a mapping.
+     *
+     * @param urlMapping the mapping
+     * @param hot        whether the mapping should be cached as soon as it is loaded
+     * @throws IOException if the mapping cannot be written
+     */
+    void write(UrlMapping urlMapping, boolean hot) throws IOException {
+        LocalDateTime expiresAt = urlMapping.getExpiresAt();
+        RedirectStatus redirectStatus = urlMapping.getRedirectStatus();
+        Long cacheMaxAge = urlMapping.getCacheMaxAge();
+        int flags = (Boolean.TRUE.equals(urlMapping.getIsCustomised()) ? CUSTOMISED : 0) | (hot ? HOT : 0)
+                | (expiresAt == null ? 0 : EXPIRES)
+                | (redirectStatus == null ? 0 : REDIRECT_STATUS)
+                | (cacheMaxAge == null ? 0 : CACHE_MAX_AGE);
+        body.reset();
+        bodyOut.writeByte(flags);
+        writeTime(urlMapping.getCreatedAt());
+        if (expiresAt != null) {
+            writeTime(expiresAt);
+        }
+        if (redirectStatus != null) {
+            bodyOut.writeShort(redirectStatus.code());
+        }
+        if (cacheMaxAge != null) {
+            bodyOut.writeLong(cacheMaxAge);
+        }
+        writeString(urlMapping.getAlias());
+        writeString(urlMapping.getFullUrl());
+        writeString(urlMapping.getShortUrl());
+
+        byte[] bytes = body.toByteArray();
+        crc.update(bytes);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        count++;
+    }
+
+    /**
+     * Writes the end marker and trailer and finishes the compressed stream, leaving the target open.
+     *
+     * @throws IOException if the trailer cannot be written
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        out.writeInt(0);
+        out.writeLong(count);
+        out.writeInt((int) crc.getValue());
+        out.flush();
+        compressed.finish();
+    }
+
+    /**
+     * Finishes the snapshot and closes the target.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeTime(LocalDateTime time) throws IOException {
+        bodyOut.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        bodyOut.writeInt(time.getNano());
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        bodyOut.writeInt(bytes.length);
+        bodyOut.write(bytes);
+    }
+}
@@ -0,0 +1,33 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.startup;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cluster.ClusterCoherence;
+import uk.co.droidinactu.tpximpacttask.urlshortener.controller.UrlShortenerController;
+import uk.co.droidinactu.tpximpacttask.urlshortener.service.UrlShortenerService;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.UrlMappingStore;
+
+/**
+ * Keeps the beans that serve redirects eager when {@code spring.main.lazy-initialization} is set,
+ * as it is by the fast-start profile.
+ * <p>
+ * Everything else, such as the H2 console, the admin and analytics endpoints and the actuator,
+ * is created on first use, so the application starts taking traffic sooner and the first redirect
+ * does not pay for creating its beans. The store is also eager because its scheduled compaction
+ * is only registered once it exists, and so is the listener for changes made by other instances,
+ * as nothing else would create it.
+ */
+@Configuration
+public class FastStartConfiguration {
+
+    @Bean
+    public static LazyInitializationExcludeFilter redirectPathExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(UrlMappingStore.class,
+                RedirectCache.class,
+                UrlShortenerService.class,
+                UrlShortenerController.class,
+                ClusterCoherence.class);
+    }
+}
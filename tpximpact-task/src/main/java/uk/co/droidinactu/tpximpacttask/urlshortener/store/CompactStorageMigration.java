@@ -0,0 +1,190 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.store;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Converts the mappings already in the {@code url_mappings} table to the form set by
+ * {@code urlshortener.storage.compact.enabled}, on startup of an instance using the JPA engine.
+ * <p>
+ * Only mappings that are not yet in that form are read, in alias order and in batches of
+ * {@code urlshortener.storage.compact.migration-batch-size}, each rewritten in its own transaction,
+ * so a migration that is interrupted carries on where it stopped on the next start. Both forms
+ * are read the same way by {@link CompactUrlCodec}, and the URLs of a mapping never change once it
+ * is created, so instances keep serving every mapping while this runs, here or on another instance.
+ * <p>
+ * Only compact storage lets a row go without its full or short URL, so once every row is expanded
+ * both columns are made NOT NULL again, and an instance with compact storage disabled skips the
+ * scan entirely while they are. It runs before the
+ * {@link uk.co.droidinactu.tpximpacttask.urlshortener.snapshot.SnapshotService} imports a snapshot,
+ * so that the imported mappings can be stored compactly.
+ */
+@Component
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CompactStorageMigration implements ApplicationRunner {
+
+    private static final List<String> ALLOW_NULL_URLS = List.of(
+            "ALTER TABLE url_mappings ALTER COLUMN full_url DROP NOT NULL",
+            "ALTER TABLE url_mappings ALTER COLUMN short_url DROP NOT NULL");
+
+    private static final List<String> REQUIRE_URLS = List.of(
+            "ALTER TABLE url_mappings ALTER COLUMN full_url SET NOT NULL",
+            "ALTER TABLE url_mappings ALTER COLUMN short_url SET NOT NULL");
+
+    private static final String COUNT_REQUIRED_URLS = """
+            SELECT COUNT(*) FROM information_schema.columns
+            WHERE LOWER(table_name) = 'url_mappings' AND LOWER(column_name) IN ('full_url', 'short_url')
+            AND is_nullable = 'NO'
+            """;
+
+    private static final String SELECT_TO_COMPACT = """
+            SELECT alias, full_url, short_url, url_prefix_id, full_url_suffix FROM url_mappings
+            WHERE alias > ? AND (full_url IS NOT NULL OR short_url IS NOT NULL)
+            ORDER BY alias LIMIT ?
+            """;
+
+    private static final String SELECT_TO_EXPAND = """
+            SELECT alias, full_url, short_url, url_prefix_id, full_url_suffix FROM url_mappings
+            WHERE alias > ? AND (url_prefix_id IS NOT NULL OR short_url IS NULL)
+            ORDER BY alias LIMIT ?
+            """;
+
+    private static final String UPDATE_SQL = """
+            UPDATE url_mappings SET full_url = ?, short_url = ?, url_prefix_id = ?, full_url_suffix = ?
+            WHERE alias = ?
+            """;
+
+    private final boolean jpaEngine;
+    private final int batchSize;
+    private final CompactUrlCodec compactUrlCodec;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public CompactStorageMigration(StorageProperties properties,
+                                   CompactUrlCodec compactUrlCodec,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager) {
+        this.jpaEngine = properties.getEngine() == StorageProperties.Engine.JPA;
+        this.batchSize = properties.getCompact().getMigrationBatchSize();
+        this.compactUrlCodec = compactUrlCodec;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Converts the existing mappings.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!jpaEngine) {
+            return;
+        }
+        if (compactUrlCodec.isEnabled()) {
+            // tables created before compact storage existed require both URLs
+            ALLOW_NULL_URLS.forEach(jdbcTemplate::execute);
+        } else if (urlsRequired()) {
+            return;
+        }
+        long start = System.nanoTime();
+        long[] counts = migrate();
+        if (counts[0] > 0) {
+            log.info("Converted {} of {} mappings to {} storage in {}ms", counts[1], counts[0],
+                    compactUrlCodec.isEnabled() ? "compact" : "plain", (System.nanoTime() - start) / 1_000_000);
+        }
+        if (counts[2] > 0) {
+            log.warn("{} mappings have no stored short URL, set urlshortener.storage.compact.base-url to restore them",
+                    counts[2]);
+        } else if (!compactUrlCodec.isEnabled()) {
+            requireUrls();
+        }
+    }
+
+    /**
+     * Returns whether both URL columns are NOT NULL, so that no row can be stored compactly.
+     *
+     * @return true if every row stores both of its URLs
+     */
+    boolean urlsRequired() {
+        Integer required = jdbcTemplate.queryForObject(COUNT_REQUIRED_URLS, Integer.class);
+        return required != null && required == 2;
+    }
+
+    private void requireUrls() {
+        try {
+            REQUIRE_URLS.forEach(jdbcTemplate::execute);
+        } catch (DataAccessException e) {
+            // another instance is still storing mappings compactly, so check again on the next start
+            log.warn("Unable to require both URLs of every mapping: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Converts every mapping that is not in the configured form.
+     *
+     * @return the number of mappings read, the number rewritten and the number left without a short URL
+     */
+    long[] migrate() {
+        String select = compactUrlCodec.isEnabled() ? SELECT_TO_COMPACT : SELECT_TO_EXPAND;
+        long read = 0;
+        long rewritten = 0;
+        long withoutShortUrl = 0;
+        String after = "";
+        List<UrlMapping> batch;
+        do {
+            batch = jdbcTemplate.query(select, (rs, rowNum) -> {
+                UrlMapping urlMapping = new UrlMapping();
+                urlMapping.setAlias(rs.getString(1));
+                urlMapping.setStoredFullUrl(rs.getString(2));
+                urlMapping.setStoredShortUrl(rs.getString(3));
+                urlMapping.setUrlPrefixId(rs.getObject(4, Integer.class));
+                urlMapping.setFullUrlSuffix(rs.getString(5));
+                return urlMapping;
+            }, after, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            after = batch.get(batch.size() - 1).getAlias();
+            read += batch.size();
+            List<Object[]> updates = new ArrayList<>(batch.size());
+            for (UrlMapping urlMapping : batch) {
+                Object[] before = stored(urlMapping);
+                compactUrlCodec.encode(compactUrlCodec.decode(urlMapping));
+                Object[] converted = stored(urlMapping);
+                if (!Objects.deepEquals(before, converted)) {
+                    updates.add(converted);
+                }
+                if (!compactUrlCodec.isEnabled() && urlMapping.getStoredShortUrl() == null) {
+                    withoutShortUrl++;
+                }
+            }
+            if (!updates.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, updates));
+                rewritten += updates.size();
+            }
+        } while (batch.size() == batchSize);
+        return new long[]{read, rewritten, withoutShortUrl};
+    }
+
+    private static Object[] stored(UrlMapping urlMapping) {
+        return new Object[]{urlMapping.getStoredFullUrl(), urlMapping.getStoredShortUrl(),
+                urlMapping.getUrlPrefixId(), urlMapping.getFullUrlSuffix(), urlMapping.getAlias()};
+    }
+}
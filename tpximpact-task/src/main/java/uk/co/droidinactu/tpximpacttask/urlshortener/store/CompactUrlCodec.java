@@ -0,0 +1,171 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.store;
+
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.UrlMappingDto;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+import uk.co.droidinactu.tpximpacttask.urlshortener.repository.StoredUrlMapping;
+
+/**
+ * Converts the full and short URLs of a mapping between the form they are used in and the form
+ * the JPA engine stores them in.
+ * <p>
+ * With compact storage enabled the short URL is not stored at all, as it is always the configured
+ * base URL followed by the alias, and a full URL is stored as the id of its scheme and host in the
+ * {@link UrlPrefixDictionary} followed by the rest of the URL. Otherwise both are stored whole.
+ * Either form is read back whatever the current setting, so mappings can be converted while the
+ * instance is serving them.
+ */
+public class CompactUrlCodec {
+
+    /**
+     * The longest prefix the {@code url_prefixes} table holds.
+     */
+    static final int MAX_PREFIX_LENGTH = 255;
+
+    private final boolean enabled;
+    private final String baseUrl;
+    private final UrlPrefixDictionary dictionary;
+
+    public CompactUrlCodec(StorageProperties.Compact properties, UrlPrefixDictionary dictionary) {
+        String configuredBaseUrl = properties.getBaseUrl();
+        if (configuredBaseUrl != null && configuredBaseUrl.endsWith("/")) {
+            configuredBaseUrl = configuredBaseUrl.substring(0, configuredBaseUrl.length() - 1);
+        }
+        if (properties.isEnabled() && (configuredBaseUrl == null || configuredBaseUrl.isEmpty())) {
+            throw new IllegalStateException("urlshortener.storage.compact.base-url must be set when compact storage is enabled");
+        }
+        this.enabled = properties.isEnabled();
+        this.baseUrl = configuredBaseUrl;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Returns whether new mappings are stored compactly.
+     *
+     * @return true if compact storage is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns whether short URLs that are not stored can be built.
+     *
+     * @return true if a base URL is configured
+     */
+    public boolean hasBaseUrl() {
+        return baseUrl != null;
+    }
+
+    /**
+     * Sets the stored URLs of a mapping from its full and short URLs.
+     *
+     * @param urlMapping the mapping to be stored
+     * @return the same mapping
+     */
+    public UrlMapping encode(UrlMapping urlMapping) {
+        String fullUrl = urlMapping.getFullUrl();
+        urlMapping.setStoredFullUrl(fullUrl);
+        urlMapping.setUrlPrefixId(null);
+        urlMapping.setFullUrlSuffix(null);
+        if (!enabled) {
+            urlMapping.setStoredShortUrl(urlMapping.getShortUrl());
+            return urlMapping;
+        }
+        urlMapping.setStoredShortUrl(null);
+        int prefixLength = prefixLength(fullUrl);
+        if (prefixLength > 0) {
+            Integer id = dictionary.idOf(fullUrl.substring(0, prefixLength));
+            if (id != null) {
+                urlMapping.setStoredFullUrl(null);
+                urlMapping.setUrlPrefixId(id);
+                urlMapping.setFullUrlSuffix(fullUrl.substring(prefixLength));
+            }
+        }
+        return urlMapping;
+    }
+
+    /**
+     * Sets the full and short URLs of a mapping from its stored URLs.
+     *
+     * @param urlMapping the mapping as loaded
+     * @return the same mapping
+     */
+    public UrlMapping decode(UrlMapping urlMapping) {
+        urlMapping.setFullUrl(fullUrl(urlMapping.getStoredFullUrl(), urlMapping.getUrlPrefixId(),
+                urlMapping.getFullUrlSuffix()));
+        urlMapping.setShortUrl(shortUrl(urlMapping.getAlias(), urlMapping.getStoredShortUrl()));
+        return urlMapping;
+    }
+
+    /**
+     * Converts the stored URLs of a mapping to a DTO.
+     *
+     * @param stored the stored URLs
+     * @return the DTO
+     */
+    public UrlMappingDto toDto(StoredUrlMapping stored) {
+        return new UrlMappingDto(stored.alias(),
+                fullUrl(stored.fullUrl(), stored.urlPrefixId(), stored.fullUrlSuffix()),
+                shortUrl(stored.alias(), stored.shortUrl()));
+    }
+
+    /**
+     * Returns a full URL from its stored form.
+     *
+     * @param storedFullUrl the full URL if it is stored whole, otherwise null
+     * @param urlPrefixId   the id of its prefix if it is stored compactly, otherwise null
+     * @param fullUrlSuffix the rest of the URL after its prefix if it is stored compactly, otherwise null
+     * @return the full URL
+     */
+    String fullUrl(String storedFullUrl, Integer urlPrefixId, String fullUrlSuffix) {
+        if (urlPrefixId == null) {
+            return storedFullUrl;
+        }
+        String prefix = dictionary.prefixOf(urlPrefixId);
+        return fullUrlSuffix == null ? prefix : prefix + fullUrlSuffix;
+    }
+
+    /**
+     * Returns a short URL from its stored form.
+     *
+     * @param alias          the alias
+     * @param storedShortUrl the short URL if it is stored, otherwise null
+     * @return the short URL, or null if it is not stored and there is no base URL to build it on
+     */
+    String shortUrl(String alias, String storedShortUrl) {
+        if (storedShortUrl != null || baseUrl == null) {
+            return storedShortUrl;
+        }
+        return baseUrl + "/" + alias;
+    }
+
+    /**
+     * Returns the length of the scheme and host at the start of a URL, such as {@code https://example.com}
+     * in {@code https://example.com/path}.
+     *
+     * A URL with user information before its host has no prefix, so that credentials are never
+     * written to the shared dictionary.
+     *
+     * @param url the URL
+     * @return the length of its prefix, or -1 if it does not start with a scheme and host short enough to store
+     */
+    static int prefixLength(String url) {
+        int scheme = url.indexOf("://");
+        if (scheme <= 0) {
+            return -1;
+        }
+        int start = scheme + 3;
+        int end = start;
+        while (end < url.length()) {
+            char c = url.charAt(end);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            if (c == '@') {
+                return -1;
+            }
+            end++;
+        }
+        return end == start || end > MAX_PREFIX_LENGTH ? -1 : end;
+    }
+}
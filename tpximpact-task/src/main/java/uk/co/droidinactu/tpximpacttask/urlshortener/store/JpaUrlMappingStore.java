@@ -0,0 +1,165 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.store;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.co.droidinactu.tpximpacttask.urlshortener.alias.JpaAliasBlockSource;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.UrlMappingDto;
+import uk.co.droidinactu.tpximpacttask.urlshortener.expiry.AliasExpiry;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+import uk.co.droidinactu.tpximpacttask.urlshortener.repository.AliasSequenceRepository;
+import uk.co.droidinactu.tpximpacttask.urlshortener.repository.StoredUrlMapping;
+import uk.co.droidinactu.tpximpacttask.urlshortener.repository.UrlMappingRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * {@link UrlMappingStore} backed by the {@code url_mappings} table through Spring Data JPA.
+ * Every mapping written is encoded, and every mapping read decoded, by a {@link CompactUrlCodec}.
+ */
+public class JpaUrlMappingStore implements UrlMappingStore {
+
+    private final UrlMappingRepository urlMappingRepository;
+    private final AliasSequenceRepository aliasSequenceRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final CompactUrlCodec compactUrlCodec;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Map<String, JpaAliasBlockSource> blockSources = new ConcurrentHashMap<>();
+
+    public JpaUrlMappingStore(UrlMappingRepository urlMappingRepository,
+                              AliasSequenceRepository aliasSequenceRepository,
+                              PlatformTransactionManager transactionManager,
+                              CompactUrlCodec compactUrlCodec) {
+        this.urlMappingRepository = urlMappingRepository;
+        this.aliasSequenceRepository = aliasSequenceRepository;
+        this.transactionManager = transactionManager;
+        this.compactUrlCodec = compactUrlCodec;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public Optional<UrlMapping> findByAlias(String alias) {
+        return urlMappingRepository.findById(alias).map(compactUrlCodec::decode);
+    }
+
+    @Override
+    public boolean exists(String alias) {
+        return urlMappingRepository.existsById(alias);
+    }
+
+    @Override
+    public List<String> findExistingAliases(Collection<String> aliases) {
+        return urlMappingRepository.findExistingAliases(aliases);
+    }
+
+    @Override
+    public List<UrlMapping> findByFullUrlHashes(Collection<Long> fullUrlHashes) {
+        return decodeAll(urlMappingRepository.findByFullUrlHashIn(fullUrlHashes));
+    }
+
+    @Override
+    public void save(UrlMapping urlMapping) {
+        urlMappingRepository.save(compactUrlCodec.encode(urlMapping));
+    }
+
+    @Override
+    public void insertAll(List<UrlMapping> urlMappings) {
+        // new prefixes are committed in transactions of their own, so they are added before this one starts
+        urlMappings.forEach(compactUrlCodec::encode);
+        transactionTemplate.executeWithoutResult(status -> urlMappingRepository.insertAll(urlMappings));
+    }
+
+    @Override
+    public void insert(UrlMapping urlMapping) {
+        // a single statement in auto-commit mode, so creating a mapping is one round trip
+        urlMappingRepository.insert(compactUrlCodec.encode(urlMapping));
+    }
+
+    @Override
+    public boolean delete(String alias) {
+        Integer deleted = transactionTemplate.execute(status -> urlMappingRepository.deleteMapping(alias));
+        return deleted != null && deleted == 1;
+    }
+
+    /**
+     * Deletes the mappings one statement per alias, in a single batch, and reports only those whose
+     * statement removed a row, so an alias deleted concurrently by a request or another instance is
+     * never reported as deleted twice.
+     */
+    @Override
+    public List<String> deleteExpired(Collection<String> aliases, LocalDateTime now) {
+        List<String> candidates = List.copyOf(aliases);
+        int[] counts = transactionTemplate.execute(status -> urlMappingRepository.deleteEachExpired(candidates, now));
+        List<String> deleted = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            if (counts[i] > 0) {
+                deleted.add(candidates.get(i));
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public void forEachExpiry(Consumer<AliasExpiry> consumer) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<AliasExpiry> expiries = urlMappingRepository.streamAllExpiries()) {
+                expiries.forEach(consumer);
+            }
+        });
+    }
+
+    @Override
+    public List<UrlMapping> findPage(LocalDateTime createdAt, String alias, int limit) {
+        if (createdAt == null) {
+            return decodeAll(urlMappingRepository.findFirstPage(Limit.of(limit)));
+        }
+        return decodeAll(urlMappingRepository.findPageAfter(createdAt, alias, Limit.of(limit)));
+    }
+
+    @Override
+    public void forEachMapping(Consumer<UrlMappingDto> consumer) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<StoredUrlMapping> mappings = urlMappingRepository.streamAll()) {
+                mappings.forEach(stored -> consumer.accept(compactUrlCodec.toDto(stored)));
+            }
+        });
+    }
+
+    @Override
+    public void forEachAlias(Consumer<String> consumer) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> aliases = urlMappingRepository.streamAllAliases()) {
+                aliases.forEach(consumer);
+            }
+        });
+    }
+
+    @Override
+    public long count() {
+        return urlMappingRepository.count();
+    }
+
+    @Override
+    public long leaseBlock(String sequenceName, int size) {
+        return blockSources
+                .computeIfAbsent(sequenceName, name ->
+                        new JpaAliasBlockSource(name, aliasSequenceRepository, transactionManager))
+                .leaseBlock(size);
+    }
+
+    private List<UrlMapping> decodeAll(List<UrlMapping> urlMappings) {
+        urlMappings.forEach(compactUrlCodec::decode);
+        return urlMappings;
+    }
+}
@@ -0,0 +1,113 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.store;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration for where URL mappings are stored.
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.storage")
+public class StorageProperties {
+
+    /**
+     * The storage engines that can hold URL mappings.
+     */
+    public enum Engine {
+        /**
+         * The configured JPA data source.
+         */
+        JPA,
+        /**
+         * Memory mapped append-only log files, see {@code LogUrlMappingStore}.
+         */
+        LOG
+    }
+
+    /**
+     * The engine that holds URL mappings.
+     */
+    private Engine engine = Engine.JPA;
+
+    /**
+     * Settings for the log engine.
+     */
+    private Log log = new Log();
+
+    /**
+     * Settings for compact storage by the JPA engine.
+     */
+    private Compact compact = new Compact();
+
+    /**
+     * Configuration for the memory mapped log engine.
+     */
+    @Data
+    public static class Log {
+
+        /**
+         * The directory holding the log segments and index snapshot.
+         */
+        private Path directory = Path.of("data");
+
+        /**
+         * The size of each log segment file. A new segment is started when the current one is full.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * The number of mappings the alias index is sized for. It grows beyond this if needed.
+         */
+        private int expectedMappings = 1_000_000;
+
+        /**
+         * A full segment is compacted once at least this fraction of it is deleted or superseded records.
+         */
+        private double compactionThreshold = 0.5;
+
+        /**
+         * How often full segments are checked for compaction.
+         */
+        private Duration compactionInterval = Duration.ofMinutes(1);
+
+        /**
+         * Whether every write is forced to disk before returning.
+         * Without this writes survive a crash of the process but not of the machine.
+         */
+        private boolean syncWrites = false;
+    }
+
+    /**
+     * Configuration for storing mappings compactly in the JPA engine.
+     */
+    @Data
+    public static class Compact {
+
+        /**
+         * Whether short URLs are built from the base URL when read instead of being stored, and full
+         * URLs are stored as a reference to their scheme and host in a shared dictionary plus the rest.
+         * Existing mappings are converted on startup whenever this is changed.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The base URL short URLs are built on when they are not stored, e.g. {@code https://sho.rt}.
+         * Required when compact storage is enabled, and to convert compact mappings back once it is disabled.
+         */
+        private String baseUrl;
+
+        /**
+         * The most prefixes the dictionary holds. Full URLs with any other prefix are stored whole.
+         */
+        private int maxPrefixes = 10_000;
+
+        /**
+         * The number of existing mappings converted per transaction on startup.
+         */
+        private int migrationBatchSize = 1000;
+    }
+}
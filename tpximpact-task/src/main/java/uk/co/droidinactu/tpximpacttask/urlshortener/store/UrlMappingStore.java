@@ -0,0 +1,146 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.store;
+
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.UrlMappingDto;
+import uk.co.droidinactu.tpximpacttask.urlshortener.expiry.AliasExpiry;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Storage for URL mappings, independent of the engine that holds them.
+ * <p>
+ * The engine is chosen with {@code urlshortener.storage.engine}: {@code jpa} keeps mappings in the
+ * configured database, {@code log} keeps them in memory mapped append-only files.
+ * Every method manages its own transaction where the engine needs one.
+ */
+public interface UrlMappingStore {
+
+    /**
+     * Finds the mapping for an alias.
+     *
+     * @param alias the alias to look up
+     * @return the mapping, or empty if there is none
+     */
+    Optional<UrlMapping> findByAlias(String alias);
+
+    /**
+     * Returns whether a mapping exists for the alias.
+     *
+     * @param alias the alias to check
+     * @return true if the alias is in use
+     */
+    boolean exists(String alias);
+
+    /**
+     * Finds which of the given aliases are already in use.
+     *
+     * @param aliases the aliases to check
+     * @return the subset of aliases that already have a mapping
+     */
+    List<String> findExistingAliases(Collection<String> aliases);
+
+    /**
+     * Finds the mappings with generated aliases whose normalised full URL has one of the given hashes.
+     * Different URLs can share a hash, so callers must compare the full URLs of the results.
+     *
+     * @param fullUrlHashes the hashes to look up, see {@code FullUrlHash}
+     * @return the matching mappings, with their full URL hash set
+     */
+    List<UrlMapping> findByFullUrlHashes(Collection<Long> fullUrlHashes);
+
+    /**
+     * Stores a mapping, replacing any existing mapping for the same alias.
+     *
+     * @param urlMapping the mapping to store
+     */
+    void save(UrlMapping urlMapping);
+
+    /**
+     * Inserts new mappings as a single unit: either all are stored or none are.
+     *
+     * @param urlMappings the mappings to insert
+     * @throws org.springframework.dao.DuplicateKeyException if any alias is already in use
+     */
+    void insertAll(List<UrlMapping> urlMappings);
+
+    /**
+     * Inserts a new mapping in as few round trips as the engine allows, relying on the uniqueness
+     * of the alias rather than checking for it first.
+     *
+     * @param urlMapping the mapping to insert
+     * @throws org.springframework.dao.DuplicateKeyException if the alias is already in use
+     */
+    default void insert(UrlMapping urlMapping) {
+        insertAll(List.of(urlMapping));
+    }
+
+    /**
+     * Deletes the mapping for an alias.
+     *
+     * @param alias the alias to delete
+     * @return true if a mapping was deleted
+     */
+    boolean delete(String alias);
+
+    /**
+     * Deletes those of the given mappings that have expired, as a single unit. A mapping that has
+     * been replaced by one without an expiry time, or with a later one, is left alone.
+     *
+     * @param aliases the aliases whose expiry time has been reached
+     * @param now     the current date and time
+     * @return the aliases that were deleted
+     */
+    List<String> deleteExpired(Collection<String> aliases, LocalDateTime now);
+
+    /**
+     * Passes the alias and expiry time of every mapping that has one to the consumer, in no particular order.
+     *
+     * @param consumer receives each expiring alias
+     */
+    void forEachExpiry(Consumer<AliasExpiry> consumer);
+
+    /**
+     * Finds a page of mappings in (createdAt, alias) order.
+     *
+     * @param createdAt the creation time of the last mapping on the previous page, or null for the first page
+     * @param alias     the alias of the last mapping on the previous page
+     * @param limit     the maximum number of mappings to return
+     * @return the mappings following the given position
+     */
+    List<UrlMapping> findPage(LocalDateTime createdAt, String alias, int limit);
+
+    /**
+     * Passes every mapping to the consumer in (createdAt, alias) order, without holding them all in memory.
+     *
+     * @param consumer receives each mapping
+     */
+    void forEachMapping(Consumer<UrlMappingDto> consumer);
+
+    /**
+     * Passes every alias to the consumer, in no particular order.
+     *
+     * @param consumer receives each alias
+     */
+    void forEachAlias(Consumer<String> consumer);
+
+    /**
+     * Returns the number of mappings.
+     *
+     * @return the number of stored mappings
+     */
+    long count();
+
+    /**
+     * Advances a named counter by a block of values, for generating aliases.
+     * Blocks leased from the same counter never overlap, including across restarts.
+     *
+     * @param sequenceName the counter to advance
+     * @param size         the number of values to lease
+     * @return the first value of the leased block
+     */
+    long leaseBlock(String sequenceName, int size);
+}
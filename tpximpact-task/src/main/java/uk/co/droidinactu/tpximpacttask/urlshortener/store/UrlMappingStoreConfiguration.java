@@ -0,0 +1,40 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.store;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dedup.DedupProperties;
+import uk.co.droidinactu.tpximpacttask.urlshortener.repository.AliasSequenceRepository;
+import uk.co.droidinactu.tpximpacttask.urlshortener.repository.UrlMappingRepository;
+import uk.co.droidinactu.tpximpacttask.urlshortener.repository.UrlPrefixRepository;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.log.LogUrlMappingStore;
+
+/**
+ * Creates the {@link UrlMappingStore} selected by {@link StorageProperties#getEngine()}.
+ */
+@Configuration
+public class UrlMappingStoreConfiguration {
+
+    @Bean
+    public CompactUrlCodec compactUrlCodec(StorageProperties properties,
+                                           UrlPrefixRepository urlPrefixRepository,
+                                           PlatformTransactionManager transactionManager) {
+        StorageProperties.Compact compact = properties.getCompact();
+        return new CompactUrlCodec(compact,
+                new UrlPrefixDictionary(urlPrefixRepository, transactionManager, compact.getMaxPrefixes()));
+    }
+
+    @Bean
+    public UrlMappingStore urlMappingStore(StorageProperties properties,
+                                           DedupProperties dedupProperties,
+                                           UrlMappingRepository urlMappingRepository,
+                                           AliasSequenceRepository aliasSequenceRepository,
+                                           PlatformTransactionManager transactionManager,
+                                           CompactUrlCodec compactUrlCodec) {
+        return switch (properties.getEngine()) {
+            case JPA -> new JpaUrlMappingStore(urlMappingRepository, aliasSequenceRepository, transactionManager,
+                    compactUrlCodec);
+            case LOG -> new LogUrlMappingStore(properties.getLog(), dedupProperties.isEnabled());
+        };
+    }
+}
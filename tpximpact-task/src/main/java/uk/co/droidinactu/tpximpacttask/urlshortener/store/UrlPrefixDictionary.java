@@ -0,0 +1,134 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.store;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlPrefix;
+import uk.co.droidinactu.tpximpacttask.urlshortener.repository.UrlPrefixRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The dictionary of full URL prefixes in the {@code url_prefixes} table, cached in memory in both directions.
+ * <p>
+ * A new prefix is added in a transaction of its own, so its id is committed before any mapping
+ * refers to it, even if the insert of that mapping is rolled back. Prefixes are never removed,
+ * so an id read once stays valid, and ids added by other instances sharing the database are
+ * looked up the first time they are seen.
+ */
+public class UrlPrefixDictionary {
+
+    private final UrlPrefixRepository urlPrefixRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPrefixes;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<Integer, String> prefixes = new ConcurrentHashMap<>();
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile boolean loaded;
+
+    public UrlPrefixDictionary(UrlPrefixRepository urlPrefixRepository,
+                               PlatformTransactionManager transactionManager,
+                               int maxPrefixes) {
+        this.urlPrefixRepository = urlPrefixRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxPrefixes = maxPrefixes;
+    }
+
+    /**
+     * Returns the id of a prefix, adding it to the dictionary if it is not there yet.
+     * <p>
+     * The prefix is added outside of the map, so that its transaction does not hold up other
+     * callers of the same bin. Callers racing to add the same prefix all end up with the id that
+     * was committed first.
+     *
+     * @param prefix the prefix
+     * @return the id, or null if the prefix is new and the dictionary is full
+     */
+    public Integer idOf(String prefix) {
+        Integer id = ids.get(prefix);
+        if (id != null) {
+            return id;
+        }
+        load();
+        id = ids.get(prefix);
+        if (id != null) {
+            return id;
+        }
+        Integer added = add(prefix);
+        if (added == null) {
+            return null;
+        }
+        Integer existing = ids.putIfAbsent(prefix, added);
+        return existing != null ? existing : added;
+    }
+
+    /**
+     * Returns the prefix with the given id.
+     *
+     * @param id the id
+     * @return the prefix
+     * @throws IllegalStateException if there is no such prefix
+     */
+    public String prefixOf(int id) {
+        String prefix = prefixes.get(id);
+        if (prefix != null) {
+            return prefix;
+        }
+        UrlPrefix urlPrefix = urlPrefixRepository.findById(id)
+                .orElseThrow(() -> new IllegalStateException("Unknown URL prefix " + id));
+        remember(urlPrefix);
+        return urlPrefix.getPrefix();
+    }
+
+    /**
+     * Returns the number of prefixes this instance knows of.
+     *
+     * @return the number of prefixes
+     */
+    public int size() {
+        return prefixes.size();
+    }
+
+    private void load() {
+        if (!loaded) {
+            loadLock.lock();
+            try {
+                if (!loaded) {
+                    urlPrefixRepository.findAll().forEach(this::remember);
+                    loaded = true;
+                }
+            } finally {
+                loadLock.unlock();
+            }
+        }
+    }
+
+    private Integer add(String prefix) {
+        if (prefixes.size() >= maxPrefixes) {
+            return null;
+        }
+        UrlPrefix urlPrefix;
+        try {
+            urlPrefix = insert(prefix);
+        } catch (DataIntegrityViolationException e) {
+            // another instance added the prefix first, so use its id
+            urlPrefix = insert(prefix);
+        }
+        prefixes.put(urlPrefix.getId(), urlPrefix.getPrefix());
+        return urlPrefix.getId();
+    }
+
+    private UrlPrefix insert(String prefix) {
+        return transactionTemplate.execute(status -> urlPrefixRepository.findByPrefix(prefix)
+                .orElseGet(() -> urlPrefixRepository.saveAndFlush(new UrlPrefix(null, prefix))));
+    }
+
+    private void remember(UrlPrefix urlPrefix) {
+        prefixes.put(urlPrefix.getId(), urlPrefix.getPrefix());
+        ids.put(urlPrefix.getPrefix(), urlPrefix.getId());
+    }
+}
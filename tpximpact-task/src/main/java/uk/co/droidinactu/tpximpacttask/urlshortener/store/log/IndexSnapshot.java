@@ -0,0 +1,129 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.store.log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A point in time copy of the log store's in-memory state, so that on startup only the records
+ * written after it need replaying.
+ *
+ * @param segmentId the segment that was being written when the snapshot was taken
+ * @param position  the write position in that segment
+ * @param segments  every segment that existed, with its write position and dead byte count
+ * @param sequences every counter, with its next value and the location of its latest record
+ * @param entries   every live mapping
+ */
+record IndexSnapshot(int segmentId,
+                     int position,
+                     List<Segment> segments,
+                     List<Sequence> sequences,
+                     List<Entry> entries) {
+
+    private static final int MAGIC = 0x554d5353;
+    private static final int VERSION = 1;
+
+    record Segment(int id, int writePosition, long deadBytes) {
+    }
+
+    record Sequence(String name, long nextValue, long location) {
+    }
+
+    record Entry(String alias, long location, LocalDateTime createdAt) {
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and moves it into place, so a crash part way
+     * through never leaves a truncated snapshot behind.
+     */
+    void write(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16), new CRC32C());
+        try (DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(segmentId);
+            out.writeInt(position);
+            out.writeInt(segments.size());
+            for (Segment segment : segments) {
+                out.writeInt(segment.id());
+                out.writeInt(segment.writePosition());
+                out.writeLong(segment.deadBytes());
+            }
+            out.writeInt(sequences.size());
+            for (Sequence sequence : sequences) {
+                out.writeUTF(sequence.name());
+                out.writeLong(sequence.nextValue());
+                out.writeLong(sequence.location());
+            }
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeUTF(entry.alias());
+                out.writeLong(entry.location());
+                out.writeLong(entry.createdAt().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(entry.createdAt().getNano());
+            }
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot.
+     *
+     * @return the snapshot, or null if there is none or it is damaged
+     */
+    static IndexSnapshot read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 1 << 16), new CRC32C());
+        try (DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            int segmentId = in.readInt();
+            int position = in.readInt();
+            int segmentCount = in.readInt();
+            List<Segment> segments = new ArrayList<>(segmentCount);
+            for (int i = 0; i < segmentCount; i++) {
+                segments.add(new Segment(in.readInt(), in.readInt(), in.readLong()));
+            }
+            int sequenceCount = in.readInt();
+            List<Sequence> sequences = new ArrayList<>(sequenceCount);
+            for (int i = 0; i < sequenceCount; i++) {
+                sequences.add(new Sequence(in.readUTF(), in.readLong(), in.readLong()));
+            }
+            int entryCount = in.readInt();
+            List<Entry> entries = new ArrayList<>(entryCount);
+            for (int i = 0; i < entryCount; i++) {
+                String alias = in.readUTF();
+                long location = in.readLong();
+                entries.add(new Entry(alias, location,
+                        LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC)));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                return null;
+            }
+            return new IndexSnapshot(segmentId, position, segments, sequences, entries);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+}
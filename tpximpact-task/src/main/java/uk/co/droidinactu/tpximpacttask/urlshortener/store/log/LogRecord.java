@@ -0,0 +1,196 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.store.log;
+
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.RedirectStatus;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * A record in a log segment.
+ * <p>
+ * On disk every record is an 8 byte header holding the body length and a CRC32C of the body,
+ * followed by the body: a type byte and the fields of that type. A zero length marks the end of
+ * the written part of a segment, as new segment files are zero filled.
+ * <p>
+ * A put holds a flags byte ({@link #CUSTOMISED}, {@link #EXPIRES}, {@link #REDIRECT_STATUS},
+ * {@link #CACHE_MAX_AGE}), the creation time, then the expiry time, the redirect status code as a
+ * short and the cache max age as a long, each only if the flags say there is one, then the alias,
+ * full URL and short URL.
+ */
+final class LogRecord {
+
+    /**
+     * A mapping was stored.
+     */
+    static final byte PUT = 1;
+
+    /**
+     * The mapping for an alias was deleted.
+     */
+    static final byte DELETE = 2;
+
+    /**
+     * A named counter was advanced.
+     */
+    static final byte SEQUENCE = 3;
+
+    /**
+     * The mapping has a custom alias.
+     */
+    static final byte CUSTOMISED = 1;
+
+    /**
+     * The mapping has an expiry time. Records written before expiry existed never have it set.
+     */
+    static final byte EXPIRES = 2;
+
+    /**
+     * The mapping chose its redirect status. Records written before redirect options existed never have it set.
+     */
+    static final byte REDIRECT_STATUS = 4;
+
+    /**
+     * The mapping chose its cache max age.
+     */
+    static final byte CACHE_MAX_AGE = 8;
+
+    static final int HEADER_SIZE = 8;
+
+    final byte type;
+    final String key;
+    final UrlMapping urlMapping;
+    final long value;
+    final int size;
+
+    private LogRecord(byte type, String key, UrlMapping urlMapping, long value, int size) {
+        this.type = type;
+        this.key = key;
+        this.urlMapping = urlMapping;
+        this.value = value;
+        this.size = size;
+    }
+
+    static ByteBuffer put(UrlMapping urlMapping) {
+        byte[] alias = bytes(urlMapping.getAlias());
+        byte[] fullUrl = bytes(urlMapping.getFullUrl());
+        byte[] shortUrl = bytes(urlMapping.getShortUrl());
+        LocalDateTime expiresAt = urlMapping.getExpiresAt();
+        RedirectStatus redirectStatus = urlMapping.getRedirectStatus();
+        Long cacheMaxAge = urlMapping.getCacheMaxAge();
+        ByteBuffer body = ByteBuffer.allocate(1 + 1 + 12 + (expiresAt == null ? 0 : 12)
+                + (redirectStatus == null ? 0 : 2) + (cacheMaxAge == null ? 0 : 8) + 12
+                + alias.length + fullUrl.length + shortUrl.length);
+        body.put(PUT);
+        body.put((byte) ((Boolean.TRUE.equals(urlMapping.getIsCustomised()) ? CUSTOMISED : 0)
+                | (expiresAt == null ? 0 : EXPIRES)
+                | (redirectStatus == null ? 0 : REDIRECT_STATUS)
+                | (cacheMaxAge == null ? 0 : CACHE_MAX_AGE)));
+        putTime(body, urlMapping.getCreatedAt());
+        if (expiresAt != null) {
+            putTime(body, expiresAt);
+        }
+        if (redirectStatus != null) {
+            body.putShort((short) redirectStatus.code());
+        }
+        if (cacheMaxAge != null) {
+            body.putLong(cacheMaxAge);
+        }
+        putBytes(body, alias);
+        putBytes(body, fullUrl);
+        putBytes(body, shortUrl);
+        return frame(body);
+    }
+
+    static ByteBuffer delete(String alias) {
+        byte[] key = bytes(alias);
+        ByteBuffer body = ByteBuffer.allocate(1 + 4 + key.length);
+        body.put(DELETE);
+        putBytes(body, key);
+        return frame(body);
+    }
+
+    static ByteBuffer sequence(String name, long nextValue) {
+        byte[] key = bytes(name);
+        ByteBuffer body = ByteBuffer.allocate(1 + 8 + 4 + key.length);
+        body.put(SEQUENCE);
+        body.putLong(nextValue);
+        putBytes(body, key);
+        return frame(body);
+    }
+
+    /**
+     * Decodes a record body.
+     *
+     * @param body the body, positioned at its start
+     * @param size the size of the record including its header
+     * @return the record
+     */
+    static LogRecord decode(ByteBuffer body, int size) {
+        byte type = body.get();
+        switch (type) {
+            case PUT -> {
+                byte flags = body.get();
+                LocalDateTime createdAt = getTime(body);
+                LocalDateTime expiresAt = (flags & EXPIRES) != 0 ? getTime(body) : null;
+                RedirectStatus redirectStatus = (flags & REDIRECT_STATUS) != 0 ? RedirectStatus.of(body.getShort()) : null;
+                Long cacheMaxAge = (flags & CACHE_MAX_AGE) != 0 ? body.getLong() : null;
+                String alias = getString(body);
+                UrlMapping urlMapping = new UrlMapping(alias, getString(body), getString(body),
+                        (flags & CUSTOMISED) != 0, createdAt, null, expiresAt, redirectStatus, cacheMaxAge);
+                return new LogRecord(type, alias, urlMapping, 0, size);
+            }
+            case DELETE -> {
+                return new LogRecord(type, getString(body), null, 0, size);
+            }
+            case SEQUENCE -> {
+                long nextValue = body.getLong();
+                return new LogRecord(type, getString(body), null, nextValue, size);
+            }
+            default -> throw new IllegalStateException("Unknown log record type " + type);
+        }
+    }
+
+    static int checksum(ByteBuffer body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private static ByteBuffer frame(ByteBuffer body) {
+        body.flip();
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + body.remaining());
+        record.putInt(body.remaining());
+        record.putInt(checksum(body));
+        record.put(body);
+        return record.flip();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putTime(ByteBuffer buffer, LocalDateTime time) {
+        buffer.putLong(time.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(time.getNano());
+    }
+
+    private static LocalDateTime getTime(ByteBuffer buffer) {
+        return LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] value) {
+        buffer.putInt(value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,164 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.store.log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One fixed size, memory mapped log file.
+ * <p>
+ * Records are only ever appended, by a single writer holding the store's write lock; the
+ * write position and dead byte count are guarded by that lock. Records are read with absolute
+ * gets on the shared mapping, so any number of readers can read concurrently with the writer.
+ */
+final class LogSegment {
+
+    final int id;
+    final Path path;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int writePosition;
+    private long deadBytes;
+
+    private LogSegment(int id, Path path, MappedByteBuffer buffer, int capacity) {
+        this.id = id;
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates and maps a new zero filled segment file.
+     */
+    static LogSegment create(Path directory, int id, int capacity) {
+        return map(directory.resolve(fileName(id)), id, capacity);
+    }
+
+    /**
+     * Maps an existing segment file.
+     */
+    static LogSegment open(Path path, int id) {
+        try {
+            return map(path, id, (int) Files.size(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open log segment " + path, e);
+        }
+    }
+
+    private static LogSegment map(Path path, int id, int capacity) {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            return new LogSegment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity), capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to map log segment " + path, e);
+        }
+    }
+
+    static String fileName(int id) {
+        return String.format("%08d.log", id);
+    }
+
+    int remaining() {
+        return capacity - writePosition;
+    }
+
+    int writePosition() {
+        return writePosition;
+    }
+
+    long deadBytes() {
+        return deadBytes;
+    }
+
+    void addDeadBytes(long bytes) {
+        deadBytes += bytes;
+    }
+
+    /**
+     * Appends a framed record.
+     *
+     * @param record the record, as produced by {@link LogRecord}
+     * @return the offset the record was written at
+     */
+    int append(ByteBuffer record) {
+        int offset = writePosition;
+        int length = record.remaining();
+        buffer.put(offset, record, record.position(), length);
+        writePosition += length;
+        return offset;
+    }
+
+    /**
+     * Reads the record at an offset that is known to hold one.
+     */
+    LogRecord read(int offset) {
+        int length = buffer.getInt(offset);
+        byte[] body = new byte[length];
+        buffer.get(offset + LogRecord.HEADER_SIZE, body);
+        return LogRecord.decode(ByteBuffer.wrap(body), LogRecord.HEADER_SIZE + length);
+    }
+
+    /**
+     * Reads the record at an offset during recovery, verifying it.
+     *
+     * @return the record, or null if the offset is past the last complete record
+     */
+    LogRecord recover(int offset) {
+        if (offset + LogRecord.HEADER_SIZE > capacity) {
+            return null;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || length > capacity - offset - LogRecord.HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer body = buffer.slice(offset + LogRecord.HEADER_SIZE, length);
+        if (LogRecord.checksum(body) != buffer.getInt(offset + 4)) {
+            return null;
+        }
+        return read(offset);
+    }
+
+    /**
+     * Restores the write position and dead byte count during recovery.
+     */
+    void restore(int position, long deadBytes) {
+        this.writePosition = position;
+        this.deadBytes = deadBytes;
+    }
+
+    /**
+     * Clears any partly written record at a position, so that it cannot be mistaken for a
+     * complete one once records are appended in front of it.
+     */
+    void clearFrom(int position) {
+        if (position + LogRecord.HEADER_SIZE > capacity) {
+            return;
+        }
+        int end = position + LogRecord.HEADER_SIZE;
+        int torn = buffer.getInt(position);
+        if (torn > 0) {
+            end = (int) Math.min(capacity, (long) end + torn);
+        }
+        for (int i = position; i < end; i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to delete log segment " + path, e);
+        }
+    }
+}
@@ -0,0 +1,604 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.store.log;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dedup.FullUrlHash;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.UrlMappingDto;
+import uk.co.droidinactu.tpximpacttask.urlshortener.expiry.AliasExpiry;
+import uk.co.droidinactu.tpximpacttask.urlshortener.index.PackedAliasIndex;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.StorageProperties;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.UrlMappingStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * {@link UrlMappingStore} that keeps mappings in memory mapped, append-only log segments.
+ * <p>
+ * Every change is appended to the current segment as a {@link LogRecord}: a put for a stored
+ * mapping, a tombstone for a deleted one. A {@link PackedAliasIndex} maps each alias to the
+ * location of its latest put, so a lookup is a primitive map lookup and a read from the mapped
+ * file. Once a full segment is mostly records that have been superseded or deleted,
+ * {@link #compact()} copies its live records to the end of the log and deletes it.
+ * <p>
+ * When full URL indexing is on, a second map from {@code FullUrlHash} to alias answers
+ * {@link #findByFullUrlHashes}. It is rebuilt from the log on startup rather than kept in the
+ * snapshot, so it costs nothing unless deduplication is enabled.
+ * <p>
+ * On shutdown the index is written to a snapshot. On startup the snapshot is loaded and only
+ * records written after it are replayed; without a usable snapshot every segment is replayed.
+ * <p>
+ * All writes are serialised by a single lock. Reads take no locks.
+ */
+@Slf4j
+public class LogUrlMappingStore implements UrlMappingStore, AutoCloseable {
+
+    static final String SNAPSHOT_FILE = "index.snapshot";
+
+    private static final Comparator<OrderKey> CREATION_ORDER =
+            Comparator.comparing(OrderKey::createdAt).thenComparing(OrderKey::alias);
+
+    private final Path directory;
+    private final int segmentSize;
+    private final double compactionThreshold;
+    private final boolean syncWrites;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final NavigableMap<Integer, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final PackedAliasIndex index;
+    private final NavigableSet<OrderKey> creationOrder = new ConcurrentSkipListSet<>(CREATION_ORDER);
+    private final Map<String, Long> sequences = new HashMap<>();
+    private final Map<String, Long> sequenceLocations = new HashMap<>();
+    private final Map<Long, String> fullUrlIndex;
+    private LogSegment active;
+    private boolean closed;
+
+    /**
+     * The position of a mapping in creation order, used for paging and streaming.
+     */
+    private record OrderKey(LocalDateTime createdAt, String alias) {
+    }
+
+    public LogUrlMappingStore(StorageProperties.Log properties) {
+        this(properties, false);
+    }
+
+    /**
+     * Opens the log store in the configured directory.
+     *
+     * @param properties    the log engine configuration
+     * @param indexFullUrls whether to keep the index behind {@link #findByFullUrlHashes}
+     */
+    public LogUrlMappingStore(StorageProperties.Log properties, boolean indexFullUrls) {
+        long segmentBytes = properties.getSegmentSize().toBytes();
+        if (segmentBytes < 4096 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Log segment size must be between 4KB and 2GB");
+        }
+        this.directory = properties.getDirectory();
+        this.segmentSize = (int) segmentBytes;
+        this.compactionThreshold = properties.getCompactionThreshold();
+        this.syncWrites = properties.isSyncWrites();
+        this.index = new PackedAliasIndex(properties.getExpectedMappings());
+        this.fullUrlIndex = indexFullUrls ? new ConcurrentHashMap<>() : null;
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open log store in " + directory, e);
+        }
+        if (fullUrlIndex != null) {
+            index.forEachKey(alias -> findByAlias(alias).ifPresent(this::indexFullUrl));
+        }
+        log.info("Log store opened {} mappings in {} segments from {} in {}ms, alias index uses {} bytes",
+                index.size(), segments.size(), directory.toAbsolutePath(), (System.nanoTime() - start) / 1_000_000,
+                index.packedSizeInBytes());
+    }
+
+    @Override
+    public Optional<UrlMapping> findByAlias(String alias) {
+        while (true) {
+            long location = index.get(alias);
+            if (location == PackedAliasIndex.ABSENT) {
+                return Optional.empty();
+            }
+            LogRecord record = read(location);
+            if (record != null) {
+                return Optional.of(record.urlMapping);
+            }
+            // the segment was compacted away after the lookup; the index now points at the copy
+        }
+    }
+
+    @Override
+    public boolean exists(String alias) {
+        return index.containsKey(alias);
+    }
+
+    @Override
+    public List<String> findExistingAliases(Collection<String> aliases) {
+        return aliases.stream().filter(index::containsKey).toList();
+    }
+
+    @Override
+    public List<UrlMapping> findByFullUrlHashes(Collection<Long> fullUrlHashes) {
+        if (fullUrlIndex == null) {
+            return List.of();
+        }
+        List<UrlMapping> mappings = new ArrayList<>();
+        for (Long fullUrlHash : fullUrlHashes) {
+            String alias = fullUrlIndex.get(fullUrlHash);
+            if (alias != null) {
+                findByAlias(alias).ifPresent(urlMapping -> {
+                    urlMapping.setFullUrlHash(fullUrlHash);
+                    mappings.add(urlMapping);
+                });
+            }
+        }
+        return mappings;
+    }
+
+    @Override
+    public void save(UrlMapping urlMapping) {
+        ByteBuffer record = LogRecord.put(urlMapping);
+        writeLock.lock();
+        try {
+            ensureOpen();
+            long location = append(record);
+            applyPut(urlMapping.getAlias(), urlMapping.getCreatedAt(), location);
+            indexFullUrl(urlMapping);
+            sync();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void insertAll(List<UrlMapping> urlMappings) {
+        List<ByteBuffer> records = urlMappings.stream().map(LogRecord::put).toList();
+        writeLock.lock();
+        try {
+            ensureOpen();
+            Set<String> aliases = new HashSet<>();
+            for (UrlMapping urlMapping : urlMappings) {
+                if (index.containsKey(urlMapping.getAlias()) || !aliases.add(urlMapping.getAlias())) {
+                    throw new DuplicateKeyException("Alias already in use: " + urlMapping.getAlias());
+                }
+            }
+            for (int i = 0; i < urlMappings.size(); i++) {
+                UrlMapping urlMapping = urlMappings.get(i);
+                applyPut(urlMapping.getAlias(), urlMapping.getCreatedAt(), append(records.get(i)));
+                indexFullUrl(urlMapping);
+            }
+            sync();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(String alias) {
+        ByteBuffer record = LogRecord.delete(alias);
+        writeLock.lock();
+        try {
+            ensureOpen();
+            if (!index.containsKey(alias)) {
+                return false;
+            }
+            long location = append(record);
+            segment(location).addDeadBytes(record.capacity());
+            applyDelete(alias);
+            sync();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<String> deleteExpired(Collection<String> aliases, LocalDateTime now) {
+        List<String> deleted = new ArrayList<>();
+        writeLock.lock();
+        try {
+            ensureOpen();
+            for (String alias : aliases) {
+                Optional<UrlMapping> urlMapping = findByAlias(alias);
+                if (urlMapping.isPresent() && urlMapping.get().isExpired(now)) {
+                    ByteBuffer record = LogRecord.delete(alias);
+                    long location = append(record);
+                    segment(location).addDeadBytes(record.capacity());
+                    applyDelete(alias);
+                    deleted.add(alias);
+                }
+            }
+            sync();
+            return deleted;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Expiry times are not held in the alias index, so this reads every mapping. It is only
+     * called once, on startup.
+     */
+    @Override
+    public void forEachExpiry(Consumer<AliasExpiry> consumer) {
+        index.forEachKey(alias -> findByAlias(alias)
+                .filter(urlMapping -> urlMapping.getExpiresAt() != null)
+                .ifPresent(urlMapping -> consumer.accept(new AliasExpiry(alias, urlMapping.getExpiresAt()))));
+    }
+
+    @Override
+    public List<UrlMapping> findPage(LocalDateTime createdAt, String alias, int limit) {
+        NavigableSet<OrderKey> keys = createdAt == null
+                ? creationOrder
+                : creationOrder.tailSet(new OrderKey(createdAt, alias), false);
+        List<UrlMapping> page = new ArrayList<>(Math.min(limit, 1024));
+        for (OrderKey key : keys) {
+            if (page.size() == limit) {
+                break;
+            }
+            findByAlias(key.alias()).ifPresent(page::add);
+        }
+        return page;
+    }
+
+    @Override
+    public void forEachMapping(Consumer<UrlMappingDto> consumer) {
+        for (OrderKey key : creationOrder) {
+            findByAlias(key.alias()).ifPresent(urlMapping -> consumer.accept(
+                    new UrlMappingDto(urlMapping.getAlias(), urlMapping.getFullUrl(), urlMapping.getShortUrl())));
+        }
+    }
+
+    @Override
+    public void forEachAlias(Consumer<String> consumer) {
+        index.forEachKey(consumer);
+    }
+
+    @Override
+    public long count() {
+        return index.size();
+    }
+
+    @Override
+    public long leaseBlock(String sequenceName, int size) {
+        writeLock.lock();
+        try {
+            ensureOpen();
+            long first = sequences.getOrDefault(sequenceName, 1L);
+            long next = first + size;
+            long location = append(LogRecord.sequence(sequenceName, next));
+            applySequence(sequenceName, next, location);
+            // a lease must never be handed out twice, so it is always forced to disk
+            active.force();
+            return first;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Compacts every full segment in which at least the configured fraction of the records are dead.
+     * Live records are copied to the end of the log one at a time, so writers are only held up for
+     * a single record copy at once.
+     */
+    @Scheduled(fixedDelayString = "${urlshortener.storage.log.compaction-interval:1m}")
+    public void compact() {
+        List<LogSegment> candidates = new ArrayList<>();
+        writeLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            for (LogSegment segment : segments.values()) {
+                if (segment != active && segment.deadBytes() >= compactionThreshold * segment.writePosition()) {
+                    candidates.add(segment);
+                }
+            }
+            if (!candidates.isEmpty()) {
+                // the snapshot refers to the segments being removed
+                Files.deleteIfExists(directory.resolve(SNAPSHOT_FILE));
+            }
+        } catch (IOException e) {
+            log.warn("Unable to remove index snapshot before compaction", e);
+            return;
+        } finally {
+            writeLock.unlock();
+        }
+        for (LogSegment segment : candidates) {
+            compact(segment);
+        }
+    }
+
+    private void compact(LogSegment segment) {
+        int copied = 0;
+        int offset = 0;
+        while (offset < segment.writePosition()) {
+            LogRecord record = segment.read(offset);
+            long location = location(segment.id, offset);
+            writeLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (copyIfLive(segment, record, location)) {
+                    copied++;
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            offset += record.size;
+        }
+        writeLock.lock();
+        try {
+            sync();
+            segments.remove(segment.id);
+        } finally {
+            writeLock.unlock();
+        }
+        // the mapping stays readable for any reader that already found the segment
+        segment.delete();
+        log.info("Compacted log segment {}, keeping {} records", segment.id, copied);
+    }
+
+    private boolean copyIfLive(LogSegment segment, LogRecord record, long location) {
+        switch (record.type) {
+            case LogRecord.PUT -> {
+                if (location != index.get(record.key)) {
+                    return false;
+                }
+                index.put(record.key, append(LogRecord.put(record.urlMapping)));
+                return true;
+            }
+            case LogRecord.SEQUENCE -> {
+                if (!Long.valueOf(location).equals(sequenceLocations.get(record.key))) {
+                    return false;
+                }
+                sequenceLocations.put(record.key, append(LogRecord.sequence(record.key, record.value)));
+                return true;
+            }
+            default -> {
+                // a tombstone only matters while an older segment may still hold a put for the alias,
+                // and only if the alias has not been stored again since
+                if (segments.firstKey() == segment.id || index.containsKey(record.key)) {
+                    return false;
+                }
+                append(LogRecord.delete(record.key));
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Forces outstanding writes to disk and writes an index snapshot for a fast restart.
+     */
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            active.force();
+            snapshot().write(directory.resolve(SNAPSHOT_FILE));
+            log.info("Log store closed with {} mappings", index.size());
+        } catch (IOException e) {
+            log.warn("Unable to write index snapshot, the next start will replay the log", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private IndexSnapshot snapshot() {
+        List<IndexSnapshot.Segment> segmentList = segments.values().stream()
+                .map(segment -> new IndexSnapshot.Segment(segment.id, segment.writePosition(), segment.deadBytes()))
+                .toList();
+        List<IndexSnapshot.Sequence> sequenceList = sequences.entrySet().stream()
+                .map(sequence -> new IndexSnapshot.Sequence(
+                        sequence.getKey(), sequence.getValue(), sequenceLocations.get(sequence.getKey())))
+                .toList();
+        List<IndexSnapshot.Entry> entries = creationOrder.stream()
+                .map(key -> new IndexSnapshot.Entry(key.alias(), index.get(key.alias()), key.createdAt()))
+                .toList();
+        return new IndexSnapshot(active.id, active.writePosition(), segmentList, sequenceList, entries);
+    }
+
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().matches("\\d{8}\\.log"))
+                    .forEach(file -> {
+                        int id = Integer.parseInt(file.getFileName().toString().substring(0, 8));
+                        segments.put(id, LogSegment.open(file, id));
+                    });
+        }
+        if (segments.isEmpty()) {
+            active = LogSegment.create(directory, 1, segmentSize);
+            segments.put(active.id, active);
+            return;
+        }
+
+        IndexSnapshot snapshot = IndexSnapshot.read(directory.resolve(SNAPSHOT_FILE));
+        if (snapshot != null && !matches(snapshot)) {
+            log.warn("Index snapshot does not match the log segments, replaying the whole log");
+            snapshot = null;
+        }
+        int fromSegment = segments.firstKey();
+        int fromPosition = 0;
+        if (snapshot != null) {
+            for (IndexSnapshot.Segment segment : snapshot.segments()) {
+                segments.get(segment.id()).restore(segment.writePosition(), segment.deadBytes());
+            }
+            for (IndexSnapshot.Sequence sequence : snapshot.sequences()) {
+                sequences.put(sequence.name(), sequence.nextValue());
+                sequenceLocations.put(sequence.name(), sequence.location());
+            }
+            for (IndexSnapshot.Entry entry : snapshot.entries()) {
+                index.put(entry.alias(), entry.location());
+                creationOrder.add(new OrderKey(entry.createdAt(), entry.alias()));
+            }
+            fromSegment = snapshot.segmentId();
+            fromPosition = snapshot.position();
+        }
+
+        for (LogSegment segment : segments.tailMap(fromSegment, true).values()) {
+            int offset = segment.id == fromSegment ? fromPosition : 0;
+            LogRecord record;
+            while ((record = segment.recover(offset)) != null) {
+                replay(record, location(segment.id, offset));
+                offset += record.size;
+            }
+            segment.restore(offset, segment.deadBytes());
+            segment.clearFrom(offset);
+        }
+        active = segments.lastEntry().getValue();
+    }
+
+    private boolean matches(IndexSnapshot snapshot) {
+        return snapshot.segments().stream().allMatch(segment -> segments.containsKey(segment.id()))
+                && segments.containsKey(snapshot.segmentId());
+    }
+
+    private void replay(LogRecord record, long location) {
+        switch (record.type) {
+            case LogRecord.PUT -> applyPut(record.key, record.urlMapping.getCreatedAt(), location);
+            case LogRecord.DELETE -> {
+                segment(location).addDeadBytes(record.size);
+                applyDelete(record.key);
+            }
+            default -> applySequence(record.key, record.value, location);
+        }
+    }
+
+    private void applyPut(String alias, LocalDateTime createdAt, long location) {
+        long previous = index.get(alias);
+        if (previous != PackedAliasIndex.ABSENT) {
+            LogRecord old = read(previous);
+            segment(previous).addDeadBytes(old.size);
+            creationOrder.remove(new OrderKey(old.urlMapping.getCreatedAt(), alias));
+            unindexFullUrl(old.urlMapping);
+        }
+        creationOrder.add(new OrderKey(createdAt, alias));
+        index.put(alias, location);
+    }
+
+    private void applyDelete(String alias) {
+        long previous = index.remove(alias);
+        if (previous != PackedAliasIndex.ABSENT) {
+            LogRecord old = read(previous);
+            segment(previous).addDeadBytes(old.size);
+            creationOrder.remove(new OrderKey(old.urlMapping.getCreatedAt(), alias));
+            unindexFullUrl(old.urlMapping);
+        }
+    }
+
+    private void indexFullUrl(UrlMapping urlMapping) {
+        if (fullUrlIndex != null && isDeduplicated(urlMapping)) {
+            fullUrlIndex.put(fullUrlHash(urlMapping), urlMapping.getAlias());
+        }
+    }
+
+    private void unindexFullUrl(UrlMapping urlMapping) {
+        if (fullUrlIndex != null && isDeduplicated(urlMapping)) {
+            fullUrlIndex.remove(fullUrlHash(urlMapping), urlMapping.getAlias());
+        }
+    }
+
+    /**
+     * Only generated aliases that never expire and use the default redirect are given out again for the same full URL.
+     */
+    private static boolean isDeduplicated(UrlMapping urlMapping) {
+        return urlMapping.isInterchangeable();
+    }
+
+    /**
+     * Mappings read back from the log do not carry the hash, so it is worked out again from the full URL.
+     */
+    private static long fullUrlHash(UrlMapping urlMapping) {
+        return urlMapping.getFullUrlHash() != null ? urlMapping.getFullUrlHash() : FullUrlHash.of(urlMapping.getFullUrl());
+    }
+
+    private void applySequence(String name, long nextValue, long location) {
+        Long previous = sequenceLocations.put(name, location);
+        sequences.put(name, nextValue);
+        if (previous != null) {
+            segment(previous).addDeadBytes(read(previous).size);
+        }
+    }
+
+    /**
+     * Appends a record to the active segment, starting a new segment if it does not fit.
+     * Must be called holding the write lock.
+     *
+     * @return the location of the record
+     */
+    private long append(ByteBuffer record) {
+        if (record.remaining() > segmentSize) {
+            throw new IllegalArgumentException("Mapping is too large to store: " + record.remaining() + " bytes");
+        }
+        if (record.remaining() > active.remaining()) {
+            active.force();
+            active = LogSegment.create(directory, active.id + 1, segmentSize);
+            segments.put(active.id, active);
+        }
+        return location(active.id, active.append(record));
+    }
+
+    private void sync() {
+        if (syncWrites) {
+            active.force();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Log store is closed");
+        }
+    }
+
+    private LogRecord read(long location) {
+        LogSegment segment = segments.get(segmentId(location));
+        return segment == null ? null : segment.read(offset(location));
+    }
+
+    private LogSegment segment(long location) {
+        return segments.get(segmentId(location));
+    }
+
+    static long location(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xffffffffL);
+    }
+
+    static int segmentId(long location) {
+        return (int) (location >>> 32);
+    }
+
+    static int offset(long location) {
+        return (int) location;
+    }
+}
@@ -0,0 +1,92 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.alias;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AliasGeneratorTest {
+
+    @Test
+    void counterNextAlias_ShouldNeverRepeat_WhenCalledFromManyThreads() throws InterruptedException {
+        // Arrange
+        AtomicLong counter = new AtomicLong();
+        CounterAliasGenerator generator = new CounterAliasGenerator(counter::getAndAdd, 100, 6);
+        Set<String> aliases = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    aliases.add(generator.nextAlias());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(80_000, aliases.size());
+        assertEquals(80_000, counter.get());
+    }
+
+    @Test
+    void counterEncode_ShouldGrowLength_WhenKeyspaceIsExhausted() {
+        // Arrange
+        CounterAliasGenerator generator = new CounterAliasGenerator(size -> 0, 100, 6);
+
+        // Act
+        String lastShort = generator.encode(Base62.keyspace(6) - 1);
+        String firstLong = generator.encode(Base62.keyspace(6));
+
+        // Assert
+        assertEquals(6, lastShort.length());
+        assertEquals(7, firstLong.length());
+    }
+
+    @Test
+    void counterEncode_ShouldNotProduceConsecutiveLookingAliases() {
+        // Arrange
+        CounterAliasGenerator generator = new CounterAliasGenerator(size -> 0, 100, 6);
+
+        // Act
+        String first = generator.encode(1);
+        String second = generator.encode(2);
+
+        // Assert
+        assertNotEquals(first.substring(0, 5), second.substring(0, 5));
+    }
+
+    @Test
+    void randomNextAlias_ShouldUseMinimumLength_WhenKeyspaceIsSparse() {
+        // Arrange
+        RandomAliasGenerator generator = new RandomAliasGenerator(6, 0.01, () -> 1_000);
+
+        // Act
+        String alias = generator.nextAlias();
+
+        // Assert
+        assertEquals(6, alias.length());
+        assertTrue(alias.chars().allMatch(c -> Base62.CHARACTERS.indexOf(c) >= 0));
+    }
+
+    @Test
+    void randomNextAlias_ShouldGrowLength_WhenKeyspaceIsDense() {
+        // Arrange
+        long dense = (long) (Base62.keyspace(6) * 0.01) + 1;
+        RandomAliasGenerator generator = new RandomAliasGenerator(6, 0.01, () -> dense);
+
+        // Act
+        String alias = generator.nextAlias();
+
+        // Assert
+        assertEquals(7, alias.length());
+    }
+}
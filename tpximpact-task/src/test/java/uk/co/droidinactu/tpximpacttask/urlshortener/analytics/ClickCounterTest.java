@@ -0,0 +1,118 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickCounterTest {
+
+    @Test
+    void drain_ShouldReturnClicksOnce() {
+        // Arrange
+        ClickCounter counter = new ClickCounter(new ClickAnalyticsProperties());
+        counter.record("abc");
+        counter.record("abc");
+        counter.record("xyz");
+
+        // Act
+        List<ClickDelta> first = counter.drain();
+        List<ClickDelta> second = counter.drain();
+
+        // Assert
+        assertEquals(3, first.stream().mapToLong(ClickDelta::clicks).sum());
+        assertTrue(second.isEmpty());
+    }
+
+    @Test
+    void drain_ShouldNotLoseClicks_WhenRecordedConcurrently() throws InterruptedException {
+        // Arrange
+        ClickCounter counter = new ClickCounter(new ClickAnalyticsProperties());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        long drained = 0;
+
+        // Act
+        for (int t = 0; t < 4; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.record("hot");
+                }
+            });
+        }
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.MILLISECONDS)) {
+            drained += counter.drain().stream().mapToLong(ClickDelta::clicks).sum();
+        }
+        drained += counter.drain().stream().mapToLong(ClickDelta::clicks).sum();
+
+        // Assert
+        assertEquals(40_000, drained);
+    }
+
+    @Test
+    void drain_ShouldRemoveCounters_ThatHadNoClicksSinceThePreviousDrain() {
+        // Arrange
+        ClickCounter counter = new ClickCounter(new ClickAnalyticsProperties());
+        counter.record("idle");
+        counter.record("busy");
+        counter.drain();
+        counter.record("busy");
+
+        // Act
+        counter.drain();
+        int sizeAfterDrain = counter.size();
+        counter.record("idle");
+        List<ClickDelta> next = counter.drain();
+
+        // Assert
+        assertEquals(1, sizeAfterDrain);
+        assertEquals(List.of("idle"), next.stream().map(ClickDelta::alias).toList());
+        assertEquals(1, next.get(0).clicks());
+    }
+
+    @Test
+    void drain_ShouldNotLoseClicks_WhenCountersAreRemovedWhileRecorded() throws InterruptedException {
+        // Arrange
+        ClickCounter counter = new ClickCounter(new ClickAnalyticsProperties());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        long drained = 0;
+
+        // Act
+        for (int t = 0; t < 4; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.record("alias" + i % 500);
+                }
+            });
+        }
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.MILLISECONDS)) {
+            drained += counter.drain().stream().mapToLong(ClickDelta::clicks).sum();
+        }
+        drained += counter.drain().stream().mapToLong(ClickDelta::clicks).sum();
+        drained += counter.drain().stream().mapToLong(ClickDelta::clicks).sum();
+
+        // Assert
+        assertEquals(40_000, drained);
+        assertEquals(0, counter.size());
+    }
+
+    @Test
+    void restore_ShouldReturnClicksToTheNextDrain() {
+        // Arrange
+        ClickCounter counter = new ClickCounter(new ClickAnalyticsProperties());
+        counter.record("abc");
+        List<ClickDelta> failed = counter.drain();
+
+        // Act
+        counter.record("abc");
+        counter.restore(failed);
+
+        // Assert
+        assertEquals(2, counter.pending("abc").clicks());
+    }
+}
@@ -0,0 +1,68 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.support.GenericApplicationContext;
+import uk.co.droidinactu.tpximpacttask.urlshortener.repository.ClickStatsRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ClickStatsFlusherTest {
+
+    @Test
+    void stop_ShouldFlushClicks_RecordedWhileTheWebServerDrainsRequests() {
+        // Arrange
+        ClickCounter clickCounter = new ClickCounter(new ClickAnalyticsProperties());
+        ClickStatsRepository clickStatsRepository = mock(ClickStatsRepository.class);
+        List<ClickDelta> stored = new ArrayList<>();
+        doAnswer(invocation -> stored.addAll(invocation.getArgument(0)))
+                .when(clickStatsRepository).upsertAll(anyList());
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(ClickStatsFlusher.class, () -> new ClickStatsFlusher(clickCounter, clickStatsRepository));
+        // stands in for the graceful shutdown, serving one last redirect once stopping has started
+        context.registerBean("drainingWebServer", SmartLifecycle.class, () -> new DrainingWebServer(clickCounter));
+        context.refresh();
+
+        // Act
+        context.close();
+
+        // Assert
+        assertEquals(List.of("drained"), stored.stream().map(ClickDelta::alias).toList());
+    }
+
+    private static final class DrainingWebServer implements SmartLifecycle {
+
+        private final ClickCounter clickCounter;
+        private volatile boolean running;
+
+        private DrainingWebServer(ClickCounter clickCounter) {
+            this.clickCounter = clickCounter;
+        }
+
+        @Override
+        public void start() {
+            running = true;
+        }
+
+        @Override
+        public void stop() {
+            clickCounter.record("drained");
+            running = false;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public int getPhase() {
+            return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.audit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTest {
+
+    @TempDir
+    Path directory;
+
+    private AuditProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AuditProperties();
+        properties.setDirectory(directory);
+    }
+
+    @Test
+    void record_ShouldWriteOneCompactLinePerEvent() throws Exception {
+        // Arrange
+        AuditLog auditLog = new AuditLog(properties);
+        auditLog.start();
+
+        // Act
+        auditLog.record(AuditEventType.SHORTEN, 201, "10.0.0.1", "abc123", "https://example.com/a b");
+        auditLog.record(AuditEventType.REDIRECT, 302, "10.0.0.2", "abc123", "https://example.com/a b");
+        auditLog.record(AuditEventType.NOT_FOUND, 404, null, "missing", null);
+        auditLog.stop();
+
+        // Assert
+        List<String> lines = Files.readAllLines(directory.resolve(AuditFileWriter.FILE_NAME));
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).matches("\\d+ S 201 10\\.0\\.0\\.1 abc123 https://example\\.com/a%20b"), lines.get(0));
+        assertTrue(lines.get(1).matches("\\d+ R 302 10\\.0\\.0\\.2 abc123 https://example\\.com/a%20b"), lines.get(1));
+        assertTrue(lines.get(2).matches("\\d+ N 404 - missing -"), lines.get(2));
+        assertEquals(0, auditLog.dropped());
+    }
+
+    @Test
+    void record_ShouldSkipAnEventType_WhenItsSampleRateIsZero() throws Exception {
+        // Arrange
+        properties.getSampleRate().setRedirect(0);
+        AuditLog auditLog = new AuditLog(properties);
+        auditLog.start();
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            auditLog.record(AuditEventType.REDIRECT, 302, "10.0.0.1", "abc123", "https://example.com");
+        }
+        auditLog.record(AuditEventType.DELETE, 204, "10.0.0.1", "abc123", null);
+        auditLog.stop();
+
+        // Assert
+        List<String> lines = Files.readAllLines(directory.resolve(AuditFileWriter.FILE_NAME));
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains(" D 204 "));
+    }
+
+    @Test
+    void record_ShouldDropAndCountEvents_WhenTheBufferIsFull() throws Exception {
+        // Arrange
+        properties.setBufferSize(4);
+        AuditLog auditLog = new AuditLog(properties);
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            auditLog.record(AuditEventType.REDIRECT, 302, "10.0.0.1", "alias" + i, "https://example.com");
+        }
+        auditLog.stop();
+
+        // Assert
+        assertEquals(6, auditLog.dropped());
+        List<String> lines = Files.readAllLines(directory.resolve(AuditFileWriter.FILE_NAME));
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(3).contains(" alias3 "));
+    }
+
+    @Test
+    void record_ShouldRefuseAndCountEvents_OnceStopped() throws Exception {
+        // Arrange
+        AuditLog auditLog = new AuditLog(properties);
+        auditLog.start();
+        auditLog.record(AuditEventType.SHORTEN, 201, "10.0.0.1", "before", "https://example.com");
+        auditLog.stop();
+
+        // Act
+        auditLog.record(AuditEventType.REDIRECT, 302, "10.0.0.1", "after", "https://example.com");
+
+        // Assert
+        assertEquals(1, auditLog.dropped());
+        List<String> lines = Files.readAllLines(directory.resolve(AuditFileWriter.FILE_NAME));
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains(" before "));
+    }
+
+    @Test
+    void stop_ShouldWriteEvents_RecordedWhileTheWebServerDrainsRequests() throws Exception {
+        // Arrange
+        AuditLog auditLog = new AuditLog(properties);
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(AuditLog.class, () -> auditLog);
+        // stands in for the graceful shutdown, serving one last redirect once stopping has started
+        context.registerBean("drainingWebServer", SmartLifecycle.class, () -> new DrainingWebServer(auditLog));
+        context.refresh();
+
+        // Act
+        context.close();
+
+        // Assert
+        assertEquals(0, auditLog.dropped());
+        List<String> lines = Files.readAllLines(directory.resolve(AuditFileWriter.FILE_NAME));
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains(" drained "));
+    }
+
+    @Test
+    void drain_ShouldHandOverEveryRecordOnce_WithConcurrentProducers() throws Exception {
+        // Arrange
+        AuditRingBuffer buffer = new AuditRingBuffer(64);
+        int producers = 4;
+        int perProducer = 20_000;
+        BitSet seen = new BitSet(producers * perProducer);
+        AtomicInteger offered = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+
+        // Act
+        List<Future<?>> results = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int first = p * perProducer;
+            results.add(executor.submit(() -> {
+                for (int i = first; i < first + perProducer; i++) {
+                    while (!buffer.offer(AuditEventType.REDIRECT, 0, i, null, null, null)) {
+                        Thread.onSpinWait();
+                    }
+                    offered.incrementAndGet();
+                }
+            }));
+        }
+        int taken = 0;
+        while (taken < producers * perProducer) {
+            taken += buffer.drain(record -> {
+                assertFalse(seen.get(record.status), "record " + record.status + " taken twice");
+                seen.set(record.status);
+            }, 100);
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(producers * perProducer, offered.get());
+        assertEquals(producers * perProducer, seen.cardinality());
+        assertEquals(0, buffer.drain(record -> fail("no record should be left"), 100));
+    }
+
+    @Test
+    void write_ShouldRotateTheFile_AndKeepOnlyTheConfiguredNumber() throws Exception {
+        // Arrange
+        properties.setMaxFileSize(DataSize.ofBytes(100));
+        properties.setMaxFiles(2);
+        AuditFileWriter fileWriter = new AuditFileWriter(directory, properties.getMaxFileSize().toBytes(),
+                properties.getMaxFiles());
+        String line = "x".repeat(59) + "\n";
+
+        // Act
+        for (int i = 0; i < 8; i++) {
+            fileWriter.write(line);
+        }
+        fileWriter.close();
+
+        // Assert
+        assertTrue(Files.exists(directory.resolve("audit.log.1")));
+        assertTrue(Files.exists(directory.resolve("audit.log.2")));
+        assertFalse(Files.exists(directory.resolve("audit.log.3")));
+        assertEquals(120, Files.size(directory.resolve("audit.log.1")));
+    }
+
+    private static final class DrainingWebServer implements SmartLifecycle {
+
+        private final AuditLog auditLog;
+        private volatile boolean running;
+
+        private DrainingWebServer(AuditLog auditLog) {
+            this.auditLog = auditLog;
+        }
+
+        @Override
+        public void start() {
+            running = true;
+        }
+
+        @Override
+        public void stop() {
+            auditLog.record(AuditEventType.REDIRECT, 302, "10.0.0.1", "drained", "https://example.com");
+            running = false;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public int getPhase() {
+            return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedirectCacheTest {
+
+    private RedirectCacheProperties properties;
+    private AtomicInteger loads;
+    private Function<String, RedirectCache.Target> loader;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RedirectCacheProperties();
+        properties.setMaxEntries(10);
+        loads = new AtomicInteger();
+        loader = alias -> {
+            loads.incrementAndGet();
+            return alias.startsWith("missing") ? null : new RedirectCache.Target("https://example.com/" + alias, RedirectCache.Target.NEVER);
+        };
+    }
+
+    @Test
+    void lookup_ShouldOnlyLoadOnce_WhenAliasIsRequestedRepeatedly() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(properties);
+
+        // Act
+        String first = cache.lookup("abc", loader).fullUrl();
+        String second = cache.lookup("abc", loader).fullUrl();
+
+        // Assert
+        assertEquals("https://example.com/abc", first);
+        assertEquals(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(0.5, cache.stats().hitRatio());
+    }
+
+    @Test
+    void lookup_ShouldNotCacheMisses() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(properties);
+
+        // Act
+        cache.lookup("missing", loader);
+        RedirectCache.Target result = cache.lookup("missing", loader);
+
+        // Assert
+        assertNull(result);
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    void invalidate_ShouldForceReload() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(properties);
+        cache.lookup("abc", loader);
+
+        // Act
+        cache.invalidate("abc");
+        cache.lookup("abc", loader);
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void lookup_ShouldNotAdmitAValueLoaded_BeforeItsAliasWasInvalidated() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(properties);
+
+        // Act
+        cache.lookup("abc", alias -> {
+            cache.invalidate("abc");
+            return loader.apply(alias);
+        });
+
+        // Assert
+        assertFalse(cache.contains("abc"));
+    }
+
+    @Test
+    void lookup_ShouldAdmitAValue_WhenOnlyOtherAliasesWereInvalidatedWhileItLoaded() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(properties);
+
+        // Act
+        cache.lookup("abc", alias -> {
+            cache.invalidate("other");
+            return loader.apply(alias);
+        });
+
+        // Assert
+        assertTrue(cache.contains("abc"));
+    }
+
+    @Test
+    void lookup_ShouldNeverExceedMaxEntries() {
+        // Arrange
+        RedirectCache cache = new RedirectCache(properties);
+
+        // Act
+        for (int i = 0; i < 1_000; i++) {
+            cache.lookup("alias" + i, loader);
+        }
+
+        // Assert
+        assertTrue(cache.stats().size() <= 10);
+    }
+
+    @Test
+    void lookup_ShouldNeverExceedMaxSize() {
+        // Arrange
+        properties.setMaxEntries(1_000);
+        properties.setMaxSize(DataSize.ofKilobytes(2));
+        RedirectCache cache = new RedirectCache(properties);
+
+        // Act
+        for (int i = 0; i < 1_000; i++) {
+            cache.lookup("alias" + i, loader);
+        }
+
+        // Assert
+        assertTrue(cache.stats().weightBytes() <= 2_048);
+    }
+
+    @Test
+    void lookup_ShouldNeverExceedLimits_WhenMissesRaceEachOther() throws InterruptedException {
+        // Arrange
+        properties.setMaxEntries(10);
+        properties.setMaxSize(DataSize.ofKilobytes(2));
+        RedirectCache cache = new RedirectCache(properties);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 2_000; i++) {
+                    cache.lookup("alias" + thread + "-" + i, loader);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+
+        // Assert
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertTrue(cache.stats().size() <= 10);
+        assertTrue(cache.stats().weightBytes() <= 2_048);
+    }
+
+    @Test
+    void lookup_ShouldKeepPopularAliases_WhenFloodedWithOneOffLookups() {
+        // Arrange
+        AtomicInteger hotLoads = new AtomicInteger();
+        Function<String, RedirectCache.Target> countingLoader = alias -> {
+            if (alias.startsWith("hot")) {
+                hotLoads.incrementAndGet();
+            }
+            return loader.apply(alias);
+        };
+        RedirectCache cache = new RedirectCache(properties);
+
+        // Act
+        for (int i = 0; i < 1_000; i++) {
+            cache.lookup("hot" + (i % 5), countingLoader);
+            cache.lookup("cold" + i, countingLoader);
+        }
+
+        // Assert
+        assertEquals(5, hotLoads.get());
+    }
+
+    @Test
+    void lookup_ShouldBypassCache_WhenDisabled() {
+        // Arrange
+        properties.setEnabled(false);
+        RedirectCache cache = new RedirectCache(properties);
+
+        // Act
+        cache.lookup("abc", loader);
+        cache.lookup("abc", loader);
+
+        // Assert
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.stats().size());
+    }
+}
@@ -0,0 +1,122 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.cluster;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import uk.co.droidinactu.tpximpacttask.TpximpactTaskApplication;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlRequest;
+import uk.co.droidinactu.tpximpacttask.urlshortener.index.AliasMembershipFilter;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+import uk.co.droidinactu.tpximpacttask.urlshortener.service.UrlShortenerService;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.UrlMappingStore;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs two instances against one database, with the JDBC transport between them.
+ */
+class ClusterCoherenceTest {
+
+    private static final String[] ARGS = {
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:cluster-test",
+            "--urlshortener.cluster.transport=jdbc",
+            "--urlshortener.cluster.poll-interval=50ms",
+            "--urlshortener.alias.block-size=10"
+    };
+
+    private static ConfigurableApplicationContext first;
+    private static ConfigurableApplicationContext second;
+
+    @BeforeAll
+    static void startInstances() {
+        first = new SpringApplicationBuilder(TpximpactTaskApplication.class).run(ARGS);
+        second = new SpringApplicationBuilder(TpximpactTaskApplication.class).run(ARGS);
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        second.close();
+        first.close();
+    }
+
+    @Test
+    void findFullUrl_ShouldFollowMappingsCreatedAndDeleted_OnAnotherInstance() {
+        // Arrange
+        UrlShortenerService creator = first.getBean(UrlShortenerService.class);
+        UrlShortenerService peer = second.getBean(UrlShortenerService.class);
+
+        // Act
+        creator.shortenUrl(new ShortenUrlRequest("https://example.com/shared", "shared"), "http://first");
+        boolean seenCreated = await(() -> "https://example.com/shared".equals(peer.findFullUrl("shared")));
+        boolean cached = "https://example.com/shared".equals(peer.findFullUrl("shared"));
+        creator.deleteUrlMapping("shared");
+        boolean seenDeleted = await(() -> peer.findFullUrl("shared") == null);
+
+        // Assert
+        assertTrue(seenCreated);
+        assertTrue(cached);
+        assertTrue(seenDeleted);
+    }
+
+    @Test
+    void findFullUrl_ShouldFindAMappingCreatedOnAnotherInstance_BeforeItsEventArrives() {
+        // Arrange
+        UrlShortenerService peer = second.getBean(UrlShortenerService.class);
+        // stored without publishing an event, as if the creator's event was still queued
+        first.getBean(UrlMappingStore.class).insertAll(List.of(new UrlMapping("unannounced",
+                "https://example.com/unannounced", "http://first/unannounced", false, LocalDateTime.now(), null, null)));
+
+        // Act
+        boolean absentFromFilter = second.getBean(AliasMembershipFilter.class).isDefinitelyAbsent("unannounced");
+        String fullUrl = peer.findFullUrl("unannounced");
+        boolean unknown = peer.isUnknownAlias("unannounced");
+
+        // Assert
+        assertTrue(absentFromFilter);
+        assertEquals("https://example.com/unannounced", fullUrl);
+        assertFalse(unknown);
+    }
+
+    @Test
+    void shortenUrl_ShouldGenerateDistinctAliases_AcrossInstances() {
+        // Arrange
+        UrlShortenerService[] instances = {
+                first.getBean(UrlShortenerService.class), second.getBean(UrlShortenerService.class)};
+        Set<String> aliases = new HashSet<>();
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            String shortUrl = instances[i % 2].shortenUrl(
+                    new ShortenUrlRequest("https://example.com/" + i, null), "").getShortUrl();
+            aliases.add(shortUrl);
+        }
+
+        // Assert
+        assertEquals(100, aliases.size());
+    }
+
+    private static boolean await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
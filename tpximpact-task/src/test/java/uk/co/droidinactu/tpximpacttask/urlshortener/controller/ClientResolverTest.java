@@ -0,0 +1,42 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit.RateLimitProperties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientResolverTest {
+
+    @Test
+    void clientOf_ShouldSkipTheTrustedProxies_FromTheEndOfTheHeader() {
+        // Arrange
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setClientHeader("X-Forwarded-For");
+        properties.setTrustedHops(2);
+        ClientResolver clientResolver = new ClientResolver(properties);
+        MockHttpServletRequest bypassed = forwardedFor("198.51.100.1");
+        bypassed.setRemoteAddr("10.0.0.9");
+
+        // Act & Assert
+        assertEquals("203.0.113.1", clientResolver.clientOf(forwardedFor("198.51.100.1, 203.0.113.1, 10.0.0.1")));
+        assertEquals("10.0.0.9", clientResolver.clientOf(bypassed));
+    }
+
+    @Test
+    void clientOf_ShouldUseTheRemoteAddress_WhenNoHeaderIsConfigured() {
+        // Arrange
+        ClientResolver clientResolver = new ClientResolver(new RateLimitProperties());
+        MockHttpServletRequest request = forwardedFor("203.0.113.1");
+        request.setRemoteAddr("10.0.0.9");
+
+        // Act & Assert
+        assertEquals("10.0.0.9", clientResolver.clientOf(request));
+    }
+
+    private static MockHttpServletRequest forwardedFor(String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/abc");
+        request.addHeader("X-Forwarded-For", value);
+        return request;
+    }
+}
@@ -0,0 +1,132 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import uk.co.droidinactu.tpximpacttask.urlshortener.metrics.ShortenerMetrics;
+import uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit.EndpointClass;
+import uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit.RateLimitProperties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private SimpleMeterRegistry registry;
+    private RateLimitProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        properties = new RateLimitProperties();
+        properties.setEnabled(true);
+        properties.setWrite(new RateLimitProperties.Budget(1, 0.1));
+    }
+
+    @Test
+    void doFilter_ShouldRejectWithRetryAfter_OnceTheWriteBudgetIsUsedUp() throws Exception {
+        // Arrange
+        RateLimitFilter filter = filter();
+        filter.doFilter(new MockHttpServletRequest("POST", "/shorten"), new MockHttpServletResponse(), new MockFilterChain());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("POST", "/shorten"), response, chain);
+
+        // Assert
+        assertEquals(429, response.getStatus());
+        assertEquals("10", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains("\"error\""));
+        assertNull(chain.getRequest());
+        assertEquals(1, registry.get("urlshortener.rate.limited").tag("endpoint", "write").counter().count());
+    }
+
+    @Test
+    void doFilter_ShouldStillServeRedirects_WhenTheWriteBudgetIsUsedUp() throws Exception {
+        // Arrange
+        RateLimitFilter filter = filter();
+        filter.doFilter(new MockHttpServletRequest("POST", "/shorten"), new MockHttpServletResponse(), new MockFilterChain());
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/abc"), new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_ShouldCountClientsByHeader_WhenOneIsConfigured() throws Exception {
+        // Arrange
+        properties.setClientHeader("X-Forwarded-For");
+        RateLimitFilter filter = filter();
+        filter.doFilter(shorten("203.0.113.1"), new MockHttpServletResponse(), new MockFilterChain());
+        MockHttpServletResponse sameClient = new MockHttpServletResponse();
+        MockHttpServletResponse otherClient = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(shorten("203.0.113.1"), sameClient, new MockFilterChain());
+        filter.doFilter(shorten("203.0.113.2"), otherClient, new MockFilterChain());
+
+        // Assert
+        assertEquals(429, sameClient.getStatus());
+        assertEquals(200, otherClient.getStatus());
+    }
+
+    @Test
+    void doFilter_ShouldStillLimitAClient_ThatForgesTheClientHeader() throws Exception {
+        // Arrange
+        properties.setClientHeader("X-Forwarded-For");
+        RateLimitFilter filter = filter();
+        filter.doFilter(shorten("198.51.100.1, 203.0.113.1"), new MockHttpServletResponse(), new MockFilterChain());
+        MockHttpServletResponse forged = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(shorten("198.51.100.2, 203.0.113.1"), forged, new MockFilterChain());
+
+        // Assert
+        assertEquals(429, forged.getStatus());
+    }
+
+    @Test
+    void doFilter_ShouldPassEverythingOn_WhenDisabled() throws Exception {
+        // Arrange
+        properties.setEnabled(false);
+        RateLimitFilter filter = filter();
+        filter.doFilter(new MockHttpServletRequest("POST", "/shorten"), new MockHttpServletResponse(), new MockFilterChain());
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("POST", "/shorten"), new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void endpointClassOf_ShouldClassifyTheShortenerEndpoints_AndLeaveTheRestAlone() {
+        // Act & Assert
+        assertEquals(EndpointClass.REDIRECT, RateLimitFilter.endpointClassOf(new MockHttpServletRequest("GET", "/abc")));
+        assertEquals(EndpointClass.WRITE, RateLimitFilter.endpointClassOf(new MockHttpServletRequest("POST", "/shorten")));
+        assertEquals(EndpointClass.WRITE, RateLimitFilter.endpointClassOf(new MockHttpServletRequest("POST", "/shorten/batch")));
+        assertEquals(EndpointClass.WRITE, RateLimitFilter.endpointClassOf(new MockHttpServletRequest("DELETE", "/abc")));
+        assertEquals(EndpointClass.LIST, RateLimitFilter.endpointClassOf(new MockHttpServletRequest("GET", "/urls")));
+        assertEquals(EndpointClass.LIST, RateLimitFilter.endpointClassOf(new MockHttpServletRequest("GET", "/urls/abc/stats")));
+        assertNull(RateLimitFilter.endpointClassOf(new MockHttpServletRequest("GET", "/actuator/health")));
+        assertNull(RateLimitFilter.endpointClassOf(new MockHttpServletRequest("GET", "/admin/cache")));
+        assertNull(RateLimitFilter.endpointClassOf(new MockHttpServletRequest("GET", "/favicon.ico")));
+    }
+
+    private RateLimitFilter filter() {
+        return new RateLimitFilter(properties, new ClientResolver(properties), new ShortenerMetrics(registry));
+    }
+
+    private static MockHttpServletRequest shorten(String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/shorten");
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        return request;
+    }
+}
@@ -0,0 +1,157 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import uk.co.droidinactu.tpximpacttask.urlshortener.analytics.ClickCounter;
+import uk.co.droidinactu.tpximpacttask.urlshortener.audit.AuditEventType;
+import uk.co.droidinactu.tpximpacttask.urlshortener.audit.AuditLog;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
+import uk.co.droidinactu.tpximpacttask.urlshortener.metrics.ShortenerMetrics;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.RedirectStatus;
+import uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit.RateLimitProperties;
+import uk.co.droidinactu.tpximpacttask.urlshortener.service.UrlShortenerService;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RedirectFastPathFilterTest {
+
+    private UrlShortenerService urlShortenerService;
+    private ClickCounter clickCounter;
+    private AuditLog auditLog;
+    private RedirectProperties properties;
+    private RateLimitProperties rateLimitProperties;
+    private RedirectFastPathFilter filter;
+    private MockHttpServletResponse response;
+    private MockFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        urlShortenerService = mock(UrlShortenerService.class);
+        clickCounter = mock(ClickCounter.class);
+        auditLog = mock(AuditLog.class);
+        properties = new RedirectProperties();
+        rateLimitProperties = new RateLimitProperties();
+        filter = filter();
+        response = new MockHttpServletResponse();
+        chain = new MockFilterChain();
+    }
+
+    @Test
+    void doFilter_ShouldAuditTheForwardedClient_WhenAClientHeaderIsConfigured() throws Exception {
+        // Arrange
+        rateLimitProperties.setClientHeader("X-Forwarded-For");
+        filter = filter();
+        when(urlShortenerService.findRedirect("abc")).thenReturn(
+                new RedirectCache.Target("https://example.com", RedirectCache.Target.NEVER));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/abc");
+        request.addHeader("X-Forwarded-For", "203.0.113.1");
+
+        // Act
+        filter.doFilter(request, response, chain);
+
+        // Assert
+        verify(auditLog).record(AuditEventType.REDIRECT, 302, "203.0.113.1", "abc", "https://example.com");
+    }
+
+    @Test
+    void doFilter_ShouldRedirectKnownAlias_WithoutCallingTheChain() throws Exception {
+        // Arrange
+        when(urlShortenerService.findRedirect("abc")).thenReturn(
+                new RedirectCache.Target("https://example.com", RedirectCache.Target.NEVER));
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/abc"), response, chain);
+
+        // Assert
+        assertEquals(302, response.getStatus());
+        assertEquals("https://example.com", response.getHeader("Location"));
+        assertEquals("no-store", response.getHeader("Cache-Control"));
+        assertNull(chain.getRequest());
+        verify(clickCounter).record("abc");
+        verify(auditLog).record(AuditEventType.REDIRECT, 302, "127.0.0.1", "abc", "https://example.com");
+    }
+
+    @Test
+    void doFilter_ShouldRedirectWithTheMappingsStatus_AndCacheItForTheLimitAtMost() throws Exception {
+        // Arrange
+        properties.setCacheMaxAgeLimit(Duration.ofHours(1));
+        filter = filter();
+        when(urlShortenerService.findRedirect("abc")).thenReturn(new RedirectCache.Target(
+                "https://example.com", RedirectCache.Target.NEVER, RedirectStatus.PERMANENT_REDIRECT, 86_400L));
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/abc"), response, chain);
+
+        // Assert
+        assertEquals(308, response.getStatus());
+        assertEquals("public, max-age=3600", response.getHeader("Cache-Control"));
+        assertNotNull(response.getHeader("Expires"));
+    }
+
+    @Test
+    void doFilter_ShouldNotLetARedirectBeCached_BeyondTheMappingsExpiry() throws Exception {
+        // Arrange
+        properties.setCacheMaxAge(Duration.ofHours(1));
+        filter = filter();
+        long expiresAt = System.currentTimeMillis() + 90_000;
+        when(urlShortenerService.findRedirect("soon")).thenReturn(new RedirectCache.Target(
+                "https://example.com", expiresAt, RedirectStatus.MOVED_PERMANENTLY, null));
+        when(urlShortenerService.findRedirect("now")).thenReturn(new RedirectCache.Target(
+                "https://example.com", System.currentTimeMillis() + 500, RedirectStatus.MOVED_PERMANENTLY, null));
+        MockHttpServletResponse expiringNow = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/soon"), response, chain);
+        filter.doFilter(new MockHttpServletRequest("GET", "/now"), expiringNow, new MockFilterChain());
+
+        // Assert
+        assertEquals(301, response.getStatus());
+        long maxAge = Long.parseLong(response.getHeader("Cache-Control").substring("public, max-age=".length()));
+        assertTrue(maxAge > 0 && maxAge <= 90, "max-age=" + maxAge);
+        assertTrue(response.getDateHeader("Expires") <= expiresAt);
+        assertEquals("no-store", expiringNow.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void doFilter_ShouldPassUnknownAliasToTheChain() throws Exception {
+        // Arrange
+        when(urlShortenerService.findRedirect("missing")).thenReturn(null);
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/missing"), response, chain);
+
+        // Assert
+        assertNotNull(chain.getRequest());
+        assertNull(response.getHeader("Location"));
+        verifyNoInteractions(clickCounter);
+    }
+
+    @Test
+    void doFilter_ShouldNotInterceptOtherEndpoints() throws Exception {
+        // Arrange
+        String[][] requests = {
+                {"GET", "/urls"}, {"GET", "/shorten"}, {"GET", "/h2-console"}, {"GET", "/h2-console/login.jsp"},
+                {"GET", "/urls/abc/stats"}, {"DELETE", "/abc"}, {"POST", "/abc"}, {"GET", "/"}};
+
+        // Act
+        for (String[] request : requests) {
+            filter.doFilter(new MockHttpServletRequest(request[0], request[1]), response, new MockFilterChain());
+        }
+
+        // Assert
+        verifyNoInteractions(urlShortenerService);
+    }
+
+    private RedirectFastPathFilter filter() {
+        return new RedirectFastPathFilter(urlShortenerService, clickCounter,
+                new ShortenerMetrics(new SimpleMeterRegistry()), properties, new RedirectCacheHeaders(properties),
+                auditLog, new ClientResolver(rateLimitProperties));
+    }
+}
@@ -0,0 +1,201 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlRequest;
+import uk.co.droidinactu.tpximpacttask.urlshortener.service.UrlShortenerService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Exercises POST /shorten/batch with both of the content types it accepts.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-test",
+        "urlshortener.bulk.max-items=5"
+})
+@AutoConfigureMockMvc
+class ShortenBatchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UrlShortenerService urlShortenerService;
+
+    @Test
+    void shortenUrls_ShouldShortenCustomAndGeneratedItems_InRequestOrder() throws Exception {
+        // Act
+        JsonNode results = results(postJson("""
+                [{"fullUrl": "https://example.com/a", "customAlias": "batch-a"},
+                 {"fullUrl": "https://example.com/b"},
+                 {"fullUrl": "https://example.com/c", "customAlias": "batch-c"}]
+                """));
+
+        // Assert
+        assertEquals(3, results.size());
+        assertEquals("http://localhost/batch-a", results.get(0).get("shortUrl").asText());
+        assertEquals("http://localhost/batch-c", results.get(2).get("shortUrl").asText());
+        String generated = results.get(1).get("shortUrl").asText();
+        assertEquals("https://example.com/b", urlShortenerService.getFullUrl(generated.substring(generated.lastIndexOf('/') + 1)));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, results.get(i).get("index").asInt());
+            assertNull(results.get(i).get("error"));
+        }
+    }
+
+    @Test
+    void shortenUrls_ShouldFailOnlyTheItems_WhoseAliasIsTaken() throws Exception {
+        // Arrange
+        urlShortenerService.shortenUrl(new ShortenUrlRequest("https://example.com/first", "batch-taken"), "http://localhost");
+
+        // Act
+        JsonNode results = results(postJson("""
+                [{"fullUrl": "https://example.com/second", "customAlias": "batch-taken"},
+                 {"fullUrl": "https://example.com/x", "customAlias": "batch-twice"},
+                 {"fullUrl": "https://example.com/y", "customAlias": "batch-twice"},
+                 {"fullUrl": ""},
+                 {"fullUrl": "https://example.com/z"}]
+                """));
+
+        // Assert
+        assertEquals("Custom alias is already taken: batch-taken", results.get(0).get("error").asText());
+        assertEquals("http://localhost/batch-twice", results.get(1).get("shortUrl").asText());
+        assertEquals("Custom alias is already taken: batch-twice", results.get(2).get("error").asText());
+        assertEquals("Full URL is required", results.get(3).get("error").asText());
+        assertNotNull(results.get(4).get("shortUrl"));
+        assertEquals("https://example.com/first", urlShortenerService.getFullUrl("batch-taken"));
+        assertEquals("https://example.com/x", urlShortenerService.getFullUrl("batch-twice"));
+    }
+
+    @Test
+    void shortenUrls_ShouldStoreLongUrls_AndFailOnlyTheItemsTooLongToStore() throws Exception {
+        // Arrange
+        String campaign = "https://example.com/landing?utm_source=" + "a".repeat(1500);
+        String tooLong = "https://example.com/" + "b".repeat(2100);
+
+        // Act
+        JsonNode results = results(postJson("""
+                [{"fullUrl": "%s", "customAlias": "batch-campaign"},
+                 {"fullUrl": "%s", "customAlias": "batch-too-long"},
+                 {"fullUrl": "example.com/no-scheme", "customAlias": "batch-no-scheme"}]
+                """.formatted(campaign, tooLong)));
+
+        // Assert
+        assertEquals("http://localhost/batch-campaign", results.get(0).get("shortUrl").asText());
+        assertEquals(campaign, urlShortenerService.getFullUrl("batch-campaign"));
+        assertEquals("The URL could not be stored", results.get(1).get("error").asText());
+        assertNull(urlShortenerService.findFullUrl("batch-too-long"));
+        assertEquals("http://localhost/batch-no-scheme", results.get(2).get("shortUrl").asText());
+    }
+
+    @Test
+    void shortenUrls_ShouldRejectTheWholeBatch_WhenItIsTooLarge() throws Exception {
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(post("/shorten/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"fullUrl": "https://example.com/1", "customAlias": "batch-over"},
+                                 {"fullUrl": "https://example.com/2"}, {"fullUrl": "https://example.com/3"},
+                                 {"fullUrl": "https://example.com/4"}, {"fullUrl": "https://example.com/5"},
+                                 {"fullUrl": "https://example.com/6"}]
+                                """))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().contains("at most 5 URLs"));
+        assertNull(urlShortenerService.findFullUrl("batch-over"));
+    }
+
+    @Test
+    void shortenUrls_ShouldStopReading_OnceTheBatchIsTooLarge() throws Exception {
+        // Act
+        MockHttpServletResponse response = postJson("""
+                [{"fullUrl": "https://example.com/1"}, {"fullUrl": "https://example.com/2"},
+                 {"fullUrl": "https://example.com/3"}, {"fullUrl": "https://example.com/4"},
+                 {"fullUrl": "https://example.com/5"}, {"fullUrl": "https://example.com/6"},
+                 never read
+                """);
+
+        // Assert
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().contains("at most 5 URLs"));
+    }
+
+    @Test
+    void shortenUrls_ShouldRejectABody_ThatIsNotAnArray() throws Exception {
+        // Act
+        MockHttpServletResponse notArray = postJson("""
+                {"fullUrl": "https://example.com/single", "customAlias": "batch-single"}
+                """);
+        MockHttpServletResponse malformed = postJson("[{\"fullUrl\": ");
+
+        // Assert
+        assertEquals(400, notArray.getStatus());
+        assertEquals(400, malformed.getStatus());
+        assertTrue(malformed.getContentAsString().contains("Malformed request body"));
+        assertNull(urlShortenerService.findFullUrl("batch-single"));
+    }
+
+    @Test
+    void shortenUrlsNdjson_ShouldShortenOneItemPerLine() throws Exception {
+        // Act
+        JsonNode results = results(postNdjson("""
+                {"fullUrl": "https://example.com/n1", "customAlias": "batch-n1"}
+                {"fullUrl": "https://example.com/n2"}
+                """));
+
+        // Assert
+        assertEquals(2, results.size());
+        assertEquals("http://localhost/batch-n1", results.get(0).get("shortUrl").asText());
+        assertNotNull(results.get(1).get("shortUrl"));
+    }
+
+    @Test
+    void shortenUrlsNdjson_ShouldRejectTheWholeBatch_WhenItIsTooLarge() throws Exception {
+        // Act
+        MockHttpServletResponse response = postNdjson("""
+                {"fullUrl": "https://example.com/1", "customAlias": "batch-ndjson-over"}
+                {"fullUrl": "https://example.com/2"}
+                {"fullUrl": "https://example.com/3"}
+                {"fullUrl": "https://example.com/4"}
+                {"fullUrl": "https://example.com/5"}
+                {"fullUrl": "https://example.com/6"}
+                {"fullUrl": "https://example.com/7"}
+                """);
+
+        // Assert
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().contains("at most 5 URLs"));
+        assertNull(urlShortenerService.findFullUrl("batch-ndjson-over"));
+    }
+
+    private MockHttpServletResponse postJson(String body) throws Exception {
+        return mockMvc.perform(post("/shorten/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andReturn().getResponse();
+    }
+
+    private MockHttpServletResponse postNdjson(String body) throws Exception {
+        return mockMvc.perform(post("/shorten/batch")
+                        .contentType(UrlShortenerController.APPLICATION_NDJSON_VALUE)
+                        .content(body))
+                .andReturn().getResponse();
+    }
+
+    private JsonNode results(MockHttpServletResponse response) throws Exception {
+        assertEquals(200, response.getStatus(), response.getContentAsString());
+        return objectMapper.readTree(response.getContentAsString());
+    }
+}
@@ -0,0 +1,171 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.UrlMappingStore;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Pages through GET /urls against a database of its own, so that the mappings seen are exactly the ones created here.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:paging-test")
+@AutoConfigureMockMvc
+class UrlMappingsPageTest {
+
+    private static final int MAPPINGS = 25;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UrlMappingStore urlMappingStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<String> expectedAliases = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // five mappings share each creation time, so pages have to break ties on the alias
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<UrlMapping> urlMappings = new ArrayList<>();
+        for (int i = 0; i < MAPPINGS; i++) {
+            String alias = String.format("page%02d", i);
+            expectedAliases.add(alias);
+            urlMappings.add(new UrlMapping(alias, "https://example.com/" + i, "http://localhost/" + alias,
+                    true, base.plusSeconds(i / 5), null, null));
+        }
+        if (urlMappingStore.count() == 0) {
+            urlMappingStore.insertAll(urlMappings);
+        }
+    }
+
+    @Test
+    void getUrlMappingsPage_ShouldVisitEveryMappingOnce_InCreationOrder() throws Exception {
+        // Arrange
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+
+        // Act
+        do {
+            MockHttpServletResponse response = page(7, cursor);
+            assertEquals(200, response.getStatus());
+            seen.addAll(aliases(response));
+            cursor = response.getHeader("X-Next-Cursor");
+            pages++;
+        } while (cursor != null);
+
+        // Assert
+        assertEquals(expectedAliases, seen);
+        assertEquals(4, pages);
+    }
+
+    @Test
+    void getUrlMappingsPage_ShouldLinkToTheNextPage_WithTheSameCursor() throws Exception {
+        // Act
+        MockHttpServletResponse response = page(10, null);
+
+        // Assert
+        String cursor = response.getHeader("X-Next-Cursor");
+        assertNotNull(cursor);
+        assertEquals("<http://localhost/urls?limit=10&cursor=" + cursor + ">; rel=\"next\"", response.getHeader("Link"));
+        assertEquals(expectedAliases.subList(10, 20), aliases(page(10, cursor)));
+    }
+
+    @Test
+    void getUrlMappingsPage_ShouldEndWithoutANextPage_WhenTheLastPageIsShort() throws Exception {
+        // Act
+        MockHttpServletResponse first = page(20, null);
+        MockHttpServletResponse last = page(20, first.getHeader("X-Next-Cursor"));
+
+        // Assert
+        assertEquals(expectedAliases.subList(20, MAPPINGS), aliases(last));
+        assertNull(last.getHeader("X-Next-Cursor"));
+        assertNull(last.getHeader("Link"));
+    }
+
+    @Test
+    void getUrlMappingsPage_ShouldEndWithAnEmptyPage_WhenTheLastPageIsFull() throws Exception {
+        // Act
+        MockHttpServletResponse first = page(MAPPINGS, null);
+        MockHttpServletResponse last = page(MAPPINGS, first.getHeader("X-Next-Cursor"));
+
+        // Assert
+        assertEquals(expectedAliases, aliases(first));
+        assertEquals(List.of(), aliases(last));
+        assertNull(last.getHeader("X-Next-Cursor"));
+        assertNull(last.getHeader("Link"));
+    }
+
+    @Test
+    void getUrlMappingsPage_ShouldRejectCursors_ItDidNotIssue() throws Exception {
+        // Arrange
+        String notBase64 = "not a cursor!";
+        String noSeparator = encode("2025-01-01T12:00");
+        String notATime = encode("yesterday|page04");
+
+        // Act & Assert
+        for (String cursor : List.of(notBase64, noSeparator, notATime)) {
+            MockHttpServletResponse response = page(5, cursor);
+            assertEquals(400, response.getStatus(), cursor);
+            assertTrue(response.getContentAsString().contains("Invalid cursor"), cursor);
+        }
+    }
+
+    @Test
+    void getUrlMappingsPage_ShouldRejectLimitsBelowOne() throws Exception {
+        // Act & Assert
+        assertEquals(400, page(0, null).getStatus());
+        assertEquals(400, page(-1, null).getStatus());
+    }
+
+    @Test
+    void getUrlMappingsPage_ShouldAcceptLimitsAboveTheMaximum() throws Exception {
+        // Act
+        MockHttpServletResponse response = page(5_000, null);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertEquals(expectedAliases, aliases(response));
+        assertNull(response.getHeader("X-Next-Cursor"));
+    }
+
+    private MockHttpServletResponse page(int limit, String cursor) throws Exception {
+        MockHttpServletRequestBuilder request = get("/urls").queryParam("limit", String.valueOf(limit));
+        if (cursor != null) {
+            request.queryParam("cursor", cursor);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private List<String> aliases(MockHttpServletResponse response) throws Exception {
+        List<String> aliases = new ArrayList<>();
+        for (JsonNode mapping : objectMapper.readTree(response.getContentAsString())) {
+            aliases.add(mapping.get("alias").asText());
+        }
+        return aliases;
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -4,16 +4,26 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.web.servlet.view.RedirectView;
 import uk.co.droidinactu.tpximpacttask.exception.AliasNotFoundException;
+import uk.co.droidinactu.tpximpacttask.urlshortener.analytics.ClickCounter;
+import uk.co.droidinactu.tpximpacttask.urlshortener.audit.AuditEventType;
+import uk.co.droidinactu.tpximpacttask.urlshortener.audit.AuditLog;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
 import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlRequest;
 import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlResponse;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.UrlMappingPage;
+import uk.co.droidinactu.tpximpacttask.urlshortener.metrics.ShortenerMetrics;
+import uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit.RateLimitProperties;
 import uk.co.droidinactu.tpximpacttask.urlshortener.service.UrlShortenerService;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -23,6 +33,18 @@ class UrlShortenerControllerTest {
     @Mock
     private UrlShortenerService urlShortenerService;
 
+    @Mock
+    private ClickCounter clickCounter;
+
+    @Mock
+    private ShortenerMetrics shortenerMetrics;
+
+    @Mock
+    private AuditLog auditLog;
+
+    @Spy
+    private ClientResolver clientResolver = new ClientResolver(new RateLimitProperties());
+
     @InjectMocks
     private UrlShortenerController urlShortenerController;
 
@@ -42,6 +64,7 @@ class UrlShortenerControllerTest {
         // Arrange
         ShortenUrlResponse expectedResponse = new ShortenUrlResponse();
         expectedResponse.setShortUrl("http://localhost/custom");
+        expectedResponse.setAlias("custom");
         when(urlShortenerService.shortenUrl(any(), any())).thenReturn(expectedResponse);
 
         // Act
@@ -52,7 +75,8 @@ class UrlShortenerControllerTest {
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals(expectedResponse.getShortUrl(), response.getBody().getShortUrl());
-        verify(urlShortenerService).shortenUrl(any(), any());
+        verify(urlShortenerService).shortenUrl(any(), eq("http://localhost"));
+        verify(auditLog).record(AuditEventType.SHORTEN, 201, "127.0.0.1", "custom", "https://example.com");
     }
 
     @Test
@@ -60,14 +84,16 @@ class UrlShortenerControllerTest {
         // Arrange
         String alias = "custom";
         String expectedUrl = "https://example.com";
-        when(urlShortenerService.getFullUrl(alias)).thenReturn(expectedUrl);
+        when(urlShortenerService.getRedirect(alias)).thenReturn(new RedirectCache.Target(expectedUrl, RedirectCache.Target.NEVER));
 
         // Act
-        RedirectView redirectView = urlShortenerController.redirectToFullUrl(alias);
+        RedirectView redirectView = urlShortenerController.redirectToFullUrl(alias, mockRequest);
 
         // Assert
         assertEquals(expectedUrl, redirectView.getUrl());
-        verify(urlShortenerService).getFullUrl(alias);
+        verify(urlShortenerService).getRedirect(alias);
+        verify(clickCounter).record(alias);
+        verify(auditLog).record(AuditEventType.REDIRECT, 302, "127.0.0.1", alias, expectedUrl);
     }
 
     @Test
@@ -88,11 +114,12 @@ class UrlShortenerControllerTest {
         String alias = "custom";
 
         // Act
-        ResponseEntity<Void> response = urlShortenerController.deleteUrlMapping(alias);
+        ResponseEntity<Void> response = urlShortenerController.deleteUrlMapping(alias, mockRequest);
 
         // Assert
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
         verify(urlShortenerService).deleteUrlMapping(alias);
+        verify(auditLog).record(AuditEventType.DELETE, 204, "127.0.0.1", alias, null);
     }
 
     @Test
@@ -104,7 +131,20 @@ class UrlShortenerControllerTest {
 
         // Act & Assert
         assertThrows(AliasNotFoundException.class, () ->
-                urlShortenerController.deleteUrlMapping(alias));
+                urlShortenerController.deleteUrlMapping(alias, mockRequest));
         verify(urlShortenerService).deleteUrlMapping(alias);
     }
+
+    @Test
+    void getUrlMappingsPage_ShouldCapTheLimit_AtTheMaximumPageSize() {
+        // Arrange
+        when(urlShortenerService.getUrlMappingsPage(null, 1000)).thenReturn(new UrlMappingPage(List.of(), null));
+
+        // Act
+        ResponseEntity<?> response = urlShortenerController.getUrlMappingsPage(5_000, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(urlShortenerService).getUrlMappingsPage(null, 1000);
+    }
 }
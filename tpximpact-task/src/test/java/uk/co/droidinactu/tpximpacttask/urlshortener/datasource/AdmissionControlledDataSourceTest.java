@@ -0,0 +1,66 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdmissionControlledDataSourceTest {
+
+    private DataSource target;
+    private AdmissionControlledDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        dataSource = new AdmissionControlledDataSource(target, 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    void getConnection_ShouldTimeOut_WhenAllConnectionsAreHeld() throws SQLException {
+        // Arrange
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        // Act & Assert
+        assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+        verify(target, times(2)).getConnection();
+    }
+
+    @Test
+    void close_ShouldReleaseConnectionOnlyOnce() throws SQLException {
+        // Arrange
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+
+        // Act
+        first.close();
+        first.close();
+
+        // Assert
+        assertEquals(1, dataSource.getActive());
+        assertTrue(first.isClosed());
+        assertNotNull(dataSource.getConnection());
+        assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_ShouldReleasePermit_WhenPoolFails() throws SQLException {
+        // Arrange
+        when(target.getConnection()).thenThrow(new SQLException("pool closed"));
+
+        // Act
+        assertThrows(SQLException.class, () -> dataSource.getConnection());
+
+        // Assert
+        assertEquals(0, dataSource.getActive());
+    }
+}
@@ -0,0 +1,31 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FullUrlHashTest {
+
+    @Test
+    void of_ShouldHashEquivalentUrlsTheSame() {
+        // Arrange
+        String url = "https://example.com/a/b?q=1";
+
+        // Act
+        long hash = FullUrlHash.of(url);
+
+        // Assert
+        assertEquals(hash, FullUrlHash.of(" HTTPS://Example.COM:443/a/b?q=1 "));
+        assertEquals(FullUrlHash.of("http://example.com/"), FullUrlHash.of("http://example.com"));
+        assertEquals(FullUrlHash.of("http://example.com/"), FullUrlHash.of("http://example.com:80/"));
+    }
+
+    @Test
+    void sameUrl_ShouldKeepPathQueryAndPortDifferences() {
+        // Act & Assert
+        assertFalse(FullUrlHash.sameUrl("https://example.com/a", "https://example.com/A"));
+        assertFalse(FullUrlHash.sameUrl("https://example.com/a?q=1", "https://example.com/a?q=2"));
+        assertFalse(FullUrlHash.sameUrl("https://example.com:8443/a", "https://example.com/a"));
+        assertTrue(FullUrlHash.sameUrl("not a url", " not a url"));
+    }
+}
@@ -0,0 +1,94 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final long TICK = 1000;
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void advance_ShouldHandBackItems_OnlyOnceTheirDeadlineHasPassed() {
+        // Arrange
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        wheel.schedule("soon", START + 1500);
+        wheel.schedule("later", START + 5000);
+
+        // Act
+        List<String> atOne = wheel.advance(START + 1000);
+        List<String> atTwo = wheel.advance(START + 2000);
+        List<String> atFour = wheel.advance(START + 4999);
+        List<String> atFive = wheel.advance(START + 5000);
+
+        // Assert
+        assertTrue(atOne.isEmpty());
+        assertEquals(List.of("soon"), atTwo);
+        assertTrue(atFour.isEmpty());
+        assertEquals(List.of("later"), atFive);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_ShouldCascadeItems_FromEveryLevel() {
+        // Arrange
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, START);
+        long[] offsets = {70, 4_100, 300_000, 20_000_000};
+        for (long offset : offsets) {
+            wheel.schedule(offset, START + offset * TICK);
+        }
+
+        // Act
+        List<List<Long>> early = new ArrayList<>();
+        List<List<Long>> onTime = new ArrayList<>();
+        for (long offset : offsets) {
+            early.add(wheel.advance(START + (offset - 1) * TICK));
+            onTime.add(wheel.advance(START + offset * TICK));
+        }
+
+        // Assert
+        early.forEach(items -> assertTrue(items.isEmpty()));
+        assertEquals(List.of(List.of(70L), List.of(4_100L), List.of(300_000L), List.of(20_000_000L)), onTime);
+    }
+
+    @Test
+    void advance_ShouldCatchUp_WhenTicksHaveBeenMissed() {
+        // Arrange
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        wheel.schedule("a", START + 10 * TICK);
+        wheel.schedule("b", START + 500 * TICK);
+        wheel.schedule("c", START + 10_000 * TICK);
+
+        // Act
+        List<String> due = wheel.advance(START + 1_000 * TICK);
+
+        // Assert
+        assertEquals(2, due.size());
+        assertTrue(due.containsAll(List.of("a", "b")));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("c"), wheel.advance(START + 10_000 * TICK));
+    }
+
+    @Test
+    void schedule_ShouldHandBackItems_DueInThePast_OrBeyondTheTopLevel() {
+        // Arrange
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        long farFuture = START + (1L << 31) * TICK;
+        wheel.schedule("past", START - 60_000);
+        wheel.schedule("far", farFuture);
+
+        // Act
+        List<String> now = wheel.advance(START);
+        List<String> beforeFar = wheel.advance(farFuture - TICK);
+        List<String> atFar = wheel.advance(farFuture);
+
+        // Assert
+        assertEquals(List.of("past"), now);
+        assertTrue(beforeFar.isEmpty());
+        assertEquals(List.of("far"), atFar);
+    }
+}
@@ -0,0 +1,62 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountingBloomFilterTest {
+
+    @Test
+    void mightContain_ShouldNeverReturnFalseForAddedElements() {
+        // Arrange
+        CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("alias" + i);
+        }
+
+        // Assert
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("alias" + i));
+        }
+    }
+
+    @Test
+    void mightContain_ShouldRejectMostUnknownElements() {
+        // Arrange
+        CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("alias" + i);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("unknown" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void remove_ShouldForgetElementWithoutAffectingOthers() {
+        // Arrange
+        CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.add("alias" + i);
+        }
+
+        // Act
+        filter.remove("alias0");
+
+        // Assert
+        assertFalse(filter.mightContain("alias0"));
+        for (int i = 1; i < 1_000; i++) {
+            assertTrue(filter.mightContain("alias" + i));
+        }
+    }
+}
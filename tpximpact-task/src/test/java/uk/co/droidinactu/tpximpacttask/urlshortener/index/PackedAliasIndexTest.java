@@ -0,0 +1,60 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.index;
+
+import org.junit.jupiter.api.Test;
+import uk.co.droidinactu.tpximpacttask.urlshortener.alias.Base62;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedAliasIndexTest {
+
+    @Test
+    void pack_ShouldRoundTripBase62Aliases_AndRejectOthers() {
+        // Arrange
+        String[] packable = {"A", "AAAAAA", "abc123", "9999999999", "Zz09"};
+        String[] unpackable = {"", "my-alias", "has space", "12345678901", "café"};
+
+        // Act & Assert
+        for (String alias : packable) {
+            assertEquals(alias, PackedAliasIndex.unpack(PackedAliasIndex.pack(alias)));
+        }
+        for (String alias : unpackable) {
+            assertEquals(0, PackedAliasIndex.pack(alias));
+        }
+        assertNotEquals(PackedAliasIndex.pack("A"), PackedAliasIndex.pack("AA"));
+    }
+
+    @Test
+    void put_ShouldBehaveLikeAMap_ThroughResizesAndRemovals() {
+        // Arrange
+        PackedAliasIndex index = new PackedAliasIndex(16);
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // Act
+        for (int i = 0; i < 50_000; i++) {
+            String alias = random.nextInt(10) == 0
+                    ? "custom-" + random.nextInt(2_000)
+                    : Base62.encode(random.nextInt(20_000), 6);
+            if (random.nextInt(4) == 0) {
+                Long previous = expected.remove(alias);
+                assertEquals(previous == null ? PackedAliasIndex.ABSENT : previous, index.remove(alias));
+            } else {
+                Long previous = expected.put(alias, (long) i);
+                assertEquals(previous == null ? PackedAliasIndex.ABSENT : previous, index.put(alias, i));
+            }
+        }
+
+        // Assert
+        assertEquals(expected.size(), index.size());
+        expected.forEach((alias, value) -> assertEquals(value, index.get(alias), alias));
+        Set<String> keys = new HashSet<>();
+        index.forEachKey(keys::add);
+        assertEquals(expected.keySet(), keys);
+    }
+}
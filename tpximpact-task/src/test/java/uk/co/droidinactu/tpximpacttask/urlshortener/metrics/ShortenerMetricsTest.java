@@ -0,0 +1,45 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShortenerMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private ShortenerMetrics shortenerMetrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        shortenerMetrics = new ShortenerMetrics(registry);
+    }
+
+    @Test
+    void recordRedirect_ShouldCountNotFound_WhenAliasIsUnknown() {
+        // Act
+        shortenerMetrics.recordRedirect(TimeUnit.MILLISECONDS.toNanos(2), true);
+        shortenerMetrics.recordRedirect(TimeUnit.MILLISECONDS.toNanos(1), false);
+
+        // Assert
+        assertEquals(1, registry.get("urlshortener.redirect").tag("result", "found").timer().count());
+        assertEquals(1, registry.get("urlshortener.redirect").tag("result", "not_found").timer().count());
+        assertEquals(1, registry.get("urlshortener.alias.not.found").tag("operation", "redirect").counter().count());
+        assertEquals(0, registry.get("urlshortener.alias.not.found").tag("operation", "delete").counter().count());
+    }
+
+    @Test
+    void recordDelete_ShouldTimeEveryDelete_AndCountMisses() {
+        // Act
+        shortenerMetrics.recordDelete(1_000, true);
+        shortenerMetrics.recordDelete(1_000, false);
+
+        // Assert
+        assertEquals(2, registry.get("urlshortener.delete").timer().count());
+        assertEquals(1, registry.get("urlshortener.alias.not.found").tag("operation", "delete").counter().count());
+    }
+}
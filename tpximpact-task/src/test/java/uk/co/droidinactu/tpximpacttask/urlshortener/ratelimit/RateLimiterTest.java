@@ -0,0 +1,126 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+    private RateLimitProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setWrite(new RateLimitProperties.Budget(3, 1));
+        properties.setIdleTimeout(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void tryAcquire_ShouldAdmitABurstOfCapacity_AndThenOnePerRefillInterval() {
+        // Arrange
+        RateLimiter rateLimiter = new RateLimiter(properties, now::get);
+
+        // Act
+        List<Long> burst = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            burst.add(rateLimiter.tryAcquire(EndpointClass.WRITE, "client"));
+        }
+        now.addAndGet(SECOND / 2);
+        long halfway = rateLimiter.tryAcquire(EndpointClass.WRITE, "client");
+        now.addAndGet(SECOND / 2);
+        long refilled = rateLimiter.tryAcquire(EndpointClass.WRITE, "client");
+
+        // Assert
+        assertEquals(List.of(0L, 0L, 0L, SECOND), burst);
+        assertEquals(SECOND / 2, halfway);
+        assertEquals(0, refilled);
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepBudgetsSeparate_PerClientAndEndpointClass() {
+        // Arrange
+        RateLimiter rateLimiter = new RateLimiter(properties, now::get);
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire(EndpointClass.WRITE, "flooding");
+        }
+
+        // Act
+        long write = rateLimiter.tryAcquire(EndpointClass.WRITE, "flooding");
+        long redirect = rateLimiter.tryAcquire(EndpointClass.REDIRECT, "flooding");
+        long otherClient = rateLimiter.tryAcquire(EndpointClass.WRITE, "other");
+
+        // Assert
+        assertTrue(write > 0);
+        assertEquals(0, redirect);
+        assertEquals(0, otherClient);
+    }
+
+    @Test
+    void tryAcquire_ShouldNeverAdmitMoreThanTheBudget_FromConcurrentThreads() throws Exception {
+        // Arrange
+        properties.setWrite(new RateLimitProperties.Budget(1000, 1));
+        RateLimiter rateLimiter = new RateLimiter(properties, now::get);
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+
+        // Act
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            results.add(threads.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (rateLimiter.tryAcquire(EndpointClass.WRITE, "client") == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        threads.shutdown();
+
+        // Assert
+        assertEquals(1000, admitted.get());
+    }
+
+    @Test
+    void evictIdle_ShouldOnlyForgetClients_WhoseBucketsHaveBeenFullForTheIdleTimeout() {
+        // Arrange
+        RateLimiter rateLimiter = new RateLimiter(properties, now::get);
+        rateLimiter.tryAcquire(EndpointClass.WRITE, "idle");
+        now.addAndGet(30 * SECOND);
+        rateLimiter.tryAcquire(EndpointClass.WRITE, "active");
+        now.addAndGet(31 * SECOND);
+
+        // Act
+        int evicted = rateLimiter.evictIdle();
+
+        // Assert
+        assertEquals(1, evicted);
+        assertEquals(1, rateLimiter.size());
+        assertEquals(0, rateLimiter.tryAcquire(EndpointClass.WRITE, "idle"));
+    }
+
+    @Test
+    void constructor_ShouldReject_ABudgetThatNeverRefills() {
+        // Arrange
+        properties.setList(new RateLimitProperties.Budget(5, 0));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(properties, now::get));
+    }
+}
@@ -0,0 +1,92 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlRequest;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlResult;
+import uk.co.droidinactu.tpximpacttask.urlshortener.index.AliasMembershipFilter;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.UrlMappingStore;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Covers the row by row fallback taken when the insert of a whole batch fails.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:bulk-fallback-test")
+class BulkShortenServiceTest {
+
+    @Autowired
+    private BulkShortenService bulkShortenService;
+
+    @Autowired
+    private UrlShortenerService urlShortenerService;
+
+    @Autowired
+    private AliasMembershipFilter aliasMembershipFilter;
+
+    @MockitoSpyBean
+    private UrlMappingStore urlMappingStore;
+
+    @Test
+    void shortenUrls_ShouldReportACustomAlias_TakenWhileTheBatchWasPrepared() {
+        // Arrange
+        doThrow(new DuplicateKeyException("batch"))
+                .doThrow(new DuplicateKeyException("alias"))
+                .doCallRealMethod()
+                .when(urlMappingStore).insertAll(anyList());
+
+        // Act
+        List<ShortenUrlResult> results = bulkShortenService.shortenUrls(
+                List.of(new ShortenUrlRequest("https://example.com/raced", "raced")), "http://localhost");
+
+        // Assert
+        assertEquals("Custom alias is already taken: raced", results.get(0).getError());
+    }
+
+    @Test
+    void shortenUrls_ShouldRetryAGeneratedAlias_TakenWhileTheBatchWasPrepared() {
+        // Arrange
+        doThrow(new DuplicateKeyException("batch"))
+                .doThrow(new DuplicateKeyException("alias"))
+                .doCallRealMethod()
+                .when(urlMappingStore).insertAll(anyList());
+
+        // Act
+        List<ShortenUrlResult> results = bulkShortenService.shortenUrls(
+                List.of(new ShortenUrlRequest("https://example.com/retried", null)), "http://localhost");
+
+        // Assert
+        String shortUrl = results.get(0).getShortUrl();
+        assertNotNull(shortUrl, results.get(0).getError());
+        assertEquals("https://example.com/retried",
+                urlShortenerService.getFullUrl(shortUrl.substring(shortUrl.lastIndexOf('/') + 1)));
+    }
+
+    @Test
+    void shortenUrls_ShouldNotBlameTheAlias_ForOtherConstraintViolations() {
+        // Arrange
+        doThrow(new DataIntegrityViolationException("batch"))
+                .doThrow(new DataIntegrityViolationException("row"))
+                .doCallRealMethod()
+                .when(urlMappingStore).insertAll(anyList());
+        long sizeBefore = aliasMembershipFilter.approximateSize();
+
+        // Act
+        List<ShortenUrlResult> results = bulkShortenService.shortenUrls(List.of(
+                new ShortenUrlRequest("https://example.com/broken", "broken"),
+                new ShortenUrlRequest("https://example.com/fine", "fine")), "http://localhost");
+
+        // Assert
+        assertEquals("The URL could not be stored", results.get(0).getError());
+        assertEquals("http://localhost/fine", results.get(1).getShortUrl());
+        assertEquals(sizeBefore + 1, aliasMembershipFilter.approximateSize());
+    }
+}
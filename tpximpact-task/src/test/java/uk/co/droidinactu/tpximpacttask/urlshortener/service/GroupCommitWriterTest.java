@@ -0,0 +1,183 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import uk.co.droidinactu.tpximpacttask.exception.AliasTakenException;
+import uk.co.droidinactu.tpximpacttask.urlshortener.metrics.ShortenerMetrics;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.StorageProperties;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.log.LogUrlMappingStore;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+class GroupCommitWriterTest {
+
+    @TempDir
+    Path directory;
+
+    private LogUrlMappingStore store;
+    private SimpleMeterRegistry registry;
+    private GroupCommitProperties properties;
+    private GroupCommitWriter writer;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties.Log storageProperties = new StorageProperties.Log();
+        storageProperties.setDirectory(directory);
+        store = new LogUrlMappingStore(storageProperties);
+        registry = new SimpleMeterRegistry();
+        properties = new GroupCommitProperties();
+        properties.setEnabled(true);
+        properties.setMaxDelay(Duration.ofSeconds(5));
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+        callers.shutdownNow();
+        store.close();
+    }
+
+    @Test
+    void insert_ShouldInsertConcurrentMappings_InOneGroup() throws Exception {
+        // Arrange
+        properties.setMaxBatchSize(20);
+        writer = start();
+
+        // Act
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            UrlMapping urlMapping = mapping("alias" + i);
+            results.add(callers.submit(() -> writer.insert(urlMapping)));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+
+        // Assert
+        DistributionSummary groups = registry.get("urlshortener.group.commit.size").summary();
+        assertEquals(1, groups.count());
+        assertEquals(20, groups.totalAmount());
+        assertEquals(20, store.count());
+    }
+
+    @Test
+    void insert_ShouldOnlyRejectTheTakenAlias_WhenItsGroupFails() throws Exception {
+        // Arrange
+        store.save(mapping("taken"));
+        properties.setMaxBatchSize(2);
+        writer = start();
+
+        // Act
+        Future<?> taken = callers.submit(() -> writer.insert(mapping("taken")));
+        Future<?> free = callers.submit(() -> writer.insert(mapping("free")));
+
+        // Assert
+        ExecutionException e = assertThrows(ExecutionException.class, taken::get);
+        assertInstanceOf(AliasTakenException.class, e.getCause());
+        free.get();
+        assertTrue(store.exists("free"));
+        assertEquals(2, store.count());
+    }
+
+    @Test
+    void insert_ShouldRejectTheSecondOfTwoInserts_ForTheSameAliasInOneGroup() throws Exception {
+        // Arrange
+        properties.setMaxBatchSize(2);
+        writer = start();
+        UrlMapping first = mapping("twice");
+        UrlMapping second = new UrlMapping("twice", "https://example.com/other", "http://localhost:8080/twice", true,
+                LocalDateTime.of(2024, 1, 1, 0, 0), null, null);
+
+        // Act
+        Future<?> firstResult = callers.submit(() -> writer.insert(first));
+        Future<?> secondResult = callers.submit(() -> writer.insert(second));
+
+        // Assert
+        List<UrlMapping> inserted = new ArrayList<>();
+        int taken = 0;
+        for (UrlMapping urlMapping : List.of(first, second)) {
+            try {
+                (urlMapping == first ? firstResult : secondResult).get();
+                inserted.add(urlMapping);
+            } catch (ExecutionException e) {
+                assertInstanceOf(AliasTakenException.class, e.getCause());
+                taken++;
+            }
+        }
+        assertEquals(1, taken);
+        assertEquals(1, store.count());
+        assertEquals(inserted.get(0).getFullUrl(), store.findByAlias("twice").orElseThrow().getFullUrl());
+    }
+
+    @Test
+    void insert_ShouldNotBlameTheAlias_ForOtherConstraintViolations() throws Exception {
+        // Arrange
+        LogUrlMappingStore rejecting = spy(store);
+        doAnswer(invocation -> {
+            List<UrlMapping> urlMappings = invocation.getArgument(0);
+            if (urlMappings.stream().anyMatch(urlMapping -> urlMapping.getAlias().equals("broken"))) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            return invocation.callRealMethod();
+        }).when(rejecting).insertAll(anyList());
+        properties.setMaxBatchSize(2);
+        writer = new GroupCommitWriter(rejecting, properties, new ShortenerMetrics(registry));
+        writer.start();
+
+        // Act
+        Future<?> broken = callers.submit(() -> writer.insert(mapping("broken")));
+        Future<?> fine = callers.submit(() -> writer.insert(mapping("fine")));
+
+        // Assert
+        ExecutionException e = assertThrows(ExecutionException.class, broken::get);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertEquals("The URL could not be stored", e.getCause().getMessage());
+        fine.get();
+        assertTrue(store.exists("fine"));
+    }
+
+    @Test
+    void insert_ShouldInsertDirectly_WhenTheWriterIsNotRunning() {
+        // Arrange
+        writer = new GroupCommitWriter(store, properties, new ShortenerMetrics(registry));
+
+        // Act
+        writer.insert(mapping("direct"));
+
+        // Assert
+        assertTrue(store.exists("direct"));
+        assertThrows(AliasTakenException.class, () -> writer.insert(mapping("direct")));
+    }
+
+    private GroupCommitWriter start() {
+        GroupCommitWriter groupCommitWriter = new GroupCommitWriter(store, properties, new ShortenerMetrics(registry));
+        groupCommitWriter.start();
+        return groupCommitWriter;
+    }
+
+    private static UrlMapping mapping(String alias) {
+        return new UrlMapping(alias, "https://example.com/" + alias, "http://localhost:8080/" + alias, false,
+                LocalDateTime.of(2024, 1, 1, 0, 0), null, null);
+    }
+}
@@ -0,0 +1,109 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlRequest;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.RedirectStatus;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dedup-test",
+        "urlshortener.dedup.enabled=true"
+})
+class UrlShortenerServiceDedupTest {
+
+    private static final String BASE_URL = "http://localhost";
+
+    @Autowired
+    private UrlShortenerService urlShortenerService;
+
+    @Test
+    void shortenUrl_ShouldReturnTheExistingAlias_WhenTheSameUrlIsShortenedAgain() {
+        // Arrange
+        String first = shorten(new ShortenUrlRequest("https://example.com/same", null));
+
+        // Act
+        String second = shorten(new ShortenUrlRequest("https://example.com/same", null));
+        String equivalent = shorten(new ShortenUrlRequest(" HTTPS://Example.COM:443/same", null));
+
+        // Assert
+        assertEquals(first, second);
+        assertEquals(first, equivalent);
+    }
+
+    @Test
+    void shortenUrl_ShouldCreateADistinctMapping_ForEachCustomAlias() {
+        // Arrange
+        String generated = shorten(new ShortenUrlRequest("https://example.com/custom", null));
+
+        // Act
+        String custom = shorten(new ShortenUrlRequest("https://example.com/custom", "dedup-custom"));
+        String another = shorten(new ShortenUrlRequest("https://example.com/custom", "dedup-another"));
+        String generatedAgain = shorten(new ShortenUrlRequest("https://example.com/custom", null));
+
+        // Assert
+        assertEquals(BASE_URL + "/dedup-custom", custom);
+        assertEquals(BASE_URL + "/dedup-another", another);
+        assertEquals(generated, generatedAgain);
+    }
+
+    @Test
+    void shortenUrl_ShouldNotReuseAnAlias_ForARequestWithAnExpiryTime() {
+        // Arrange
+        String generated = shorten(new ShortenUrlRequest("https://example.com/expiring", null));
+
+        // Act
+        String expiring = shorten(new ShortenUrlRequest("https://example.com/expiring", null,
+                LocalDateTime.now().plusDays(1)));
+
+        // Assert
+        assertNotEquals(generated, expiring);
+    }
+
+    @Test
+    void shortenUrl_ShouldNotReuseAnExpiringMapping() {
+        // Arrange
+        String expiring = shorten(new ShortenUrlRequest("https://example.com/expires-first", null,
+                LocalDateTime.now().plusDays(1)));
+
+        // Act
+        String first = shorten(new ShortenUrlRequest("https://example.com/expires-first", null));
+        String second = shorten(new ShortenUrlRequest("https://example.com/expires-first", null));
+
+        // Assert
+        assertNotEquals(expiring, first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    void shortenUrl_ShouldNotReuseMappings_ThatChooseHowTheyRedirect() {
+        // Arrange
+        String permanent = shorten(new ShortenUrlRequest("https://example.com/options", null, null,
+                RedirectStatus.MOVED_PERMANENTLY, null));
+
+        // Act
+        String cached = shorten(new ShortenUrlRequest("https://example.com/options", null, null, null, 60L));
+        String plain = shorten(new ShortenUrlRequest("https://example.com/options", null));
+        String permanentAgain = shorten(new ShortenUrlRequest("https://example.com/options", null, null,
+                RedirectStatus.MOVED_PERMANENTLY, null));
+
+        // Assert
+        assertNotEquals(permanent, cached);
+        assertNotEquals(permanent, plain);
+        assertNotEquals(cached, plain);
+        assertNotEquals(permanent, permanentAgain);
+        assertEquals(301, urlShortenerService.getRedirect(alias(permanent)).statusCode());
+    }
+
+    private String shorten(ShortenUrlRequest request) {
+        return urlShortenerService.shortenUrl(request, BASE_URL).getShortUrl();
+    }
+
+    private static String alias(String shortUrl) {
+        return shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+    }
+}
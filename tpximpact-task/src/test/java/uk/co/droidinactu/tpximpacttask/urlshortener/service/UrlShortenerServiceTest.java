@@ -0,0 +1,205 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import uk.co.droidinactu.tpximpacttask.exception.AliasNotFoundException;
+import uk.co.droidinactu.tpximpacttask.exception.AliasTakenException;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dto.ShortenUrlRequest;
+import uk.co.droidinactu.tpximpacttask.urlshortener.index.AliasMembershipFilter;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.RedirectStatus;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class UrlShortenerServiceTest {
+
+    private static final AtomicInteger STATEMENTS = new AtomicInteger();
+    private static volatile Thread countedThread;
+
+    @Autowired
+    private UrlShortenerService urlShortenerService;
+
+    @Autowired
+    private AliasMembershipFilter aliasMembershipFilter;
+
+    @TestConfiguration
+    static class StatementCounting {
+
+        /**
+         * Counts the statements prepared on the test thread, leaving out background work such as flushing click counts.
+         */
+        @Bean
+        static BeanPostProcessor statementCountingPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            return counting(super.getConnection());
+                        }
+                    };
+                }
+            };
+        }
+
+        private static Connection counting(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (Thread.currentThread() == countedThread
+                                && (name.startsWith("prepare") || name.equals("createStatement"))) {
+                            STATEMENTS.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        // lease a block of counter values first, as that happens once per block rather than per create
+        urlShortenerService.shortenUrl(new ShortenUrlRequest("https://example.com/warm-up", null), "http://localhost");
+        countedThread = Thread.currentThread();
+        STATEMENTS.set(0);
+    }
+
+    @Test
+    void shortenUrl_ShouldIssueOneStatement_ForACustomAlias() {
+        // Act
+        urlShortenerService.shortenUrl(new ShortenUrlRequest("https://example.com", "one-statement"), "http://localhost");
+
+        // Assert
+        assertEquals(1, STATEMENTS.get());
+        assertEquals("https://example.com", urlShortenerService.getFullUrl("one-statement"));
+    }
+
+    @Test
+    void shortenUrl_ShouldIssueOneStatement_AndThrow_WhenTheCustomAliasIsTaken() {
+        // Arrange
+        urlShortenerService.shortenUrl(new ShortenUrlRequest("https://example.com/first", "taken-alias"), "http://localhost");
+        STATEMENTS.set(0);
+
+        // Act & Assert
+        assertThrows(AliasTakenException.class, () -> urlShortenerService.shortenUrl(
+                new ShortenUrlRequest("https://example.com/second", "taken-alias"), "http://localhost"));
+        assertEquals(1, STATEMENTS.get());
+        assertEquals("https://example.com/first", urlShortenerService.getFullUrl("taken-alias"));
+    }
+
+    @Test
+    void shortenUrl_ShouldLeaveTheFilterAsItWas_WhenTheCustomAliasIsTaken() {
+        // Arrange
+        urlShortenerService.shortenUrl(new ShortenUrlRequest("https://example.com/first", "filter-taken"), "http://localhost");
+        long sizeBefore = aliasMembershipFilter.approximateSize();
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            assertThrows(AliasTakenException.class, () -> urlShortenerService.shortenUrl(
+                    new ShortenUrlRequest("https://example.com/again", "filter-taken"), "http://localhost"));
+        }
+
+        // Assert
+        assertEquals(sizeBefore, aliasMembershipFilter.approximateSize());
+        assertFalse(aliasMembershipFilter.isDefinitelyAbsent("filter-taken"));
+    }
+
+    @Test
+    void shortenUrl_ShouldIssueOneStatement_ForAGeneratedAlias() {
+        // Act
+        urlShortenerService.shortenUrl(new ShortenUrlRequest("https://example.com/generated", null), "http://localhost");
+
+        // Assert
+        assertEquals(1, STATEMENTS.get());
+    }
+
+    @Test
+    void shortenUrl_ShouldIssueOneStatement_AndStoreTheRedirectOptions() {
+        // Arrange
+        ShortenUrlRequest request = new ShortenUrlRequest("https://example.com/permanent", "permanent", null,
+                RedirectStatus.PERMANENT_REDIRECT, 3600L);
+
+        // Act
+        urlShortenerService.shortenUrl(request, "http://localhost");
+
+        // Assert
+        assertEquals(1, STATEMENTS.get());
+        RedirectCache.Target target = urlShortenerService.getRedirect("permanent");
+        assertEquals("https://example.com/permanent", target.fullUrl());
+        assertEquals(308, target.statusCode());
+        assertEquals(3600L, target.cacheMaxAge());
+    }
+
+    @Test
+    void shortenUrl_ShouldCreateANewMapping_ForARepeatedUrl_WhenDedupIsOff() {
+        // Act
+        String first = urlShortenerService.shortenUrl(
+                new ShortenUrlRequest("https://example.com/repeated", null), "http://localhost").getShortUrl();
+        String second = urlShortenerService.shortenUrl(
+                new ShortenUrlRequest("https://example.com/repeated", null), "http://localhost").getShortUrl();
+
+        // Assert
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void deleteUrlMapping_ShouldRemoveTheAliasFromTheFilterOnce_WhenDeletedConcurrently() throws Exception {
+        // Arrange
+        urlShortenerService.shortenUrl(new ShortenUrlRequest("https://example.com/doomed", "doomed"), "http://localhost");
+        long sizeBefore = aliasMembershipFilter.approximateSize();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> deletes = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            deletes.add(executor.submit(() -> {
+                start.await();
+                try {
+                    urlShortenerService.deleteUrlMapping("doomed");
+                    return true;
+                } catch (AliasNotFoundException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int succeeded = 0;
+        for (Future<Boolean> delete : deletes) {
+            succeeded += delete.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(1, succeeded);
+        assertEquals(sizeBefore - 1, aliasMembershipFilter.approximateSize());
+        assertThrows(AliasNotFoundException.class, () -> urlShortenerService.getFullUrl("doomed"));
+    }
+}
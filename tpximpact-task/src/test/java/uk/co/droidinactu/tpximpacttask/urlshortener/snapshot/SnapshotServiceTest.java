@@ -0,0 +1,122 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.co.droidinactu.tpximpacttask.urlshortener.alias.AliasGeneratorConfiguration;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCache;
+import uk.co.droidinactu.tpximpacttask.urlshortener.cache.RedirectCacheProperties;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.RedirectStatus;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.StorageProperties;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.log.LogUrlMappingStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void importSnapshot_ShouldLoadExportedMappings_AndWarmCacheAndAliasCounter() throws IOException {
+        // Arrange
+        LogUrlMappingStore source = store("source");
+        RedirectCache sourceCache = new RedirectCache(new RedirectCacheProperties());
+        for (int i = 0; i < 2500; i++) {
+            source.save(mapping("alias" + i, i));
+        }
+        source.leaseBlock(AliasGeneratorConfiguration.SEQUENCE_NAME, 5000);
+        sourceCache.lookup("alias42", alias -> RedirectCache.Target.of(source.findByAlias(alias).orElseThrow()));
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        new SnapshotService(source, sourceCache, new SnapshotProperties()).export(snapshot);
+
+        LogUrlMappingStore target = store("target");
+        target.save(mapping("alias7", "https://example.com/existing", 9999));
+        RedirectCache targetCache = new RedirectCache(new RedirectCacheProperties());
+        SnapshotProperties properties = new SnapshotProperties();
+        properties.setBatchSize(1000);
+
+        // Act
+        long imported = new SnapshotService(target, targetCache, properties)
+                .importSnapshot(new ByteArrayInputStream(snapshot.toByteArray()));
+
+        // Assert
+        assertEquals(2499, imported);
+        assertEquals(2500, target.count());
+        assertEquals("https://example.com/existing", target.findByAlias("alias7").orElseThrow().getFullUrl());
+        UrlMapping copy = target.findByAlias("alias1234").orElseThrow();
+        assertEquals("https://example.com/alias1234", copy.getFullUrl());
+        assertEquals("http://localhost:8080/alias1234", copy.getShortUrl());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(1234), copy.getCreatedAt());
+        assertTrue(targetCache.contains("alias42"));
+        assertFalse(targetCache.contains("alias43"));
+        assertEquals(5001, target.leaseBlock(AliasGeneratorConfiguration.SEQUENCE_NAME, 1));
+    }
+
+    @Test
+    void importSnapshot_ShouldKeepEachMappingsRedirectStatusAndCaching() throws IOException {
+        // Arrange
+        LogUrlMappingStore source = store("source");
+        UrlMapping permanent = mapping("permanent", 1);
+        permanent.setRedirectStatus(RedirectStatus.PERMANENT_REDIRECT);
+        permanent.setCacheMaxAge(3600L);
+        source.save(permanent);
+        source.save(mapping("default", 2));
+        RedirectCache cache = new RedirectCache(new RedirectCacheProperties());
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        new SnapshotService(source, cache, new SnapshotProperties()).export(snapshot);
+        LogUrlMappingStore target = store("target");
+
+        // Act
+        new SnapshotService(target, cache, new SnapshotProperties())
+                .importSnapshot(new ByteArrayInputStream(snapshot.toByteArray()));
+
+        // Assert
+        UrlMapping copy = target.findByAlias("permanent").orElseThrow();
+        assertEquals(RedirectStatus.PERMANENT_REDIRECT, copy.getRedirectStatus());
+        assertEquals(3600L, copy.getCacheMaxAge());
+        UrlMapping defaults = target.findByAlias("default").orElseThrow();
+        assertNull(defaults.getRedirectStatus());
+        assertNull(defaults.getCacheMaxAge());
+    }
+
+    @Test
+    void importSnapshot_ShouldRejectCorruptSnapshot() throws IOException {
+        // Arrange
+        LogUrlMappingStore source = store("source");
+        source.save(mapping("alias1", 1));
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        RedirectCache cache = new RedirectCache(new RedirectCacheProperties());
+        new SnapshotService(source, cache, new SnapshotProperties()).export(snapshot);
+        byte[] wrongVersion = snapshot.toByteArray();
+        wrongVersion[7]++;
+        byte[] truncated = Arrays.copyOf(snapshot.toByteArray(), snapshot.size() - 6);
+        SnapshotService service = new SnapshotService(store("target"), cache, new SnapshotProperties());
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> service.importSnapshot(new ByteArrayInputStream(wrongVersion)));
+        assertThrows(IOException.class, () -> service.importSnapshot(new ByteArrayInputStream(truncated)));
+    }
+
+    private LogUrlMappingStore store(String name) {
+        StorageProperties.Log properties = new StorageProperties.Log();
+        properties.setDirectory(directory.resolve(name));
+        return new LogUrlMappingStore(properties);
+    }
+
+    private static UrlMapping mapping(String alias, int second) {
+        return mapping(alias, "https://example.com/" + alias, second);
+    }
+
+    private static UrlMapping mapping(String alias, String fullUrl, int second) {
+        return new UrlMapping(alias, fullUrl, "http://localhost:8080/" + alias, false,
+                LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(second), null, null);
+    }
+}
@@ -0,0 +1,59 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.store;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Covers startup with compact storage disabled, which only needs to scan the table while a row may
+ * still be stored compactly.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:compact-migration-test")
+class CompactStorageMigrationTest {
+
+    @Autowired
+    private CompactStorageMigration compactStorageMigration;
+
+    @Autowired
+    private StorageProperties storageProperties;
+
+    @Autowired
+    private CompactUrlCodec compactUrlCodec;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void run_ShouldRequireBothUrls_OnceNoRowIsStoredCompactly() {
+        // Assert
+        assertTrue(compactStorageMigration.urlsRequired());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void run_ShouldSkipTheScan_WhenBothUrlsAreRequired() {
+        // Arrange
+        JdbcTemplate watched = spy(jdbcTemplate);
+        CompactStorageMigration migration =
+                new CompactStorageMigration(storageProperties, compactUrlCodec, watched, transactionManager);
+
+        // Act
+        migration.run(null);
+
+        // Assert
+        verify(watched, never()).query(anyString(), any(RowMapper.class), any(), any());
+    }
+}
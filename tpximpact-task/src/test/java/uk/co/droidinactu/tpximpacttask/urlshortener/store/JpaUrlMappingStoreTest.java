@@ -0,0 +1,47 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.store;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:jpa-store-test")
+class JpaUrlMappingStoreTest {
+
+    @Autowired
+    private UrlMappingStore urlMappingStore;
+
+    @Test
+    void deleteExpired_ShouldReportOnlyTheMappingsItDeleted() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        urlMappingStore.insertAll(List.of(
+                mapping("jpa-expired", now.minusMinutes(1)),
+                mapping("jpa-gone", now.minusMinutes(1)),
+                mapping("jpa-current", now.plusDays(1)),
+                mapping("jpa-permanent", null)));
+        // deleted by a request, or another instance, after the expiry was scheduled
+        urlMappingStore.delete("jpa-gone");
+
+        // Act
+        List<String> deleted = urlMappingStore.deleteExpired(
+                List.of("jpa-expired", "jpa-gone", "jpa-current", "jpa-permanent", "jpa-missing"), now);
+        List<String> deletedAgain = urlMappingStore.deleteExpired(List.of("jpa-expired"), now);
+
+        // Assert
+        assertEquals(List.of("jpa-expired"), deleted);
+        assertEquals(List.of(), deletedAgain);
+        assertTrue(urlMappingStore.exists("jpa-current"));
+        assertTrue(urlMappingStore.exists("jpa-permanent"));
+    }
+
+    private static UrlMapping mapping(String alias, LocalDateTime expiresAt) {
+        return new UrlMapping(alias, "https://example.com/" + alias, "http://localhost:8080/" + alias, false,
+                LocalDateTime.now(), null, expiresAt);
+    }
+}
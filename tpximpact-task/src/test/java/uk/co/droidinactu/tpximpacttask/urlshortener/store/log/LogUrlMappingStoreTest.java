@@ -0,0 +1,242 @@
+package uk.co.droidinactu.tpximpacttask.urlshortener.store.log;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.util.unit.DataSize;
+import uk.co.droidinactu.tpximpacttask.urlshortener.dedup.FullUrlHash;
+import uk.co.droidinactu.tpximpacttask.urlshortener.expiry.AliasExpiry;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.RedirectStatus;
+import uk.co.droidinactu.tpximpacttask.urlshortener.model.UrlMapping;
+import uk.co.droidinactu.tpximpacttask.urlshortener.store.StorageProperties;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogUrlMappingStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private StorageProperties.Log properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StorageProperties.Log();
+        properties.setDirectory(directory);
+        properties.setSegmentSize(DataSize.ofKilobytes(4));
+    }
+
+    @Test
+    void findByAlias_ShouldReturnSavedMapping_AndNothingOnceDeleted() {
+        // Arrange
+        LogUrlMappingStore store = new LogUrlMappingStore(properties);
+        store.save(mapping("abc", 1));
+
+        // Act
+        UrlMapping found = store.findByAlias("abc").orElseThrow();
+        boolean deleted = store.delete("abc");
+
+        // Assert
+        assertEquals("https://example.com/abc", found.getFullUrl());
+        assertEquals("http://localhost:8080/abc", found.getShortUrl());
+        assertTrue(deleted);
+        assertTrue(store.findByAlias("abc").isEmpty());
+        assertFalse(store.delete("abc"));
+    }
+
+    @Test
+    void open_ShouldRecoverMappings_WithAndWithoutSnapshot() throws IOException {
+        // Arrange
+        LogUrlMappingStore store = new LogUrlMappingStore(properties);
+        for (int i = 0; i < 200; i++) {
+            store.save(mapping("alias" + i, i));
+        }
+        store.delete("alias7");
+        store.save(mapping("alias8", 500));
+        store.close();
+
+        // Act
+        LogUrlMappingStore fromSnapshot = new LogUrlMappingStore(properties);
+        fromSnapshot.save(mapping("after", 1000));
+        Files.delete(directory.resolve(LogUrlMappingStore.SNAPSHOT_FILE));
+        LogUrlMappingStore fromLog = new LogUrlMappingStore(properties);
+
+        // Assert
+        for (LogUrlMappingStore recovered : List.of(fromSnapshot, fromLog)) {
+            assertEquals(200, recovered.count());
+            assertTrue(recovered.findByAlias("alias7").isEmpty());
+            assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(500),
+                    recovered.findByAlias("alias8").orElseThrow().getCreatedAt());
+            assertEquals("alias9", recovered.findPage(null, null, 10).get(7).getAlias());
+        }
+        assertTrue(fromLog.exists("after"));
+    }
+
+    @Test
+    void compact_ShouldDeleteMostlyDeadSegments_AndKeepLiveMappings() throws IOException {
+        // Arrange
+        LogUrlMappingStore store = new LogUrlMappingStore(properties);
+        for (int i = 0; i < 200; i++) {
+            store.save(mapping("alias" + i, i));
+        }
+        for (int i = 0; i < 200; i++) {
+            if (i % 10 != 0) {
+                store.delete("alias" + i);
+            }
+        }
+        long segmentsBefore = segmentFiles();
+
+        // Act
+        store.compact();
+        store.close();
+        Files.delete(directory.resolve(LogUrlMappingStore.SNAPSHOT_FILE));
+        LogUrlMappingStore recovered = new LogUrlMappingStore(properties);
+
+        // Assert
+        assertTrue(segmentFiles() < segmentsBefore);
+        assertEquals(20, recovered.count());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i % 10 == 0, recovered.exists("alias" + i), "alias" + i);
+        }
+    }
+
+    @Test
+    void insertAll_ShouldStoreNothing_WhenAnyAliasIsTaken() {
+        // Arrange
+        LogUrlMappingStore store = new LogUrlMappingStore(properties);
+        store.save(mapping("taken", 1));
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class,
+                () -> store.insertAll(List.of(mapping("new", 2), mapping("taken", 3))));
+        assertFalse(store.exists("new"));
+    }
+
+    @Test
+    void insertAll_ShouldStoreNothing_WhenTheSameAliasIsInsertedTwice() {
+        // Arrange
+        LogUrlMappingStore store = new LogUrlMappingStore(properties);
+
+        // Act & Assert
+        assertThrows(DuplicateKeyException.class,
+                () -> store.insertAll(List.of(mapping("other", 1), mapping("twice", 2), mapping("twice", 3))));
+        assertFalse(store.exists("other"));
+        assertFalse(store.exists("twice"));
+    }
+
+    @Test
+    void leaseBlock_ShouldNeverRepeatValues_AcrossRestarts() {
+        // Arrange
+        LogUrlMappingStore store = new LogUrlMappingStore(properties);
+        long first = store.leaseBlock("url_mappings", 100);
+        long second = store.leaseBlock("url_mappings", 100);
+
+        // Act
+        LogUrlMappingStore restarted = new LogUrlMappingStore(properties);
+        long third = restarted.leaseBlock("url_mappings", 100);
+
+        // Assert
+        assertEquals(1, first);
+        assertEquals(101, second);
+        assertEquals(201, third);
+    }
+
+    @Test
+    void findByFullUrlHashes_ShouldFindGeneratedAliases_AfterRestart() {
+        // Arrange
+        LogUrlMappingStore store = new LogUrlMappingStore(properties, true);
+        store.save(mapping("generated", 1));
+        UrlMapping custom = mapping("custom", 2);
+        custom.setFullUrl("https://example.com/custom-only");
+        custom.setIsCustomised(true);
+        store.save(custom);
+        store.close();
+
+        // Act
+        LogUrlMappingStore restarted = new LogUrlMappingStore(properties, true);
+        List<UrlMapping> found = restarted.findByFullUrlHashes(List.of(
+                FullUrlHash.of("HTTPS://Example.com:443/generated"), FullUrlHash.of("https://example.com/custom-only")));
+
+        // Assert
+        assertEquals(1, found.size());
+        assertEquals("generated", found.get(0).getAlias());
+        restarted.delete("generated");
+        assertTrue(restarted.findByFullUrlHashes(List.of(FullUrlHash.of("https://example.com/generated"))).isEmpty());
+    }
+
+    @Test
+    void deleteExpired_ShouldOnlyDeleteMappingsThatHaveExpired_AfterRestart() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.of(2024, 6, 1, 12, 0);
+        LogUrlMappingStore store = new LogUrlMappingStore(properties);
+        UrlMapping expired = mapping("expired", 1);
+        expired.setExpiresAt(now.minusSeconds(1));
+        UrlMapping current = mapping("current", 2);
+        current.setExpiresAt(now.plusDays(1));
+        store.save(expired);
+        store.save(current);
+        store.save(mapping("permanent", 3));
+        store.close();
+
+        // Act
+        LogUrlMappingStore restarted = new LogUrlMappingStore(properties);
+        List<AliasExpiry> expiries = new ArrayList<>();
+        restarted.forEachExpiry(expiries::add);
+        List<String> deleted = restarted.deleteExpired(List.of("expired", "current", "permanent", "missing"), now);
+
+        // Assert
+        assertEquals(2, expiries.size());
+        assertTrue(expiries.contains(new AliasExpiry("current", now.plusDays(1))));
+        assertEquals(List.of("expired"), deleted);
+        assertTrue(restarted.findByAlias("expired").isEmpty());
+        assertEquals(now.plusDays(1), restarted.findByAlias("current").orElseThrow().getExpiresAt());
+        assertTrue(restarted.findByAlias("permanent").isPresent());
+    }
+
+    @Test
+    void open_ShouldRecoverRedirectOptions_AndNotDeduplicateMappingsWithThem() {
+        // Arrange
+        LogUrlMappingStore store = new LogUrlMappingStore(properties, true);
+        UrlMapping temporary = mapping("temporary", 1);
+        temporary.setRedirectStatus(RedirectStatus.TEMPORARY_REDIRECT);
+        UrlMapping cached = mapping("cached", 2);
+        cached.setCacheMaxAge(600L);
+        store.save(temporary);
+        store.save(cached);
+        store.close();
+
+        // Act
+        LogUrlMappingStore restarted = new LogUrlMappingStore(properties, true);
+
+        // Assert
+        UrlMapping recoveredTemporary = restarted.findByAlias("temporary").orElseThrow();
+        assertEquals(RedirectStatus.TEMPORARY_REDIRECT, recoveredTemporary.getRedirectStatus());
+        assertNull(recoveredTemporary.getCacheMaxAge());
+        UrlMapping recoveredCached = restarted.findByAlias("cached").orElseThrow();
+        assertNull(recoveredCached.getRedirectStatus());
+        assertEquals(600L, recoveredCached.getCacheMaxAge());
+        assertTrue(restarted.findByFullUrlHashes(List.of(
+                FullUrlHash.of("https://example.com/temporary"), FullUrlHash.of("https://example.com/cached"))).isEmpty());
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".log")).count();
+        }
+    }
+
+    private static UrlMapping mapping(String alias, int second) {
+        return new UrlMapping(alias, "https://example.com/" + alias, "http://localhost:8080/" + alias, false,
+                LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(second), null, null);
+    }
+}